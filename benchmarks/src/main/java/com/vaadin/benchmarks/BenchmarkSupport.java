@@ -0,0 +1,182 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.mockito.Mockito;
+
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.DeploymentConfiguration;
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.RequestMetrics;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.HorizontalLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * Creates the sessions and UIs used by the benchmarks. The benchmarks run
+ * without a servlet container: the {@link VaadinService} is a mock that only
+ * provides a production mode deployment configuration, and the session uses a
+ * plain lock that is held while the benchmarks run.
+ * <p>
+ * All generated data is deterministic, so that results of different commits
+ * can be compared. Run e.g.
+ * <code>java -jar benchmarks/target/benchmarks.jar -rf json -rff
+ * results.json</code> on each commit and compare the JSON results.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * A session that does not need a wrapped HTTP session for locking.
+     */
+    public static class BenchmarkSession extends VaadinSession {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Creates a new session for the given service.
+         *
+         * @param service
+         *            the service of the session
+         */
+        public BenchmarkSession(VaadinService service) {
+            super(service);
+        }
+
+        @Override
+        public Lock getLockInstance() {
+            return lock;
+        }
+    }
+
+    /**
+     * An empty UI.
+     */
+    public static class BenchmarkUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+    }
+
+    private BenchmarkSupport() {
+        // Only static helpers
+    }
+
+    /**
+     * Creates a mock service in production mode.
+     *
+     * @return the service
+     */
+    public static VaadinService createService() {
+        Properties initParameters = new Properties();
+        initParameters.setProperty("productionMode", "true");
+        DeploymentConfiguration configuration = new DefaultDeploymentConfiguration(
+                BenchmarkSupport.class, initParameters);
+
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+        Mockito.when(service.getRequestMetrics())
+                .thenReturn(RequestMetrics.NONE);
+        return service;
+    }
+
+    /**
+     * Creates a session for a mock service and locks it for the current
+     * thread. The benchmarks run in a single thread, which also runs the
+     * setup, so the session stays locked during the benchmark.
+     *
+     * @return the locked session
+     */
+    public static VaadinSession createLockedSession() {
+        VaadinService service = createService();
+        VaadinSession session = new BenchmarkSession(service);
+        session.getLockInstance().lock();
+        session.setConfiguration(service.getDeploymentConfiguration());
+        session.setCommunicationManager(
+                new LegacyCommunicationManager(session));
+        VaadinSession.setCurrent(session);
+        return session;
+    }
+
+    /**
+     * Creates a UI in the given session and makes it the current UI.
+     *
+     * @param session
+     *            the locked session to add the UI to
+     * @return the UI
+     */
+    public static UI createUI(VaadinSession session) {
+        UI ui = new BenchmarkUI();
+        ui.doInit(Mockito.mock(VaadinRequest.class), session.getNextUIid(),
+                null);
+        ui.setSession(session);
+        session.addUI(ui);
+        UI.setCurrent(ui);
+        return ui;
+    }
+
+    /**
+     * Creates a form-like component tree with the given number of leaf
+     * components: rows with a label, a text field and a button each.
+     *
+     * @param componentCount
+     *            the number of leaf components
+     * @return the root layout of the tree
+     */
+    public static VerticalLayout createComponentTree(int componentCount) {
+        VerticalLayout root = new VerticalLayout();
+        HorizontalLayout row = null;
+        for (int i = 0; i < componentCount; i++) {
+            if (i % 3 == 0) {
+                row = new HorizontalLayout();
+                root.addComponent(row);
+                row.addComponent(new Label("Label " + i));
+            } else if (i % 3 == 1) {
+                TextField field = new TextField("Field " + i);
+                field.setValue("Value " + i);
+                row.addComponent(field);
+            } else {
+                row.addComponent(new Button("Button " + i));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Unlocks a session locked by {@link #createLockedSession()} and clears
+     * the current instances.
+     *
+     * @param session
+     *            the session to unlock
+     */
+    public static void release(VaadinSession session) {
+        session.getLockInstance().unlock();
+        UI.setCurrent(null);
+        VaadinSession.setCurrent(null);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.ClientMethodInvocation;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.data.BackEndDataProvider;
+import com.vaadin.server.data.DataCommunicator;
+import com.vaadin.server.data.DataProvider;
+import com.vaadin.shared.data.DataRequestRpc;
+import com.vaadin.ui.UI;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+/**
+ * Measures serving a page of rows requested by the client, including
+ * dropping the previous page like a scrolling client does.
+ * <p>
+ * The <code>inMemory</code> provider is a list data provider with an in-memory
+ * filter and sorting, the <code>backEnd</code> provider generates the rows of
+ * each query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class DataCommunicatorBenchmark {
+
+    /**
+     * Exposes the client RPC of the data communicator and keeps track of the
+     * keys of the latest pushed rows.
+     */
+    public static class PagingDataCommunicator
+            extends DataCommunicator<Integer> {
+        private final DataRequestRpc clientRpc = createRpc();
+        private JsonArray pushedKeys = Json.createArray();
+
+        public void attachTo(UI ui) {
+            extend(ui);
+        }
+
+        @Override
+        protected void pushData(int firstIndex, Stream<Integer> data) {
+            List<Integer> rows = data.collect(Collectors.toList());
+            super.pushData(firstIndex, rows.stream());
+
+            pushedKeys = Json.createArray();
+            for (int i = 0; i < rows.size(); i++) {
+                pushedKeys.set(i, getKeyMapper().key(rows.get(i)));
+            }
+        }
+    }
+
+    @Param({ "inMemory", "backEnd" })
+    public String provider;
+
+    @Param({ "10000" })
+    public int size;
+
+    @Param({ "50" })
+    public int pageSize;
+
+    private VaadinSession session;
+    private PagingDataCommunicator communicator;
+    private int pageStart = 0;
+
+    @Setup
+    public void setup() {
+        session = BenchmarkSupport.createLockedSession();
+        UI ui = BenchmarkSupport.createUI(session);
+
+        DataProvider<Integer> dataProvider;
+        if ("inMemory".equals(provider)) {
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                items.add(Integer.valueOf(i));
+            }
+            dataProvider = DataProvider.create(items);
+        } else {
+            dataProvider = new BackEndDataProvider<>(
+                    query -> IntStream
+                            .range(query.getOffset(),
+                                    Math.min(size,
+                                            query.getOffset()
+                                                    + query.getLimit()))
+                            .boxed(),
+                    query -> size);
+        }
+
+        communicator = new PagingDataCommunicator();
+        communicator.attachTo(ui);
+        communicator.setDataProvider(dataProvider);
+        if ("inMemory".equals(provider)) {
+            communicator.setInMemoryFilter(i -> i.intValue() % 7 != 0);
+            communicator.setInMemorySorting(Comparator.reverseOrder());
+        }
+
+        // The initial response
+        communicator.beforeClientResponse(true);
+        communicator.retrievePendingRpcCalls();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.release(session);
+    }
+
+    @Benchmark
+    public List<ClientMethodInvocation> requestPage() {
+        // The client drops the rows it scrolled past
+        communicator.clientRpc.dropRows(communicator.pushedKeys);
+        communicator.clientRpc.requestRows(pageStart, pageSize, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        pageStart = (pageStart + pageSize) % (size / 2);
+
+        return communicator.retrievePendingRpcCalls();
+    }
+}
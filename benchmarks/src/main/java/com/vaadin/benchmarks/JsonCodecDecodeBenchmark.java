@@ -0,0 +1,123 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.MouseEventDetails;
+import com.vaadin.shared.MouseEventDetails.MouseButton;
+import com.vaadin.shared.ui.label.ContentMode;
+import com.vaadin.shared.ui.label.LabelState;
+
+import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
+
+/**
+ * Measures decoding JSON received from the client into server side types, as
+ * done for the parameters of every server RPC call. The JSON is parsed once
+ * during setup, so only the decoding is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class JsonCodecDecodeBenchmark {
+
+    /**
+     * Holds a field whose generic type is decoded.
+     */
+    public static class GenericTypes {
+        public List<String> stringList;
+    }
+
+    @Param({ "reflection", "methodHandle" })
+    public String propertyFactory;
+
+    @Param({ "MouseEventDetails", "LabelState", "List<String>" })
+    public String decodedType;
+
+    private Type targetType;
+    private JsonValue json;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        JsonCodec.setBeanPropertyFactory("reflection".equals(propertyFactory)
+                ? JsonCodec.REFLECTION_PROPERTY_FACTORY
+                : JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY);
+
+        Object value;
+        switch (decodedType) {
+        case "MouseEventDetails":
+            MouseEventDetails details = new MouseEventDetails();
+            details.setButton(MouseButton.LEFT);
+            details.setClientX(120);
+            details.setClientY(240);
+            details.setRelativeX(12);
+            details.setRelativeY(24);
+            details.setShiftKey(true);
+            value = details;
+            targetType = MouseEventDetails.class;
+            break;
+        case "LabelState":
+            LabelState state = new LabelState();
+            state.text = "Benchmark";
+            state.contentMode = ContentMode.HTML;
+            state.caption = "Caption";
+            state.width = "100%";
+            value = state;
+            targetType = LabelState.class;
+            break;
+        case "List<String>":
+            List<String> list = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                list.add("Item " + i);
+            }
+            value = list;
+            targetType = GenericTypes.class.getField("stringList")
+                    .getGenericType();
+            break;
+        default:
+            throw new IllegalArgumentException(decodedType);
+        }
+
+        // Round trip through a string to get the same JSON types as a request
+        json = JsonUtil.parse(JsonCodec.encode(value, null, targetType, null)
+                .getEncodedValue().toJson());
+    }
+
+    @Benchmark
+    public Object decode() {
+        return JsonCodec.decodeInternalOrCustomType(targetType, json, null);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.EncodeResult;
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.AbstractComponentState;
+import com.vaadin.shared.ui.grid.GridState;
+import com.vaadin.shared.ui.label.ContentMode;
+import com.vaadin.shared.ui.label.LabelState;
+import com.vaadin.shared.ui.orderedlayout.VerticalLayoutState;
+
+import elemental.json.JsonValue;
+
+/**
+ * Compares encoding shared states using the reflection based and the method
+ * handle based {@link JsonCodec.BeanPropertyFactory}. Each invocation encodes
+ * a state against the encoded default state of the same type, which is what
+ * happens for every dirty connector when a response is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class JsonCodecEncodeBenchmark {
+
+    @Param({ "reflection", "methodHandle" })
+    public String propertyFactory;
+
+    @Param({ "GridState", "LabelState", "VerticalLayoutState" })
+    public String stateType;
+
+    private AbstractComponentState state;
+    private JsonValue referenceState;
+
+    @Setup
+    public void setup() {
+        JsonCodec.setBeanPropertyFactory("reflection".equals(propertyFactory)
+                ? JsonCodec.REFLECTION_PROPERTY_FACTORY
+                : JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY);
+
+        AbstractComponentState reference;
+        switch (stateType) {
+        case "GridState":
+            GridState gridState = new GridState();
+            gridState.columnOrder = Arrays.asList("1", "2", "3", "4");
+            gridState.frozenColumnCount = 1;
+            gridState.columnReorderingAllowed = true;
+            state = gridState;
+            reference = new GridState();
+            break;
+        case "LabelState":
+            LabelState labelState = new LabelState();
+            labelState.text = "Benchmark";
+            labelState.contentMode = ContentMode.HTML;
+            state = labelState;
+            reference = new LabelState();
+            break;
+        case "VerticalLayoutState":
+            state = new VerticalLayoutState();
+            reference = new VerticalLayoutState();
+            break;
+        default:
+            throw new IllegalArgumentException(stateType);
+        }
+        state.caption = "Caption";
+        state.styles = Arrays.asList("foo", "bar");
+        state.width = "100%";
+
+        referenceState = JsonCodec.encode(reference, null,
+                reference.getClass(), null).getEncodedValue();
+    }
+
+    @Benchmark
+    public EncodeResult encodeState() {
+        return JsonCodec.encode(state, referenceState, state.getClass(),
+                null);
+    }
+}
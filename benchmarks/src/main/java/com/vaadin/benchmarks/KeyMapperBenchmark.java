@@ -0,0 +1,98 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.KeyMapper;
+import com.vaadin.server.data.DataKeyMapper;
+import com.vaadin.server.data.IntKeyMapper;
+
+/**
+ * Compares the string based {@link KeyMapper} with the {@link IntKeyMapper}
+ * used by data communicators. Keys are looked up for objects that are already
+ * mapped, objects are looked up by key, and objects are mapped and removed
+ * like rows scrolled past by the client.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class KeyMapperBenchmark {
+
+    @Param({ "KeyMapper", "IntKeyMapper" })
+    public String mapperType;
+
+    @Param({ "1000" })
+    public int mappedCount;
+
+    private DataKeyMapper<Object> mapper;
+    private Object[] objects;
+    private String[] keys;
+    private int index = 0;
+    private int added = 0;
+
+    @Setup
+    public void setup() {
+        mapper = "KeyMapper".equals(mapperType) ? new KeyMapper<>()
+                : new IntKeyMapper<>();
+        objects = new Object[mappedCount];
+        keys = new String[mappedCount];
+        for (int i = 0; i < mappedCount; i++) {
+            objects[i] = "Item " + i;
+            keys[i] = mapper.key(objects[i]);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) % mappedCount;
+        return index;
+    }
+
+    @Benchmark
+    public String keyOfMapped() {
+        return mapper.key(objects[next()]);
+    }
+
+    @Benchmark
+    public Object getByKey() {
+        return mapper.get(keys[next()]);
+    }
+
+    @Benchmark
+    public String addAndRemove() {
+        // Replace the oldest added object with a new one
+        int i = next();
+        mapper.remove(objects[i]);
+        objects[i] = Integer.valueOf(added++);
+        keys[i] = mapper.key(objects[i]);
+        return keys[i];
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.ServerRpcHandler;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.shared.MouseEventDetails;
+import com.vaadin.shared.ui.button.ButtonServerRpc;
+import com.vaadin.shared.ui.ui.UIServerRpc;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+/**
+ * Measures handling a message of server RPC calls from the client: parsing
+ * the message, decoding the parameters and invoking the RPC methods.
+ * <p>
+ * The <code>buttonClick</code> calls carry a bean parameter and fire a click
+ * event to a listener, the <code>uiScroll</code> calls only have primitive
+ * parameters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ServerRpcHandlerBenchmark {
+
+    @Param({ "buttonClick", "uiScroll" })
+    public String call;
+
+    @Param({ "1", "20" })
+    public int callsPerMessage;
+
+    private VaadinSession session;
+    private UI ui;
+    private VaadinRequest request;
+    private final ServerRpcHandler handler = new ServerRpcHandler();
+    private String messageStart;
+    private int clicks = 0;
+
+    @Setup
+    public void setup() {
+        session = BenchmarkSupport.createLockedSession();
+        ui = BenchmarkSupport.createUI(session);
+        request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getService()).thenReturn(session.getService());
+
+        Button button = new Button("Click",
+                event -> clicks += event.getClientX());
+        ui.setContent(new VerticalLayout(button));
+
+        JsonArray invocation = Json.createArray();
+        if ("buttonClick".equals(call)) {
+            MouseEventDetails details = new MouseEventDetails();
+            details.setClientX(1);
+            JsonArray parameters = Json.createArray();
+            parameters.set(0, JsonCodec.encode(details, null,
+                    MouseEventDetails.class, null).getEncodedValue());
+            invocation.set(0, button.getConnectorId());
+            invocation.set(1, ButtonServerRpc.class.getName());
+            invocation.set(2, "click");
+            invocation.set(3, parameters);
+        } else {
+            JsonArray parameters = Json.createArray();
+            parameters.set(0, 100);
+            parameters.set(1, 0);
+            invocation.set(0, ui.getConnectorId());
+            invocation.set(1, UIServerRpc.class.getName());
+            invocation.set(2, "scroll");
+            invocation.set(3, parameters);
+        }
+        JsonArray invocations = Json.createArray();
+        for (int i = 0; i < callsPerMessage; i++) {
+            invocations.set(i, invocation);
+        }
+
+        JsonObject message = Json.createObject();
+        message.put(ApplicationConstants.CSRF_TOKEN, session.getCsrfToken());
+        message.put(ApplicationConstants.RPC_INVOCATIONS, invocations);
+        message.put(ApplicationConstants.SERVER_SYNC_ID, -1);
+        // The client to server message id is appended to the message
+        String json = message.toJson();
+        messageStart = json.substring(0, json.length() - 1) + ",\""
+                + ApplicationConstants.CLIENT_TO_SERVER_ID + "\":";
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.release(session);
+    }
+
+    @Benchmark
+    public int handleRpc()
+            throws IOException, InvalidUIDLSecurityKeyException {
+        int messageId = ui.getLastProcessedClientToServerId() + 1;
+        handler.handleRpc(ui,
+                new StringReader(messageStart + messageId + "}"), request);
+        return clicks;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vaadin.server.VaadinSession;
+import com.vaadin.server.communication.UidlWriter;
+import com.vaadin.server.communication.Utf8BufferWriter;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.HasComponents;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+/**
+ * Measures writing UIDL responses for a UI with a large component tree.
+ * <p>
+ * The <code>full</code> scenario writes the whole UI, as for the initial
+ * response or a resynchronization. The <code>incremental</code> scenario
+ * changes every tenth label before writing, which is the typical response to
+ * a user action.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class UidlWriterBenchmark {
+
+    @Param({ "100", "1000" })
+    public int componentCount;
+
+    @Param({ "full", "incremental" })
+    public String scenario;
+
+    private VaadinSession session;
+    private UI ui;
+    private final List<Label> changedLabels = new ArrayList<>();
+    private final Utf8BufferWriter writer = new Utf8BufferWriter();
+    private int round = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        session = BenchmarkSupport.createLockedSession();
+        ui = BenchmarkSupport.createUI(session);
+        ui.setContent(BenchmarkSupport.createComponentTree(componentCount));
+
+        int labelIndex = 0;
+        Iterator<Component> rows = ((HasComponents) ui.getContent())
+                .iterator();
+        while (rows.hasNext()) {
+            Component label = ((HasComponents) rows.next()).iterator().next();
+            if (labelIndex++ % 10 == 0) {
+                changedLabels.add((Label) label);
+            }
+        }
+
+        // The initial response
+        writeResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkSupport.release(session);
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        if ("full".equals(scenario)) {
+            session.getCommunicationManager().repaintAll(ui);
+        } else {
+            String value = "Round " + round++;
+            for (Label label : changedLabels) {
+                label.setValue(value);
+            }
+        }
+        return writeResponse();
+    }
+
+    private int writeResponse() throws IOException {
+        writer.reset();
+        writer.write("for(;;);[{");
+        new UidlWriter().write(ui, writer, false);
+        writer.write("}]");
+        writer.close();
+        return writer.size();
+    }
+}
@@ -75,6 +75,11 @@ public final class ValueMap extends JavaScriptObject {
         return this[name];
     }-*/;
 
+    public native boolean isArray(String name)
+    /*-{
+        return Array.isArray(this[name]);
+    }-*/;
+
     public native JsArray<ValueMap> getJSValueMapArray(String name)
     /*-{
         return this[name];
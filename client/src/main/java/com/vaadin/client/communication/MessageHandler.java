@@ -1144,8 +1144,15 @@ public class MessageHandler {
                     JsArrayString hierarchyKeys = hierarchies.getKeyArray();
                     for (int i = 0; i < hierarchyKeys.length(); i++) {
                         String connectorId = hierarchyKeys.get(i);
-                        JsArrayString childConnectorIds = hierarchies
-                                .getJSStringArray(connectorId);
+                        JsArrayString childConnectorIds;
+                        if (hierarchies.isArray(connectorId)) {
+                            childConnectorIds = hierarchies
+                                    .getJSStringArray(connectorId);
+                        } else {
+                            childConnectorIds = applyHierarchyChange(
+                                    connectorId,
+                                    hierarchies.getValueMap(connectorId));
+                        }
                         hasHierarchy.add(connectorId);
 
                         updateConnectorHierarchy(connectorId, childConnectorIds,
@@ -1199,6 +1206,51 @@ public class MessageHandler {
 
             }
 
+            /**
+             * Gets the child connector ids of a connector by applying a
+             * hierarchy change sent by the server to the current children of
+             * the connector.
+             *
+             * @param connectorId
+             *            the id of the connector to update
+             * @param change
+             *            the hierarchy change
+             * @return array of child connector ids
+             */
+            private JsArrayString applyHierarchyChange(String connectorId,
+                    ValueMap change) {
+                JsArrayString childConnectorIds = JavaScriptObject
+                        .createArray().cast();
+                ServerConnector parentConnector = getConnectorMap()
+                        .getConnector(connectorId);
+                if (parentConnector == null) {
+                    getLogger().severe("Received a hierarchy change for "
+                            + connectorId
+                            + " but no connector with that id has been registered");
+                    return childConnectorIds;
+                }
+
+                List<ServerConnector> oldChildren = parentConnector
+                        .getChildren();
+                int index = change
+                        .getInt(ApplicationConstants.HIERARCHY_CHANGE_INDEX);
+                int removed = change
+                        .getInt(ApplicationConstants.HIERARCHY_CHANGE_REMOVED);
+                JsArrayString added = change.getJSStringArray(
+                        ApplicationConstants.HIERARCHY_CHANGE_ADDED);
+
+                for (int i = 0; i < index; i++) {
+                    childConnectorIds.push(oldChildren.get(i).getConnectorId());
+                }
+                for (int i = 0; i < added.length(); i++) {
+                    childConnectorIds.push(added.get(i));
+                }
+                for (int i = index + removed; i < oldChildren.size(); i++) {
+                    childConnectorIds.push(oldChildren.get(i).getConnectorId());
+                }
+                return childConnectorIds;
+            }
+
             /**
              * Updates the hierarchy for a connector
              *
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.data;
+
+import com.google.gwt.core.client.Duration;
+import com.vaadin.client.Profiler;
+import com.vaadin.shared.Range;
+
+/**
+ * A cache strategy that adapts the amount of cached rows to the measured round
+ * trip time and the current scrolling velocity.
+ * <p>
+ * While scrolling, enough rows are fetched in the scrolling direction to cover
+ * the rows that will be scrolled into view during one round trip to the
+ * server, and only a minimal amount of rows is kept in the opposite direction.
+ * When no scrolling has happened for a while, the cache is reduced to the
+ * minimum amount of rows in both directions. Since a cache strategy is only
+ * consulted when the data source checks its cache coverage, the cache is
+ * reduced the next time that happens.
+ * <p>
+ * Whenever the displayed range changes, the strategy records a cache hit if
+ * all the displayed rows were already cached and a cache miss otherwise. The
+ * hits and misses are reported as named blocks to the {@link Profiler}, where
+ * their counts can be compared when profiling is enabled.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class AdaptiveCacheStrategy implements CacheStrategy {
+
+    private static final String PROFILER_HIT = "AdaptiveCacheStrategy cache hit";
+    private static final String PROFILER_MISS = "AdaptiveCacheStrategy cache miss";
+
+    /**
+     * Weight of a new measurement in the moving averages.
+     */
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * Extra margin for the rows scrolled into view during a round trip, since
+     * fetching more rows also makes the round trip take longer.
+     */
+    private static final double PREFETCH_MARGIN = 1.5;
+
+    private final double minimumRatio;
+    private final double maximumRatio;
+    private final double idleTimeout;
+
+    private double roundTripTime = -1;
+    private double velocity = 0;
+
+    /**
+     * The velocity used for the cache ranges, updated only when the minimum
+     * range is evaluated so that the ranges stay consistent with each other.
+     */
+    private double rangeVelocity = 0;
+
+    private Range lastDisplayedRange = null;
+    private double lastScrollTime = 0;
+
+    private int hitCount = 0;
+    private int missCount = 0;
+
+    /**
+     * Creates an adaptive cache strategy keeping at least one page worth of
+     * rows cached in both directions and at most 10 pages in the scrolling
+     * direction, and reducing the cache after one second without scrolling.
+     */
+    public AdaptiveCacheStrategy() {
+        this(1, 10, 1000);
+    }
+
+    /**
+     * Creates an adaptive cache strategy with custom limits. The ratios denote
+     * multiples of the currently displayed page size.
+     *
+     * @param minimumRatio
+     *            the minimum number of pages to keep cached in each direction
+     * @param maximumRatio
+     *            the maximum number of pages to fetch ahead in the scrolling
+     *            direction
+     * @param idleTimeout
+     *            the number of milliseconds without scrolling after which the
+     *            cache is reduced to the minimum
+     */
+    public AdaptiveCacheStrategy(double minimumRatio, double maximumRatio,
+            double idleTimeout) {
+        if (minimumRatio < 0 || maximumRatio < minimumRatio) {
+            throw new IllegalArgumentException(
+                    "Ratios must satisfy 0 <= minimumRatio <= maximumRatio");
+        }
+        this.minimumRatio = minimumRatio;
+        this.maximumRatio = maximumRatio;
+        this.idleTimeout = idleTimeout;
+    }
+
+    @Override
+    public void onDataArrive(double roundTripTime, int rowCount) {
+        if (this.roundTripTime < 0) {
+            this.roundTripTime = roundTripTime;
+        } else {
+            this.roundTripTime = average(this.roundTripTime, roundTripTime);
+        }
+    }
+
+    @Override
+    public Range getMinCacheRange(Range displayedRange, Range cachedRange,
+            Range estimatedAvailableRange) {
+        updateStatistics(displayedRange, cachedRange);
+        rangeVelocity = getEstimatedVelocity();
+
+        return getCacheRange(displayedRange, 0)
+                .restrictTo(estimatedAvailableRange);
+    }
+
+    @Override
+    public Range getMaxCacheRange(Range displayedRange, Range cachedRange,
+            Range estimatedAvailableRange) {
+        // Allow one extra page before discarding to avoid fetching and
+        // discarding the same rows when scrolling back and forth
+        return getCacheRange(displayedRange, displayedRange.length())
+                .restrictTo(estimatedAvailableRange);
+    }
+
+    /**
+     * Gets the estimated round trip time for fetching rows.
+     *
+     * @return the estimated round trip time in milliseconds, or
+     *         <code>-1</code> if no rows have been fetched yet
+     */
+    public double getEstimatedRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * Gets the estimated scrolling velocity. Positive values mean scrolling
+     * towards the end and negative values towards the beginning.
+     *
+     * @return the velocity in rows per millisecond, or <code>0</code> if idle
+     */
+    public double getEstimatedVelocity() {
+        if (now() - lastScrollTime > idleTimeout) {
+            return 0;
+        }
+        return velocity;
+    }
+
+    /**
+     * Gets the number of times the displayed rows were already cached when the
+     * displayed range changed.
+     *
+     * @return the number of cache hits
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of times some of the displayed rows were not cached when
+     * the displayed range changed.
+     *
+     * @return the number of cache misses
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the current time. Used for measuring the scrolling velocity.
+     *
+     * @return the current time in milliseconds
+     */
+    protected double now() {
+        return Duration.currentTimeMillis();
+    }
+
+    /**
+     * Reports a cache hit or miss to the {@link Profiler}. Called after the hit
+     * and miss counts have been updated.
+     *
+     * @param hit
+     *            <code>true</code> for a cache hit, <code>false</code> for a
+     *            cache miss
+     */
+    protected void reportCacheHit(boolean hit) {
+        String name = hit ? PROFILER_HIT : PROFILER_MISS;
+        Profiler.enter(name);
+        Profiler.leave(name);
+    }
+
+    private Range getCacheRange(Range displayedRange, int extra) {
+        int pageSize = displayedRange.length();
+        int minimum = (int) Math.ceil(pageSize * minimumRatio);
+        int maximum = (int) Math.ceil(pageSize * maximumRatio);
+
+        int ahead = 0;
+        if (roundTripTime > 0) {
+            double rows = Math.abs(rangeVelocity) * roundTripTime
+                    * PREFETCH_MARGIN;
+            ahead = (int) Math.min(Math.ceil(rows), maximum);
+        }
+        ahead = Math.max(ahead, minimum) + extra;
+        int behind = minimum + extra;
+
+        if (rangeVelocity < 0) {
+            return displayedRange.expand(ahead, behind);
+        } else {
+            return displayedRange.expand(behind, ahead);
+        }
+    }
+
+    private void updateStatistics(Range displayedRange, Range cachedRange) {
+        if (displayedRange.equals(lastDisplayedRange)
+                || displayedRange.isEmpty()) {
+            return;
+        }
+
+        boolean hit = displayedRange.isSubsetOf(cachedRange);
+        if (hit) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        reportCacheHit(hit);
+
+        double time = now();
+        if (lastDisplayedRange != null) {
+            int distance = displayedRange.getStart()
+                    - lastDisplayedRange.getStart();
+            double elapsed = Math.max(1, time - lastScrollTime);
+            double currentVelocity = distance / elapsed;
+            if (time - lastScrollTime > idleTimeout
+                    || Math.signum(currentVelocity) != Math.signum(velocity)) {
+                // Started scrolling again or changed direction
+                velocity = currentVelocity;
+            } else {
+                velocity = average(velocity, currentVelocity);
+            }
+        }
+        lastDisplayedRange = displayedRange;
+        lastScrollTime = time;
+    }
+
+    private static double average(double average, double value) {
+        return average + SMOOTHING * (value - average);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.client.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.shared.Range;
+
+public class AdaptiveCacheStrategyTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final Range AVAILABLE = Range.withLength(0, 100000);
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Uses a controlled clock and records the reported hits and misses instead
+     * of using the GWT-only profiler.
+     */
+    private static class TestCacheStrategy extends AdaptiveCacheStrategy {
+        private double time = 0;
+        private final List<Boolean> reported = new ArrayList<>();
+
+        private TestCacheStrategy() {
+            super(1, 10, 1000);
+        }
+
+        @Override
+        protected double now() {
+            return time;
+        }
+
+        @Override
+        protected void reportCacheHit(boolean hit) {
+            reported.add(hit);
+        }
+    }
+
+    private TestCacheStrategy strategy;
+
+    @Before
+    public void setup() {
+        strategy = new TestCacheStrategy();
+    }
+
+    private Range scrollTo(int start, double time) {
+        return scrollTo(start, time, Range.withLength(0, 0));
+    }
+
+    private Range scrollTo(int start, double time, Range cachedRange) {
+        strategy.time = time;
+        return strategy.getMinCacheRange(Range.withLength(start, PAGE_SIZE),
+                cachedRange, AVAILABLE);
+    }
+
+    @Test
+    public void roundTripTime_movingAverage() {
+        Assert.assertEquals(-1, strategy.getEstimatedRoundTripTime(), DELTA);
+
+        strategy.onDataArrive(100, 10);
+        Assert.assertEquals(100, strategy.getEstimatedRoundTripTime(), DELTA);
+
+        strategy.onDataArrive(200, 10);
+        Assert.assertEquals(130, strategy.getEstimatedRoundTripTime(), DELTA);
+
+        strategy.onDataArrive(30, 10);
+        Assert.assertEquals(100, strategy.getEstimatedRoundTripTime(), DELTA);
+    }
+
+    @Test
+    public void velocity_sameDirection_averaged() {
+        scrollTo(1000, 0);
+        Assert.assertEquals(0, strategy.getEstimatedVelocity(), DELTA);
+
+        scrollTo(1050, 100);
+        Assert.assertEquals(0.5, strategy.getEstimatedVelocity(), DELTA);
+
+        scrollTo(1070, 200);
+        Assert.assertEquals(0.41, strategy.getEstimatedVelocity(), DELTA);
+    }
+
+    @Test
+    public void velocity_directionChanged_reset() {
+        scrollTo(1000, 0);
+        scrollTo(1050, 100);
+        scrollTo(1070, 200);
+
+        scrollTo(1040, 300);
+        Assert.assertEquals(-0.3, strategy.getEstimatedVelocity(), DELTA);
+
+        scrollTo(1030, 400);
+        Assert.assertEquals(-0.24, strategy.getEstimatedVelocity(), DELTA);
+
+        scrollTo(1050, 500);
+        Assert.assertEquals(0.2, strategy.getEstimatedVelocity(), DELTA);
+    }
+
+    @Test
+    public void noRoundTripTime_minimumInBothDirections() {
+        scrollTo(1000, 0);
+
+        Assert.assertEquals(Range.between(1040, 1070), scrollTo(1050, 100));
+    }
+
+    @Test
+    public void scrollingDown_prefetchAhead() {
+        strategy.onDataArrive(100, 10);
+        scrollTo(1000, 0);
+
+        // 0.5 rows/ms * 100 ms * 1.5 = 75 rows ahead, one page behind
+        Assert.assertEquals(Range.between(1040, 1135), scrollTo(1050, 100));
+        Assert.assertEquals(Range.between(1030, 1145),
+                strategy.getMaxCacheRange(Range.withLength(1050, PAGE_SIZE),
+                        Range.withLength(0, 0), AVAILABLE));
+    }
+
+    @Test
+    public void scrollingDownFast_prefetchCappedAtMaximumRatio() {
+        strategy.onDataArrive(1000, 10);
+        scrollTo(1000, 0);
+
+        // 750 rows would be needed, capped at 10 pages
+        Assert.assertEquals(Range.between(1040, 1160), scrollTo(1050, 100));
+    }
+
+    @Test
+    public void scrollingUpFast_prefetchBeforeCappedAtMaximumRatio() {
+        strategy.onDataArrive(1000, 10);
+        scrollTo(1000, 0);
+
+        Assert.assertEquals(Range.between(850, 970), scrollTo(950, 100));
+    }
+
+    @Test
+    public void prefetch_restrictedToAvailableRange() {
+        strategy.onDataArrive(1000, 10);
+        scrollTo(100, 0);
+
+        Assert.assertEquals(Range.between(0, 70), scrollTo(50, 100));
+    }
+
+    @Test
+    public void idleTimeoutPassed_shrinksToMinimum() {
+        strategy.onDataArrive(1000, 10);
+        scrollTo(1000, 0);
+        Assert.assertEquals(Range.between(1040, 1160), scrollTo(1050, 100));
+
+        strategy.time = 1100;
+        Assert.assertEquals(0.5, strategy.getEstimatedVelocity(), DELTA);
+        Assert.assertEquals(Range.between(1040, 1160),
+                strategy.getMinCacheRange(Range.withLength(1050, PAGE_SIZE),
+                        Range.withLength(0, 0), AVAILABLE));
+
+        strategy.time = 1101;
+        Assert.assertEquals(0, strategy.getEstimatedVelocity(), DELTA);
+        Assert.assertEquals(Range.between(1040, 1070),
+                strategy.getMinCacheRange(Range.withLength(1050, PAGE_SIZE),
+                        Range.withLength(0, 0), AVAILABLE));
+        Assert.assertEquals(Range.between(1030, 1080),
+                strategy.getMaxCacheRange(Range.withLength(1050, PAGE_SIZE),
+                        Range.withLength(0, 0), AVAILABLE));
+    }
+
+    @Test
+    public void scrollingAfterIdleTimeout_velocityReset() {
+        scrollTo(1000, 0);
+        scrollTo(1050, 100);
+
+        scrollTo(1060, 2100);
+        Assert.assertEquals(0.005, strategy.getEstimatedVelocity(), DELTA);
+    }
+
+    @Test
+    public void displayedRangeChanged_hitsAndMissesCounted() {
+        Range cached = Range.between(990, 1030);
+
+        scrollTo(1000, 0, cached);
+        scrollTo(1010, 100, cached);
+        scrollTo(1025, 200, cached);
+        scrollTo(980, 300, cached);
+
+        Assert.assertEquals(2, strategy.getHitCount());
+        Assert.assertEquals(2, strategy.getMissCount());
+        Assert.assertEquals(Arrays.asList(true, true, false, false),
+                strategy.reported);
+    }
+
+    @Test
+    public void displayedRangeUnchangedOrEmpty_notCounted() {
+        scrollTo(1000, 0, Range.between(990, 1030));
+        scrollTo(1000, 100, Range.between(990, 1030));
+        strategy.getMinCacheRange(Range.withLength(1000, 0),
+                Range.withLength(0, 0), AVAILABLE);
+
+        Assert.assertEquals(1, strategy.getHitCount());
+        Assert.assertEquals(0, strategy.getMissCount());
+        Assert.assertEquals(Arrays.asList(true), strategy.reported);
+    }
+}
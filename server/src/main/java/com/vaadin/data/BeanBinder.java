@@ -20,7 +20,6 @@ import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -143,8 +142,9 @@ public class BeanBinder<BEAN> extends Binder<BEAN> {
             extends BindingImpl<BEAN, FIELDVALUE, TARGET>
             implements BeanBinding<BEAN, FIELDVALUE, TARGET> {
 
-        private Method getter;
-        private Method setter;
+        private SerializableFunction<Object, Object> getter;
+        private SerializableBiConsumer<Object, Object> setter;
+        private Class<?> propertyType;
 
         /**
          * Creates a new bean binding.
@@ -193,8 +193,8 @@ public class BeanBinder<BEAN> extends Binder<BEAN> {
             }
 
             PropertyDescriptor descriptor = getDescriptor(propertyName);
-            getter = descriptor.getReadMethod();
-            setter = descriptor.getWriteMethod();
+            propertyType = descriptor.getPropertyType();
+            resolveAccessors(propertyName);
             finalBinding.bind(this::getValue, this::setValue);
             getBinder().boundProperties.add(propertyName);
         }
@@ -205,20 +205,25 @@ public class BeanBinder<BEAN> extends Binder<BEAN> {
         }
 
         private void setValue(BEAN bean, Object value) {
-            try {
-                if (setter != null) {
-                    setter.invoke(bean, value);
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new RuntimeException(e);
+            if (setter != null) {
+                setter.accept(bean, value);
             }
         }
 
         private Object getValue(BEAN bean) {
+            return getter.apply(bean);
+        }
+
+        private void resolveAccessors(String propertyName) {
+            final Class<?> beanType = getBinder().beanType;
             try {
-                return getter.invoke(bean);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new RuntimeException(e);
+                getter = BeanUtil.getPropertyGetter(beanType, propertyName);
+                setter = BeanUtil.getPropertySetter(beanType, propertyName);
+            } catch (IntrospectionException ie) {
+                throw new IllegalArgumentException(
+                        "Could not resolve bean property accessors (see the cause): "
+                                + beanType.getName() + "." + propertyName,
+                        ie);
             }
         }
 
@@ -250,7 +255,7 @@ public class BeanBinder<BEAN> extends Binder<BEAN> {
         @SuppressWarnings("unchecked")
         private Converter<TARGET, Object> createConverter() {
             return Converter.from(
-                    fieldValue -> cast(fieldValue, getter.getReturnType()),
+                    fieldValue -> cast(fieldValue, propertyType),
                     propertyValue -> (TARGET) propertyValue, exception -> {
                         throw new RuntimeException(exception);
                     });
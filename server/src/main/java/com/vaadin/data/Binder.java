@@ -495,6 +495,14 @@ public class Binder<BEAN> implements Serializable {
          */
         private Converter<FIELDVALUE, TARGET> converterValidatorChain;
 
+        /**
+         * The field value last run through the converters and validators, and
+         * the resulting status. Used for skipping validation of unchanged
+         * field values when validation caching is enabled.
+         */
+        private FIELDVALUE validatedValue;
+        private ValidationStatus<TARGET> validationStatus;
+
         /**
          * Creates a new binding associated with the given field. Initializes
          * the binding with the given converter chain and status change handler.
@@ -663,6 +671,9 @@ public class Binder<BEAN> implements Serializable {
 
         @Override
         public ValidationStatus<TARGET> validate() {
+            // Always validate explicitly, e.g. when the validators depend on
+            // the values of other fields
+            clearValidationStatus();
             ValidationStatus<TARGET> status = doValidation();
             getBinder().getValidationStatusHandler()
                     .accept(new BinderValidationStatus<>(getBinder(),
@@ -679,8 +690,10 @@ public class Binder<BEAN> implements Serializable {
          */
         private Result<TARGET> doConversation() {
             FIELDVALUE fieldValue = field.getValue();
-            return converterValidatorChain.convertToModel(fieldValue,
-                    createValueContext());
+            Result<TARGET> result = converterValidatorChain
+                    .convertToModel(fieldValue, createValueContext());
+            cacheValidationStatus(fieldValue, toValidationStatus(result));
+            return result;
         }
 
         private ValidationStatus<TARGET> toValidationStatus(
@@ -698,9 +711,26 @@ public class Binder<BEAN> implements Serializable {
          * @return the validation status
          */
         private ValidationStatus<TARGET> doValidation() {
+            if (validationStatus != null
+                    && Objects.equals(field.getValue(), validatedValue)) {
+                return validationStatus;
+            }
             return toValidationStatus(doConversation());
         }
 
+        private void cacheValidationStatus(FIELDVALUE fieldValue,
+                ValidationStatus<TARGET> status) {
+            if (getBinder().isValidationCachingEnabled()) {
+                validatedValue = fieldValue;
+                validationStatus = status;
+            }
+        }
+
+        private void clearValidationStatus() {
+            validatedValue = null;
+            validationStatus = null;
+        }
+
         /**
          * Creates a value context from the current state of the binding and its
          * field.
@@ -879,6 +909,8 @@ public class Binder<BEAN> implements Serializable {
 
     private boolean hasChanges = false;
 
+    private boolean validationCachingEnabled = true;
+
     /**
      * Returns an {@code Optional} of the bean that has been bound with
      * {@link #bind}, or an empty optional if a bean is not currently bound.
@@ -1009,6 +1041,7 @@ public class Binder<BEAN> implements Serializable {
             doRemoveBean(false);
             this.bean = bean;
             bindings.forEach(b -> b.bind(bean));
+            clearValidationStatuses();
             // if there has been field value change listeners that trigger
             // validation, need to make sure the validation errors are cleared
             getValidationStatusHandler().accept(
@@ -1046,6 +1079,7 @@ public class Binder<BEAN> implements Serializable {
         Objects.requireNonNull(bean, "bean cannot be null");
         setHasChanges(false);
         bindings.forEach(binding -> binding.setFieldValue(bean));
+        clearValidationStatuses();
 
         getValidationStatusHandler()
                 .accept(BinderValidationStatus.createUnresolvedStatus(this));
@@ -1232,6 +1266,11 @@ public class Binder<BEAN> implements Serializable {
      * level validators are ignored if there is no bound bean or if any field
      * level validator fails.
      * <p>
+     * If validation caching is enabled, field values that have not changed
+     * since they were last validated are not converted and validated again.
+     * Bean level validators are always run.
+     *
+     * @see #setValidationCachingEnabled(boolean)
      *
      * @return validation status for the binder
      */
@@ -1541,6 +1580,46 @@ public class Binder<BEAN> implements Serializable {
         return hasChanges;
     }
 
+    /**
+     * Sets whether the validation status of each binding is cached. When
+     * enabled, a binding is only converted and validated again when the value
+     * of its field has changed since it was last validated, which makes
+     * validating large forms on each value change considerably cheaper. Bean
+     * level validators are always run.
+     * <p>
+     * A cached status is not updated when a validator depends on something
+     * else than the field value, e.g. on the value of another field. In that
+     * case, call {@link Binding#validate()} when the other value changes, as
+     * it always validates the binding again, or disable caching.
+     * <p>
+     * Caching is enabled by default.
+     *
+     * @param validationCachingEnabled
+     *            {@code true} to validate only changed field values,
+     *            {@code false} to validate all bindings every time
+     * @since 8.0
+     */
+    public void setValidationCachingEnabled(boolean validationCachingEnabled) {
+        this.validationCachingEnabled = validationCachingEnabled;
+        clearValidationStatuses();
+    }
+
+    /**
+     * Returns whether the validation status of each binding is cached.
+     *
+     * @return {@code true} if only changed field values are validated,
+     *         {@code false} if all bindings are validated every time
+     * @see #setValidationCachingEnabled(boolean)
+     * @since 8.0
+     */
+    public boolean isValidationCachingEnabled() {
+        return validationCachingEnabled;
+    }
+
+    private void clearValidationStatuses() {
+        bindings.forEach(BindingImpl::clearValidationStatus);
+    }
+
     /**
      * Returns the event router for this binder.
      *
@@ -1559,6 +1638,7 @@ public class Binder<BEAN> implements Serializable {
             bean = null;
             bindings.forEach(BindingImpl::reset);
         }
+        clearValidationStatuses();
         getValidationStatusHandler()
                 .accept(BinderValidationStatus.createUnresolvedStatus(this));
         if (fireStatusEvent) {
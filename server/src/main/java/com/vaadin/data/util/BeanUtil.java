@@ -19,22 +19,41 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import com.vaadin.data.validator.BeanValidator;
+import com.vaadin.server.SerializableBiConsumer;
+import com.vaadin.server.SerializableFunction;
 
 /**
  * Utility class for Java Beans information access.
+ * <p>
+ * The introspected properties of each class are cached. The cache is
+ * associated with the class itself, so it does not prevent the class from
+ * being unloaded e.g. when a web application is redeployed.
  *
  * @since 7.4
  *
  * @author Vaadin Ltd
  */
 public final class BeanUtil implements Serializable {
+
+    private static final PropertyCache PROPERTY_CACHE = new PropertyCache();
+
     // Prevent instantiation of util class
     private BeanUtil() {
     }
@@ -64,6 +83,12 @@ public final class BeanUtil implements Serializable {
      */
     public static List<PropertyDescriptor> getBeanPropertyDescriptors(
             final Class<?> beanType) throws IntrospectionException {
+        return new ArrayList<>(
+                PROPERTY_CACHE.get(beanType).getDescriptors());
+    }
+
+    private static List<PropertyDescriptor> introspectPropertyDescriptors(
+            final Class<?> beanType) throws IntrospectionException {
         // Oracle bug 4275879: Introspector does not consider superinterfaces of
         // an interface
         if (beanType.isInterface()) {
@@ -126,26 +151,80 @@ public final class BeanUtil implements Serializable {
      */
     public static PropertyDescriptor getPropertyDescriptor(Class<?> beanType,
             String propertyName) throws IntrospectionException {
-        if (propertyName.contains(".")) {
-            String[] parts = propertyName.split("\\.", 2);
+        int dot = propertyName.indexOf('.');
+        if (dot != -1) {
             // Get the type of the field in the bean class
-            Class<?> propertyBean = getPropertyType(beanType, parts[0]);
+            Class<?> propertyBean = getPropertyType(beanType,
+                    propertyName.substring(0, dot));
+            if (propertyBean == null) {
+                return null;
+            }
             // Find the rest from the sub type
-            return getPropertyDescriptor(propertyBean, parts[1]);
+            return getPropertyDescriptor(propertyBean,
+                    propertyName.substring(dot + 1));
         } else {
-            List<PropertyDescriptor> descriptors = getBeanPropertyDescriptors(
-                    beanType);
+            return PROPERTY_CACHE.get(beanType).getDescriptor(propertyName);
+        }
+    }
 
-            for (PropertyDescriptor descriptor : descriptors) {
-                final Method getMethod = descriptor.getReadMethod();
-                if (descriptor.getName().equals(propertyName)
-                        && getMethod != null
-                        && getMethod.getDeclaringClass() != Object.class) {
-                    return descriptor;
-                }
-            }
+    /**
+     * Returns a function reading the value of the property with the given
+     * name from a bean of the given type. The property name may refer to a
+     * nested property, eg. "property.subProperty". If an intermediate property
+     * value of a nested property is <code>null</code>, the function returns
+     * <code>null</code>.
+     * <p>
+     * The read methods of the property are resolved only once, and the
+     * returned function invokes them through method handles instead of
+     * reflection. The same function instance is returned for each invocation
+     * with the same arguments.
+     *
+     * @param beanType
+     *            the type declaring the property
+     * @param propertyName
+     *            the name of the property
+     * @return a function reading the property value, or <code>null</code> if
+     *         there is no such property with a read method
+     * @throws IntrospectionException
+     *             if the introspection fails
+     * @since 8.0
+     */
+    public static SerializableFunction<Object, Object> getPropertyGetter(
+            Class<?> beanType, String propertyName)
+            throws IntrospectionException {
+        return PROPERTY_CACHE.get(beanType).getAccessor(propertyName);
+    }
+
+    /**
+     * Returns a function writing the value of the property with the given
+     * name to a bean of the given type. The property name may refer to a
+     * nested property, eg. "property.subProperty". If an intermediate property
+     * value of a nested property is <code>null</code>, the function does
+     * nothing.
+     * <p>
+     * The read and write methods of the property are resolved only once, and
+     * the returned function invokes them through method handles instead of
+     * reflection.
+     *
+     * @param beanType
+     *            the type declaring the property
+     * @param propertyName
+     *            the name of the property
+     * @return a function writing the property value, or <code>null</code> if
+     *         there is no such property or if it has no write method
+     * @throws IntrospectionException
+     *             if the introspection fails
+     * @since 8.0
+     */
+    public static SerializableBiConsumer<Object, Object> getPropertySetter(
+            Class<?> beanType, String propertyName)
+            throws IntrospectionException {
+        PropertyAccessor accessor = PROPERTY_CACHE.get(beanType)
+                .getAccessor(propertyName);
+        if (accessor == null || accessor.setter == null) {
             return null;
         }
+        return accessor;
     }
 
     /**
@@ -224,6 +303,201 @@ public final class BeanUtil implements Serializable {
         }
     }
 
+    /**
+     * Class-unloading-safe cache of the properties of each introspected class.
+     */
+    private static class PropertyCache extends ClassValue<BeanProperties>
+            implements Serializable {
+        @Override
+        protected BeanProperties computeValue(Class<?> type) {
+            return new BeanProperties(type);
+        }
+    }
+
+    /**
+     * The introspected properties of a class together with the accessors
+     * created for them.
+     */
+    private static class BeanProperties implements Serializable {
+        private final Class<?> beanType;
+        private final List<PropertyDescriptor> descriptors;
+        private final Map<String, PropertyDescriptor> descriptorsByName;
+        private final IntrospectionException exception;
+        private final ConcurrentMap<String, PropertyAccessor> accessors = new ConcurrentHashMap<>();
+
+        private BeanProperties(Class<?> beanType) {
+            this.beanType = beanType;
+            List<PropertyDescriptor> introspected;
+            IntrospectionException failure = null;
+            try {
+                introspected = introspectPropertyDescriptors(beanType);
+            } catch (IntrospectionException e) {
+                introspected = Collections.emptyList();
+                failure = e;
+            }
+            descriptors = Collections.unmodifiableList(introspected);
+            exception = failure;
+
+            descriptorsByName = new HashMap<>();
+            for (PropertyDescriptor descriptor : introspected) {
+                final Method getMethod = descriptor.getReadMethod();
+                if (getMethod != null
+                        && getMethod.getDeclaringClass() != Object.class) {
+                    descriptorsByName.putIfAbsent(descriptor.getName(),
+                            descriptor);
+                }
+            }
+        }
+
+        private List<PropertyDescriptor> getDescriptors()
+                throws IntrospectionException {
+            if (exception != null) {
+                throw exception;
+            }
+            return descriptors;
+        }
+
+        private PropertyDescriptor getDescriptor(String propertyName)
+                throws IntrospectionException {
+            if (exception != null) {
+                throw exception;
+            }
+            return descriptorsByName.get(propertyName);
+        }
+
+        private PropertyAccessor getAccessor(String propertyName)
+                throws IntrospectionException {
+            PropertyAccessor accessor = accessors.get(propertyName);
+            if (accessor == null) {
+                // Doesn't matter if the same accessor is created by several
+                // threads
+                accessor = PropertyAccessor.create(beanType, propertyName);
+                if (accessor == null) {
+                    return null;
+                }
+                PropertyAccessor previous = accessors
+                        .putIfAbsent(propertyName, accessor);
+                if (previous != null) {
+                    accessor = previous;
+                }
+            }
+            return accessor;
+        }
+    }
+
+    /**
+     * Reads and writes a possibly nested property through method handles
+     * resolved when the accessor is created. Serialized accessors are resolved
+     * again from the cache when deserialized.
+     */
+    private static class PropertyAccessor
+            implements SerializableFunction<Object, Object>,
+            SerializableBiConsumer<Object, Object> {
+        private static final MethodType GETTER_TYPE = MethodType
+                .methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType
+                .methodType(void.class, Object.class, Object.class);
+
+        private final Class<?> beanType;
+        private final String propertyName;
+        private final transient MethodHandle[] getters;
+        private final transient MethodHandle setter;
+
+        private PropertyAccessor(Class<?> beanType, String propertyName,
+                MethodHandle[] getters, MethodHandle setter) {
+            this.beanType = beanType;
+            this.propertyName = propertyName;
+            this.getters = getters;
+            this.setter = setter;
+        }
+
+        private static PropertyAccessor create(Class<?> beanType,
+                String propertyName) throws IntrospectionException {
+            String[] parts = propertyName.split("\\.");
+            MethodHandle[] getters = new MethodHandle[parts.length];
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> type = beanType;
+            PropertyDescriptor descriptor = null;
+            try {
+                for (int i = 0; i < parts.length; i++) {
+                    descriptor = PROPERTY_CACHE.get(type)
+                            .getDescriptor(parts[i]);
+                    if (descriptor == null) {
+                        return null;
+                    }
+                    getters[i] = lookup.unreflect(descriptor.getReadMethod())
+                            .asType(GETTER_TYPE);
+                    type = descriptor.getPropertyType();
+                }
+                Method writeMethod = descriptor.getWriteMethod();
+                MethodHandle setter = writeMethod == null ? null
+                        : lookup.unreflect(writeMethod).asType(SETTER_TYPE);
+                return new PropertyAccessor(beanType, propertyName, getters,
+                        setter);
+            } catch (IllegalAccessException e) {
+                IntrospectionException exception = new IntrospectionException(
+                        "Property accessor is not accessible: "
+                                + beanType.getName() + "." + propertyName);
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+
+        @Override
+        public Object apply(Object bean) {
+            Object value = bean;
+            try {
+                for (int i = 0; i < getters.length; i++) {
+                    if (value == null && i > 0) {
+                        return null;
+                    }
+                    value = getters[i].invokeExact(value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+            return value;
+        }
+
+        @Override
+        public void accept(Object bean, Object value) {
+            Object target = bean;
+            try {
+                for (int i = 0; i < getters.length - 1; i++) {
+                    target = getters[i].invokeExact(target);
+                    if (target == null) {
+                        return;
+                    }
+                }
+                setter.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                PropertyAccessor accessor = PROPERTY_CACHE.get(beanType)
+                        .getAccessor(propertyName);
+                if (accessor == null) {
+                    throw new InvalidObjectException("Property not found: "
+                            + beanType.getName() + "." + propertyName);
+                }
+                return accessor;
+            } catch (IntrospectionException e) {
+                InvalidObjectException exception = new InvalidObjectException(
+                        "Could not resolve property " + beanType.getName()
+                                + "." + propertyName);
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+    }
+
     private static class LazyValidationAvailability implements Serializable {
         private static final boolean BEAN_VALIDATION_AVAILABLE = isAvailable();
 
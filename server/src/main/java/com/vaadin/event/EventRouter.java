@@ -18,11 +18,15 @@ package com.vaadin.event;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.logging.Logger;
 
@@ -45,6 +49,15 @@ public class EventRouter implements MethodEventSource {
      */
     private LinkedHashSet<ListenerMethod> listenerList = null;
 
+    /**
+     * The registered listeners that receive events of each fired event class,
+     * in registration order. The arrays are replaced rather than modified, so
+     * that listeners can be added and removed while an event is being fired.
+     */
+    private transient Map<Class<?>, ListenerMethod[]> listenersByEventClass = null;
+
+    private static final ListenerMethod[] NO_LISTENERS = new ListenerMethod[0];
+
     /*
      * Registers a new listener with the specified activation method to listen
      * events generated by this component. Don't add a JavaDoc comment here, we
@@ -56,7 +69,7 @@ public class EventRouter implements MethodEventSource {
         if (listenerList == null) {
             listenerList = new LinkedHashSet<>();
         }
-        listenerList.add(new ListenerMethod(eventType, object, method));
+        addListenerMethod(new ListenerMethod(eventType, object, method));
     }
 
     /*
@@ -71,7 +84,8 @@ public class EventRouter implements MethodEventSource {
         if (listenerList == null) {
             listenerList = new LinkedHashSet<>();
         }
-        listenerList.add(new ListenerMethod(eventType, object, methodName));
+        addListenerMethod(
+                new ListenerMethod(eventType, object, methodName));
     }
 
     /*
@@ -87,6 +101,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target)) {
                     i.remove();
+                    listenersByEventClass = null;
                     return;
                 }
             }
@@ -107,6 +122,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    listenersByEventClass = null;
                     return;
                 }
             }
@@ -141,6 +157,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    listenersByEventClass = null;
                     return;
                 }
             }
@@ -153,6 +170,7 @@ public class EventRouter implements MethodEventSource {
      */
     public void removeAllListeners() {
         listenerList = null;
+        listenersByEventClass = null;
     }
 
     /**
@@ -185,28 +203,66 @@ public class EventRouter implements MethodEventSource {
         // It is not necessary to send any events if there are no listeners
         if (listenerList != null) {
 
-            // Make a copy of the listener list to allow listeners to be added
-            // inside listener methods. Fixes #3605.
-
-            // Send the event to all listeners. The listeners themselves
-            // will filter out unwanted events.
-            final Object[] listeners = listenerList.toArray();
+            // The array is not modified even if listeners are added inside
+            // listener methods. Fixes #3605.
+            final ListenerMethod[] listeners = getListenerMethods(
+                    event.getClass());
             for (int i = 0; i < listeners.length; i++) {
-                ListenerMethod listenerMethod = (ListenerMethod) listeners[i];
+                ListenerMethod listenerMethod = listeners[i];
                 if (null != errorHandler) {
                     try {
-                        listenerMethod.receiveEvent(event);
+                        listenerMethod.invoke(event);
                     } catch (Exception e) {
                         errorHandler.error(new ErrorEvent(e));
                     }
                 } else {
-                    listenerMethod.receiveEvent(event);
+                    listenerMethod.invoke(event);
                 }
             }
 
         }
     }
 
+    private void addListenerMethod(ListenerMethod listenerMethod) {
+        if (!listenerList.add(listenerMethod)
+                || listenersByEventClass == null) {
+            return;
+        }
+        for (Entry<Class<?>, ListenerMethod[]> entry : listenersByEventClass
+                .entrySet()) {
+            if (listenerMethod.receives(entry.getKey())) {
+                ListenerMethod[] listeners = entry.getValue();
+                ListenerMethod[] updated = Arrays.copyOf(listeners,
+                        listeners.length + 1);
+                updated[listeners.length] = listenerMethod;
+                entry.setValue(updated);
+            }
+        }
+    }
+
+    /**
+     * Gets the registered listeners that receive events of the given class.
+     * The listeners are looked up once for each event class.
+     */
+    private ListenerMethod[] getListenerMethods(Class<?> eventClass) {
+        if (listenersByEventClass == null) {
+            listenersByEventClass = new HashMap<>();
+        }
+        ListenerMethod[] listeners = listenersByEventClass.get(eventClass);
+        if (listeners == null) {
+            List<ListenerMethod> matching = new ArrayList<>();
+            for (ListenerMethod listenerMethod : listenerList) {
+                if (listenerMethod.receives(eventClass)) {
+                    matching.add(listenerMethod);
+                }
+            }
+            listeners = matching.isEmpty() ? NO_LISTENERS
+                    : matching.toArray(new ListenerMethod[matching.size()]);
+            listenersByEventClass.put(eventClass, listeners);
+        }
+        return listeners;
+    }
+
     /**
      * Checks if the given Event type is listened by a listener registered to
      * this router.
@@ -19,7 +19,11 @@ package com.vaadin.event;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.EventListener;
 import java.util.EventObject;
@@ -70,6 +74,20 @@ public class ListenerMethod implements EventListener, Serializable {
      */
     private transient Method method;
 
+    /**
+     * Handle for calling the trigger method with the target and the event as
+     * the only argument, or with only the target if the method takes no
+     * arguments. <code>null</code> if the method must be called using
+     * reflection.
+     */
+    private transient MethodHandle invoker;
+
+    private static final MethodType EVENT_INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class, EventObject.class);
+
+    private static final MethodType NO_ARGUMENT_INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class);
+
     /**
      * Optional argument set to pass to the trigger method.
      */
@@ -110,6 +128,7 @@ public class ListenerMethod implements EventListener, Serializable {
             // We can not use getMethod directly as we want to support anonymous
             // inner classes
             method = findHighestMethod(target.getClass(), name, paramTypes);
+            invoker = createInvoker();
         } catch (SecurityException e) {
             getLogger().log(Level.SEVERE, "Internal deserialization error", e);
         }
@@ -207,6 +226,8 @@ public class ListenerMethod implements EventListener, Serializable {
         this.method = method;
         this.arguments = arguments;
         this.eventArgumentIndex = eventArgumentIndex;
+
+        invoker = createInvoker();
     }
 
     /**
@@ -278,6 +299,8 @@ public class ListenerMethod implements EventListener, Serializable {
         this.method = method;
         this.arguments = arguments;
         this.eventArgumentIndex = eventArgumentIndex;
+
+        invoker = createInvoker();
     }
 
     /**
@@ -322,6 +345,8 @@ public class ListenerMethod implements EventListener, Serializable {
         this.method = method;
         this.arguments = arguments;
         eventArgumentIndex = -1;
+
+        invoker = createInvoker();
     }
 
     /**
@@ -374,6 +399,8 @@ public class ListenerMethod implements EventListener, Serializable {
         this.method = method;
         this.arguments = arguments;
         eventArgumentIndex = -1;
+
+        invoker = createInvoker();
     }
 
     /**
@@ -427,6 +454,8 @@ public class ListenerMethod implements EventListener, Serializable {
             throw new IllegalArgumentException(
                     "Method requires unknown parameters");
         }
+
+        invoker = createInvoker();
     }
 
     /**
@@ -488,6 +517,8 @@ public class ListenerMethod implements EventListener, Serializable {
             throw new IllegalArgumentException(
                     "Method requires unknown parameters");
         }
+
+        invoker = createInvoker();
     }
 
     /**
@@ -504,6 +535,32 @@ public class ListenerMethod implements EventListener, Serializable {
     public void receiveEvent(EventObject event) {
         // Only send events supported by the method
         if (eventType.isAssignableFrom(event.getClass())) {
+            invoke(event);
+        }
+    }
+
+    /**
+     * Calls the trigger method for an event that is known to match the event
+     * type of this listener.
+     *
+     * @param event
+     *            the fired event
+     */
+    void invoke(EventObject event) {
+        if (invoker != null) {
+            try {
+                if (eventArgumentIndex == 0) {
+                    invoker.invokeExact(target, event);
+                } else {
+                    invoker.invokeExact(target);
+                }
+            } catch (Throwable t) {
+                // Wrapped like exceptions thrown through reflection
+                throw new MethodException("Invocation of method "
+                        + method.getName() + " in "
+                        + target.getClass().getName() + " failed.", t);
+            }
+        } else {
             try {
                 if (eventArgumentIndex >= 0) {
                     if (eventArgumentIndex == 0 && arguments.length == 1) {
@@ -533,6 +590,34 @@ public class ListenerMethod implements EventListener, Serializable {
         }
     }
 
+    /**
+     * Creates a method handle for calling the trigger method without
+     * reflection if it takes no arguments or only the event.
+     *
+     * @return the method handle, or <code>null</code> if reflection must be
+     *         used
+     */
+    private MethodHandle createInvoker() {
+        if (method == null || arguments == null
+                || Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        MethodType type;
+        if (eventArgumentIndex == 0 && arguments.length == 1) {
+            type = EVENT_INVOKER_TYPE;
+        } else if (arguments.length == 0) {
+            type = NO_ARGUMENT_INVOKER_TYPE;
+        } else {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            // Use reflection, which will report the same problem
+            return null;
+        }
+    }
+
     /**
      * Checks if the given object and event match with the ones stored in this
      * listener.
@@ -654,6 +739,18 @@ public class ListenerMethod implements EventListener, Serializable {
         return eventType.isAssignableFrom(this.eventType);
     }
 
+    /**
+     * Checks whether events of the given class are passed to this listener.
+     *
+     * @param eventClass
+     *            the class of a fired event
+     * @return <code>true</code> if the event type of this listener is the
+     *         given class or a superclass or interface of it
+     */
+    boolean receives(Class<?> eventClass) {
+        return eventType.isAssignableFrom(eventClass);
+    }
+
     /**
      * Returns the target object which contains the trigger method.
      *
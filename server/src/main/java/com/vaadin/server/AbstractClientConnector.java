@@ -141,7 +141,7 @@ public abstract class AbstractClientConnector
     @Override
     public void markAsDirty() {
         assert getSession() == null
-                || getSession().hasLock() : buildLockAssertMessage(
+                || getSession().hasSharedLock() : buildLockAssertMessage(
                         "markAsDirty()");
         UI uI = getUI();
         if (uI != null) {
@@ -256,7 +256,7 @@ public abstract class AbstractClientConnector
      */
     protected SharedState getState(boolean markAsDirty) {
         assert getSession() == null
-                || getSession().hasLock() : buildLockAssertMessage(
+                || getSession().hasSharedLock() : buildLockAssertMessage(
                         "getState()");
 
         if (null == sharedState) {
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.EventObject;
+
+/**
+ * Event for a message broadcast to a topic. The same event instance is
+ * delivered to all the UIs subscribed to the topic.
+ *
+ * @see BroadcastListener#messageReceived(BroadcastEvent)
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class BroadcastEvent extends EventObject {
+
+    private final String topic;
+    private final Object message;
+
+    /**
+     * Creates a new event.
+     *
+     * @param broadcaster
+     *            the broadcaster from which the event originates
+     * @param topic
+     *            the topic of the message
+     * @param message
+     *            the broadcast message
+     */
+    public BroadcastEvent(Broadcaster broadcaster, String topic,
+            Object message) {
+        super(broadcaster);
+        this.topic = topic;
+        this.message = message;
+    }
+
+    @Override
+    public Broadcaster getSource() {
+        return (Broadcaster) super.getSource();
+    }
+
+    /**
+     * Gets the topic that the message was broadcast to.
+     *
+     * @return the topic
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Gets the broadcast message.
+     *
+     * @return the message
+     */
+    public Object getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+/**
+ * Listener for messages broadcast to a topic that a UI has subscribed to.
+ *
+ * @see Broadcaster#subscribe(com.vaadin.ui.UI, String, BroadcastListener)
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+@FunctionalInterface
+public interface BroadcastListener extends Serializable {
+    /**
+     * Invoked when a message has been broadcast to the topic. The session of
+     * the subscribed UI is locked and the current instances are set for the
+     * UI, like for tasks run using {@link com.vaadin.ui.UI#access(Runnable)}.
+     *
+     * @param event
+     *            the broadcast event
+     */
+    public void messageReceived(BroadcastEvent event);
+}
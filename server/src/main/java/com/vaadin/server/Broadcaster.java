@@ -0,0 +1,269 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.vaadin.server.ClientConnector.DetachEvent;
+import com.vaadin.server.ClientConnector.DetachListener;
+import com.vaadin.shared.Registration;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
+
+import elemental.json.JsonValue;
+
+/**
+ * Delivers messages to all the UIs subscribed to a topic, for instance to
+ * update a view shown by many users at the same time. The broadcaster of a
+ * service is available from {@link VaadinService#getBroadcaster()}.
+ * <p>
+ * A message is delivered to each subscribed UI using
+ * {@link UI#access(Runnable)}. When a listener sends the message itself to the
+ * client as a parameter of a client RPC method, the message is encoded to JSON
+ * only once for all the UIs instead of separately for each UI. A message should
+ * therefore not be modified after it has been broadcast, and it should not
+ * contain references to connectors, which are specific to a single UI.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class Broadcaster implements Serializable {
+
+    private static class Subscription implements Serializable {
+        private final UI ui;
+        private final BroadcastListener listener;
+
+        private Subscription(UI ui, BroadcastListener listener) {
+            this.ui = ui;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Identifies a broadcast message by identity rather than equality.
+     */
+    private static final class MessageKey implements Serializable {
+        private final Object message;
+
+        private MessageKey(Object message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof MessageKey
+                    && ((MessageKey) obj).message == message;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(message);
+        }
+    }
+
+    /**
+     * The latest message of a topic with its encodings for the parameter types
+     * it has been sent as.
+     */
+    private static class SharedMessage implements Serializable {
+        private final MessageKey key;
+        private final Map<Type, JsonValue> encodedValues = new ConcurrentHashMap<>();
+
+        private SharedMessage(Object message) {
+            key = new MessageKey(message);
+        }
+    }
+
+    /**
+     * Removes a subscription when its UI is detached. This is serialized with
+     * the UI, so the broadcaster, which refers to the UIs of all sessions, is
+     * not serialized with it but looked up through the service of the UI after
+     * deserialization.
+     */
+    private static class Unsubscriber implements DetachListener {
+        private final String topic;
+        private final Subscription subscription;
+        private transient Broadcaster broadcaster;
+
+        private Unsubscriber(Broadcaster broadcaster, String topic,
+                Subscription subscription) {
+            this.broadcaster = broadcaster;
+            this.topic = topic;
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void detach(DetachEvent event) {
+            unsubscribe();
+        }
+
+        private void unsubscribe() {
+            if (broadcaster == null) {
+                VaadinSession session = subscription.ui.getSession();
+                if (session == null || session.getService() == null) {
+                    return;
+                }
+                broadcaster = session.getService().getBroadcaster();
+            }
+            broadcaster.unsubscribe(topic, subscription);
+        }
+    }
+
+    private static class SubscriptionRegistration implements Registration {
+        private final Unsubscriber unsubscriber;
+        private final Registration detachRegistration;
+
+        private SubscriptionRegistration(Unsubscriber unsubscriber,
+                Registration detachRegistration) {
+            this.unsubscriber = unsubscriber;
+            this.detachRegistration = detachRegistration;
+        }
+
+        @Override
+        public void remove() {
+            detachRegistration.remove();
+            unsubscriber.unsubscribe();
+        }
+    }
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final Map<String, SharedMessage> latestMessages = new ConcurrentHashMap<>();
+
+    private final Map<MessageKey, SharedMessage> sharedMessages = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes a UI to the messages broadcast to a topic. The subscription
+     * is removed automatically when the UI is detached.
+     * <p>
+     * The session of the UI should be locked when this method is called.
+     *
+     * @param ui
+     *            the UI to deliver the messages to, not <code>null</code>
+     * @param topic
+     *            the topic to subscribe to, not <code>null</code>
+     * @param listener
+     *            the listener to invoke for each message, not
+     *            <code>null</code>
+     * @return a registration for removing the subscription
+     */
+    public Registration subscribe(UI ui, String topic,
+            BroadcastListener listener) {
+        Objects.requireNonNull(ui, "UI must not be null");
+        Objects.requireNonNull(topic, "Topic must not be null");
+        Objects.requireNonNull(listener, "Listener must not be null");
+        assert ui.getSession() == null || ui.getSession().hasSharedLock();
+
+        Subscription subscription = new Subscription(ui, listener);
+        subscriptions.compute(topic, (key, topicSubscriptions) -> {
+            if (topicSubscriptions == null) {
+                topicSubscriptions = ConcurrentHashMap.newKeySet();
+            }
+            topicSubscriptions.add(subscription);
+            return topicSubscriptions;
+        });
+
+        Unsubscriber unsubscriber = new Unsubscriber(this, topic,
+                subscription);
+        return new SubscriptionRegistration(unsubscriber,
+                ui.addDetachListener(unsubscriber));
+    }
+
+    /**
+     * Broadcasts a message to all the UIs subscribed to a topic. The message
+     * is delivered asynchronously to each UI using
+     * {@link UI#access(Runnable)}, so this method can be called from any
+     * thread, with or without a session locked.
+     *
+     * @param topic
+     *            the topic to broadcast to, not <code>null</code>
+     * @param message
+     *            the message to broadcast, not <code>null</code>
+     */
+    public void broadcast(String topic, Object message) {
+        Objects.requireNonNull(topic, "Topic must not be null");
+        Objects.requireNonNull(message, "Message must not be null");
+
+        Set<Subscription> topicSubscriptions = subscriptions.get(topic);
+        if (topicSubscriptions == null) {
+            return;
+        }
+
+        SharedMessage sharedMessage = new SharedMessage(message);
+        SharedMessage previous = latestMessages.put(topic, sharedMessage);
+        if (previous != null) {
+            sharedMessages.remove(previous.key, previous);
+        }
+        sharedMessages.put(sharedMessage.key, sharedMessage);
+
+        BroadcastEvent event = new BroadcastEvent(this, topic, message);
+        for (Subscription subscription : topicSubscriptions) {
+            try {
+                subscription.ui.access(
+                        () -> subscription.listener.messageReceived(event));
+            } catch (UIDetachedException e) {
+                unsubscribe(topic, subscription);
+            }
+        }
+    }
+
+    /**
+     * Gets the JSON encoding of a value if it is the latest message broadcast
+     * to some topic. The encoding is created once for each type and shared by
+     * all the UIs. This method is used by the framework when writing client
+     * RPC invocations.
+     *
+     * @param value
+     *            the value to encode
+     * @param type
+     *            the type to encode the value as
+     * @return the encoded value, or <code>null</code> if the value is not a
+     *         broadcast message
+     */
+    public JsonValue getEncodedMessage(Object value, Type type) {
+        if (value == null || sharedMessages.isEmpty()) {
+            return null;
+        }
+        SharedMessage sharedMessage = sharedMessages
+                .get(new MessageKey(value));
+        if (sharedMessage == null) {
+            return null;
+        }
+        return sharedMessage.encodedValues.computeIfAbsent(type,
+                valueType -> JsonCodec.encode(value, null, valueType, null)
+                        .getEncodedValue());
+    }
+
+    private void unsubscribe(String topic, Subscription subscription) {
+        subscriptions.computeIfPresent(topic, (key, topicSubscriptions) -> {
+            topicSubscriptions.remove(subscription);
+            if (!topicSubscriptions.isEmpty()) {
+                return topicSubscriptions;
+            }
+            // Don't keep the messages of topics without subscribers
+            SharedMessage latest = latestMessages.remove(topic);
+            if (latest != null) {
+                sharedMessages.remove(latest.key, latest);
+            }
+            return null;
+        });
+    }
+}
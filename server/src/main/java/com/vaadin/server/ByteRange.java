@@ -0,0 +1,184 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+/**
+ * A single byte range requested using the HTTP <code>Range</code> header.
+ * Only requests for one range are supported. Requests for multiple ranges are
+ * ignored, which according to RFC 7233 means that the full content is sent.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public final class ByteRange implements Serializable {
+
+    /**
+     * The range returned when the requested range can't be satisfied for the
+     * content length, in which case the response status should be 416.
+     */
+    public static final ByteRange NOT_SATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses the value of a <code>Range</code> header for content of the given
+     * length.
+     *
+     * @param header
+     *            the header value, or <code>null</code> if there is no header
+     * @param length
+     *            the length of the full content in bytes
+     * @return the requested range, {@link #NOT_SATISFIABLE} if no requested
+     *         byte is within the content, or <code>null</code> if the header
+     *         should be ignored and the full content sent
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith(BYTES_UNIT)
+                || header.indexOf(',') != -1) {
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // Suffix range: the last n bytes
+                long suffixLength = Long.parseLong(spec.substring(1));
+                if (suffixLength <= 0) {
+                    return NOT_SATISFIABLE;
+                }
+                start = Math.max(0, length - suffixLength);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1
+                        : Math.min(length - 1,
+                                Long.parseLong(spec.substring(dash + 1)));
+                if (end < start && start < length) {
+                    // Syntactically invalid
+                    return null;
+                }
+            }
+            if (start < 0) {
+                return null;
+            }
+            if (start >= length) {
+                return NOT_SATISFIABLE;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether this range can be served.
+     *
+     * @return <code>false</code> for {@link #NOT_SATISFIABLE},
+     *         <code>true</code> otherwise
+     */
+    public boolean isSatisfiable() {
+        return this != NOT_SATISFIABLE;
+    }
+
+    /**
+     * Gets the index of the first byte in the range.
+     *
+     * @return the start index
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the index of the last byte in the range, inclusive.
+     *
+     * @return the end index
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the number of bytes in the range.
+     *
+     * @return the length of the range
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Gets the value of the <code>Content-Range</code> header for sending this
+     * range of content with the given length.
+     *
+     * @param length
+     *            the length of the full content
+     * @return the header value
+     */
+    public String getContentRange(long length) {
+        if (!isSatisfiable()) {
+            return "bytes */" + length;
+        }
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    /**
+     * Checks whether an entity tag matches any of the tags listed in the value
+     * of an <code>If-None-Match</code> or <code>If-Range</code> header. Weak
+     * tags are compared using the weak comparison.
+     *
+     * @param header
+     *            the header value, or <code>null</code>
+     * @param eTag
+     *            the quoted entity tag of the current content
+     * @return <code>true</code> if the header lists the tag or is
+     *         <code>*</code>, <code>false</code> otherwise
+     */
+    public static boolean matchesETag(String header, String eTag) {
+        if (header == null || eTag == null) {
+            return false;
+        }
+        String opaqueTag = stripWeak(eTag);
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate)
+                    || opaqueTag.equals(stripWeak(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.UI;
+
+/**
+ * A session serializer that uses a compact, versioned variant of the Java
+ * serialization stream format.
+ * <p>
+ * Standard Java serialization describes every serialized class with its name,
+ * the names and types of all its fields and the same information for each
+ * superclass, which makes up a large part of a serialized session with many
+ * different component and shared state classes. This format only writes the
+ * class name, with the package name written once per stream, and the
+ * <code>serialVersionUID</code> of each class. The field layout is taken from
+ * the local class when reading, so the reading node must have the same
+ * versions of the classes as the writing node, which is the case for session
+ * replication within a cluster running the same application. A changed
+ * <code>serialVersionUID</code> is detected and causes an
+ * {@link InvalidClassException}.
+ * <p>
+ * State that can be rebuilt is not written. The reference diff states that the
+ * {@link ConnectorTracker} keeps for the connectors of each UI are skipped,
+ * and the UIs of a restored session are fully repainted on the client side
+ * when they are used the next time.
+ * <p>
+ * If the {@link RequestMetrics} of the service are enabled, the serialized
+ * size of each UI is reported to
+ * {@link RequestMetrics#uiSerialized(UI, long)} to help finding UIs that keep
+ * unexpectedly large object graphs in the session.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class CompactSessionSerializer implements SessionSerializer {
+
+    /**
+     * The version of the format, written after the standard stream header.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+    static {
+        for (Class<?> type : new Class<?>[] { boolean.class, byte.class,
+                char.class, short.class, int.class, long.class, float.class,
+                double.class, void.class }) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    /**
+     * An object output stream that writes the compact format. Objects that
+     * customize their serialization can check for this stream type to skip
+     * state that can be rebuilt after deserialization.
+     */
+    public static class CompactObjectOutputStream extends ObjectOutputStream {
+
+        private final Map<String, Integer> packageIndexes = new HashMap<>();
+
+        /**
+         * Creates a stream writing to the given output stream.
+         *
+         * @param out
+         *            the output stream to write to
+         * @throws IOException
+         *             if writing the stream header fails
+         */
+        public CompactObjectOutputStream(OutputStream out)
+                throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            super.writeStreamHeader();
+            writeByte(FORMAT_VERSION);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc)
+                throws IOException {
+            String name = desc.getName();
+            int separator = name.lastIndexOf('.');
+            String packageName = separator == -1 ? ""
+                    : name.substring(0, separator);
+
+            Integer packageIndex = packageIndexes.get(packageName);
+            if (packageIndex == null) {
+                packageIndexes.put(packageName,
+                        Integer.valueOf(packageIndexes.size() + 1));
+                writeIndex(0);
+                writeUTF(packageName);
+            } else {
+                writeIndex(packageIndex.intValue());
+            }
+            writeUTF(name.substring(separator + 1));
+            writeLong(desc.getSerialVersionUID());
+        }
+
+        private void writeIndex(int index) throws IOException {
+            while ((index & ~0x7F) != 0) {
+                writeByte((index & 0x7F) | 0x80);
+                index >>>= 7;
+            }
+            writeByte(index);
+        }
+    }
+
+    /**
+     * An object input stream that reads the compact format.
+     */
+    public static class CompactObjectInputStream extends ObjectInputStream {
+
+        private final List<String> packageNames = new ArrayList<>();
+        private final ClassLoader classLoader;
+
+        /**
+         * Creates a stream reading from the given input stream, resolving
+         * classes using the given class loader.
+         *
+         * @param in
+         *            the input stream to read from
+         * @param classLoader
+         *            the class loader to load the classes of the serialized
+         *            objects with
+         * @throws IOException
+         *             if the stream header is invalid or can't be read
+         */
+        public CompactObjectInputStream(InputStream in,
+                ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException {
+            super.readStreamHeader();
+            int version = readUnsignedByte();
+            if (version != FORMAT_VERSION) {
+                throw new StreamCorruptedException(
+                        "Unsupported session serialization format version "
+                                + version + ", expected " + FORMAT_VERSION);
+            }
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor()
+                throws IOException, ClassNotFoundException {
+            int packageIndex = readIndex();
+            String packageName;
+            if (packageIndex == 0) {
+                packageName = readUTF();
+                packageNames.add(packageName);
+            } else if (packageIndex <= packageNames.size()) {
+                packageName = packageNames.get(packageIndex - 1);
+            } else {
+                throw new StreamCorruptedException(
+                        "Invalid package index " + packageIndex);
+            }
+            String simpleName = readUTF();
+            long serialVersionUID = readLong();
+
+            String name = packageName.isEmpty() ? simpleName
+                    : packageName + '.' + simpleName;
+            ObjectStreamClass desc = ObjectStreamClass
+                    .lookupAny(loadClass(name));
+            if (desc.getSerialVersionUID() != serialVersionUID) {
+                throw new InvalidClassException(name,
+                        "serialVersionUID of the serialized class "
+                                + serialVersionUID
+                                + " does not match the local class "
+                                + desc.getSerialVersionUID());
+            }
+            return desc;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            // Descriptors are local descriptors of already resolved classes
+            Class<?> type = desc.forClass();
+            if (type != null) {
+                return type;
+            }
+            return super.resolveClass(desc);
+        }
+
+        private Class<?> loadClass(String name) throws ClassNotFoundException {
+            Class<?> type = PRIMITIVE_TYPES.get(name);
+            if (type != null) {
+                return type;
+            }
+            return Class.forName(name, false, classLoader);
+        }
+
+        private int readIndex() throws IOException {
+            int index = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readUnsignedByte();
+                index |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return index;
+                }
+            }
+            throw new StreamCorruptedException("Invalid package index");
+        }
+    }
+
+    /**
+     * Writes a single UI of a session for measuring its size. The session and
+     * the other UIs of the session are written as <code>null</code>.
+     */
+    private static class UIOutputStream extends CompactObjectOutputStream {
+        private final UI ui;
+
+        private UIOutputStream(OutputStream out, UI ui) throws IOException {
+            super(out);
+            this.ui = ui;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if (obj instanceof VaadinSession
+                    || obj instanceof UI && obj != ui) {
+                return null;
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * Counts the bytes written to it and discards them.
+     */
+    private static class ByteCounter extends OutputStream {
+        private long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Override
+    public byte[] serialize(VaadinSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new CompactObjectOutputStream(bytes)) {
+            out.writeObject(session);
+        }
+
+        VaadinService service = session.getService();
+        RequestMetrics metrics = service != null ? service.getRequestMetrics()
+                : null;
+        if (metrics != null && metrics.isUiSerializationEnabled()) {
+            for (UI ui : session.getUIs()) {
+                metrics.uiSerialized(ui, getSerializedSize(ui));
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public VaadinSession deserialize(byte[] data)
+            throws IOException, ClassNotFoundException {
+        ClassLoader classLoader = Thread.currentThread()
+                .getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = CompactSessionSerializer.class.getClassLoader();
+        }
+
+        VaadinSession session;
+        try (ObjectInputStream in = new CompactObjectInputStream(
+                new ByteArrayInputStream(data), classLoader)) {
+            session = (VaadinSession) in.readObject();
+        }
+        // The diff states of the connectors were not written
+        session.repaintAllUIs();
+        return session;
+    }
+
+    /**
+     * Gets the number of bytes that the given UI takes in the compact format,
+     * excluding its session and the other UIs of the session. The UI is
+     * written separately, so objects shared with other UIs are included in
+     * the size of each UI.
+     * <p>
+     * The session of the UI should be locked by the current thread.
+     *
+     * @param ui
+     *            the UI to measure, not <code>null</code>
+     * @return the serialized size of the UI in bytes
+     * @throws IOException
+     *             if the UI can't be serialized
+     */
+    public long getSerializedSize(UI ui) throws IOException {
+        ByteCounter counter = new ByteCounter();
+        try (ObjectOutputStream out = new UIOutputStream(counter, ui)) {
+            out.writeObject(ui);
+        }
+        return counter.count;
+    }
+}
@@ -116,6 +116,72 @@ public interface Constants {
     static final String SERVLET_PARAMETER_SYNC_ID_CHECK = "syncIdCheck";
     static final String SERVLET_PARAMETER_SENDURLSASPARAMETERS = "sendUrlsAsParameters";
     static final String SERVLET_PARAMETER_PUSH_SUSPEND_TIMEOUT_LONGPOLLING = "pushLongPollingSuspendTimeout";
+    /**
+     * Name of system or context property for streaming UIDL responses directly
+     * to the response output stream instead of buffering the whole response.
+     * Defaults to <code>false</code>.
+     *
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_STREAMING_UIDL = "streamingUidl";
+    /**
+     * Name of system or context property for using a separate lock for each
+     * UI instead of one lock for the whole session. Defaults to
+     * <code>false</code>.
+     *
+     * @see VaadinSession#isPerUiLocking()
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_PER_UI_LOCKING = "perUiLocking";
+    /**
+     * Name of system or context property for selecting how request metrics
+     * are recorded: <code>jfr</code> for Java Flight Recorder events,
+     * <code>none</code> for not recording them, or the fully qualified name of
+     * a {@link RequestMetrics} implementation with a public no-argument
+     * constructor. Defaults to <code>jfr</code>, which records nothing if the
+     * JVM does not support Flight Recorder.
+     *
+     * @see VaadinService#createRequestMetrics()
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_REQUEST_METRICS = "requestMetrics";
+    /**
+     * Name of system or context property for selecting how sessions are
+     * serialized: <code>java</code> for standard Java serialization,
+     * <code>compact</code> for {@link CompactSessionSerializer}, or the fully
+     * qualified name of a {@link SessionSerializer} implementation with a
+     * public no-argument constructor. Defaults to <code>java</code>.
+     *
+     * @see VaadinService#createSessionSerializer()
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_SESSION_SERIALIZER = "sessionSerializer";
+    /**
+     * Name of system or context property for writing the session to the
+     * underlying HTTP session again at the end of each request that modified
+     * it, so that servlet containers that replicate session attributes when
+     * they are set only replicate sessions that have changed. Defaults to
+     * <code>false</code>.
+     *
+     * @see VaadinService#storeModifiedSession(VaadinSession)
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_STORE_MODIFIED_SESSIONS = "storeModifiedSessions";
+    /**
+     * Name of system or context property for selecting where the tasks
+     * enqueued using {@link VaadinSession#access(Runnable)} and
+     * {@link com.vaadin.ui.UI#access(Runnable)} are run when the session is
+     * not locked: <code>request</code> to run them on the thread enqueuing the
+     * task or releasing the session lock, <code>virtual</code> to run them on
+     * virtual threads if the JVM supports them and on daemon threads
+     * otherwise, or the fully qualified name of a
+     * {@link java.util.concurrent.Executor} implementation with a public
+     * no-argument constructor. Defaults to <code>request</code>.
+     *
+     * @see VaadinService#createAccessExecutor()
+     * @since 8.0
+     */
+    static final String SERVLET_PARAMETER_ACCESS_EXECUTOR = "accessExecutor";
     /**
      * Name of system or context property to write declarative syntax with the
      * old "v-" prefix or with the new "vaadin-" prefix. The default value
@@ -16,12 +16,17 @@
 
 package com.vaadin.server;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -35,6 +40,13 @@ import javax.servlet.http.HttpServletResponse;
  * session to prevent locking the session during long file downloads. If your
  * DownloadStream uses anything from the session, you must handle the locking.
  * </p>
+ * <p>
+ * A download stream that is backed by a {@link File} supports conditional
+ * requests using the <code>ETag</code> and <code>Last-Modified</code> headers
+ * and requests for a single byte range, e.g. for seeking in a video. Only the
+ * requested range of the file is read. Servlet output streams are not
+ * channels, so the data is still copied through a buffer on the heap.
+ * </p>
  *
  * @author Vaadin Ltd.
  * @since 3.0
@@ -56,6 +68,8 @@ public class DownloadStream implements Serializable {
 
     private InputStream stream;
 
+    private File file;
+
     private String contentType;
 
     private String fileName;
@@ -77,22 +91,78 @@ public class DownloadStream implements Serializable {
     }
 
     /**
-     * Gets downloadable stream.
+     * Creates a new instance of DownloadStream for the content of a file.
+     *
+     * @param file
+     *            the file to download, not <code>null</code>
+     * @param contentType
+     *            the content type of the file
+     * @param fileName
+     *            the name of the downloaded file
+     * @since 8.0
+     */
+    public DownloadStream(File file, String contentType, String fileName) {
+        setFile(file);
+        setContentType(contentType);
+        setFileName(fileName);
+    }
+
+    /**
+     * Gets downloadable stream. For a download stream backed by a file, the
+     * file is opened when this method is called the first time.
      *
      * @return output stream.
      */
     public InputStream getStream() {
+        if (stream == null && file != null) {
+            try {
+                stream = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException("File not found: " + file.getName(),
+                        e);
+            }
+        }
         return stream;
     }
 
     /**
-     * Sets the stream.
+     * Sets the stream. A file set using {@link #setFile(File)} is no longer
+     * used after setting a stream.
      *
      * @param stream
      *            The stream to set
      */
     public void setStream(InputStream stream) {
         this.stream = stream;
+        file = null;
+    }
+
+    /**
+     * Gets the file backing this download stream.
+     *
+     * @return the file, or <code>null</code> if the content is read from a
+     *         stream
+     * @since 8.0
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Sets the file backing this download stream. The content of the file is
+     * written using {@link #writeResponse(VaadinRequest, VaadinResponse)}
+     * instead of any stream set using {@link #setStream(InputStream)}.
+     *
+     * @param file
+     *            the file to download, not <code>null</code>
+     * @since 8.0
+     */
+    public void setFile(File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("File cannot be null");
+        }
+        this.file = file;
+        stream = null;
     }
 
     /**
@@ -238,6 +308,13 @@ public class DownloadStream implements Serializable {
      * response. If there's is a parameter named <code>Location</code>, a
      * redirect (302 Moved temporarily) is sent instead of the contents of this
      * stream.
+     * <p>
+     * If this download stream is backed by a file, <code>ETag</code>,
+     * <code>Last-Modified</code> and <code>Accept-Ranges</code> headers are
+     * sent. A matching <code>If-None-Match</code> or
+     * <code>If-Modified-Since</code> header results in 304 Not Modified, and a
+     * request for a single byte range is answered with 206 Partial Content,
+     * or 416 if the range is outside the file.
      *
      * @param request
      *            the request for which the response should be written
@@ -257,6 +334,11 @@ public class DownloadStream implements Serializable {
             return;
         }
 
+        if (file != null) {
+            writeFileResponse(request, response);
+            return;
+        }
+
         // Download from given stream
         final InputStream data = getStream();
         if (data == null) {
@@ -268,30 +350,7 @@ public class DownloadStream implements Serializable {
 
             OutputStream out = null;
             try {
-                // Sets content type
-                response.setContentType(getContentType());
-
-                // Sets cache headers
-                response.setCacheTime(getCacheTime());
-
-                // Copy download stream parameters directly
-                // to HTTP headers.
-                final Iterator<String> i = getParameterNames();
-                if (i != null) {
-                    while (i.hasNext()) {
-                        final String param = i.next();
-                        response.setHeader(param, getParameter(param));
-                    }
-                }
-
-                // Content-Disposition: attachment generally forces download
-                String contentDisposition = getParameter(CONTENT_DISPOSITION);
-                if (contentDisposition == null) {
-                    contentDisposition = getContentDispositionFilename(
-                            getFileName());
-                }
-
-                response.setHeader(CONTENT_DISPOSITION, contentDisposition);
+                writeHeaders(response);
 
                 int bufferSize = getBufferSize();
                 if (bufferSize <= 0 || bufferSize > Constants.MAX_BUFFER_SIZE) {
@@ -319,6 +378,110 @@ public class DownloadStream implements Serializable {
         }
     }
 
+    private void writeHeaders(VaadinResponse response) {
+        // Sets content type
+        response.setContentType(getContentType());
+
+        // Sets cache headers
+        response.setCacheTime(getCacheTime());
+
+        // Copy download stream parameters directly
+        // to HTTP headers.
+        final Iterator<String> i = getParameterNames();
+        if (i != null) {
+            while (i.hasNext()) {
+                final String param = i.next();
+                response.setHeader(param, getParameter(param));
+            }
+        }
+
+        // Content-Disposition: attachment generally forces download
+        String contentDisposition = getParameter(CONTENT_DISPOSITION);
+        if (contentDisposition == null) {
+            contentDisposition = getContentDispositionFilename(getFileName());
+        }
+
+        response.setHeader(CONTENT_DISPOSITION, contentDisposition);
+    }
+
+    private void writeFileResponse(VaadinRequest request,
+            VaadinResponse response) throws IOException {
+        // Close the file if it was opened through getStream()
+        tryToCloseStream(stream);
+        stream = null;
+
+        if (!file.isFile()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = file.length();
+        long lastModified = StaticResourceCache
+                .truncateToSeconds(file.lastModified());
+        String eTag = StaticResourceCache.createETag(length, lastModified, "");
+
+        writeHeaders(response);
+        response.setHeader("ETag", eTag);
+        if (lastModified > 0) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+        response.setHeader("Accept-Ranges", "bytes");
+
+        if (isNotModified(request, eTag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = null;
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null || ByteRange.matchesETag(ifRange, eTag)) {
+            range = ByteRange.parse(request.getHeader("Range"), length);
+        }
+
+        long offset = 0;
+        long count = length;
+        if (range != null && !range.isSatisfiable()) {
+            response.setHeader("Content-Range", range.getContentRange(length));
+            response.setStatus(
+                    HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        } else if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.getContentRange(length));
+            offset = range.getStart();
+            count = range.getLength();
+        }
+        response.setHeader("Content-Length", Long.toString(count));
+
+        OutputStream out = response.getOutputStream();
+        try {
+            WritableByteChannel target = out instanceof WritableByteChannel
+                    ? (WritableByteChannel) out : Channels.newChannel(out);
+            StaticResourceCache.transferFile(file, target, offset, count);
+        } finally {
+            tryToCloseStream(out);
+        }
+    }
+
+    private static boolean isNotModified(VaadinRequest request, String eTag,
+            long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since
+            return ByteRange.matchesETag(ifNoneMatch, eTag);
+        }
+        if (lastModified <= 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= lastModified;
+        } catch (Exception e) {
+            // Invalid date header, send the content
+            return false;
+        }
+    }
+
     /**
      * Returns the filename formatted for inclusion in a Content-Disposition
      * header. Includes both a plain version of the name and a UTF-8 version
@@ -17,8 +17,6 @@
 package com.vaadin.server;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 
 import com.vaadin.util.FileTypeResolver;
 
@@ -65,19 +63,14 @@ public class FileResource implements ConnectorResource {
 
     @Override
     public DownloadStream getStream() {
-        try {
-            final DownloadStream ds = new DownloadStream(
-                    new FileInputStream(sourceFile), getMIMEType(),
-                    getFilename());
-            ds.setParameter("Content-Length",
-                    String.valueOf(sourceFile.length()));
-
-            ds.setCacheTime(cacheTime);
-            return ds;
-        } catch (final FileNotFoundException e) {
+        if (!sourceFile.isFile()) {
             throw new RuntimeException(
-                    "File not found: " + sourceFile.getName(), e);
+                    "File not found: " + sourceFile.getName());
         }
+        final DownloadStream ds = new DownloadStream(sourceFile, getMIMEType(),
+                getFilename());
+        ds.setCacheTime(cacheTime);
+        return ds;
     }
 
     /**
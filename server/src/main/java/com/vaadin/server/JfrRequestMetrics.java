@@ -0,0 +1,248 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.concurrent.TimeUnit;
+
+import com.vaadin.ui.UI;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Request metrics that are recorded as Java Flight Recorder events in the
+ * <code>Vaadin</code> category. Events are only created while a recording
+ * has enabled them, e.g. using
+ * <code>-XX:StartFlightRecording:settings=profile</code> or JDK Mission
+ * Control, so the overhead is negligible otherwise.
+ * <p>
+ * The Flight Recorder API is available in Java 11 and in Java 8 update 262 or
+ * later. Since it is not part of the Java 8 API, this class is only compiled
+ * when building with such a JDK, and {@link VaadinService} loads it
+ * reflectively when the running JVM supports the Flight Recorder.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class JfrRequestMetrics implements RequestMetrics {
+
+    private static final String CATEGORY = "Vaadin";
+
+    /**
+     * The shortest lock wait that is recorded. Every lock acquisition is
+     * reported, so recording uncontended ones would flood any recording.
+     * <code>@Threshold</code> can't be used for this since it applies to the
+     * duration of the event itself, which is not measured by these events.
+     */
+    private static final long LOCK_WAIT_THRESHOLD_NANOS = TimeUnit.MILLISECONDS
+            .toNanos(1);
+
+    @Name("com.vaadin.Request")
+    @Label("Request")
+    @Description("A request handled by a Vaadin service")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class RequestEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("com.vaadin.RequestPhase")
+    @Label("Request Phase")
+    @Description("A phase of handling a request")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("com.vaadin.LockWait")
+    @Label("Session Lock Wait")
+    @Description("Time spent waiting for the lock of a session or a UI, "
+            + "if at least one millisecond")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class LockWaitEvent extends Event {
+        @Label("Wait Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("com.vaadin.StateEncode")
+    @Label("Shared State Encoding")
+    @Description("Encoding the shared state of a connector")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class StateEncodeEvent extends Event {
+        @Label("Connector Type")
+        Class<?> connectorType;
+
+        @Label("Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long time;
+    }
+
+    @Name("com.vaadin.Response")
+    @Label("UIDL Response")
+    @Description("A UIDL response or push message written to the client")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class ResponseEvent extends Event {
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Push")
+        boolean push;
+    }
+
+    @Name("com.vaadin.UISerialization")
+    @Label("UI Serialization")
+    @Description("The serialized size of a UI when its session is serialized. "
+            + "Disabled by default since measuring the size serializes each UI "
+            + "again.")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    @Enabled(false)
+    static class UISerializationEvent extends Event {
+        @Label("UI Type")
+        Class<?> uiType;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+    }
+
+    private transient EventType requestType;
+    private transient EventType phaseType;
+    private transient EventType lockWaitType;
+    private transient EventType stateEncodeType;
+    private transient EventType responseType;
+    private transient EventType uiSerializationType;
+
+    /**
+     * Creates new Flight Recorder metrics. The JVM must support the Flight
+     * Recorder API.
+     */
+    public JfrRequestMetrics() {
+        initEventTypes();
+    }
+
+    private void initEventTypes() {
+        requestType = EventType.getEventType(RequestEvent.class);
+        phaseType = EventType.getEventType(PhaseEvent.class);
+        lockWaitType = EventType.getEventType(LockWaitEvent.class);
+        stateEncodeType = EventType.getEventType(StateEncodeEvent.class);
+        responseType = EventType.getEventType(ResponseEvent.class);
+        uiSerializationType = EventType
+                .getEventType(UISerializationEvent.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return requestType.isEnabled() || phaseType.isEnabled()
+                || lockWaitType.isEnabled() || stateEncodeType.isEnabled()
+                || responseType.isEnabled();
+    }
+
+    @Override
+    public boolean isUiSerializationEnabled() {
+        return uiSerializationType.isEnabled();
+    }
+
+    @Override
+    public void requestCompleted(VaadinRequest request, long durationNanos) {
+        if (requestType.isEnabled()) {
+            RequestEvent event = new RequestEvent();
+            event.path = request.getPathInfo();
+            event.time = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase, long durationNanos) {
+        if (phaseType.isEnabled()) {
+            PhaseEvent event = new PhaseEvent();
+            event.phase = phase.name();
+            event.time = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void lockAcquired(VaadinSession session, long waitNanos) {
+        if (waitNanos >= LOCK_WAIT_THRESHOLD_NANOS
+                && lockWaitType.isEnabled()) {
+            LockWaitEvent event = new LockWaitEvent();
+            event.time = waitNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void stateEncoded(Class<? extends ClientConnector> connectorType,
+            long durationNanos) {
+        if (stateEncodeType.isEnabled()) {
+            StateEncodeEvent event = new StateEncodeEvent();
+            event.connectorType = connectorType;
+            event.time = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void responseWritten(UI ui, long bytes, boolean push) {
+        if (responseType.isEnabled()) {
+            ResponseEvent event = new ResponseEvent();
+            event.size = bytes;
+            event.push = push;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void uiSerialized(UI ui, long bytes) {
+        if (uiSerializationType.isEnabled()) {
+            UISerializationEvent event = new UISerializationEvent();
+            event.uiType = ui.getClass();
+            event.size = bytes;
+            event.commit();
+        }
+    }
+
+    private Object readResolve() {
+        initEventTypes();
+        return this;
+    }
+}
@@ -20,6 +20,9 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -198,6 +201,149 @@ public class JsonCodec implements Serializable {
 
     }
 
+    /**
+     * Bean property accessing the value through method handles instead of
+     * {@link Method#invoke(Object, Object...)} and {@link Field#get(Object)}.
+     * The handles are resolved once when the property is created and adapted
+     * to a generic signature so that they can be invoked without the argument
+     * array allocation, boxing and access checks of core reflection.
+     */
+    private static class MethodHandleProperty implements BeanProperty {
+        private static final MethodType GETTER_TYPE = MethodType
+                .methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType
+                .methodType(void.class, Object.class, Object.class);
+
+        private final String name;
+        private final Type type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private MethodHandleProperty(String name, Type type,
+                MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter.asType(GETTER_TYPE);
+            this.setter = setter.asType(SETTER_TYPE);
+        }
+
+        @Override
+        public Object getValue(Object bean) throws Exception {
+            try {
+                return getter.invokeExact(bean);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        @Override
+        public void setValue(Object bean, Object value) throws Exception {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Creates a method handle based property equivalent to the given
+         * reflective property. If the accessors cannot be resolved as method
+         * handles, the reflective property is returned as is.
+         */
+        public static BeanProperty of(BeanProperty property) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                if (property instanceof FieldProperty) {
+                    Field field = ((FieldProperty) property).field;
+                    return new MethodHandleProperty(property.getName(),
+                            property.getType(), lookup.unreflectGetter(field),
+                            lookup.unreflectSetter(field));
+                } else if (property instanceof MethodProperty) {
+                    PropertyDescriptor pd = ((MethodProperty) property).pd;
+                    return new MethodHandleProperty(property.getName(),
+                            property.getType(),
+                            lookup.unreflect(pd.getReadMethod()),
+                            lookup.unreflect(pd.getWriteMethod()));
+                }
+            } catch (IllegalAccessException e) {
+                // Fall back to reflection, which will report the same problem
+                // when the property is actually used
+            }
+            return property;
+        }
+    }
+
+    /**
+     * Factory for finding the properties of a bean type. The properties are
+     * used for encoding and decoding beans such as shared states, and their
+     * iteration order defines the order of the encoded JSON keys.
+     *
+     * @see JsonCodec#setBeanPropertyFactory(BeanPropertyFactory)
+     * @since 8.0
+     */
+    @FunctionalInterface
+    public static interface BeanPropertyFactory extends Serializable {
+        /**
+         * Finds the properties of the given bean type.
+         *
+         * @param type
+         *            the bean type, not <code>null</code>
+         * @return a collection of the bean properties, not <code>null</code>
+         * @throws IntrospectionException
+         *             if the type cannot be introspected
+         */
+        public Collection<BeanProperty> findProperties(Class<?> type)
+                throws IntrospectionException;
+    }
+
+    /**
+     * Bean property factory that accesses properties using core reflection.
+     * Properties with both a getter and a setter come first, followed by
+     * public non-static fields.
+     *
+     * @since 8.0
+     */
+    public static final BeanPropertyFactory REFLECTION_PROPERTY_FACTORY = type -> {
+        Collection<BeanProperty> properties = new ArrayList<>();
+        properties.addAll(MethodProperty.find(type));
+        properties.addAll(FieldProperty.find(type));
+        return properties;
+    };
+
+    /**
+     * Bean property factory that finds the same properties in the same order
+     * as {@link #REFLECTION_PROPERTY_FACTORY}, but accesses them through
+     * method handles that are created once per type. This is the default.
+     *
+     * @since 8.0
+     */
+    public static final BeanPropertyFactory METHOD_HANDLE_PROPERTY_FACTORY = type -> {
+        Collection<BeanProperty> properties = REFLECTION_PROPERTY_FACTORY
+                .findProperties(type);
+        Collection<BeanProperty> handleProperties = new ArrayList<>(
+                properties.size());
+        for (BeanProperty property : properties) {
+            handleProperties.add(MethodHandleProperty.of(property));
+        }
+        return handleProperties;
+    };
+
+    private static volatile BeanPropertyFactory beanPropertyFactory = METHOD_HANDLE_PROPERTY_FACTORY;
+
     /**
      * Cache the collection of bean properties for a given type to avoid doing a
      * quite expensive lookup multiple times. Will be used from any thread that
@@ -702,10 +848,8 @@ public class JsonCodec implements Serializable {
         if (cachedProperties != null) {
             return cachedProperties;
         }
-        Collection<BeanProperty> properties = new ArrayList<>();
-
-        properties.addAll(MethodProperty.find(type));
-        properties.addAll(FieldProperty.find(type));
+        Collection<BeanProperty> properties = beanPropertyFactory
+                .findProperties(type);
 
         // Doesn't matter if the same calculation is done multiple times from
         // different threads, so there's no need to do e.g. putIfAbsent
@@ -713,6 +857,38 @@ public class JsonCodec implements Serializable {
         return properties;
     }
 
+    /**
+     * Sets the factory used for finding the properties of beans that are
+     * encoded or decoded. The factory is shared by the whole JVM and should
+     * be set before any requests are handled. Changing it clears all cached
+     * bean properties.
+     *
+     * @param factory
+     *            the bean property factory to use, not <code>null</code>
+     * @see #REFLECTION_PROPERTY_FACTORY
+     * @see #METHOD_HANDLE_PROPERTY_FACTORY
+     * @since 8.0
+     */
+    public static void setBeanPropertyFactory(BeanPropertyFactory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException(
+                    "Bean property factory cannot be null");
+        }
+        beanPropertyFactory = factory;
+        typePropertyCache.clear();
+    }
+
+    /**
+     * Gets the factory used for finding the properties of beans that are
+     * encoded or decoded.
+     *
+     * @return the bean property factory, not <code>null</code>
+     * @since 8.0
+     */
+    public static BeanPropertyFactory getBeanPropertyFactory() {
+        return beanPropertyFactory;
+    }
+
     /*
      * Loops through the fields of value and encodes them.
      */
@@ -40,6 +40,7 @@ import com.vaadin.ui.HasComponents;
 import com.vaadin.ui.SelectiveRenderer;
 import com.vaadin.ui.UI;
 
+import elemental.json.Json;
 import elemental.json.JsonObject;
 import elemental.json.JsonValue;
 
@@ -100,11 +101,7 @@ public class LegacyCommunicationManager implements Serializable {
         if (diffState == null) {
             // Use an empty state object as reference for full
             // repaints
-            diffState = referenceDiffStates.get(stateType);
-            if (diffState == null) {
-                diffState = createReferenceDiffStateState(stateType);
-                referenceDiffStates.put(stateType, diffState);
-            }
+            diffState = getReferenceDiffState(stateType);
         }
         EncodeResult encodeResult = JsonCodec.encode(state, diffState,
                 stateType, uI.getConnectorTracker());
@@ -114,6 +111,16 @@ public class LegacyCommunicationManager implements Serializable {
         return (JsonObject) encodeResult.getDiff();
     }
 
+    private static JsonValue getReferenceDiffState(
+            Class<? extends SharedState> stateType) {
+        JsonValue diffState = referenceDiffStates.get(stateType);
+        if (diffState == null) {
+            diffState = createReferenceDiffStateState(stateType);
+            referenceDiffStates.put(stateType, diffState);
+        }
+        return diffState;
+    }
+
     private static JsonValue createReferenceDiffStateState(
             Class<? extends SharedState> stateType) {
         if (JavaScriptConnectorState.class.isAssignableFrom(stateType)) {
@@ -176,7 +183,8 @@ public class LegacyCommunicationManager implements Serializable {
      * @deprecated As of 7.1. See #11413.
      */
     @Deprecated
-    public String registerDependency(String resourceUri, Class<?> context) {
+    public synchronized String registerDependency(String resourceUri,
+            Class<?> context) {
         try {
             URI uri = new URI(resourceUri);
             String protocol = uri.getScheme();
@@ -228,7 +236,7 @@ public class LegacyCommunicationManager implements Serializable {
      * @deprecated As of 7.1. See #11410.
      */
     @Deprecated
-    public ClientCache getClientCache(UI uI) {
+    public synchronized ClientCache getClientCache(UI uI) {
         Integer uiId = Integer.valueOf(uI.getUIId());
         ClientCache cache = uiToClientCache.get(uiId);
         if (cache == null) {
@@ -353,7 +361,8 @@ public class LegacyCommunicationManager implements Serializable {
      * @deprecated As of 7.1. Will be removed in the future.
      */
     @Deprecated
-    public String getTagForType(Class<? extends ClientConnector> class1) {
+    public synchronized String getTagForType(
+            Class<? extends ClientConnector> class1) {
         Integer id = typeToKey.get(class1);
         if (id == null) {
             id = nextTypeKey++;
@@ -463,6 +472,30 @@ public class LegacyCommunicationManager implements Serializable {
         ui.getConnectorTracker().markAllClientSidesUninitialized();
     }
 
+    /**
+     * Requests that a UI restored from a session that was serialized without
+     * the diff states of its connectors should be fully re-rendered on the
+     * client side. The client recreates all connectors except the UI, so the
+     * diff state of an empty state object is used for them until the new
+     * state has been sent.
+     *
+     * @see CompactSessionSerializer
+     */
+    void repaintRestoredUI(UI ui) {
+        repaintAll(ui);
+
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        for (ClientConnector connector : tracker.getDirtyConnectors()) {
+            if (tracker.getDiffState(connector) == null) {
+                JsonValue reference = getReferenceDiffState(
+                        connector.getStateType());
+                // Server RPC handlers may modify the diff state
+                tracker.setDiffState(connector,
+                        Json.parse(reference.toJson()));
+            }
+        }
+    }
+
     private static final Logger getLogger() {
         return Logger.getLogger(LegacyCommunicationManager.class.getName());
     }
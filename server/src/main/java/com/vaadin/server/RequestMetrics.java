@@ -0,0 +1,294 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+import com.vaadin.ui.UI;
+
+/**
+ * Receives timing and size measurements of the requests handled by a
+ * {@link VaadinService}. The framework measures the phases of request
+ * handling, server RPC processing and UIDL response writing, the time spent
+ * waiting for session locks, the cost of encoding the shared state of each
+ * connector type, the size of UIDL responses and the size of serialized UIs.
+ * <p>
+ * Measurements are only taken while {@link #isEnabled()} returns
+ * <code>true</code>, so an implementation that is turned off costs next to
+ * nothing. The methods may be called concurrently from several threads,
+ * often while a session is locked, so implementations should return quickly
+ * and never throw.
+ * <p>
+ * The implementation used by a service is selected using the
+ * {@link Constants#SERVLET_PARAMETER_REQUEST_METRICS} parameter, or by
+ * overriding {@link VaadinService#createRequestMetrics()}. By default, the
+ * measurements are recorded as Java Flight Recorder events when the JVM
+ * supports it, and ignored otherwise.
+ *
+ * @see VaadinService#getRequestMetrics()
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public interface RequestMetrics extends Serializable {
+
+    /**
+     * The measured phases of request handling.
+     */
+    public enum Phase {
+        /**
+         * Finding or creating the session of a request.
+         */
+        FIND_SESSION,
+        /**
+         * Running the request handlers for a request.
+         */
+        HANDLE_REQUEST,
+        /**
+         * Cleaning up the session after a request.
+         */
+        REQUEST_END,
+        /**
+         * Reading a server RPC message from the client.
+         */
+        READ_RPC,
+        /**
+         * Parsing and validating a server RPC message.
+         */
+        PARSE_RPC,
+        /**
+         * Invoking the RPC calls and variable changes of a message.
+         */
+        INVOKE_RPC,
+        /**
+         * Running pending access tasks before writing a response.
+         */
+        RUN_ACCESS_TASKS,
+        /**
+         * Calling {@link ClientConnector#beforeClientResponse(boolean)} for
+         * dirty connectors.
+         */
+        BEFORE_CLIENT_RESPONSE,
+        /**
+         * Painting legacy components.
+         */
+        WRITE_CHANGES,
+        /**
+         * Encoding and writing shared state changes.
+         */
+        WRITE_STATE,
+        /**
+         * Writing connector types and the connector hierarchy.
+         */
+        WRITE_HIERARCHY,
+        /**
+         * Writing client RPC calls.
+         */
+        WRITE_RPC,
+        /**
+         * Writing metadata, resources, type mappings and dependencies.
+         */
+        WRITE_META;
+    }
+
+    /**
+     * Measurements that are ignored.
+     */
+    public enum NoOp implements RequestMetrics {
+        /**
+         * The only instance.
+         */
+        INSTANCE;
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    }
+
+    /**
+     * Measures consecutive phases of handling a request. Each phase ends when
+     * {@link #phaseCompleted(Phase)} is called, and the next one starts right
+     * away. Nothing is measured if the metrics are not enabled when the timer
+     * is created.
+     */
+    public static final class PhaseTimer implements Serializable {
+        private final RequestMetrics metrics;
+        private long start;
+
+        /**
+         * Creates a timer for the given metrics and starts the first phase.
+         *
+         * @param metrics
+         *            the metrics to report to, or <code>null</code> to not
+         *            measure anything
+         */
+        public PhaseTimer(RequestMetrics metrics) {
+            if (metrics != null && metrics.isEnabled()) {
+                this.metrics = metrics;
+                start = System.nanoTime();
+            } else {
+                this.metrics = null;
+            }
+        }
+
+        /**
+         * Creates a timer for the metrics of the given service and starts the
+         * first phase.
+         *
+         * @param service
+         *            the service to get the metrics from, or <code>null</code>
+         */
+        public PhaseTimer(VaadinService service) {
+            this(service != null ? service.getRequestMetrics() : null);
+        }
+
+        /**
+         * Checks whether this timer measures anything.
+         *
+         * @return <code>true</code> if phases are measured, otherwise
+         *         <code>false</code>
+         */
+        public boolean isEnabled() {
+            return metrics != null;
+        }
+
+        /**
+         * Ends the current phase, reports its duration and starts the next
+         * phase.
+         *
+         * @param phase
+         *            the phase that was completed, not <code>null</code>
+         */
+        public void phaseCompleted(Phase phase) {
+            if (metrics != null) {
+                long now = System.nanoTime();
+                metrics.phaseCompleted(phase, now - start);
+                start = now;
+            }
+        }
+    }
+
+    /**
+     * Metrics that ignore all measurements.
+     */
+    public static final RequestMetrics NONE = NoOp.INSTANCE;
+
+    /**
+     * Checks whether measurements should currently be taken. This is checked
+     * once at the start of each measured operation, so the value may change at
+     * any time.
+     *
+     * @return <code>true</code> to take measurements, <code>false</code> to
+     *         skip them
+     */
+    public boolean isEnabled();
+
+    /**
+     * Called when a request has been handled by
+     * {@link VaadinService#requestEnd(VaadinRequest, VaadinResponse, VaadinSession)}.
+     * The default implementation does nothing.
+     *
+     * @param request
+     *            the handled request
+     * @param durationNanos
+     *            the time taken to handle the request in nanoseconds
+     */
+    public default void requestCompleted(VaadinRequest request,
+            long durationNanos) {
+    }
+
+    /**
+     * Called when a phase of request handling has been completed. The default
+     * implementation does nothing.
+     *
+     * @param phase
+     *            the completed phase
+     * @param durationNanos
+     *            the duration of the phase in nanoseconds
+     */
+    public default void phaseCompleted(Phase phase, long durationNanos) {
+    }
+
+    /**
+     * Called after waiting for the lock of a session or a UI. The default
+     * implementation does nothing.
+     *
+     * @param session
+     *            the locked session
+     * @param waitNanos
+     *            the time spent waiting for the lock in nanoseconds
+     */
+    public default void lockAcquired(VaadinSession session, long waitNanos) {
+    }
+
+    /**
+     * Called when the shared state of a connector has been encoded for
+     * sending to the client. The default implementation does nothing.
+     *
+     * @param connectorType
+     *            the class of the connector
+     * @param durationNanos
+     *            the time taken to encode the state in nanoseconds
+     */
+    public default void stateEncoded(
+            Class<? extends ClientConnector> connectorType,
+            long durationNanos) {
+    }
+
+    /**
+     * Called when a UIDL response or push message has been written. The
+     * default implementation does nothing.
+     *
+     * @param ui
+     *            the UI the response was written for
+     * @param bytes
+     *            the size of the response in bytes, UTF-8 encoded
+     * @param push
+     *            <code>true</code> if the response was pushed,
+     *            <code>false</code> if it was a response to a client request
+     */
+    public default void responseWritten(UI ui, long bytes, boolean push) {
+    }
+
+    /**
+     * Checks whether the serialized sizes of UIs should be measured and
+     * reported to {@link #uiSerialized(UI, long)}. Measuring the size of a UI
+     * means serializing it again separately, so this should only be enabled
+     * when the sizes are actually needed. The default implementation returns
+     * <code>false</code>.
+     *
+     * @return <code>true</code> to measure the serialized sizes of UIs,
+     *         otherwise <code>false</code>
+     */
+    public default boolean isUiSerializationEnabled() {
+        return false;
+    }
+
+    /**
+     * Called when a UI has been serialized by a
+     * {@link CompactSessionSerializer}, if
+     * {@link #isUiSerializationEnabled()} returns <code>true</code>. The
+     * default implementation does nothing.
+     *
+     * @param ui
+     *            the serialized UI
+     * @param bytes
+     *            the serialized size of the UI in bytes, excluding its session
+     *            and the other UIs of the session
+     */
+    public default void uiSerialized(UI ui, long bytes) {
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.vaadin.shared.communication.ServerRpc;
+import com.vaadin.ui.ConnectorTracker;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Dispatches server RPC invocations for one {@link ServerRpc} interface. The
+ * methods of the interface are resolved once into method handles and into
+ * parameter decoders specialized for the declared parameter types. Handling an
+ * invocation then only requires a lookup by method name, one decoder call per
+ * parameter and a method handle invocation.
+ *
+ * @since 8.0
+ */
+public class ServerRpcDispatcher implements Serializable {
+
+    private static final MethodType INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class, Object[].class);
+
+    private static final ConcurrentMap<Class<?>, ServerRpcDispatcher> dispatchers = new ConcurrentHashMap<>();
+
+    /**
+     * Decodes a JSON encoded RPC parameter into a value of the declared
+     * parameter type.
+     */
+    @FunctionalInterface
+    private interface ParameterDecoder extends Serializable {
+        public Object decode(JsonValue value,
+                ConnectorTracker connectorTracker);
+    }
+
+    /**
+     * A method of a server RPC interface together with the method handle and
+     * parameter decoders used for invoking it.
+     */
+    public static class RpcMethod implements Serializable {
+        private final Method method;
+        private final MethodHandle invoker;
+        private final Class<?>[] parameterTypes;
+        private final ParameterDecoder[] decoders;
+
+        private RpcMethod(Method method) {
+            this.method = method;
+
+            Class<?>[] declaredTypes = method.getParameterTypes();
+            Type[] genericTypes = method.getGenericParameterTypes();
+            parameterTypes = new Class<?>[declaredTypes.length];
+            decoders = new ParameterDecoder[declaredTypes.length];
+            for (int i = 0; i < declaredTypes.length; i++) {
+                parameterTypes[i] = wrap(declaredTypes[i]);
+                decoders[i] = createDecoder(genericTypes[i]);
+            }
+
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method)
+                        .asSpreader(Object[].class, declaredTypes.length)
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                // Use reflection, which will report the same problem
+                handle = null;
+            }
+            invoker = handle;
+        }
+
+        /**
+         * Gets the RPC interface method.
+         *
+         * @return the method, not <code>null</code>
+         */
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets the number of parameters of the method.
+         *
+         * @return the number of parameters
+         */
+        public int getParameterCount() {
+            return parameterTypes.length;
+        }
+
+        /**
+         * Decodes the JSON encoded parameters of an invocation of this method.
+         *
+         * @param parametersJson
+         *            the encoded parameters, not <code>null</code>
+         * @param connectorTracker
+         *            the connector tracker used for decoding connector
+         *            references
+         * @return the decoded parameters
+         */
+        public Object[] decodeParameters(JsonArray parametersJson,
+                ConnectorTracker connectorTracker) {
+            Object[] parameters = new Object[parametersJson.length()];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = decoders[i].decode(parametersJson.get(i),
+                        connectorTracker);
+            }
+            return parameters;
+        }
+
+        /**
+         * Invokes this method on the given RPC implementation. Failures are
+         * reported the same way as by {@link Method#invoke(Object, Object...)}:
+         * invalid arguments cause an {@link IllegalArgumentException} and
+         * anything thrown by the method itself is wrapped in an
+         * {@link InvocationTargetException}.
+         *
+         * @param implementation
+         *            the RPC interface implementation, not <code>null</code>
+         * @param parameters
+         *            the parameters to pass to the method
+         * @throws IllegalAccessException
+         *             if the method is not accessible
+         * @throws InvocationTargetException
+         *             if the invoked method throws an exception
+         */
+        public void invoke(Object implementation, Object[] parameters)
+                throws IllegalAccessException, InvocationTargetException {
+            if (invoker == null) {
+                method.invoke(implementation, parameters);
+                return;
+            }
+
+            checkArguments(implementation, parameters);
+            try {
+                invoker.invokeExact(implementation, parameters);
+            } catch (Throwable t) {
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        /*
+         * Done upfront so that anything thrown by the method handle can be
+         * attributed to the invoked method.
+         */
+        private void checkArguments(Object implementation,
+                Object[] parameters) {
+            if (!method.getDeclaringClass().isInstance(implementation)) {
+                throw new IllegalArgumentException(
+                        "object is not an instance of declaring class");
+            }
+            int count = parameters == null ? 0 : parameters.length;
+            if (count != parameterTypes.length) {
+                throw new IllegalArgumentException(
+                        "wrong number of arguments");
+            }
+            for (int i = 0; i < count; i++) {
+                Object parameter = parameters[i];
+                if (parameter == null ? method.getParameterTypes()[i]
+                        .isPrimitive()
+                        : !parameterTypes[i].isInstance(parameter)) {
+                    throw new IllegalArgumentException(
+                            "argument type mismatch");
+                }
+            }
+        }
+    }
+
+    private final Map<String, List<RpcMethod>> methods = new HashMap<>();
+
+    private ServerRpcDispatcher(Class<?> rpcInterface) {
+        for (Method method : rpcInterface.getMethods()) {
+            methods.computeIfAbsent(method.getName(), name -> new ArrayList<>())
+                    .add(new RpcMethod(method));
+        }
+    }
+
+    /**
+     * Gets the dispatcher for the given RPC interface. Dispatchers are created
+     * once per interface and shared.
+     *
+     * @param rpcInterface
+     *            the RPC interface, not <code>null</code>
+     * @return the dispatcher for the interface, not <code>null</code>
+     */
+    public static ServerRpcDispatcher get(
+            Class<? extends ServerRpc> rpcInterface) {
+        ServerRpcDispatcher dispatcher = dispatchers.get(rpcInterface);
+        if (dispatcher == null) {
+            // Doesn't matter if the same dispatcher is created by several
+            // threads
+            dispatcher = new ServerRpcDispatcher(rpcInterface);
+            dispatchers.put(rpcInterface, dispatcher);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * Finds a method by name and parameter count. If there are several
+     * matching methods, the first one returned by {@link Class#getMethods()}
+     * is used.
+     *
+     * @param methodName
+     *            the name of the method
+     * @param parameterCount
+     *            the number of parameters
+     * @return the matching method, or <code>null</code> if there is no such
+     *         method
+     */
+    public RpcMethod getMethod(String methodName, int parameterCount) {
+        List<RpcMethod> candidates = methods.get(methodName);
+        if (candidates != null) {
+            for (RpcMethod candidate : candidates) {
+                if (candidate.getParameterCount() == parameterCount) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * The specialized decoders produce the same values as
+     * JsonCodec.decodeInternalOrCustomType for the same types.
+     */
+    private static ParameterDecoder createDecoder(Type type) {
+        if (type == String.class) {
+            return (value, tracker) -> isNull(value) ? null : value.asString();
+        } else if (type == int.class || type == Integer.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Integer.valueOf((int) value.asNumber());
+        } else if (type == long.class || type == Long.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Long.valueOf((long) value.asNumber());
+        } else if (type == double.class || type == Double.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Double.valueOf(value.asNumber());
+        } else if (type == float.class || type == Float.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Float.valueOf((float) value.asNumber());
+        } else if (type == boolean.class || type == Boolean.class) {
+            return (value, tracker) -> isNull(value) ? null
+                    : Boolean.valueOf(value.asBoolean());
+        }
+        return (value, tracker) -> JsonCodec.decodeInternalOrCustomType(type,
+                value, tracker);
+    }
+
+    private static boolean isNull(JsonValue value) {
+        return value.getType() == JsonType.NULL;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
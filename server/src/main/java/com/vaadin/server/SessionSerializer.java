@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Strategy for turning a {@link VaadinSession} with all its UIs into bytes
+ * when the HTTP session it is stored in is serialized, e.g. for replicating
+ * it to another node of a cluster.
+ * <p>
+ * When the service has a session serializer, the session writes the bytes
+ * produced by {@link #serialize(VaadinSession)} to the stream of the servlet
+ * container instead of its object graph, together with the serializer
+ * instance itself. The serializer is therefore serialized with standard Java
+ * serialization, and {@link #deserialize(byte[])} is called on the
+ * deserialized copy when the HTTP session is read back.
+ * <p>
+ * Objects that are referenced both from the session and from other HTTP
+ * session attributes will be deserialized as separate copies.
+ * <p>
+ * The serializer is selected using the
+ * {@link Constants#SERVLET_PARAMETER_SESSION_SERIALIZER} parameter, or by
+ * overriding {@link VaadinService#createSessionSerializer()}.
+ *
+ * @see CompactSessionSerializer
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public interface SessionSerializer extends Serializable {
+
+    /**
+     * Serializes the given session. The session is locked by the current
+     * thread while this method is called.
+     *
+     * @param session
+     *            the session to serialize, not <code>null</code>
+     * @return the serialized form of the session
+     * @throws IOException
+     *             if the session can't be serialized
+     */
+    public byte[] serialize(VaadinSession session) throws IOException;
+
+    /**
+     * Restores a session from the bytes produced by
+     * {@link #serialize(VaadinSession)}. The transient parts of the session
+     * are refreshed by the framework when the session is used the next time.
+     *
+     * @param data
+     *            the serialized form of the session, not <code>null</code>
+     * @return the restored session
+     * @throws IOException
+     *             if the data can't be read
+     * @throws ClassNotFoundException
+     *             if a class of the serialized object graph can't be found
+     */
+    public VaadinSession deserialize(byte[] data)
+            throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the static resources served by {@link VaadinServlet} from the VAADIN
+ * directory. Each resource is resolved and inspected only once: the location
+ * of a requested file, its modification time, length and entity tag are kept
+ * in memory, and small resources that are not regular files, e.g. entries of
+ * the widgetset and theme JARs, are kept as direct byte buffers together with
+ * a gzip compressed variant. Regular files are read from disk for each
+ * request. Since servlet output streams are not channels in practice, the
+ * data is copied to the response through a buffer on the heap.
+ * <p>
+ * Resources are assumed not to change while the cache is in use, so the cache
+ * is only used in production mode.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class StaticResourceCache implements Serializable {
+
+    /**
+     * The default maximum size of resources kept in memory.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 1024 * 1024;
+
+    /**
+     * A cached static resource or a variant of one.
+     */
+    public static class Resource implements Serializable {
+        private final URL url;
+        private final long lastModified;
+        private final long length;
+        private final String eTag;
+        private final File file;
+        private final transient ByteBuffer content;
+
+        private volatile transient Resource gzipped;
+        private volatile transient boolean gzippedResolved = false;
+
+        private Resource(URL url, long lastModified, long length, String eTag,
+                File file, ByteBuffer content) {
+            this.url = url;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.eTag = eTag;
+            this.file = file;
+            this.content = content;
+        }
+
+        /**
+         * Gets the last modification time truncated to whole seconds, as sent
+         * in the <code>Last-Modified</code> header.
+         *
+         * @return the modification timestamp, or 0 if not known
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the length of the resource in bytes.
+         *
+         * @return the length, or -1 if not known
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Gets the quoted entity tag of the resource.
+         *
+         * @return the entity tag, or <code>null</code> if not known
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Gets the gzip compressed variant of this resource. A precompressed
+         * <code>.gz</code> file next to the resource is used if there is one.
+         * Otherwise, resources kept in memory are compressed once and the
+         * compressed variant is used if it is smaller.
+         *
+         * @return the compressed variant, or <code>null</code> if there is
+         *         none
+         * @throws IOException
+         *             if reading the compressed variant fails
+         */
+        public Resource getGzipped() throws IOException {
+            if (!gzippedResolved) {
+                synchronized (this) {
+                    if (!gzippedResolved) {
+                        gzipped = loadGzipped();
+                        gzippedResolved = true;
+                    }
+                }
+            }
+            return gzipped;
+        }
+
+        private Resource loadGzipped() throws IOException {
+            Resource precompressed = load(
+                    new URL(url.toExternalForm() + ".gz"), Integer.MAX_VALUE,
+                    GZIP_ETAG_SUFFIX);
+            if (precompressed != null || content == null) {
+                return precompressed;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                    content.remaining() / 2);
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                ByteBuffer source = content.duplicate();
+                byte[] buffer = new byte[Constants.DEFAULT_BUFFER_SIZE];
+                while (source.hasRemaining()) {
+                    int count = Math.min(buffer.length, source.remaining());
+                    source.get(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                }
+            }
+            if (bytes.size() >= content.remaining()) {
+                return null;
+            }
+            return fromBytes(url, lastModified, bytes.toByteArray(),
+                    GZIP_ETAG_SUFFIX);
+        }
+
+        /**
+         * Writes a range of the resource to the given stream. If the stream is
+         * also a {@link WritableByteChannel}, the data is written directly to
+         * the channel.
+         *
+         * @param out
+         *            the stream to write to, not <code>null</code>
+         * @param offset
+         *            the index of the first byte to write
+         * @param count
+         *            the number of bytes to write
+         * @throws IOException
+         *             if reading or writing fails
+         */
+        public void writeTo(OutputStream out, long offset, long count)
+                throws IOException {
+            WritableByteChannel target = out instanceof WritableByteChannel
+                    ? (WritableByteChannel) out : Channels.newChannel(out);
+            if (content != null) {
+                ByteBuffer source = content.duplicate();
+                // ByteBuffer overrides these since Java 9, so call them
+                // through Buffer to keep the code running on Java 8
+                ((Buffer) source).position((int) offset);
+                ((Buffer) source).limit((int) (offset + count));
+                while (source.hasRemaining()) {
+                    target.write(source);
+                }
+            } else if (file != null) {
+                transferFile(file, target, offset, count);
+            } else {
+                try (InputStream in = url.openStream()) {
+                    long skipped = 0;
+                    while (skipped < offset) {
+                        long n = in.skip(offset - skipped);
+                        if (n <= 0) {
+                            throw new IOException(
+                                    "Resource " + url + " was truncated");
+                        }
+                        skipped += n;
+                    }
+                    byte[] buffer = new byte[Constants.DEFAULT_BUFFER_SIZE];
+                    long remaining = count;
+                    int read;
+                    while (remaining > 0 && (read = in.read(buffer, 0,
+                            (int) Math.min(buffer.length, remaining))) >= 0) {
+                        out.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A map that removes the least recently used entries when it grows
+     * larger than a maximum size.
+     */
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * The maximum number of requested file names whose locations are cached.
+     */
+    private static final int MAX_CACHED_URLS = 1024;
+
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final int maxInMemorySize;
+
+    /**
+     * Locations by normalized file name. Bounded since different file names
+     * can still refer to the same file.
+     */
+    private final Map<String, URL> urls = Collections
+            .synchronizedMap(new LruMap<>(MAX_CACHED_URLS));
+    private final ConcurrentMap<String, Resource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new cache keeping resources up to
+     * {@link #DEFAULT_MAX_IN_MEMORY_SIZE} bytes in memory.
+     */
+    public StaticResourceCache() {
+        this(DEFAULT_MAX_IN_MEMORY_SIZE);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxInMemorySize
+     *            the maximum size in bytes of resources that are kept in
+     *            memory if they are not regular files
+     */
+    public StaticResourceCache(int maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    /**
+     * Gets the cached location of a file name requested earlier. File names
+     * are normalized, so e.g. <code>/VAADIN//a/./b</code> and
+     * <code>/VAADIN/a/b</code> share the same entry.
+     *
+     * @param filename
+     *            the requested file name
+     * @return the URL of the file, or <code>null</code> if not cached
+     */
+    public URL getURL(String filename) {
+        String key = normalizePath(filename);
+        return key == null ? null : urls.get(key);
+    }
+
+    /**
+     * Caches the location of a requested file name. Only file names that have
+     * been found should be cached, so that requests for arbitrary missing
+     * files can't fill the cache. Only a limited number of the most recently
+     * used file names are kept.
+     *
+     * @param filename
+     *            the requested file name
+     * @param url
+     *            the URL of the file, not <code>null</code>
+     */
+    public void putURL(String filename, URL url) {
+        String key = normalizePath(filename);
+        if (key != null) {
+            urls.put(key, url);
+        }
+    }
+
+    /**
+     * Gets the resource at the given URL, loading it if it has not been cached
+     * yet.
+     *
+     * @param url
+     *            the URL of the resource, not <code>null</code>
+     * @return the resource, or <code>null</code> if it does not exist
+     * @throws IOException
+     *             if reading the resource fails
+     */
+    public Resource get(URL url) throws IOException {
+        String key = url.toExternalForm();
+        Resource resource = resources.get(key);
+        if (resource == null) {
+            // Doesn't matter if the same resource is loaded by several threads
+            resource = load(url, maxInMemorySize, "");
+            if (resource != null) {
+                resources.put(key, resource);
+            }
+        }
+        return resource;
+    }
+
+    private static Resource load(URL url, int maxInMemorySize,
+            String eTagSuffix) throws IOException {
+        File file = toFile(url);
+        if (file != null) {
+            if (!file.isFile()) {
+                return null;
+            }
+            long lastModified = truncateToSeconds(file.lastModified());
+            long length = file.length();
+            return new Resource(url, lastModified, length,
+                    createETag(length, lastModified, eTagSuffix), file, null);
+        }
+
+        URLConnection connection = url.openConnection();
+        long lastModified = truncateToSeconds(connection.getLastModified());
+        long length = connection.getContentLengthLong();
+        try (InputStream in = connection.getInputStream()) {
+            if (length > maxInMemorySize) {
+                return createStreamed(url, lastModified, length, eTagSuffix);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                    length > 0 ? (int) length : Constants.DEFAULT_BUFFER_SIZE);
+            byte[] buffer = new byte[Constants.DEFAULT_BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+                if (bytes.size() > maxInMemorySize) {
+                    // The length was not known in advance
+                    return createStreamed(url, lastModified, length,
+                            eTagSuffix);
+                }
+            }
+            return fromBytes(url, lastModified, bytes.toByteArray(),
+                    eTagSuffix);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Resource createStreamed(URL url, long lastModified,
+            long length, String eTagSuffix) {
+        return new Resource(url, lastModified, length,
+                createETag(length, lastModified, eTagSuffix), null, null);
+    }
+
+    private static Resource fromBytes(URL url, long lastModified,
+            byte[] bytes, String eTagSuffix) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer content = ByteBuffer.allocateDirect(bytes.length);
+        content.put(bytes);
+        // Not ByteBuffer.flip(), which doesn't exist on Java 8
+        ((Buffer) content).flip();
+        return new Resource(url, lastModified, bytes.length,
+                createETag(bytes.length, crc.getValue(), eTagSuffix), null,
+                content.asReadOnlyBuffer());
+    }
+
+    /**
+     * Writes a range of a file to the given channel using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. The
+     * operating system only copies the data directly if the target is a file
+     * or socket channel; for a channel wrapping an output stream, the data is
+     * copied through a heap buffer.
+     *
+     * @param file
+     *            the file to write, not <code>null</code>
+     * @param target
+     *            the channel to write to, not <code>null</code>
+     * @param offset
+     *            the index of the first byte to write
+     * @param count
+     *            the number of bytes to write
+     * @throws IOException
+     *             if reading or writing fails, or if the file is shorter than
+     *             expected
+     */
+    static void transferFile(File file, WritableByteChannel target,
+            long offset, long count) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ)) {
+            long position = offset;
+            long end = offset + count;
+            while (position < end) {
+                long transferred = channel.transferTo(position,
+                        end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("File " + file + " was truncated");
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Normalizes a path by removing empty and <code>.</code> segments and
+     * resolving <code>..</code> segments.
+     *
+     * @param path
+     *            the path to normalize, not <code>null</code>
+     * @return the normalized path, or <code>null</code> if the path refers to
+     *         a parent of its root
+     */
+    static String normalizePath(String path) {
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            } else if ("..".equals(segment)) {
+                if (segments.pollLast() == null) {
+                    return null;
+                }
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        StringBuilder normalized = new StringBuilder(path.length());
+        for (String segment : segments) {
+            normalized.append('/').append(segment);
+        }
+        if (path.endsWith("/")) {
+            normalized.append('/');
+        }
+        return normalized.toString();
+    }
+
+    static String createETag(long length, long version, String suffix) {
+        return '"' + Long.toHexString(length) + '-' + Long.toHexString(version)
+                + suffix + '"';
+    }
+
+    private static File toFile(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Milliseconds are not sent by browsers in If-Modified-Since
+     */
+    static long truncateToSeconds(long timestamp) {
+        return timestamp - timestamp % 1000;
+    }
+}
@@ -17,6 +17,8 @@ package com.vaadin.server;
 
 import java.io.IOException;
 
+import com.vaadin.ui.UI;
+
 /**
  * RequestHandler which takes care of locking and unlocking of the VaadinSession
  * automatically. The session is locked before
@@ -36,6 +38,18 @@ public abstract class SynchronizedRequestHandler implements RequestHandler {
             return false;
         }
 
+        if (isUIScoped() && session.isPerUiLocking()) {
+            UI ui = session.getService().findAndLockUI(session, request);
+            if (ui != null) {
+                try {
+                    return synchronizedHandleRequest(session, request,
+                            response);
+                } finally {
+                    session.unlock(ui);
+                }
+            }
+        }
+
         session.lock();
         try {
             return synchronizedHandleRequest(session, request, response);
@@ -87,4 +101,20 @@ public abstract class SynchronizedRequestHandler implements RequestHandler {
         return true;
     }
 
+    /**
+     * Checks whether requests handled by this handler only concern the UI
+     * identified by the request. If the session uses
+     * {@link VaadinSession#isPerUiLocking() per UI locking}, only that UI is
+     * locked while handling the request instead of the whole session. If no
+     * UI is found for the request, the whole session is locked. The default
+     * implementation returns <code>false</code>.
+     *
+     * @since 8.0
+     * @return <code>true</code> if locking the UI of the request is enough,
+     *         <code>false</code> if the whole session should be locked
+     */
+    protected boolean isUIScoped() {
+        return false;
+    }
+
 }
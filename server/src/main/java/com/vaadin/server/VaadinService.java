@@ -34,11 +34,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -50,6 +56,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.vaadin.annotations.PreserveOnRefresh;
 import com.vaadin.event.EventRouter;
+import com.vaadin.server.RequestMetrics.Phase;
+import com.vaadin.server.RequestMetrics.PhaseTimer;
 import com.vaadin.server.VaadinSession.FutureAccess;
 import com.vaadin.server.VaadinSession.State;
 import com.vaadin.server.communication.AtmospherePushConnection;
@@ -123,6 +131,8 @@ public abstract class VaadinService implements Serializable {
 
     private static final String REQUEST_START_TIME_ATTRIBUTE = "requestStartTime";
 
+    private static final String JFR_REQUEST_METRICS_CLASS = "com.vaadin.server.JfrRequestMetrics";
+
     private final DeploymentConfiguration deploymentConfiguration;
 
     private final EventRouter eventRouter = new EventRouter();
@@ -134,6 +144,16 @@ public abstract class VaadinService implements Serializable {
 
     private Iterable<RequestHandler> requestHandlers;
 
+    private RequestMetrics requestMetrics = RequestMetrics.NONE;
+
+    private SessionSerializer sessionSerializer;
+
+    private boolean storeModifiedSessions = false;
+
+    private transient Executor accessExecutor;
+
+    private Broadcaster broadcaster;
+
     private boolean atmosphereAvailable = checkAtmosphereSupport();
 
     /**
@@ -148,6 +168,11 @@ public abstract class VaadinService implements Serializable {
      */
     private boolean initialized = false;
 
+    /**
+     * Lazily created by {@link #getScheduledExecutor()}.
+     */
+    private transient volatile ScheduledExecutorService scheduledExecutor;
+
     /**
      * Creates a new vaadin service based on a deployment configuration
      *
@@ -193,9 +218,209 @@ public abstract class VaadinService implements Serializable {
         Collections.reverse(handlers);
         requestHandlers = Collections.unmodifiableCollection(handlers);
 
+        requestMetrics = createRequestMetrics();
+        sessionSerializer = createSessionSerializer();
+        storeModifiedSessions = Boolean.parseBoolean(
+                getDeploymentConfiguration().getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_STORE_MODIFIED_SESSIONS,
+                        "false"));
+        accessExecutor = createAccessExecutor();
+        broadcaster = createBroadcaster();
+
         initialized = true;
     }
 
+    /**
+     * Called during initialization to create the broadcaster that delivers
+     * messages to the UIs of this service.
+     *
+     * @since 8.0
+     * @return the broadcaster to use, not <code>null</code>
+     * @throws ServiceException
+     *             if the broadcaster can't be created
+     */
+    protected Broadcaster createBroadcaster() throws ServiceException {
+        return new Broadcaster();
+    }
+
+    /**
+     * Gets the broadcaster that delivers messages to all the UIs of this
+     * service that are subscribed to a topic.
+     *
+     * @since 8.0
+     * @return the broadcaster
+     * @see #createBroadcaster()
+     */
+    public Broadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * Called during initialization to create the executor that runs the
+     * access tasks of sessions that are not locked. The default
+     * implementation uses the executor selected by the
+     * {@link Constants#SERVLET_PARAMETER_ACCESS_EXECUTOR} parameter.
+     *
+     * @since 8.0
+     * @return the executor to use, or <code>null</code> to run access tasks on
+     *         the thread enqueuing them or releasing the session lock
+     * @throws ServiceException
+     *             if the configured executor can't be created
+     */
+    protected Executor createAccessExecutor() throws ServiceException {
+        String executor = getDeploymentConfiguration()
+                .getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_ACCESS_EXECUTOR,
+                        "request");
+        if ("request".equals(executor)) {
+            return null;
+        } else if ("virtual".equals(executor)) {
+            try {
+                // Available since Java 21
+                return (Executor) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                getLogger().config(
+                        "Virtual threads are not supported, running access tasks on daemon threads");
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "Vaadin access task for " + getServiceName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+
+        try {
+            Class<?> executorClass = getClassLoader().loadClass(executor);
+            return executorClass.asSubclass(Executor.class).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new ServiceException(
+                    "Could not create access executor " + executor, e);
+        }
+    }
+
+    /**
+     * Gets the executor that runs the access tasks of sessions that are not
+     * locked.
+     *
+     * @since 8.0
+     * @return the access executor, or <code>null</code> if access tasks are
+     *         run on the thread enqueuing them or releasing the session lock
+     * @see #createAccessExecutor()
+     */
+    public Executor getAccessExecutor() {
+        return accessExecutor;
+    }
+
+    /**
+     * Called during initialization to create the request metrics for the
+     * service. The default implementation uses the implementation selected
+     * by the {@link Constants#SERVLET_PARAMETER_REQUEST_METRICS} parameter.
+     *
+     * @since 8.0
+     * @return the request metrics to use, not <code>null</code>
+     * @throws ServiceException
+     *             if the configured request metrics can't be created
+     */
+    protected RequestMetrics createRequestMetrics() throws ServiceException {
+        String metrics = getDeploymentConfiguration()
+                .getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_REQUEST_METRICS, "jfr");
+        if ("none".equals(metrics)) {
+            return RequestMetrics.NONE;
+        } else if ("jfr".equals(metrics)) {
+            return createJfrRequestMetrics();
+        }
+
+        try {
+            Class<?> metricsClass = getClassLoader().loadClass(metrics);
+            return metricsClass.asSubclass(RequestMetrics.class)
+                    .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new ServiceException(
+                    "Could not create request metrics " + metrics, e);
+        }
+    }
+
+    /**
+     * Creates the Flight Recorder request metrics if the JVM supports the
+     * Flight Recorder API. The implementation is loaded reflectively since it
+     * is not compiled when building with a JDK that doesn't provide the API.
+     */
+    private static RequestMetrics createJfrRequestMetrics() {
+        try {
+            Class<?> flightRecorder = Class.forName("jdk.jfr.FlightRecorder");
+            if (!Boolean.TRUE.equals(
+                    flightRecorder.getMethod("isAvailable").invoke(null))) {
+                return RequestMetrics.NONE;
+            }
+            return Class.forName(JFR_REQUEST_METRICS_CLASS)
+                    .asSubclass(RequestMetrics.class).newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return RequestMetrics.NONE;
+        }
+    }
+
+    /**
+     * Gets the request metrics that the framework reports the timings and
+     * sizes of handled requests to.
+     *
+     * @since 8.0
+     * @return the request metrics, not <code>null</code>
+     * @see #createRequestMetrics()
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    /**
+     * Called during initialization to create the session serializer for the
+     * service. The default implementation uses the serializer selected by the
+     * {@link Constants#SERVLET_PARAMETER_SESSION_SERIALIZER} parameter.
+     *
+     * @since 8.0
+     * @return the session serializer to use, or <code>null</code> to serialize
+     *         sessions using standard Java serialization
+     * @throws ServiceException
+     *             if the configured session serializer can't be created
+     */
+    protected SessionSerializer createSessionSerializer()
+            throws ServiceException {
+        String serializer = getDeploymentConfiguration()
+                .getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_SESSION_SERIALIZER,
+                        "java");
+        if ("java".equals(serializer)) {
+            return null;
+        } else if ("compact".equals(serializer)) {
+            return new CompactSessionSerializer();
+        }
+
+        try {
+            Class<?> serializerClass = getClassLoader().loadClass(serializer);
+            return serializerClass.asSubclass(SessionSerializer.class)
+                    .newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new ServiceException(
+                    "Could not create session serializer " + serializer, e);
+        }
+    }
+
+    /**
+     * Gets the serializer used for writing the sessions of this service when
+     * the HTTP sessions they are stored in are serialized.
+     *
+     * @since 8.0
+     * @return the session serializer, or <code>null</code> if sessions are
+     *         serialized using standard Java serialization
+     * @see #createSessionSerializer()
+     */
+    public SessionSerializer getSessionSerializer() {
+        return sessionSerializer;
+    }
+
     /**
      * Called during initialization to add the request handlers for the service.
      * Note that the returned list will be reversed so the last handler will be
@@ -540,9 +765,10 @@ public abstract class VaadinService implements Serializable {
      * @param wrappedSession
      *            The wrapped session the lock is associated with
      * @param lock
-     *            The lock object
+     *            The lock object, either a {@link ReentrantLock} or a
+     *            {@link ReentrantReadWriteLock} when per UI locking is used
      */
-    private void setSessionLock(WrappedSession wrappedSession, Lock lock) {
+    private void setSessionLock(WrappedSession wrappedSession, Object lock) {
         if (wrappedSession == null) {
             throw new IllegalArgumentException(
                     "Can't set a lock for a null session");
@@ -583,6 +809,11 @@ public abstract class VaadinService implements Serializable {
             return (ReentrantLock) lock;
         }
 
+        if (lock instanceof ReentrantReadWriteLock) {
+            // Locking the whole session excludes all UI specific locking
+            return ((ReentrantReadWriteLock) lock).writeLock();
+        }
+
         if (lock == null) {
             return null;
         }
@@ -592,6 +823,40 @@ public abstract class VaadinService implements Serializable {
                         + getLockAttributeName() + " in the session");
     }
 
+    /**
+     * Gets the read-write lock used for the session when per UI locking is
+     * used.
+     *
+     * @param wrappedSession
+     *            The wrapped session
+     * @return the read-write lock of the session, or <code>null</code> if per
+     *         UI locking is not used for the session
+     */
+    ReentrantReadWriteLock getSessionReadWriteLock(
+            WrappedSession wrappedSession) {
+        Object lock = wrappedSession.getAttribute(getLockAttributeName());
+        if (lock instanceof ReentrantReadWriteLock) {
+            return (ReentrantReadWriteLock) lock;
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether new sessions should use a separate lock for each UI.
+     *
+     * @see Constants#SERVLET_PARAMETER_PER_UI_LOCKING
+     * @see VaadinSession#isPerUiLocking()
+     *
+     * @return <code>true</code> to use per UI locking, <code>false</code> to
+     *         lock the whole session
+     * @since 8.0
+     */
+    protected boolean isPerUiLockingEnabled() {
+        return Boolean.parseBoolean(getDeploymentConfiguration()
+                .getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_PER_UI_LOCKING, "false"));
+    }
+
     /**
      * Locks the given session for this service instance. Typically you want to
      * call {@link VaadinSession#lock()} instead of this method.
@@ -615,11 +880,25 @@ public abstract class VaadinService implements Serializable {
             synchronized (VaadinService.class) {
                 lock = getSessionLock(wrappedSession);
                 if (lock == null) {
-                    lock = new ReentrantLock();
-                    setSessionLock(wrappedSession, lock);
+                    if (isPerUiLockingEnabled()) {
+                        ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+                        setSessionLock(wrappedSession, readWriteLock);
+                        lock = readWriteLock.writeLock();
+                    } else {
+                        lock = new ReentrantLock();
+                        setSessionLock(wrappedSession, lock);
+                    }
                 }
             }
         }
+        ReentrantReadWriteLock readWriteLock = getSessionReadWriteLock(
+                wrappedSession);
+        if (readWriteLock != null && readWriteLock.getReadHoldCount() > 0
+                && !readWriteLock.isWriteLockedByCurrentThread()) {
+            // Would never be granted
+            throw new IllegalStateException(
+                    "Can't lock the session while holding shared access to it");
+        }
         lock.lock();
 
         try {
@@ -644,8 +923,8 @@ public abstract class VaadinService implements Serializable {
      */
     protected void unlockSession(WrappedSession wrappedSession) {
         assert getSessionLock(wrappedSession) != null;
-        assert ((ReentrantLock) getSessionLock(wrappedSession))
-                .isHeldByCurrentThread() : "Trying to unlock the session but it has not been locked by this thread";
+        assert VaadinSession.isHeldByCurrentThread(getSessionLock(
+                wrappedSession)) : "Trying to unlock the session but it has not been locked by this thread";
         getSessionLock(wrappedSession).unlock();
     }
 
@@ -655,6 +934,12 @@ public abstract class VaadinService implements Serializable {
         WrappedSession wrappedSession = getWrappedSession(request,
                 requestCanCreateSession);
 
+        VaadinSession existingSession = findExistingSessionShared(request,
+                wrappedSession);
+        if (existingSession != null) {
+            return existingSession;
+        }
+
         try {
             lockSession(wrappedSession);
         } catch (IllegalStateException e) {
@@ -670,6 +955,43 @@ public abstract class VaadinService implements Serializable {
 
     }
 
+    /**
+     * Finds an existing session using only shared access to it if per UI
+     * locking is used for the session, so that concurrent requests to
+     * different UIs are not serialized when looking up the session.
+     *
+     * @return the existing session, or <code>null</code> if it must be looked
+     *         up or created with the session locked
+     */
+    private VaadinSession findExistingSessionShared(VaadinRequest request,
+            WrappedSession wrappedSession) throws SessionExpiredException {
+        ReentrantReadWriteLock readWriteLock = getSessionReadWriteLock(
+                wrappedSession);
+        if (readWriteLock == null
+                || hasParameter(request, URL_PARAMETER_RESTART_APPLICATION)
+                || hasParameter(request, URL_PARAMETER_CLOSE_APPLICATION)) {
+            return null;
+        }
+
+        VaadinSession session;
+        readWriteLock.readLock().lock();
+        try {
+            // Guard against invalidation like in lockSession
+            wrappedSession.getAttribute(getLockAttributeName());
+            session = getExistingSession(request, false);
+        } catch (IllegalStateException e) {
+            throw new SessionExpiredException();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+
+        if (session != null && readWriteLock.getReadHoldCount() == 0
+                && !session.getPendingAccessQueue().isEmpty()) {
+            ensureAccessQueuePurged(session);
+        }
+        return session;
+    }
+
     /**
      * Finds or creates a Vaadin session. Assumes necessary synchronization has
      * been done by the caller to ensure this is not called simultaneously by
@@ -684,8 +1006,8 @@ public abstract class VaadinService implements Serializable {
     private VaadinSession doFindOrCreateVaadinSession(VaadinRequest request,
             boolean requestCanCreateSession)
             throws SessionExpiredException, ServiceException {
-        assert ((ReentrantLock) getSessionLock(request.getWrappedSession()))
-                .isHeldByCurrentThread() : "Session has not been locked by this thread";
+        assert VaadinSession.isHeldByCurrentThread(getSessionLock(request
+                .getWrappedSession())) : "Session has not been locked by this thread";
 
         /* Find an existing session for this request. */
         VaadinSession session = getExistingSession(request,
@@ -750,8 +1072,8 @@ public abstract class VaadinService implements Serializable {
      */
     private VaadinSession createAndRegisterSession(VaadinRequest request)
             throws ServiceException {
-        assert ((ReentrantLock) getSessionLock(request.getWrappedSession()))
-                .isHeldByCurrentThread() : "Session has not been locked by this thread";
+        assert VaadinSession.isHeldByCurrentThread(getSessionLock(request
+                .getWrappedSession())) : "Session has not been locked by this thread";
 
         VaadinSession session = createVaadinSession(request);
 
@@ -1002,6 +1324,45 @@ public abstract class VaadinService implements Serializable {
         return ui;
     }
 
+    /**
+     * Finds the {@link UI} that belongs to the provided request and locks it
+     * using {@link VaadinSession#lock(UI)}. With per UI locking, this allows
+     * handling the request concurrently with requests to other UIs of the same
+     * session. The caller is responsible for unlocking the UI using
+     * {@link VaadinSession#unlock(UI)} if a UI is returned.
+     *
+     * @see #findUI(VaadinRequest)
+     *
+     * @param session
+     *            the session of the request, not <code>null</code>
+     * @param request
+     *            the request for which a UI is desired
+     * @return the locked UI belonging to the request or <code>null</code> if no
+     *         UI is found
+     * @since 8.0
+     */
+    public UI findAndLockUI(VaadinSession session, VaadinRequest request) {
+        UI ui;
+        session.lockShared();
+        try {
+            ui = findUI(request);
+        } finally {
+            session.unlockShared();
+        }
+        if (ui == null) {
+            return null;
+        }
+
+        session.lock(ui);
+        if (ui.getSession() != session) {
+            // Removed while waiting for the lock
+            session.unlock(ui);
+            UI.setCurrent(null);
+            return null;
+        }
+        return ui;
+    }
+
     /**
      * Check if the given UI should be associated with the
      * <code>window.name</code> so that it can be re-used if the browser window
@@ -1073,8 +1434,10 @@ public abstract class VaadinService implements Serializable {
                 VaadinSession serviceSession = (VaadinSession) value;
                 VaadinService service = serviceSession.getService();
                 // Use the same lock instance in the new session
-                service.setSessionLock(newSession,
-                        serviceSession.getLockInstance());
+                ReentrantReadWriteLock readWriteLock = serviceSession
+                        .getReadWriteLockInstance();
+                service.setSessionLock(newSession, readWriteLock != null
+                        ? readWriteLock : serviceSession.getLockInstance());
 
                 service.storeSession(serviceSession, newSession);
                 serviceSession.setAttribute(PRESERVE_UNBOUND_SESSION_ATTRIBUTE,
@@ -1344,18 +1707,44 @@ public abstract class VaadinService implements Serializable {
      */
     public void requestEnd(VaadinRequest request, VaadinResponse response,
             VaadinSession session) {
+        Long startTime = (Long) request
+                .getAttribute(REQUEST_START_TIME_ATTRIBUTE);
+        long durationNanos = startTime != null
+                ? System.nanoTime() - startTime.longValue() : 0;
         if (session != null) {
             assert VaadinSession.getCurrent() == session;
-            session.lock();
-            try {
-                cleanupSession(session);
-                final long duration = (System.nanoTime() - (Long) request
-                        .getAttribute(REQUEST_START_TIME_ATTRIBUTE)) / 1000000;
-                session.setLastRequestDuration(duration);
-            } finally {
-                session.unlock();
+            final long duration = durationNanos / 1000000;
+            if (session.isPerUiLocking()
+                    && !session.getLockInstance().tryLock()) {
+                /*
+                 * Other requests are using the session. Don't wait for them
+                 * just to clean up, the request getting the lock will do it.
+                 */
+                session.lockShared();
+                try {
+                    session.setLastRequestDuration(duration);
+                } finally {
+                    session.unlockShared();
+                }
+            } else {
+                if (!session.isPerUiLocking()) {
+                    session.lock();
+                }
+                try {
+                    cleanupSession(session);
+                    session.setLastRequestDuration(duration);
+                    if (session.isModified()) {
+                        storeModifiedSession(session);
+                        session.clearModified();
+                    }
+                } finally {
+                    session.unlock();
+                }
             }
         }
+        if (startTime != null && requestMetrics.isEnabled()) {
+            requestMetrics.requestCompleted(request, durationNanos);
+        }
         CurrentInstance.clearAll();
     }
 
@@ -1397,10 +1786,12 @@ public abstract class VaadinService implements Serializable {
             throws ServiceException {
         requestStart(request, response);
 
+        PhaseTimer timer = new PhaseTimer(requestMetrics);
         VaadinSession vaadinSession = null;
         try {
             // Find out the service session this request is related to
             vaadinSession = findVaadinSession(request);
+            timer.phaseCompleted(Phase.FIND_SESSION);
             if (vaadinSession == null) {
                 return;
             }
@@ -1420,7 +1811,11 @@ public abstract class VaadinService implements Serializable {
         } catch (final Throwable e) {
             handleExceptionDuringRequest(request, response, vaadinSession, e);
         } finally {
+            if (vaadinSession != null) {
+                timer.phaseCompleted(Phase.HANDLE_REQUEST);
+            }
             requestEnd(request, response, vaadinSession);
+            timer.phaseCompleted(Phase.REQUEST_END);
         }
     }
 
@@ -1699,7 +2094,7 @@ public abstract class VaadinService implements Serializable {
         if (otherSession == null || otherSession == session) {
             return false;
         }
-        return otherSession.hasLock();
+        return otherSession.hasSharedLock();
     }
 
     /**
@@ -1756,7 +2151,33 @@ public abstract class VaadinService implements Serializable {
      */
     public Future<Void> accessSession(VaadinSession session,
             Runnable runnable) {
-        FutureAccess future = new FutureAccess(session, runnable);
+        return enqueueAccess(session, new FutureAccess(session, runnable));
+    }
+
+    /**
+     * Implementation for {@link UI#access(Runnable)}. With per UI locking, the
+     * task is run by a thread that has the UI locked, so it does not have to
+     * wait for exclusive access to the whole session.
+     *
+     * @since 8.0
+     * @see UI#access(Runnable)
+     * @see VaadinSession#isPerUiLocking()
+     *
+     * @param ui
+     *            the UI to access, attached to a session
+     * @param runnable
+     *            the runnable to run with the UI locked
+     *
+     * @return a future that can be used to check for task completion and to
+     *         cancel the task
+     */
+    public Future<Void> accessUI(UI ui, Runnable runnable) {
+        VaadinSession session = ui.getSession();
+        return enqueueAccess(session, new FutureAccess(session, ui, runnable));
+    }
+
+    private Future<Void> enqueueAccess(VaadinSession session,
+            FutureAccess future) {
         session.getPendingAccessQueue().add(future);
 
         ensureAccessQueuePurged(session);
@@ -1769,13 +2190,27 @@ public abstract class VaadinService implements Serializable {
      * If the session is currently locked by the current thread or some other
      * thread, the queue will be purged when the session is unlocked. If the
      * lock is not held by any thread, it is acquired and the queue is purged
-     * right away.
+     * right away, or on the {@link #getAccessExecutor() access executor} if
+     * there is one.
      *
      * @since 7.1.2
      * @param session
      *            the session for which the access queue should be purged
      */
     public void ensureAccessQueuePurged(VaadinSession session) {
+        if (accessExecutor != null) {
+            /*
+             * The thread holding the lock runs the queue when releasing it.
+             * Otherwise, the queue is run on the access executor so that the
+             * enqueuing thread neither waits for the lock nor runs tasks
+             * enqueued by other threads.
+             */
+            if (!session.hasSharedLock()
+                    && session.setAccessQueueScheduled()) {
+                accessExecutor.execute(() -> runAccessQueue(session));
+            }
+            return;
+        }
         /*
          * If no thread is currently holding the lock, pending changes for UIs
          * with automatic push would not be processed and pushed until the next
@@ -1800,36 +2235,58 @@ public abstract class VaadinService implements Serializable {
         }
     }
 
+    /**
+     * Runs the access queue of a session on the access executor.
+     */
+    private void runAccessQueue(VaadinSession session) {
+        session.clearAccessQueueScheduled();
+        // Don't use current instances inherited from the creating thread
+        CurrentInstance.clearAll();
+        try {
+            session.lock();
+            // unlock triggers runPendingAccessTasks
+            session.unlock();
+        } finally {
+            CurrentInstance.clearAll();
+        }
+    }
+
     /**
      * Purges the queue of pending access invocations enqueued with
      * {@link VaadinSession#access(Runnable)}.
      * <p>
      * This method is automatically run by the framework at appropriate
      * situations and is not intended to be used by application developers.
+     * <p>
+     * If the current thread only has a UI of the session locked, only the tasks
+     * enqueued using {@link UI#access(Runnable)} for that UI are run. The other
+     * tasks are left for the next thread with exclusive access to the session.
      *
      * @param session
      *            the vaadin session to purge the queue for
      * @since 7.1
      */
     public void runPendingAccessTasks(VaadinSession session) {
-        assert session.hasLock();
+        assert session.hasSharedLock();
 
         if (session.getPendingAccessQueue().isEmpty()) {
             return;
         }
 
+        boolean exclusive = session.hasLock();
         Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
                 .getInstances(false);
 
         FutureAccess pendingAccess;
         try {
-            while ((pendingAccess = session.getPendingAccessQueue()
-                    .poll()) != null) {
+            while ((pendingAccess = pollPendingAccess(session,
+                    exclusive)) != null) {
                 if (!pendingAccess.isCancelled()) {
                     CurrentInstance.clearAll();
                     CurrentInstance.restoreInstances(
                             pendingAccess.getCurrentInstances());
                     CurrentInstance.setCurrent(session);
+                    session.markModified();
                     pendingAccess.run();
 
                     try {
@@ -1846,6 +2303,27 @@ public abstract class VaadinService implements Serializable {
         }
     }
 
+    /**
+     * Removes the next task that the current thread may run from the pending
+     * access queue of the session. Without exclusive access, that is the first
+     * task for a UI that the current thread has locked.
+     */
+    private static FutureAccess pollPendingAccess(VaadinSession session,
+            boolean exclusive) {
+        Queue<FutureAccess> queue = session.getPendingAccessQueue();
+        if (exclusive) {
+            return queue.poll();
+        }
+        for (FutureAccess pendingAccess : queue) {
+            UI ui = pendingAccess.getUI();
+            if (ui != null && session.isUiLockedByCurrentThread(ui)
+                    && queue.remove(pendingAccess)) {
+                return pendingAccess;
+            }
+        }
+        return null;
+    }
+
     /**
      * Adds a service destroy listener that gets notified when this service is
      * destroyed.
@@ -1889,6 +2367,43 @@ public abstract class VaadinService implements Serializable {
      */
     public void destroy() {
         eventRouter.fireEvent(new ServiceDestroyEvent(this));
+        if (scheduledExecutor != null) {
+            scheduledExecutor.shutdownNow();
+        }
+        if (accessExecutor instanceof ExecutorService) {
+            ((ExecutorService) accessExecutor).shutdown();
+        }
+    }
+
+    /**
+     * Gets an executor for running delayed tasks on behalf of this service,
+     * e.g. sending coalesced push messages. The executor uses a single daemon
+     * thread, which is started when the executor is first needed and stopped
+     * when this service is destroyed.
+     * <p>
+     * Tasks run without any session locked and should use
+     * {@link VaadinSession#access(Runnable)} or {@link UI#access(Runnable)} to
+     * do anything else than quickly enqueue work.
+     *
+     * @since 8.0
+     * @return the scheduled executor of this service, not <code>null</code>
+     */
+    public ScheduledExecutorService getScheduledExecutor() {
+        if (scheduledExecutor == null) {
+            synchronized (this) {
+                if (scheduledExecutor == null) {
+                    scheduledExecutor = Executors
+                            .newSingleThreadScheduledExecutor(runnable -> {
+                                Thread thread = new Thread(runnable,
+                                        "Vaadin scheduler for "
+                                                + getServiceName());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                }
+            }
+        }
+        return scheduledExecutor;
     }
 
     /**
@@ -1931,6 +2446,39 @@ public abstract class VaadinService implements Serializable {
         session.refreshTransients(wrappedSession, this);
     }
 
+    /**
+     * Called at the end of a request that modified the given session, see
+     * {@link VaadinSession#isModified()}. If the
+     * {@link Constants#SERVLET_PARAMETER_STORE_MODIFIED_SESSIONS} parameter is
+     * enabled, the default implementation writes the session to the
+     * underlying HTTP session again, so that servlet containers that replicate
+     * session attributes when they are set replicate the session. Sessions
+     * that were not modified are not written.
+     * <p>
+     * With per UI locking, a modification is handled by the next request
+     * that gets exclusive access to the session.
+     *
+     * @since 8.0
+     * @param session
+     *            the modified session, locked by the current thread
+     */
+    protected void storeModifiedSession(VaadinSession session) {
+        WrappedSession wrappedSession = session.getSession();
+        if (!storeModifiedSessions || wrappedSession == null
+                || session.getState() != State.OPEN) {
+            return;
+        }
+
+        // Don't close the session if the servlet container unbinds the
+        // previous value even though it is the same instance
+        session.setAttribute(PRESERVE_UNBOUND_SESSION_ATTRIBUTE, Boolean.TRUE);
+        try {
+            writeToHttpSession(wrappedSession, session);
+        } finally {
+            session.setAttribute(PRESERVE_UNBOUND_SESSION_ATTRIBUTE, null);
+        }
+    }
+
     /**
      * Performs the actual write of the VaadinSession to the underlying HTTP
      * session after sanity checks have been performed.
@@ -183,6 +183,11 @@ public class VaadinServlet extends HttpServlet implements Constants {
 
     private VaadinServletService servletService;
 
+    /**
+     * Cache for static resources, only used in production mode.
+     */
+    private transient StaticResourceCache staticResourceCache;
+
     /**
      * Called by the servlet container to indicate to a servlet that the servlet
      * is being placed into service.
@@ -228,6 +233,10 @@ public class VaadinServlet extends HttpServlet implements Constants {
         } catch (ServiceException e) {
             throw new ServletException("Could not initialize VaadinServlet", e);
         }
+        if (deploymentConfiguration.isProductionMode()) {
+            staticResourceCache = createStaticResourceCache();
+        }
+
         // Sets current service even though there are no request and response
         servletService.setCurrentInstances(null, null);
 
@@ -743,7 +752,14 @@ public class VaadinServlet extends HttpServlet implements Constants {
             throws IOException, ServletException {
 
         final ServletContext sc = getServletContext();
-        URL resourceUrl = findResourceURL(filename);
+        URL resourceUrl = staticResourceCache != null
+                ? staticResourceCache.getURL(filename) : null;
+        if (resourceUrl == null) {
+            resourceUrl = findResourceURL(filename);
+            if (resourceUrl != null && staticResourceCache != null) {
+                staticResourceCache.putURL(filename, resourceUrl);
+            }
+        }
 
         if (resourceUrl == null) {
             // File not found, if this was a css request we still look for a
@@ -780,6 +796,29 @@ public class VaadinServlet extends HttpServlet implements Constants {
         response.setDateHeader("Expires",
                 System.currentTimeMillis() + (resourceCacheTime * 1000));
 
+        StaticResourceCache.Resource cachedResource = getCachedResource(
+                resourceUrl);
+        if (cachedResource != null) {
+            long lastModifiedTime = cachedResource.getLastModified();
+            if (lastModifiedTime > 0) {
+                response.setDateHeader("Last-Modified", lastModifiedTime);
+            }
+            // If-None-Match takes precedence and is checked when writing
+            if (request.getHeader("If-None-Match") == null
+                    && browserHasNewestVersion(request, lastModifiedTime)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            final String mimetype = sc.getMimeType(filename);
+            if (mimetype != null) {
+                response.setContentType(mimetype);
+            }
+
+            writeStaticResourceResponse(request, response, resourceUrl);
+            return;
+        }
+
         // Find the modification timestamp
         long lastModifiedTime = 0;
         URLConnection connection = null;
@@ -879,6 +918,14 @@ public class VaadinServlet extends HttpServlet implements Constants {
     protected void writeStaticResourceResponse(HttpServletRequest request,
             HttpServletResponse response, URL resourceUrl) throws IOException {
 
+        StaticResourceCache.Resource cachedResource = getCachedResource(
+                resourceUrl);
+        if (cachedResource != null) {
+            writeCachedResource(request, response, resourceUrl,
+                    cachedResource);
+            return;
+        }
+
         URLConnection connection = null;
         InputStream is = null;
         String urlStr = resourceUrl.toExternalForm();
@@ -957,6 +1004,97 @@ public class VaadinServlet extends HttpServlet implements Constants {
                 || url.endsWith(".css") || url.endsWith(".html"));
     }
 
+    /**
+     * Creates the cache used for serving static resources in production mode.
+     * Can be overridden to e.g. change how large resources are kept in memory,
+     * or to return <code>null</code> to not cache static resources at all.
+     *
+     * @since 8.0
+     * @return the static resource cache, or <code>null</code> to not use
+     *         caching
+     */
+    protected StaticResourceCache createStaticResourceCache() {
+        return new StaticResourceCache();
+    }
+
+    private StaticResourceCache.Resource getCachedResource(URL resourceUrl) {
+        if (staticResourceCache == null) {
+            return null;
+        }
+        try {
+            return staticResourceCache.get(resourceUrl);
+        } catch (IOException e) {
+            getLogger().log(Level.FINE,
+                    "Could not cache resource " + resourceUrl, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a cached static resource, handling conditional requests using
+     * the entity tag and requests for a byte range.
+     */
+    private void writeCachedResource(HttpServletRequest request,
+            HttpServletResponse response, URL resourceUrl,
+            StaticResourceCache.Resource resource) throws IOException {
+        StaticResourceCache.Resource variant = resource;
+        if (allowServePrecompressedResource(request,
+                resourceUrl.toExternalForm())) {
+            try {
+                StaticResourceCache.Resource gzipped = resource.getGzipped();
+                if (gzipped != null) {
+                    variant = gzipped;
+                    response.setHeader("Content-Encoding", "gzip");
+                }
+            } catch (IOException e) {
+                getLogger().log(Level.FINE,
+                        "Unexpected exception looking for gzipped version of resource "
+                                + resourceUrl,
+                        e);
+            }
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        String eTag = variant.getETag();
+        if (eTag != null) {
+            response.setHeader("ETag", eTag);
+            if (ByteRange.matchesETag(request.getHeader("If-None-Match"),
+                    eTag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        long length = variant.getLength();
+        if (length < 0) {
+            // Unknown length, can't serve ranges
+            variant.writeTo(response.getOutputStream(), 0, Long.MAX_VALUE);
+            return;
+        }
+
+        response.setHeader("Accept-Ranges", "bytes");
+        ByteRange range = null;
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null || ByteRange.matchesETag(ifRange, eTag)) {
+            range = ByteRange.parse(request.getHeader("Range"), length);
+        }
+        if (range == null) {
+            response.setHeader("Content-Length", Long.toString(length));
+            variant.writeTo(response.getOutputStream(), 0, length);
+        } else if (!range.isSatisfiable()) {
+            response.setHeader("Content-Range", range.getContentRange(length));
+            response.setStatus(
+                    HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        } else {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.getContentRange(length));
+            response.setHeader("Content-Length",
+                    Long.toString(range.getLength()));
+            variant.writeTo(response.getOutputStream(), range.getStart(),
+                    range.getLength());
+        }
+    }
+
     private void streamContent(HttpServletResponse response, InputStream is)
             throws IOException {
         final OutputStream os = response.getOutputStream();
@@ -17,9 +17,12 @@
 package com.vaadin.server;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.io.WriteAbortedException;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Collections;
@@ -33,12 +36,16 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -85,6 +92,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         private final Map<Class<?>, CurrentInstance> instances = CurrentInstance
                 .getInstances(true);
         private final VaadinSession session;
+        private final UI ui;
         private final Runnable runnable;
 
         /**
@@ -98,11 +106,42 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
          *            queue
          */
         public FutureAccess(VaadinSession session, Runnable runnable) {
+            this(session, null, runnable);
+        }
+
+        /**
+         * Creates an instance for the given runnable that only needs the given
+         * UI to be locked.
+         *
+         * @param session
+         *            the session to which the task belongs
+         * @param ui
+         *            the UI the task needs, or <code>null</code> if the task
+         *            needs exclusive access to the session
+         * @param runnable
+         *            the runnable to run when this task is purged from the
+         *            queue
+         * @since 8.0
+         */
+        public FutureAccess(VaadinSession session, UI ui, Runnable runnable) {
             super(runnable, null);
             this.session = session;
+            this.ui = ui;
             this.runnable = runnable;
         }
 
+        /**
+         * Gets the UI this task needs. With per UI locking, the task can be run
+         * by a thread that has only this UI locked.
+         *
+         * @return the UI, or <code>null</code> if the task needs exclusive
+         *         access to the session
+         * @since 8.0
+         */
+        public UI getUI() {
+            return ui;
+        }
+
         @Override
         public Void get() throws InterruptedException, ExecutionException {
             /*
@@ -226,7 +265,11 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     @Deprecated
     private Object converterFactory;
 
-    private LinkedList<RequestHandler> requestHandlers = new LinkedList<>();
+    /*
+     * Copy on write since the handlers are iterated and possibly modified by
+     * several threads at a time when per UI locking is used.
+     */
+    private List<RequestHandler> requestHandlers = new CopyOnWriteArrayList<>();
 
     private int nextUIId = 0;
     private Map<Integer, UI> uIs = new HashMap<>();
@@ -253,7 +296,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
     private transient WrappedSession session;
 
-    private final Map<String, Object> attributes = new HashMap<>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
 
     private LinkedList<UIProvider> uiProviders = new LinkedList<>();
 
@@ -261,6 +304,17 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
     private transient Lock lock;
 
+    /*
+     * The read-write lock that lock is the write lock of when per UI locking is
+     * used, otherwise null.
+     */
+    private transient ReentrantReadWriteLock readWriteLock;
+
+    /*
+     * Locks of individual UIs by UI id, only used with per UI locking.
+     */
+    private transient ConcurrentHashMap<Integer, ReentrantLock> uiLocks = new ConcurrentHashMap<>();
+
     /*
      * Pending tasks can't be serialized and the queue should be empty when the
      * session is serialized as long as it doesn't happen while some other
@@ -268,6 +322,34 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
 
+    /*
+     * Set while the session serializer of the service writes this session, so
+     * that the session is not replaced again.
+     */
+    private transient boolean serializing = false;
+
+    /*
+     * Whether the session has been modified since it was last stored.
+     * Volatile since connectors of different UIs can be marked as dirty at the
+     * same time when per UI locking is used.
+     */
+    private transient volatile boolean modified = false;
+
+    /*
+     * Whether the session has been deserialized and the heartbeat timestamps
+     * of its UIs have not been refreshed yet.
+     */
+    private transient boolean restored = false;
+
+    /*
+     * 1 while running the pending access queue has been scheduled on the
+     * access executor of the service, 0 otherwise.
+     */
+    private transient volatile int accessQueueScheduled = 0;
+
+    private static final AtomicIntegerFieldUpdater<VaadinSession> ACCESS_QUEUE_SCHEDULED = AtomicIntegerFieldUpdater
+            .newUpdater(VaadinSession.class, "accessQueueScheduled");
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -342,7 +424,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     @Deprecated
     public WebBrowser getBrowser() {
-        assert hasLock();
+        assert hasSharedLock();
         return browser;
     }
 
@@ -351,7 +433,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *         milliseconds.
      */
     public long getCumulativeRequestDuration() {
-        assert hasLock();
+        assert hasSharedLock();
         return cumulativeRequestDuration;
     }
 
@@ -362,8 +444,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @param time
      *            The time spent in the last request, in milliseconds.
      */
-    public void setLastRequestDuration(long time) {
-        assert hasLock();
+    public synchronized void setLastRequestDuration(long time) {
+        assert hasSharedLock();
         lastRequestDuration = time;
         cumulativeRequestDuration += time;
     }
@@ -373,7 +455,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *         milliseconds.
      */
     public long getLastRequestDuration() {
-        assert hasLock();
+        assert hasSharedLock();
         return lastRequestDuration;
     }
 
@@ -386,7 +468,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *
      */
     public void setLastRequestTimestamp(long timestamp) {
-        assert hasLock();
+        assert hasSharedLock();
         lastRequestTimestamp = timestamp;
     }
 
@@ -397,7 +479,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *         the epoch.
      */
     public long getLastRequestTimestamp() {
-        assert hasLock();
+        assert hasSharedLock();
         return lastRequestTimestamp;
     }
 
@@ -424,7 +506,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     @Deprecated
     public LegacyCommunicationManager getCommunicationManager() {
-        assert hasLock();
+        assert hasSharedLock();
         return communicationManager;
     }
 
@@ -515,8 +597,13 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     private void refreshLock() {
         assert lock == null || lock == service.getSessionLock(
                 session) : "Cannot change the lock from one instance to another";
-        assert hasLock(service, session);
+        assert hasSharedLock(service, session);
         lock = service.getSessionLock(session);
+        readWriteLock = service.getSessionReadWriteLock(session);
+        if (readWriteLock != null && readWriteLock.writeLock() != lock) {
+            // getSessionLock has been overridden
+            readWriteLock = null;
+        }
     }
 
     public void setCommunicationManager(
@@ -544,7 +631,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return the deployment configuration
      */
     public DeploymentConfiguration getConfiguration() {
-        assert hasLock();
+        assert hasSharedLock();
         return configuration;
     }
 
@@ -557,7 +644,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return the locale of this session.
      */
     public Locale getLocale() {
-        assert hasLock();
+        assert hasSharedLock();
         if (locale != null) {
             return locale;
         }
@@ -577,6 +664,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void setLocale(Locale locale) {
         assert hasLock();
         this.locale = locale;
+        markModified();
     }
 
     /**
@@ -585,7 +673,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return the current error handler
      */
     public ErrorHandler getErrorHandler() {
-        assert hasLock();
+        assert hasSharedLock();
         return errorHandler;
     }
 
@@ -597,6 +685,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void setErrorHandler(ErrorHandler errorHandler) {
         assert hasLock();
         this.errorHandler = errorHandler;
+        markModified();
     }
 
     /**
@@ -611,7 +700,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     @Deprecated
     public Object getConverterFactory() {
-        assert hasLock();
+        assert hasSharedLock();
         return converterFactory;
     }
 
@@ -637,6 +726,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void setConverterFactory(Object converterFactory) {
         assert hasLock();
         this.converterFactory = converterFactory;
+        markModified();
     }
 
     /**
@@ -657,7 +747,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     public void addRequestHandler(RequestHandler handler) {
         assert hasLock();
-        requestHandlers.addFirst(handler);
+        requestHandlers.add(0, handler);
+        markModified();
     }
 
     /**
@@ -671,6 +762,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void removeRequestHandler(RequestHandler handler) {
         assert hasLock();
         requestHandlers.remove(handler);
+        markModified();
     }
 
     /**
@@ -687,7 +779,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @since 7.0
      */
     public Collection<RequestHandler> getRequestHandlers() {
-        assert hasLock();
+        assert hasSharedLock();
         return Collections.unmodifiableCollection(requestHandlers);
     }
 
@@ -747,7 +839,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @since 7.0
      */
     public Collection<UI> getUIs() {
-        assert hasLock();
+        assert hasSharedLock();
         return Collections.unmodifiableCollection(uIs.values());
     }
 
@@ -767,8 +859,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *             version
      */
     @Deprecated
-    public String createConnectorId(ClientConnector connector) {
-        assert hasLock();
+    public synchronized String createConnectorId(ClientConnector connector) {
+        assert hasSharedLock();
         return String.valueOf(connectorIdSequence++);
     }
 
@@ -783,7 +875,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return The UI with the given id or null if not found
      */
     public UI getUIById(int uiId) {
-        assert hasLock();
+        assert hasSharedLock();
         return uIs.get(uiId);
     }
 
@@ -794,8 +886,25 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @since 7.1
      */
     public boolean hasLock() {
-        ReentrantLock l = ((ReentrantLock) getLockInstance());
-        return l.isHeldByCurrentThread();
+        return isHeldByCurrentThread(getLockInstance());
+    }
+
+    /**
+     * Checks if the current thread has at least shared access to this
+     * VaadinSession, either exclusively or through {@link #lockShared()} or
+     * {@link #lock(UI)}. Shared access is enough for reading the session and
+     * for using a locked UI, but not for changing the session itself.
+     *
+     * @return true if the thread has shared or exclusive access, false
+     *         otherwise
+     * @see #isPerUiLocking()
+     * @since 8.0
+     */
+    public boolean hasSharedLock() {
+        if (readWriteLock != null && readWriteLock.getReadHoldCount() > 0) {
+            return true;
+        }
+        return hasLock();
     }
 
     /**
@@ -807,8 +916,46 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     protected static boolean hasLock(VaadinService service,
             WrappedSession session) {
-        ReentrantLock l = (ReentrantLock) service.getSessionLock(session);
-        return l.isHeldByCurrentThread();
+        return isHeldByCurrentThread(service.getSessionLock(session));
+    }
+
+    /**
+     * Checks if the current thread has at least shared access to the given
+     * WrappedSession.
+     *
+     * @return true if this thread has shared or exclusive access, false
+     *         otherwise
+     * @see #hasSharedLock()
+     * @since 8.0
+     */
+    protected static boolean hasSharedLock(VaadinService service,
+            WrappedSession session) {
+        ReentrantReadWriteLock readWriteLock = service
+                .getSessionReadWriteLock(session);
+        if (readWriteLock != null && readWriteLock.getReadHoldCount() > 0) {
+            return true;
+        }
+        return hasLock(service, session);
+    }
+
+    /**
+     * Checks if a session lock, which is either a {@link ReentrantLock} or the
+     * write lock of a {@link ReentrantReadWriteLock}, is held exclusively by
+     * the current thread.
+     */
+    static boolean isHeldByCurrentThread(Lock lock) {
+        if (lock instanceof ReentrantReadWriteLock.WriteLock) {
+            return ((ReentrantReadWriteLock.WriteLock) lock)
+                    .isHeldByCurrentThread();
+        }
+        return ((ReentrantLock) lock).isHeldByCurrentThread();
+    }
+
+    private static int getHoldCount(Lock lock) {
+        if (lock instanceof ReentrantReadWriteLock.WriteLock) {
+            return ((ReentrantReadWriteLock.WriteLock) lock).getHoldCount();
+        }
+        return ((ReentrantLock) lock).getHoldCount();
     }
 
     /**
@@ -861,7 +1008,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     @Deprecated
     public void modifyBootstrapResponse(BootstrapResponse response) {
-        assert hasLock();
+        assert hasSharedLock();
         eventRouter.fireEvent(response);
     }
 
@@ -878,6 +1025,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         Integer id = Integer.valueOf(ui.getUIId());
         ui.setSession(null);
         uIs.remove(id);
+        uiLocks.remove(id);
+        markModified();
         String embedId = ui.getEmbedId();
         if (embedId != null && id.equals(embedIdMap.get(embedId))) {
             embedIdMap.remove(embedId);
@@ -901,12 +1050,14 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *
      * @since 7.0.0
      */
-    public GlobalResourceHandler getGlobalResourceHandler(
+    public synchronized GlobalResourceHandler getGlobalResourceHandler(
             boolean createOnDemand) {
-        assert hasLock();
+        assert hasSharedLock();
         if (globalResourceHandler == null && createOnDemand) {
             globalResourceHandler = new GlobalResourceHandler();
-            addRequestHandler(globalResourceHandler);
+            // Created on demand with only a UI locked
+            requestHandlers.add(0, globalResourceHandler);
+            markModified();
         }
 
         return globalResourceHandler;
@@ -973,7 +1124,29 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @see #hasLock()
      */
     public void lock() {
-        getLockInstance().lock();
+        if (readWriteLock != null && readWriteLock.getReadHoldCount() > 0
+                && !readWriteLock.isWriteLockedByCurrentThread()) {
+            throw new IllegalStateException(
+                    "Can't lock the session while holding shared access to it. Use access(Runnable) instead of locking the whole session from code that runs with a UI locked.");
+        }
+        acquire(getLockInstance());
+    }
+
+    /**
+     * Acquires a lock, reporting the time spent waiting for it to the request
+     * metrics of the service.
+     */
+    private void acquire(Lock lock) {
+        VaadinService service = getService();
+        RequestMetrics metrics = service != null ? service.getRequestMetrics()
+                : null;
+        if (metrics != null && metrics.isEnabled()) {
+            long start = System.nanoTime();
+            lock.lock();
+            metrics.lockAcquired(this, System.nanoTime() - start);
+        } else {
+            lock.lock();
+        }
     }
 
     /**
@@ -995,7 +1168,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
              * Run pending tasks and push if the reentrant lock will actually be
              * released by this unlock() invocation.
              */
-            if (((ReentrantLock) getLockInstance()).getHoldCount() == 1) {
+            if (getHoldCount(getLockInstance()) == 1) {
                 ultimateRelease = true;
                 getService().runPendingAccessTasks(this);
 
@@ -1029,6 +1202,201 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         }
     }
 
+    /**
+     * Checks whether this session uses a separate lock for each UI. When per UI
+     * locking is used, requests and {@link UI#access(Runnable)} tasks for
+     * different UIs of the session can run at the same time, and only
+     * session-wide changes such as creating UIs or closing the session need
+     * exclusive access to the whole session.
+     * <p>
+     * Per UI locking is enabled using the
+     * {@link Constants#SERVLET_PARAMETER_PER_UI_LOCKING} parameter. In that
+     * mode, code running with a UI locked may not call {@link #lock()} or
+     * {@link #accessSynchronously(Runnable)} for the session, or lock another UI
+     * of the same session. Session attributes can be read with a UI locked,
+     * but changing them or anything else about the session requires exclusive
+     * access, e.g. using {@link #access(Runnable)}. Any other application data
+     * shared between the UIs of a session must be thread safe.
+     * <p>
+     * A task enqueued using {@link UI#access(Runnable)} is run by a thread
+     * that has its UI locked or exclusive access to the session. A task
+     * enqueued using {@link #access(Runnable)} is only run with exclusive
+     * access to the session.
+     *
+     * @return <code>true</code> if each UI has its own lock,
+     *         <code>false</code> if the whole session is always locked
+     * @since 8.0
+     */
+    public boolean isPerUiLocking() {
+        return readWriteLock != null;
+    }
+
+    /**
+     * Acquires shared access to this session. Shared access allows reading the
+     * session and finding its UIs, but not changing them. With per UI locking,
+     * several threads can have shared access at the same time. Otherwise, this
+     * is the same as {@link #lock()}.
+     * <p>
+     * This method should always be followed by {@link #unlockShared()} in a
+     * finally block.
+     *
+     * @see #isPerUiLocking()
+     * @since 8.0
+     */
+    public void lockShared() {
+        if (isSharedLockingUsed()) {
+            acquire(readWriteLock.readLock());
+        } else {
+            lock();
+        }
+    }
+
+    /**
+     * Releases shared access acquired using {@link #lockShared()}.
+     *
+     * @since 8.0
+     */
+    public void unlockShared() {
+        if (isSharedLockingUsed()) {
+            readWriteLock.readLock().unlock();
+            ensureAccessQueuePurgedIfReleased();
+        } else {
+            unlock();
+        }
+    }
+
+    /**
+     * Locks the given UI of this session. With per UI locking, this acquires
+     * shared access to the session and exclusive access to the UI, so that
+     * other UIs of the session can be used at the same time. Otherwise, this is
+     * the same as {@link #lock()}.
+     * <p>
+     * This method should always be followed by {@link #unlock(UI)} in a
+     * finally block.
+     *
+     * @param ui
+     *            the UI to lock, not <code>null</code>
+     * @throws IllegalStateException
+     *             if another UI of this session is already locked by the
+     *             current thread
+     * @see #isPerUiLocking()
+     * @see UI#accessSynchronously(Runnable)
+     * @since 8.0
+     */
+    public void lock(UI ui) {
+        if (!isSharedLockingUsed()) {
+            lock();
+            return;
+        }
+
+        Integer uiId = Integer.valueOf(ui.getUIId());
+        ReentrantLock uiLock = uiLocks.get(uiId);
+        if (uiLock == null || !uiLock.isHeldByCurrentThread()) {
+            for (ReentrantLock otherLock : uiLocks.values()) {
+                if (otherLock.isHeldByCurrentThread()) {
+                    throw new IllegalStateException(
+                            "Can't lock a UI while another UI of the same session is locked by the same thread. This restriction is intended to help avoid deadlocks. Use UI.access(Runnable) instead.");
+                }
+            }
+        }
+
+        acquire(readWriteLock.readLock());
+        if (ui.getSession() != this) {
+            // Detached UIs are only handled with the whole session locked
+            readWriteLock.readLock().unlock();
+            lock();
+            return;
+        }
+        acquire(uiLocks.computeIfAbsent(uiId, id -> new ReentrantLock()));
+    }
+
+    /**
+     * Unlocks a UI locked using {@link #lock(UI)}. When the UI lock is
+     * ultimately released, pending {@link UI#access(Runnable)} tasks for the
+     * UI are run and, if the UI uses automatic push, pending changes are
+     * pushed to the client. Other pending tasks are run once exclusive access
+     * to the session can be acquired.
+     *
+     * @param ui
+     *            the UI to unlock, not <code>null</code>
+     * @since 8.0
+     */
+    public void unlock(UI ui) {
+        if (!isSharedLockingUsed()) {
+            unlock();
+            return;
+        }
+
+        ReentrantLock uiLock = uiLocks.get(Integer.valueOf(ui.getUIId()));
+        assert uiLock != null && uiLock.isHeldByCurrentThread();
+        try {
+            if (uiLock.getHoldCount() == 1) {
+                // Only runs the tasks for this UI
+                getService().runPendingAccessTasks(this);
+            }
+            if (uiLock.getHoldCount() == 1 && ui.getPushConfiguration()
+                    .getPushMode() == PushMode.AUTOMATIC) {
+                Map<Class<?>, CurrentInstance> oldCurrent = CurrentInstance
+                        .setCurrent(ui);
+                try {
+                    ui.push();
+                } finally {
+                    CurrentInstance.restoreInstances(oldCurrent);
+                }
+            }
+        } finally {
+            uiLock.unlock();
+            readWriteLock.readLock().unlock();
+        }
+        ensureAccessQueuePurgedIfReleased();
+    }
+
+    /**
+     * Checks whether locking a UI or acquiring shared access should only take
+     * the read lock. If the current thread already has the whole session
+     * locked, the session lock is just acquired again.
+     */
+    private boolean isSharedLockingUsed() {
+        return readWriteLock != null
+                && !readWriteLock.isWriteLockedByCurrentThread();
+    }
+
+    /*
+     * Tasks enqueued while the current thread held shared access could not be
+     * run by the enqueuing thread, so they must be run once all shared access
+     * has been released.
+     */
+    private void ensureAccessQueuePurgedIfReleased() {
+        if (readWriteLock.getReadHoldCount() == 0
+                && !getPendingAccessQueue().isEmpty()) {
+            getService().ensureAccessQueuePurged(this);
+        }
+    }
+
+    /**
+     * Checks whether the current thread has locked the given UI using
+     * {@link #lock(UI)} with per UI locking.
+     *
+     * @param ui
+     *            the UI to check, not <code>null</code>
+     * @return <code>true</code> if the UI lock is held by the current thread,
+     *         <code>false</code> otherwise
+     */
+    boolean isUiLockedByCurrentThread(UI ui) {
+        ReentrantLock uiLock = uiLocks.get(Integer.valueOf(ui.getUIId()));
+        return uiLock != null && uiLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Gets the read-write lock used with per UI locking.
+     *
+     * @return the read-write lock, or <code>null</code> if per UI locking is
+     *         not used
+     */
+    ReentrantReadWriteLock getReadWriteLockInstance() {
+        return readWriteLock;
+    }
+
     /**
      * Stores a value in this service session. This can be used to associate
      * data with the current user so that it can be retrieved at a later point
@@ -1054,6 +1422,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         } else {
             attributes.remove(name);
         }
+        markModified();
     }
 
     /**
@@ -1102,7 +1471,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *         it has been set to null.
      */
     public Object getAttribute(String name) {
-        assert hasLock();
+        assert hasSharedLock();
         if (name == null) {
             throw new IllegalArgumentException("name can not be null");
         }
@@ -1129,7 +1498,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      *         it has been set to null.
      */
     public <T> T getAttribute(Class<T> type) {
-        assert hasLock();
+        assert hasSharedLock();
         if (type == null) {
             throw new IllegalArgumentException("type can not be null");
         }
@@ -1170,6 +1539,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
 
         Integer uiId = Integer.valueOf(ui.getUIId());
         uIs.put(uiId, ui);
+        markModified();
 
         String embedId = ui.getEmbedId();
         if (embedId != null) {
@@ -1194,6 +1564,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void addUIProvider(UIProvider uiProvider) {
         assert hasLock();
         uiProviders.addFirst(uiProvider);
+        markModified();
     }
 
     /**
@@ -1205,6 +1576,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void removeUIProvider(UIProvider uiProvider) {
         assert hasLock();
         uiProviders.remove(uiProvider);
+        markModified();
     }
 
     /**
@@ -1213,7 +1585,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return an unmodifiable list of UI providers
      */
     public List<UIProvider> getUIProviders() {
-        assert hasLock();
+        assert hasSharedLock();
         return Collections.unmodifiableList(uiProviders);
     }
 
@@ -1240,6 +1612,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
     public void close() {
         assert hasLock();
         state = State.CLOSING;
+        markModified();
     }
 
     /**
@@ -1256,7 +1629,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     @Deprecated
     public boolean isClosing() {
-        assert hasLock();
+        assert hasSharedLock();
         return state == State.CLOSING || state == State.CLOSED;
     }
 
@@ -1267,7 +1640,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return the current state
      */
     public State getState() {
-        assert hasLock();
+        assert hasSharedLock();
         return state;
     }
 
@@ -1285,6 +1658,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
                 + this.state + "->" + state;
 
         this.state = state;
+        markModified();
     }
 
     private static final Logger getLogger() {
@@ -1405,6 +1779,26 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return pendingAccessQueue;
     }
 
+    /**
+     * Marks running the pending access queue as scheduled on the access
+     * executor of the service.
+     *
+     * @return <code>true</code> if it was not scheduled before and should be
+     *         scheduled by the caller, <code>false</code> if it is already
+     *         scheduled
+     */
+    boolean setAccessQueueScheduled() {
+        return ACCESS_QUEUE_SCHEDULED.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * Clears the scheduled mark when the scheduled run of the pending access
+     * queue starts, so that tasks enqueued after that schedule a new run.
+     */
+    void clearAccessQueueScheduled() {
+        accessQueueScheduled = 0;
+    }
+
     /**
      * Gets the CSRF token (aka double submit cookie) that is used to protect
      * against Cross Site Request Forgery attacks.
@@ -1413,7 +1807,7 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @return the csrf token string
      */
     public String getCsrfToken() {
-        assert hasLock();
+        assert hasSharedLock();
         return csrfToken;
     }
 
@@ -1427,6 +1821,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         try {
             stream.defaultReadObject();
             pendingAccessQueue = new ConcurrentLinkedQueue<>();
+            uiLocks = new ConcurrentHashMap<>();
+            restored = true;
         } finally {
             CurrentInstance.restoreInstances(old);
         }
@@ -1452,6 +1848,140 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         }
     }
 
+    /**
+     * Marks this session as modified, so that it is stored again at the end of
+     * the current request. The framework marks the session as modified when
+     * connectors are marked as dirty, attributes are set, UIs are added or
+     * removed, server RPC calls other than polling are handled or pending
+     * access tasks are run.
+     * <p>
+     * Applications should call this method after changing objects that are
+     * referenced from the session in ways the framework can't detect, e.g.
+     * when modifying a bean stored as an attribute of the session without
+     * setting the attribute again.
+     *
+     * @since 8.0
+     * @see #isModified()
+     * @see VaadinService#storeModifiedSession(VaadinSession)
+     */
+    public void markModified() {
+        // Avoid writes to the shared field in the common case
+        if (!modified) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Checks whether this session has been modified since it was last stored
+     * at the end of a request. Clustered deployments can use this to only
+     * replicate sessions that have changed.
+     * <p>
+     * Counters that are updated by every request, such as the last processed
+     * message id of a UI, do not make the session modified. A client that
+     * continues using a copy of the session with outdated counters, e.g. after
+     * failing over to another node, is resynchronized.
+     * <p>
+     * Heartbeats don't make the session modified either, so a stored copy of
+     * the session has outdated heartbeat timestamps. To avoid closing UIs that
+     * are still open when such a copy is used, the heartbeat timestamps of all
+     * UIs are reset to the current time when a deserialized session is
+     * {@link #refreshTransients(WrappedSession, VaadinService) taken into
+     * use}. As a trade-off, UIs that were closed in the browser before the
+     * failover are only closed after another full heartbeat timeout.
+     *
+     * @since 8.0
+     * @return <code>true</code> if the session has been modified,
+     *         <code>false</code> if not
+     * @see #markModified()
+     */
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Clears the modified flag of this session after it has been stored.
+     */
+    void clearModified() {
+        modified = false;
+    }
+
+    /**
+     * Replaces this session with the form produced by the
+     * {@link VaadinService#getSessionSerializer() session serializer} of the
+     * service when the session is serialized, if the service has one.
+     *
+     * @since 8.0
+     * @return the object to serialize instead of this session
+     * @throws ObjectStreamException
+     *             if the session serializer fails
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        VaadinService service = this.service;
+        SessionSerializer serializer = service != null
+                ? service.getSessionSerializer() : null;
+        if (serializer == null || serializing) {
+            return this;
+        }
+
+        Lock lock = this.lock;
+        if (lock != null) {
+            lock.lock();
+        }
+        serializing = true;
+        try {
+            return new SerializedSession(serializer,
+                    serializer.serialize(this));
+        } catch (IOException e) {
+            throw new WriteAbortedException(
+                    "Could not serialize the session using "
+                            + serializer.getClass().getName(),
+                    e);
+        } finally {
+            serializing = false;
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The serialized form of a session written by a {@link SessionSerializer}.
+     */
+    private static class SerializedSession implements Serializable {
+        private final SessionSerializer serializer;
+        private final byte[] data;
+
+        private SerializedSession(SessionSerializer serializer, byte[] data) {
+            this.serializer = serializer;
+            this.data = data;
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                return serializer.deserialize(data);
+            } catch (IOException | ClassNotFoundException e) {
+                InvalidObjectException exception = new InvalidObjectException(
+                        "Could not deserialize the session using "
+                                + serializer.getClass().getName());
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Requests all UIs of a session restored by a
+     * {@link CompactSessionSerializer} to be fully re-rendered on the client
+     * side.
+     */
+    void repaintAllUIs() {
+        if (communicationManager != null) {
+            for (UI ui : uIs.values()) {
+                communicationManager.repaintRestoredUI(ui);
+            }
+        }
+    }
+
     /**
      * Finds the UI with the corresponding embed id.
      *
@@ -1489,6 +2019,23 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         session = wrappedSession;
         service = vaadinService;
         refreshLock();
+        if (restored) {
+            restored = false;
+            refreshHeartbeatTimestamps();
+        }
+    }
+
+    /**
+     * Resets the heartbeat timestamps of the UIs of a deserialized session,
+     * since the stored timestamps are not updated by heartbeats.
+     *
+     * @see #isModified()
+     */
+    private void refreshHeartbeatTimestamps() {
+        long now = System.currentTimeMillis();
+        for (UI ui : uIs.values()) {
+            ui.setLastHeartbeatTimestamp(now);
+        }
     }
 
 }
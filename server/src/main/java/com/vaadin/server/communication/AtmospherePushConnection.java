@@ -35,6 +35,7 @@ import org.atmosphere.cpr.AtmosphereResource;
 import org.atmosphere.cpr.AtmosphereResource.TRANSPORT;
 import org.atmosphere.util.Version;
 
+import com.vaadin.server.RequestMetrics;
 import com.vaadin.shared.communication.PushConstants;
 import com.vaadin.ui.UI;
 
@@ -166,7 +167,15 @@ public class AtmospherePushConnection implements PushConnection {
             try {
                 Writer writer = new StringWriter();
                 new UidlWriter().write(getUI(), writer, async);
-                sendMessage("for(;;);[{" + writer.toString() + "}]");
+                String message = "for(;;);[{" + writer.toString() + "}]";
+                sendMessage(message);
+
+                RequestMetrics metrics = getUI().getSession().getService()
+                        .getRequestMetrics();
+                if (metrics != null && metrics.isEnabled()) {
+                    metrics.responseWritten(getUI(),
+                            Utf8BufferWriter.getEncodedLength(message), true);
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Push failed", e);
             }
@@ -24,11 +24,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import com.vaadin.server.Broadcaster;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.ClientMethodInvocation;
 import com.vaadin.server.EncodeResult;
 import com.vaadin.server.JsonCodec;
 import com.vaadin.server.PaintException;
+import com.vaadin.server.VaadinSession;
 import com.vaadin.shared.communication.ClientRpc;
 import com.vaadin.ui.UI;
 
@@ -62,6 +64,12 @@ public class ClientRpcWriter implements Serializable {
         Collection<ClientMethodInvocation> pendingInvocations = collectPendingRpcCalls(
                 ui.getConnectorTracker().getDirtyVisibleConnectors());
 
+        // Broadcast messages are encoded once for all UIs
+        VaadinSession session = ui.getSession();
+        Broadcaster broadcaster = session != null
+                && session.getService() != null
+                        ? session.getService().getBroadcaster() : null;
+
         JsonArray rpcCalls = Json.createArray();
         for (ClientMethodInvocation invocation : pendingInvocations) {
             // add invocation to rpcCalls
@@ -86,10 +94,19 @@ public class ClientRpcWriter implements Serializable {
                     // + parameterType.getName());
                     // }
                     // }
-                    EncodeResult encodeResult = JsonCodec.encode(
-                            invocation.getParameters()[i], referenceParameter,
-                            parameterType, ui.getConnectorTracker());
-                    paramJson.set(i, encodeResult.getEncodedValue());
+                    Object parameter = invocation.getParameters()[i];
+                    JsonValue encodedValue = null;
+                    if (broadcaster != null) {
+                        encodedValue = broadcaster
+                                .getEncodedMessage(parameter, parameterType);
+                    }
+                    if (encodedValue == null) {
+                        EncodeResult encodeResult = JsonCodec.encode(parameter,
+                                referenceParameter, parameterType,
+                                ui.getConnectorTracker());
+                        encodedValue = encodeResult.getEncodedValue();
+                    }
+                    paramJson.set(i, encodedValue);
                 }
                 invocationJson.set(3, paramJson);
                 rpcCalls.set(rpcCalls.length(), invocationJson);
@@ -19,7 +19,10 @@ package com.vaadin.server.communication;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import com.vaadin.server.AbstractClientConnector;
@@ -28,16 +31,29 @@ import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.PaintException;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.ui.ConnectorTracker;
 import com.vaadin.ui.UI;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
 import elemental.json.JsonObject;
+import elemental.json.JsonValue;
 import elemental.json.impl.JsonUtil;
 
 /**
  * Serializes a connector hierarchy to JSON.
+ * <p>
+ * The hierarchy of each connector is written either as an array of all its
+ * child connector ids or, if the client-side already knows most of the
+ * children, as a change to the previously sent children. A change is an
+ * object with the properties
+ * {@value ApplicationConstants#HIERARCHY_CHANGE_INDEX},
+ * {@value ApplicationConstants#HIERARCHY_CHANGE_REMOVED} and
+ * {@value ApplicationConstants#HIERARCHY_CHANGE_ADDED}, which are applied to the
+ * previous child id array like the arguments of the JavaScript
+ * <code>Array.splice</code> method.
  *
  * @author Vaadin Ltd
  * @since 7.1
@@ -47,6 +63,11 @@ public class ConnectorHierarchyWriter implements Serializable {
     /**
      * Writes a JSON object containing the connector hierarchy (parent-child
      * mappings) of the dirty connectors in the given UI.
+     * <p>
+     * The hierarchy of a connector without state changes is only written if
+     * it differs from what the client-side already knows according to
+     * {@link ConnectorTracker#getSentHierarchy(ClientConnector)}, and only the
+     * changed part is written if the client-side knows most of the children.
      *
      * @param ui
      *            The {@link UI} whose hierarchy to write.
@@ -60,25 +81,43 @@ public class ConnectorHierarchyWriter implements Serializable {
     public void write(UI ui, Writer writer, Set<String> stateUpdateConnectors)
             throws IOException {
 
-        Collection<ClientConnector> dirtyVisibleConnectors = ui
-                .getConnectorTracker().getDirtyVisibleConnectors();
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        Collection<ClientConnector> dirtyVisibleConnectors = tracker
+                .getDirtyVisibleConnectors();
 
         JsonObject hierarchyInfo = Json.createObject();
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorId = connector.getConnectorId();
-            JsonArray children = Json.createArray();
+            List<String> childIds = new ArrayList<>();
 
             for (ClientConnector child : AbstractClientConnector
                     .getAllChildrenIterable(connector)) {
                 if (LegacyCommunicationManager
                         .isConnectorVisibleToClient(child)) {
-                    children.set(children.length(), child.getConnectorId());
+                    childIds.add(child.getConnectorId());
                 }
             }
 
-            // Omit for leaf nodes with state changes
-            if (children.length() > 0
-                    || !stateUpdateConnectors.contains(connectorId)) {
+            List<String> sentChildIds = tracker.getSentHierarchy(connector);
+            boolean send;
+            if (stateUpdateConnectors.contains(connectorId)) {
+                // The client assumes an empty hierarchy for connectors with
+                // state changes, so only omit for leaf nodes
+                send = !childIds.isEmpty();
+            } else {
+                send = !childIds.equals(sentChildIds);
+            }
+            tracker.setSentHierarchy(connector,
+                    childIds.isEmpty() ? Collections.emptyList() : childIds);
+
+            if (send) {
+                JsonValue children = null;
+                if (sentChildIds != null) {
+                    children = createHierarchyChange(sentChildIds, childIds);
+                }
+                if (children == null) {
+                    children = toJsonArray(childIds, 0, childIds.size());
+                }
                 try {
                     hierarchyInfo.put(connectorId, children);
                 } catch (JsonException e) {
@@ -97,6 +136,57 @@ public class ConnectorHierarchyWriter implements Serializable {
         writer.write(JsonUtil.stringify(hierarchyInfo));
     }
 
+    /**
+     * Creates a hierarchy change that turns the previously sent child ids into
+     * the current ones, replacing the range between the common prefix and the
+     * common suffix of the lists.
+     *
+     * @param sentChildIds
+     *            the child ids known by the client-side
+     * @param childIds
+     *            the current child ids
+     * @return the hierarchy change, or <code>null</code> if sending all the
+     *         child ids is preferable
+     */
+    private static JsonObject createHierarchyChange(List<String> sentChildIds,
+            List<String> childIds) {
+        int sentSize = sentChildIds.size();
+        int size = childIds.size();
+
+        int prefix = 0;
+        while (prefix < sentSize && prefix < size
+                && sentChildIds.get(prefix).equals(childIds.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < sentSize - prefix && suffix < size - prefix
+                && sentChildIds.get(sentSize - suffix - 1)
+                        .equals(childIds.get(size - suffix - 1))) {
+            suffix++;
+        }
+
+        int added = size - prefix - suffix;
+        if (added >= size / 2) {
+            // Most children would be sent anyway
+            return null;
+        }
+        JsonObject change = Json.createObject();
+        change.put(ApplicationConstants.HIERARCHY_CHANGE_INDEX, prefix);
+        change.put(ApplicationConstants.HIERARCHY_CHANGE_REMOVED,
+                sentSize - prefix - suffix);
+        change.put(ApplicationConstants.HIERARCHY_CHANGE_ADDED,
+                toJsonArray(childIds, prefix, prefix + added));
+        return change;
+    }
+
+    private static JsonArray toJsonArray(List<String> ids, int from, int to) {
+        JsonArray array = Json.createArray();
+        for (int i = from; i < to; i++) {
+            array.set(array.length(), ids.get(i));
+        }
+        return array;
+    }
+
     private boolean storeSentHierarchy(JsonObject hierarchyInfo,
             Set<String> stateUpdateConnectors) {
         VaadinRequest request = VaadinService.getCurrentRequest();
@@ -18,11 +18,19 @@ package com.vaadin.server.communication;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.NoInputStreamException;
@@ -50,151 +58,166 @@ public class FileUploadHandler implements RequestHandler {
     /**
      * Stream that extracts content from another stream until the boundary
      * string is encountered.
+     * <p>
+     * The underlying stream is read in large blocks, which are searched for
+     * the boundary using the Boyer-Moore-Horspool algorithm. Content before
+     * the last <code>boundary length - 1</code> bytes of a block can't be part
+     * of the boundary and is returned without inspecting each byte.
      *
      * Public only for unit tests, should be considered private for all other
      * purposes.
      */
     public static class SimpleMultiPartInputStream extends InputStream {
 
+        private final byte[] boundary;
+
         /**
-         * Counter of how many characters have been matched to boundary string
-         * from the stream
+         * How far the search can be shifted based on the last byte of the
+         * current search window
          */
-        int matchedCount = -1;
+        private final int[] shifts = new int[256];
+
+        private final byte[] buffer;
+
+        private final InputStream realInputStream;
 
         /**
-         * Used as pointer when returning bytes after partly matched boundary
-         * string.
+         * Start of the content in the buffer that has not been returned
          */
-        int curBoundaryIndex = 0;
+        private int position = 0;
+
         /**
-         * The byte found after a "promising start for boundary"
+         * End of the content read to the buffer
          */
-        private int bufferedByte = -1;
-        private boolean atTheEnd = false;
+        private int limit = 0;
 
-        private final char[] boundary;
+        /**
+         * End of the content in the buffer that is known not to be part of
+         * the boundary
+         */
+        private int safeLimit = 0;
 
-        private final InputStream realInputStream;
+        /**
+         * Whether the boundary starts at {@link #safeLimit}
+         */
+        private boolean boundaryFound = false;
 
         public SimpleMultiPartInputStream(InputStream realInputStream,
                 String boundaryString) {
-            boundary = (CRLF + DASHDASH + boundaryString).toCharArray();
+            this(realInputStream, boundaryString,
+                    DEFAULT_UPLOAD_BUFFER_SIZE);
+        }
+
+        /**
+         * Creates a stream reading the underlying stream in blocks of the
+         * given size.
+         *
+         * @param realInputStream
+         *            the stream to read the multipart content from
+         * @param boundaryString
+         *            the boundary string of the multipart content
+         * @param bufferSize
+         *            the size of the blocks to read, in bytes
+         * @since 8.0
+         */
+        public SimpleMultiPartInputStream(InputStream realInputStream,
+                String boundaryString, int bufferSize) {
+            try {
+                boundary = (CRLF + DASHDASH + boundaryString).getBytes(UTF8);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
             this.realInputStream = realInputStream;
+            buffer = new byte[Math.max(bufferSize, 2 * boundary.length)];
+
+            int last = boundary.length - 1;
+            Arrays.fill(shifts, boundary.length);
+            for (int i = 0; i < last; i++) {
+                shifts[boundary[i] & 0xFF] = last - i;
+            }
         }
 
         @Override
         public int read() throws IOException {
-            if (atTheEnd) {
-                // End boundary reached, nothing more to read
+            if (!fill()) {
                 return -1;
-            } else if (bufferedByte >= 0) {
-                /* Purge partially matched boundary if there was such */
-                return getBuffered();
-            } else if (matchedCount != -1) {
-                /*
-                 * Special case where last "failed" matching ended with first
-                 * character from boundary string
-                 */
-                return matchForBoundary();
-            } else {
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream == -1) {
-                    // unexpected end of stream
-                    throw new IOException(
-                            "The multipart stream ended unexpectedly");
-                }
-                if (boundary[0] == fromActualStream) {
-                    /*
-                     * If matches the first character in boundary string, start
-                     * checking if the boundary is fetched.
-                     */
-                    return matchForBoundary();
-                }
-                return fromActualStream;
             }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(len, safeLimit - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return safeLimit - position;
         }
 
         /**
-         * Reads the input to expect a boundary string. Expects that the first
-         * character has already been matched.
+         * Makes sure there is content to return in the buffer, reading more
+         * from the underlying stream as needed.
          *
-         * @return -1 if the boundary was matched, else returns the first byte
-         *         from boundary
+         * @return <code>true</code> if there is content to return,
+         *         <code>false</code> if the boundary has been reached
          * @throws IOException
+         *             if reading fails or the stream ends before the boundary
          */
-        private int matchForBoundary() throws IOException {
-            matchedCount = 0;
-            /*
-             * Going to "buffered mode". Read until full boundary match or a
-             * different character.
-             */
-            while (true) {
-                matchedCount++;
-                if (matchedCount == boundary.length) {
-                    /*
-                     * The whole boundary matched so we have reached the end of
-                     * file
-                     */
-                    atTheEnd = true;
-                    return -1;
+        private boolean fill() throws IOException {
+            while (position == safeLimit) {
+                if (boundaryFound) {
+                    return false;
                 }
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream != boundary[matchedCount]) {
-                    /*
-                     * Did not find full boundary, cache the mismatching byte
-                     * and start returning the partially matched boundary.
-                     */
-                    bufferedByte = fromActualStream;
-                    return getBuffered();
+                // Keep the content that may be the start of the boundary
+                int remaining = limit - position;
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+                position = 0;
+                limit = remaining;
+
+                int read = realInputStream.read(buffer, limit,
+                        buffer.length - limit);
+                if (read == -1) {
+                    throw new IOException(
+                            "The multipart stream ended unexpectedly");
+                }
+                limit += read;
+
+                int index = indexOfBoundary(position, limit);
+                if (index != -1) {
+                    safeLimit = index;
+                    boundaryFound = true;
+                } else {
+                    safeLimit = Math.max(position,
+                            limit - boundary.length + 1);
                 }
             }
+            return true;
         }
 
-        /**
-         * Returns the partly matched boundary string and the byte following
-         * that.
-         *
-         * @return
-         * @throws IOException
-         */
-        private int getBuffered() throws IOException {
-            int b;
-            if (matchedCount == 0) {
-                // The boundary has been returned, return the buffered byte.
-                b = bufferedByte;
-                bufferedByte = -1;
-                matchedCount = -1;
-            } else {
-                b = boundary[curBoundaryIndex++];
-                if (curBoundaryIndex == matchedCount) {
-                    // The full boundary has been returned, remaining is the
-                    // char that did not match the boundary.
-
-                    curBoundaryIndex = 0;
-                    if (bufferedByte != boundary[0]) {
-                        /*
-                         * next call for getBuffered will return the
-                         * bufferedByte that came after the partial boundary
-                         * match
-                         */
-                        matchedCount = 0;
-                    } else {
-                        /*
-                         * Special case where buffered byte again matches the
-                         * boundaryString. This could be the start of the real
-                         * end boundary.
-                         */
-                        matchedCount = 0;
-                        bufferedByte = -1;
+        private int indexOfBoundary(int from, int to) {
+            int last = boundary.length - 1;
+            int i = from;
+            while (i + last < to) {
+                int j = last;
+                while (buffer[i + j] == boundary[j]) {
+                    if (j == 0) {
+                        return i;
                     }
+                    j--;
                 }
+                i += shifts[buffer[i + last] & 0xFF];
             }
-            if (b == -1) {
-                throw new IOException(
-                        "The multipart stream ended unexpectedly");
-            }
-            return b;
+            return -1;
         }
     }
 
@@ -216,6 +239,56 @@ public class FileUploadHandler implements RequestHandler {
         }
     }
 
+    /**
+     * Delivers progress events of an upload to the stream variable without
+     * making the thread reading the upload wait for the session lock. Events
+     * are run as access tasks of the session. While an event is waiting for
+     * the lock, newer progress only updates the number of bytes it reports.
+     */
+    private static class ProgressNotifier implements Serializable {
+        private final VaadinSession session;
+        private final StreamVariable streamVariable;
+        private final String filename;
+        private final String type;
+        private final long contentLength;
+
+        private final AtomicLong bytesReceived = new AtomicLong();
+        private final AtomicBoolean eventPending = new AtomicBoolean();
+        private volatile boolean finished = false;
+
+        private ProgressNotifier(VaadinSession session,
+                StreamVariable streamVariable, String filename, String type,
+                long contentLength) {
+            this.session = session;
+            this.streamVariable = streamVariable;
+            this.filename = filename;
+            this.type = type;
+            this.contentLength = contentLength;
+        }
+
+        private void bytesReceived(long totalBytes) {
+            bytesReceived.set(totalBytes);
+            if (eventPending.compareAndSet(false, true)) {
+                session.access(() -> {
+                    eventPending.set(false);
+                    if (!finished) {
+                        streamVariable.onProgress(
+                                new StreamingProgressEventImpl(filename, type,
+                                        contentLength, bytesReceived.get()));
+                    }
+                });
+            }
+        }
+
+        /**
+         * Prevents pending events from being delivered after the upload has
+         * ended.
+         */
+        private void finish() {
+            finished = true;
+        }
+    }
+
     /**
      * as per RFC 2045, line delimiters in headers are always CRLF, i.e. 13 10
      */
@@ -227,10 +300,10 @@ public class FileUploadHandler implements RequestHandler {
 
     private static final String DASHDASH = "--";
 
-    /*
-     * Same as in apache commons file upload library that was previously used.
+    /**
+     * The default size of the buffer used for reading uploaded content.
      */
-    private static final int MAX_UPLOAD_BUFFER_SIZE = 4 * 1024;
+    public static final int DEFAULT_UPLOAD_BUFFER_SIZE = 64 * 1024;
 
     /* Minimum interval which will be used for streaming progress events. */
     public static final int DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS = 500;
@@ -394,7 +467,7 @@ public class FileUploadHandler implements RequestHandler {
          * foot and split to a top level helper class.
          */
         InputStream simpleMultiPartReader = new SimpleMultiPartInputStream(
-                inputStream, boundary);
+                inputStream, boundary, getUploadBufferSize());
 
         /*
          * Should report only the filename even if the browser sends the path
@@ -533,6 +606,7 @@ public class FileUploadHandler implements RequestHandler {
         }
 
         OutputStream out = null;
+        ProgressNotifier progressNotifier = null;
         long totalBytes = 0;
         StreamingStartEventImpl startedEvent = new StreamingStartEventImpl(
                 filename, type, contentLength);
@@ -557,30 +631,39 @@ public class FileUploadHandler implements RequestHandler {
                 throw new NoInputStreamException();
             }
 
-            final byte buffer[] = new byte[MAX_UPLOAD_BUFFER_SIZE];
+            // Write files through their channel, unless a subclass of
+            // FileOutputStream may customize writing
+            FileChannel channel = out.getClass() == FileOutputStream.class
+                    ? ((FileOutputStream) out).getChannel() : null;
+            if (listenProgress) {
+                progressNotifier = new ProgressNotifier(session,
+                        streamVariable, filename, type, contentLength);
+            }
+
+            final byte buffer[] = new byte[getUploadBufferSize()];
             long lastStreamingEvent = 0;
             int bytesReadToBuffer = 0;
             do {
                 bytesReadToBuffer = in.read(buffer);
                 if (bytesReadToBuffer > 0) {
-                    out.write(buffer, 0, bytesReadToBuffer);
+                    if (channel != null) {
+                        ByteBuffer content = ByteBuffer.wrap(buffer, 0,
+                                bytesReadToBuffer);
+                        while (content.hasRemaining()) {
+                            channel.write(content);
+                        }
+                    } else {
+                        out.write(buffer, 0, bytesReadToBuffer);
+                    }
                     totalBytes += bytesReadToBuffer;
                 }
-                if (listenProgress) {
+                if (progressNotifier != null && bytesReadToBuffer > 0) {
                     long now = System.currentTimeMillis();
                     // to avoid excessive session locking and event storms,
-                    // events are sent in intervals, or at the end of the file.
-                    if (lastStreamingEvent + getProgressEventInterval() <= now
-                            || bytesReadToBuffer <= 0) {
+                    // events are sent in intervals
+                    if (lastStreamingEvent + getProgressEventInterval() <= now) {
                         lastStreamingEvent = now;
-                        session.lock();
-                        try {
-                            StreamingProgressEventImpl progressEvent = new StreamingProgressEventImpl(
-                                    filename, type, contentLength, totalBytes);
-                            streamVariable.onProgress(progressEvent);
-                        } finally {
-                            session.unlock();
-                        }
+                        progressNotifier.bytesReceived(totalBytes);
                     }
                 }
                 if (streamVariable.isInterrupted()) {
@@ -592,8 +675,16 @@ public class FileUploadHandler implements RequestHandler {
             out.close();
             StreamingEndEvent event = new StreamingEndEventImpl(filename, type,
                     totalBytes);
+            if (progressNotifier != null) {
+                progressNotifier.finish();
+            }
             session.lock();
             try {
+                if (progressNotifier != null) {
+                    // The final progress event is always sent
+                    streamVariable.onProgress(new StreamingProgressEventImpl(
+                            filename, type, contentLength, totalBytes));
+                }
                 streamVariable.streamingFinished(event);
             } finally {
                 session.unlock();
@@ -602,6 +693,9 @@ public class FileUploadHandler implements RequestHandler {
         } catch (UploadInterruptedException e) {
             // Download interrupted by application code
             tryToCloseStream(out);
+            if (progressNotifier != null) {
+                progressNotifier.finish();
+            }
             StreamingErrorEvent event = new StreamingErrorEventImpl(filename,
                     type, contentLength, totalBytes, e);
             session.lock();
@@ -614,6 +708,9 @@ public class FileUploadHandler implements RequestHandler {
             // not a terminal level error like all other exception.
         } catch (final Exception e) {
             tryToCloseStream(out);
+            if (progressNotifier != null) {
+                progressNotifier.finish();
+            }
             session.lock();
             try {
                 StreamingErrorEvent event = new StreamingErrorEventImpl(
@@ -640,6 +737,21 @@ public class FileUploadHandler implements RequestHandler {
         return DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS;
     }
 
+    /**
+     * Gets the size of the buffer used for reading uploaded content. A larger
+     * buffer means fewer reads and writes for large uploads, but each upload
+     * in progress allocates a buffer of this size. To adjust this value
+     * override the method, and register your own handler in
+     * VaadinService.createRequestHandlers(). The default is
+     * {@value #DEFAULT_UPLOAD_BUFFER_SIZE} bytes.
+     *
+     * @since 8.0
+     * @return the buffer size in bytes
+     */
+    protected int getUploadBufferSize() {
+        return DEFAULT_UPLOAD_BUFFER_SIZE;
+    }
+
     static void tryToCloseStream(OutputStream out) {
         try {
             // try to close output stream (e.g. file handle)
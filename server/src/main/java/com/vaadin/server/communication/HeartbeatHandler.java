@@ -48,6 +48,11 @@ public class HeartbeatHandler extends SynchronizedRequestHandler
         return ServletPortletHelper.isHeartbeatRequest(request);
     }
 
+    @Override
+    protected boolean isUIScoped() {
+        return true;
+    }
+
     /**
      * Handles a heartbeat request for the given session. Reads the GET
      * parameter named {@link UIConstants#UI_ID_PARAMETER} to identify the UI.
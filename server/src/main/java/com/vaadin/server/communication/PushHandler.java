@@ -222,9 +222,17 @@ public class PushHandler {
             }
 
             UI ui = null;
-            session.lock();
+            UI lockedUi = null;
+            if (session.isPerUiLocking()) {
+                // Only lock the UI so that other UIs can be used meanwhile
+                lockedUi = service.findAndLockUI(session, vaadinRequest);
+            }
+            if (lockedUi == null) {
+                session.lock();
+            }
             try {
-                ui = service.findUI(vaadinRequest);
+                ui = lockedUi != null ? lockedUi
+                        : service.findUI(vaadinRequest);
                 assert UI.getCurrent() == ui;
 
                 if (ui == null) {
@@ -258,7 +266,11 @@ public class PushHandler {
                 callErrorHandler(session, e);
             } finally {
                 try {
-                    session.unlock();
+                    if (lockedUi != null) {
+                        session.unlock(lockedUi);
+                    } else {
+                        session.unlock();
+                    }
                 } catch (Exception e) {
                     getLogger().log(Level.WARNING,
                             "Error while unlocking session", e);
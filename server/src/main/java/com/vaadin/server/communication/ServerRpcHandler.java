@@ -19,7 +19,6 @@ package com.vaadin.server.communication;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -33,6 +32,8 @@ import com.vaadin.server.Constants;
 import com.vaadin.server.JsonCodec;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyException;
+import com.vaadin.server.RequestMetrics.Phase;
+import com.vaadin.server.RequestMetrics.PhaseTimer;
 import com.vaadin.server.ServerRpcManager;
 import com.vaadin.server.ServerRpcManager.RpcInvocationException;
 import com.vaadin.server.ServerRpcMethodInvocation;
@@ -46,6 +47,7 @@ import com.vaadin.shared.communication.LegacyChangeVariablesInvocation;
 import com.vaadin.shared.communication.MethodInvocation;
 import com.vaadin.shared.communication.ServerRpc;
 import com.vaadin.shared.communication.UidlValue;
+import com.vaadin.shared.ui.ui.UIServerRpc;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.ConnectorTracker;
 import com.vaadin.ui.UI;
@@ -221,7 +223,9 @@ public class ServerRpcHandler implements Serializable {
             throws IOException, InvalidUIDLSecurityKeyException {
         ui.getSession().setLastRequestTimestamp(System.currentTimeMillis());
 
+        PhaseTimer timer = new PhaseTimer(ui.getSession().getService());
         String changeMessage = getMessage(reader);
+        timer.phaseCompleted(Phase.READ_RPC);
 
         if (changeMessage == null || changeMessage.isEmpty()) {
             // The client sometimes sends empty messages, this is probably a bug
@@ -238,6 +242,7 @@ public class ServerRpcHandler implements Serializable {
         }
 
         checkWidgetsetVersion(rpcRequest.getWidgetsetVersion());
+        timer.phaseCompleted(Phase.PARSE_RPC);
 
         int expectedId = ui.getLastProcessedClientToServerId() + 1;
         if (rpcRequest.getClientToServerId() != -1
@@ -272,6 +277,7 @@ public class ServerRpcHandler implements Serializable {
             ui.setLastProcessedClientToServerId(expectedId);
             handleInvocations(ui, rpcRequest.getSyncId(),
                     rpcRequest.getRpcInvocationsData());
+            timer.phaseCompleted(Phase.INVOKE_RPC);
         }
 
         ui.getConnectorTracker()
@@ -401,6 +407,12 @@ public class ServerRpcHandler implements Serializable {
 
                 }
 
+                if (!isPoll(invocation)) {
+                    // RPC handlers can change server side state without
+                    // marking any connector as dirty
+                    ui.getSession().markModified();
+                }
+
                 if (invocation instanceof ServerRpcMethodInvocation) {
                     handleInvocation(ui, connector,
                             (ServerRpcMethodInvocation) invocation);
@@ -416,6 +428,16 @@ public class ServerRpcHandler implements Serializable {
         }
     }
 
+    /**
+     * Checks whether the invocation is a poll from the client, which only
+     * modifies the session if poll listeners change something.
+     */
+    private static boolean isPoll(MethodInvocation invocation) {
+        return "poll".equals(invocation.getMethodName())
+                && UIServerRpc.class.getName()
+                        .equals(invocation.getInterfaceName());
+    }
+
     /**
      * Handles the given RPC method invocation for the given connector
      *
@@ -606,17 +628,8 @@ public class ServerRpcHandler implements Serializable {
         ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
                 connectorId, rpcInterface, methodName, parametersJson.length());
 
-        Object[] parameters = new Object[parametersJson.length()];
-        Type[] declaredRpcMethodParameterTypes = invocation.getMethod()
-                .getGenericParameterTypes();
-
-        for (int j = 0; j < parametersJson.length(); ++j) {
-            JsonValue parameterValue = parametersJson.get(j);
-            Type parameterType = declaredRpcMethodParameterTypes[j];
-            parameters[j] = JsonCodec.decodeInternalOrCustomType(parameterType,
-                    parameterValue, connectorTracker);
-        }
-        invocation.setParameters(parameters);
+        invocation.setParameters(invocation.getRpcMethod()
+                .decodeParameters(parametersJson, connectorTracker));
         return invocation;
     }
 
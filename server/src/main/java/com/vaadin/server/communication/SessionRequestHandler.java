@@ -51,13 +51,13 @@ public class SessionRequestHandler implements RequestHandler {
     public boolean handleRequest(VaadinSession session, VaadinRequest request,
             VaadinResponse response) throws IOException {
         // Use a copy to avoid ConcurrentModificationException
-        session.lock();
+        session.lockShared();
         ArrayList<RequestHandler> requestHandlers;
         try {
             requestHandlers = new ArrayList<>(
                     session.getRequestHandlers());
         } finally {
-            session.unlock();
+            session.unlockShared();
         }
         for (RequestHandler handler : requestHandlers) {
             if (handler.handleRequest(session, request, response)) {
@@ -25,6 +25,9 @@ import java.util.Set;
 
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.PaintException;
+import com.vaadin.server.RequestMetrics;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
 import com.vaadin.shared.communication.SharedState;
 import com.vaadin.ui.UI;
 
@@ -58,13 +61,24 @@ public class SharedStateWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
+        VaadinSession session = ui.getSession();
+        VaadinService service = session != null ? session.getService() : null;
+        RequestMetrics metrics = service != null ? service.getRequestMetrics()
+                : null;
+        boolean measure = metrics != null && metrics.isEnabled();
+
         Set<String> writtenConnectors = new HashSet<>();
         JsonObject sharedStates = Json.createObject();
         for (ClientConnector connector : dirtyVisibleConnectors) {
             // encode and send shared state
             String connectorId = connector.getConnectorId();
             try {
+                long start = measure ? System.nanoTime() : 0;
                 JsonObject stateJson = connector.encodeState();
+                if (measure) {
+                    metrics.stateEncoded(connector.getClass(),
+                            System.nanoTime() - start);
+                }
 
                 if (stateJson != null && stateJson.keys().length != 0) {
                     sharedStates.put(connectorId, stateJson);
@@ -105,11 +105,7 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
     static boolean commitJsonResponse(VaadinRequest request,
             VaadinResponse response, String json) throws IOException {
         // The response was produced without errors so write it to the client
-        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
-
-        // Ensure that the browser does not cache UIDL responses.
-        // iOS 6 Safari requires this (#9732)
-        response.setHeader("Cache-Control", "no-cache");
+        setJsonResponseHeaders(response);
 
         byte[] b = json.getBytes("UTF-8");
         response.setContentLength(b.length);
@@ -122,6 +118,48 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         return true;
     }
 
+    /**
+     * Commit the JSON response from an UTF-8 encoded buffer. The buffer is
+     * emptied.
+     *
+     * @param request
+     *            The request that resulted in this response
+     * @param response
+     *            The response to write to
+     * @param json
+     *            The buffer containing the JSON to write
+     * @return true if the JSON was written successfully, false otherwise
+     * @throws IOException
+     *             If there was an exception while writing to the output
+     */
+    static boolean commitJsonResponse(VaadinRequest request,
+            VaadinResponse response, Utf8BufferWriter json)
+            throws IOException {
+        setJsonResponseHeaders(response);
+        response.setContentLength(json.size());
+
+        OutputStream outputStream = response.getOutputStream();
+        json.writeTo(outputStream);
+        // NOTE GateIn requires the buffers to be flushed to work
+        outputStream.flush();
+
+        return true;
+    }
+
+    /**
+     * Sets the content type and caching headers of a JSON response.
+     *
+     * @param response
+     *            The response to set the headers for
+     */
+    static void setJsonResponseHeaders(VaadinResponse response) {
+        response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
+
+        // Ensure that the browser does not cache UIDL responses.
+        // iOS 6 Safari requires this (#9732)
+        response.setHeader("Cache-Control", "no-cache");
+    }
+
     private UI getBrowserDetailsUI(VaadinRequest request,
             VaadinSession session) {
         VaadinService vaadinService = request.getService();
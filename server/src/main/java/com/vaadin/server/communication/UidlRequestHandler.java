@@ -17,12 +17,16 @@
 package com.vaadin.server.communication;
 
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.ObjectInputStream;
 import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.vaadin.server.Constants;
 import com.vaadin.server.LegacyCommunicationManager.InvalidUIDLSecurityKeyException;
+import com.vaadin.server.RequestMetrics;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.SessionExpiredHandler;
 import com.vaadin.server.SynchronizedRequestHandler;
@@ -51,6 +55,25 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
 
     public static final String UIDL_PATH = "UIDL/";
 
+    /**
+     * Buffers larger than this are not kept for reuse by later requests.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * The maximum number of buffers kept for reuse.
+     */
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    /**
+     * Buffers kept for reuse by later requests. The pool is owned by the
+     * handler instead of the request threads, so the buffers are released
+     * together with the service instead of staying referenced by pooled
+     * container threads.
+     */
+    private transient BlockingQueue<Utf8BufferWriter> bufferPool = new ArrayBlockingQueue<>(
+            MAX_POOLED_BUFFERS);
+
     private final ServerRpcHandler rpcHandler;
 
     public UidlRequestHandler() {
@@ -72,6 +95,11 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
         return ServletPortletHelper.isUIDLRequest(request);
     }
 
+    @Override
+    protected boolean isUIScoped() {
+        return true;
+    }
+
     @Override
     public boolean synchronizedHandleRequest(VaadinSession session,
             VaadinRequest request, VaadinResponse response) throws IOException {
@@ -84,30 +112,108 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             return true;
         }
 
-        StringWriter stringWriter = new StringWriter();
-
+        Utf8BufferWriter writer = getBufferWriter();
         try {
             rpcHandler.handleRpc(uI, request.getReader(), request);
 
-            writeUidl(request, response, uI, stringWriter);
+            boolean streaming = isStreamingUidl(session);
+            if (streaming) {
+                // Headers must be in place before the first chunk is flushed
+                UIInitHandler.setJsonResponseHeaders(response);
+                writer.setOutput(response.getOutputStream(),
+                        Constants.MAX_BUFFER_SIZE);
+            }
+
+            writeUidl(request, response, uI, writer);
+            writer.close();
+            RequestMetrics metrics = session.getService().getRequestMetrics();
+            if (metrics != null && metrics.isEnabled()) {
+                metrics.responseWritten(uI, writer.getByteCount(), false);
+            }
+
+            if (streaming) {
+                writer.flush();
+                return true;
+            }
+            return UIInitHandler.commitJsonResponse(request, response,
+                    writer);
         } catch (JsonException e) {
             getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
             // Refresh on client side
-            writeRefresh(request, response);
+            writeRefreshIfNotCommitted(request, response, writer);
             return true;
         } catch (InvalidUIDLSecurityKeyException e) {
             getLogger().log(Level.WARNING,
                     "Invalid security key received from {0}",
                     request.getRemoteHost());
             // Refresh on client side
-            writeRefresh(request, response);
+            writeRefreshIfNotCommitted(request, response, writer);
             return true;
+        } catch (IOException | RuntimeException e) {
+            if (writer.isCommitted()) {
+                // Nothing sensible can be sent after a partial response
+                getLogger().log(Level.SEVERE,
+                        "Error while streaming UIDL response", e);
+                return true;
+            }
+            throw e;
         } finally {
-            stringWriter.close();
+            releaseBufferWriter(writer);
         }
+    }
+
+    /**
+     * Checks whether UIDL responses should be streamed directly to the
+     * response output stream instead of being buffered until complete. When
+     * streaming, a failure in the middle of writing the response can no longer
+     * be replaced by a refresh notification.
+     *
+     * @param session
+     *            the session of the request
+     * @return <code>true</code> to stream responses, <code>false</code> to
+     *         buffer them
+     * @see Constants#SERVLET_PARAMETER_STREAMING_UIDL
+     */
+    protected boolean isStreamingUidl(VaadinSession session) {
+        return Boolean.parseBoolean(session.getService()
+                .getDeploymentConfiguration().getApplicationOrSystemProperty(
+                        Constants.SERVLET_PARAMETER_STREAMING_UIDL, "false"));
+    }
+
+    private Utf8BufferWriter getBufferWriter() {
+        Utf8BufferWriter writer = bufferPool.poll();
+        if (writer == null) {
+            writer = new Utf8BufferWriter();
+        }
+        return writer;
+    }
 
-        return UIInitHandler.commitJsonResponse(request, response,
-                stringWriter.toString());
+    private void releaseBufferWriter(Utf8BufferWriter writer) {
+        // Don't keep a huge buffer around because of a single large response
+        if (writer.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+            // Don't keep the response stream referenced
+            writer.reset();
+            // Discarded if the pool is full
+            bufferPool.offer(writer);
+        }
+    }
+
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        bufferPool = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    }
+
+    private void writeRefreshIfNotCommitted(VaadinRequest request,
+            VaadinResponse response, Utf8BufferWriter writer)
+            throws IOException {
+        if (writer.isCommitted()) {
+            getLogger().log(Level.SEVERE,
+                    "Unable to request a refresh after a partially streamed response");
+        } else {
+            writer.reset();
+            writeRefresh(request, response);
+        }
     }
 
     private void writeRefresh(VaadinRequest request, VaadinResponse response)
@@ -35,6 +35,8 @@ import com.vaadin.server.ClientConnector;
 import com.vaadin.server.JsonPaintTarget;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.LegacyCommunicationManager.ClientCache;
+import com.vaadin.server.RequestMetrics.Phase;
+import com.vaadin.server.RequestMetrics.PhaseTimer;
 import com.vaadin.server.SystemMessages;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
@@ -76,9 +78,12 @@ public class UidlWriter implements Serializable {
         VaadinSession session = ui.getSession();
         VaadinService service = session.getService();
 
+        PhaseTimer timer = new PhaseTimer(service);
+
         // Purge pending access calls as they might produce additional changes
         // to write out
         service.runPendingAccessTasks(session);
+        timer.phaseCompleted(Phase.RUN_ACCESS_TASKS);
 
         Set<ClientConnector> processedConnectors = new HashSet<>();
 
@@ -118,6 +123,7 @@ public class UidlWriter implements Serializable {
 
         getLogger().log(Level.FINE, "Found " + processedConnectors.size()
                 + " dirty connectors to paint");
+        timer.phaseCompleted(Phase.BEFORE_CLIENT_RESPONSE);
 
         uiConnectorTracker.setWritingResponse(true);
         try {
@@ -144,6 +150,7 @@ public class UidlWriter implements Serializable {
 
             paintTarget.close();
             writer.write(", "); // close changes
+            timer.phaseCompleted(Phase.WRITE_CHANGES);
 
             // send shared state to client
 
@@ -160,27 +167,24 @@ public class UidlWriter implements Serializable {
             Set<String> stateUpdateConnectors = new SharedStateWriter()
                     .write(ui, writer);
             writer.write(", "); // close states
+            timer.phaseCompleted(Phase.WRITE_STATE);
 
-            // TODO This should be optimized. The type only needs to be
-            // sent once for each connector id + on refresh. Use the same cache
-            // as
-            // widget mapping
+            // The type is only sent for connectors not yet initialized on the
+            // client side
 
             writer.write("\"types\":");
             new ConnectorTypeWriter().write(ui, writer, paintTarget);
             writer.write(", "); // close states
 
-            // Send update hierarchy information to the client.
-
-            // This could be optimized aswell to send only info if hierarchy has
-            // actually changed. Much like with the shared state. Note though
-            // that an empty hierarchy is information aswell (e.g. change from 1
-            // child to 0 children)
+            // Send update hierarchy information to the client. Only changed
+            // hierarchies are sent, but note that an empty hierarchy is
+            // information as well (e.g. change from 1 child to 0 children)
 
             writer.write("\"hierarchy\":");
             new ConnectorHierarchyWriter().write(ui, writer,
                     stateUpdateConnectors);
             writer.write(", "); // close hierarchy
+            timer.phaseCompleted(Phase.WRITE_HIERARCHY);
 
             // send server to client RPC calls for components in the UI, in call
             // order
@@ -191,6 +195,7 @@ public class UidlWriter implements Serializable {
             writer.write("\"rpc\" : ");
             new ClientRpcWriter().write(ui, writer);
             writer.write(", "); // close rpc
+            timer.phaseCompleted(Phase.WRITE_RPC);
 
             uiConnectorTracker.markAllConnectorsClean();
 
@@ -329,6 +334,7 @@ public class UidlWriter implements Serializable {
                     .isEmpty()) : "Connectors have been marked as dirty during the end of the paint phase. This is most certainly not intended.";
 
             writePerformanceData(ui, writer);
+            timer.phaseCompleted(Phase.WRITE_META);
         } finally {
             uiConnectorTracker.setWritingResponse(false);
             uiConnectorTracker.cleanConnectorMap();
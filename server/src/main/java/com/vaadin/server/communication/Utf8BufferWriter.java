@@ -0,0 +1,275 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A {@link Writer} that encodes characters directly into a reusable UTF-8
+ * byte buffer. Used for writing UIDL responses without first building the
+ * whole response as a {@link String} and then converting it to bytes.
+ * <p>
+ * By default everything is kept in the buffer until {@link #writeTo} is
+ * called, so that the response can still be discarded if writing fails. When
+ * an output stream is set using {@link #setOutput(OutputStream, int)}, the
+ * buffer is flushed to that stream whenever it grows past the given
+ * threshold, keeping memory use constant regardless of the response size.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class Utf8BufferWriter extends Writer {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private byte[] buffer;
+    private int count = 0;
+    private char pendingHighSurrogate = 0;
+
+    private OutputStream output;
+    private int flushThreshold;
+    private long flushedBytes = 0;
+
+    /**
+     * Creates a new writer with the default initial capacity.
+     */
+    public Utf8BufferWriter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new writer with the given initial buffer capacity.
+     *
+     * @param initialCapacity
+     *            the initial buffer capacity in bytes
+     */
+    public Utf8BufferWriter(int initialCapacity) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Sets the stream to which the buffer is flushed whenever it contains at
+     * least {@code flushThreshold} bytes. Once anything has been flushed, the
+     * written data can no longer be discarded.
+     *
+     * @param output
+     *            the output stream to stream to, or <code>null</code> to only
+     *            buffer
+     * @param flushThreshold
+     *            the number of buffered bytes that triggers a flush
+     */
+    public void setOutput(OutputStream output, int flushThreshold) {
+        this.output = output;
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Checks whether any data has already been flushed to the output stream.
+     *
+     * @return <code>true</code> if data has been written to the output stream,
+     *         <code>false</code> if everything is still buffered
+     */
+    public boolean isCommitted() {
+        return flushedBytes > 0;
+    }
+
+    /**
+     * Gets the number of bytes currently held in the buffer.
+     *
+     * @return the number of buffered bytes
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the total number of bytes written to this writer since it was
+     * created or reset, including bytes already flushed to the output stream.
+     *
+     * @return the number of written bytes
+     */
+    public long getByteCount() {
+        return flushedBytes + count;
+    }
+
+    /**
+     * Gets the number of bytes needed to encode the given characters as UTF-8,
+     * without encoding them.
+     *
+     * @param chars
+     *            the characters to measure, not <code>null</code>
+     * @return the UTF-8 encoded length in bytes
+     */
+    public static long getEncodedLength(CharSequence chars) {
+        long length = 0;
+        int count = chars.length();
+        for (int i = 0; i < count; i++) {
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < count
+                    && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Gets the capacity of the internal buffer.
+     *
+     * @return the buffer capacity in bytes
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Discards all buffered data and detaches any output stream so that the
+     * writer can be reused. The buffer itself is retained.
+     */
+    public void reset() {
+        count = 0;
+        pendingHighSurrogate = 0;
+        output = null;
+        flushedBytes = 0;
+    }
+
+    /**
+     * Writes the buffered bytes to the given stream and empties the buffer.
+     *
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        encode((char) c);
+        flushIfNeeded();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            encode(cbuf[i]);
+        }
+        flushIfNeeded();
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureCapacity(count + len);
+        for (int i = off; i < off + len; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80 && pendingHighSurrogate == 0) {
+                // Fast path for ASCII, which is the bulk of UIDL
+                if (count == buffer.length) {
+                    ensureCapacity(count + 1);
+                }
+                buffer[count++] = (byte) c;
+            } else {
+                encode(c);
+            }
+        }
+        flushIfNeeded();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (output != null) {
+            flushedBytes += count;
+            writeTo(output);
+            output.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            writeReplacement();
+        }
+    }
+
+    private void flushIfNeeded() throws IOException {
+        if (output != null && count >= flushThreshold) {
+            flushedBytes += count;
+            writeTo(output);
+        }
+    }
+
+    private void encode(char c) {
+        ensureCapacity(count + 4);
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            writeReplacement();
+            ensureCapacity(count + 4);
+        }
+
+        if (c < 0x80) {
+            buffer[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            writeReplacement();
+        } else {
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    /**
+     * Writes '?' for unpaired surrogates, like {@link String#getBytes} does.
+     */
+    private void writeReplacement() {
+        ensureCapacity(count + 1);
+        buffer[count++] = '?';
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer,
+                    Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+import com.vaadin.server.SerializableFunction;
+
+/**
+ * A {@link DataProvider} for a back end that is queried asynchronously. The
+ * request and size callbacks return a {@link CompletionStage} which is
+ * completed when the back end has answered, typically by a thread of an
+ * executor or of an asynchronous database driver.
+ * <p>
+ * {@link DataCommunicator} uses {@link #fetchAsync(Query)} and
+ * {@link #sizeAsync(Query)} so that the session is not locked while the query
+ * runs. The results are sent to the client in {@link com.vaadin.ui.UI#access
+ * UI.access} when they arrive, so server push should be enabled for them to
+ * be shown without waiting for the next request from the client.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ *
+ * @param <T>
+ *            data provider data type
+ */
+public class AsyncBackEndDataProvider<T> extends AbstractDataProvider<T> {
+
+    private final SerializableFunction<Query, CompletionStage<Stream<T>>> request;
+    private final SerializableFunction<Query, CompletionStage<Integer>> sizeCallback;
+
+    /**
+     * Constructs a new DataProvider to request data asynchronously from an
+     * arbitrary back end request function.
+     *
+     * @param request
+     *            function that starts requesting data from back end based on
+     *            query, not null
+     * @param sizeCallback
+     *            function that starts requesting the amount of data in back end
+     *            for query, not null
+     */
+    public AsyncBackEndDataProvider(
+            SerializableFunction<Query, CompletionStage<Stream<T>>> request,
+            SerializableFunction<Query, CompletionStage<Integer>> sizeCallback) {
+        Objects.requireNonNull(request, "Request function can't be null");
+        Objects.requireNonNull(sizeCallback, "Size callback can't be null");
+        this.request = request;
+        this.sizeCallback = sizeCallback;
+    }
+
+    /**
+     * Starts fetching data from the back end using the given query.
+     *
+     * @param query
+     *            given query to request data
+     * @return a stage completed with a stream of data objects, not
+     *         {@code null}
+     */
+    public CompletionStage<Stream<T>> fetchAsync(Query query) {
+        return request.apply(query);
+    }
+
+    /**
+     * Starts counting the amount of data in the back end for the given query.
+     *
+     * @param query
+     *            query with filtering
+     * @return a stage completed with the size of the data, not {@code null}
+     */
+    public CompletionStage<Integer> sizeAsync(Query query) {
+        return sizeCallback.apply(query);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Blocks until the back end has answered.
+     */
+    @Override
+    public Stream<T> fetch(Query query) {
+        return fetchAsync(query).toCompletableFuture().join();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Blocks until the back end has answered.
+     */
+    @Override
+    public int size(Query query) {
+        return sizeAsync(query).toCompletableFuture().join();
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+}
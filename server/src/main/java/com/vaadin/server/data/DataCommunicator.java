@@ -17,6 +17,7 @@ package com.vaadin.server.data;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -25,18 +26,23 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.vaadin.server.AbstractExtension;
-import com.vaadin.server.KeyMapper;
+import com.vaadin.server.ClientConnector.ConnectorErrorEvent;
+import com.vaadin.server.ErrorEvent;
 import com.vaadin.server.SerializablePredicate;
 import com.vaadin.shared.Range;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.data.DataCommunicatorClientRpc;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.data.DataRequestRpc;
+import com.vaadin.ui.UI;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
@@ -77,8 +83,9 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     /**
      * A class for handling currently active data and dropping data that is no
-     * longer needed. Data tracking is based on key string provided by
-     * {@link DataKeyMapper}.
+     * longer needed. Data tracking is based on the data objects themselves;
+     * key strings provided by {@link DataKeyMapper} are only resolved when the
+     * client refers to a data object.
      * <p>
      * When the {@link DataCommunicator} is pushing new data to the client-side
      * via {@link DataCommunicator#pushData(long, Collection)},
@@ -91,15 +98,15 @@ public class DataCommunicator<T> extends AbstractExtension {
             implements Serializable, DataGenerator<T> {
 
         /**
-         * Set of key strings for currently active data objects
+         * Set of currently active data objects
          */
-        private final Set<String> activeData = new HashSet<>();
+        private final Set<T> activeData = new HashSet<>();
 
         /**
-         * Set of key strings for data objects dropped on the client. This set
-         * is used to clean up old data when it's no longer needed.
+         * Set of data objects dropped on the client. This set is used to clean
+         * up old data when it's no longer needed.
          */
-        private final Set<String> droppedData = new HashSet<>();
+        private final Set<T> droppedData = new HashSet<>();
 
         /**
          * Adds given objects as currently active objects.
@@ -108,9 +115,7 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            collection of new active data objects
          */
         public void addActiveData(Stream<T> dataObjects) {
-            dataObjects.map(getKeyMapper()::key)
-                    .filter(key -> !activeData.contains(key))
-                    .forEach(activeData::add);
+            dataObjects.forEach(activeData::add);
         }
 
         /**
@@ -126,11 +131,12 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            collection of most recently sent data to the client
          */
         public void cleanUp(Stream<T> dataObjects) {
-            Collection<String> keys = dataObjects.map(getKeyMapper()::key)
-                    .collect(Collectors.toSet());
+            if (droppedData.isEmpty()) {
+                return;
+            }
 
             // Remove still active rows that were dropped by the client
-            droppedData.removeAll(keys);
+            dataObjects.forEach(droppedData::remove);
             // Do data clean up for object no longer needed.
             dropData(droppedData);
             droppedData.clear();
@@ -143,8 +149,9 @@ public class DataCommunicator<T> extends AbstractExtension {
          *            key string
          */
         public void dropActiveData(String key) {
-            if (activeData.contains(key)) {
-                droppedData.add(key);
+            T data = getKeyMapper().get(key);
+            if (data != null && activeData.contains(data)) {
+                droppedData.add(data);
             }
         }
 
@@ -154,11 +161,7 @@ public class DataCommunicator<T> extends AbstractExtension {
          * @return collection of active data objects
          */
         public Collection<T> getActiveData() {
-            HashSet<T> hashSet = new HashSet<>();
-            for (String key : activeData) {
-                hashSet.add(getKeyMapper().get(key));
-            }
-            return hashSet;
+            return Collections.unmodifiableSet(activeData);
         }
 
         @Override
@@ -171,7 +174,7 @@ public class DataCommunicator<T> extends AbstractExtension {
         @Override
         public void destroyData(T data) {
             // Remove from active data set
-            activeData.remove(getKeyMapper().key(data));
+            activeData.remove(data);
             // Drop the registered key
             getKeyMapper().remove(data);
         }
@@ -189,9 +192,25 @@ public class DataCommunicator<T> extends AbstractExtension {
 
     private Comparator<T> inMemorySorting;
     private SerializablePredicate<T> inMemoryFilter;
+    /**
+     * Filtered and sorted snapshot of the in-memory data provider contents.
+     * Built lazily and dropped whenever the data, filter or sorting changes,
+     * when detached and before the initial response.
+     */
+    private transient List<T> inMemoryItems;
     private final List<SortOrder<String>> backEndSorting = new ArrayList<>();
+    private final Set<Object> backEndFilters = new HashSet<>();
     private final DataCommunicatorClientRpc rpc;
 
+    /**
+     * The back end request currently running for an
+     * {@link AsyncBackEndDataProvider}, if any.
+     */
+    private transient CompletableFuture<?> pendingRequest;
+    private transient List<CompletableFuture<?>> pendingStages;
+    private boolean pendingReset = false;
+    private int requestCount = 0;
+
     public DataCommunicator() {
         addDataGenerator(handler);
         rpc = getRpcProxy(DataCommunicatorClientRpc.class);
@@ -209,11 +228,17 @@ public class DataCommunicator<T> extends AbstractExtension {
     public void detach() {
         super.detach();
         detachDataProviderListener();
+        cancelPendingRequest();
+        // Changes are not tracked while detached
+        inMemoryItems = null;
     }
 
     /**
      * Initially and in the case of a reset all data should be pushed to the
      * client.
+     * <p>
+     * An {@link AsyncBackEndDataProvider} is only asked to start its queries
+     * here. The results are sent later when the queries complete.
      */
     @Override
     public void beforeClientResponse(boolean initial) {
@@ -223,38 +248,39 @@ public class DataCommunicator<T> extends AbstractExtension {
             return;
         }
 
-        // FIXME: Sorting and Filtering with Backend
-        Set<Object> filters = Collections.emptySet();
+        if (initial) {
+            // Don't send a snapshot taken before the client was reset
+            inMemoryItems = null;
+        }
 
-        if (initial || reset) {
+        boolean async = getDataProvider() instanceof AsyncBackEndDataProvider;
+        if (async) {
+            requestAsync(initial || reset);
+        } else if (initial || reset) {
             int dataProviderSize;
             if (getDataProvider().isInMemory() && inMemoryFilter != null) {
-                dataProviderSize = (int) getDataProvider().fetch(new Query())
-                        .filter(inMemoryFilter).count();
+                dataProviderSize = getInMemoryItems().size();
             } else {
-                dataProviderSize = getDataProvider().size(new Query(filters));
+                dataProviderSize = getDataProvider()
+                        .size(new Query(backEndFilters));
             }
             rpc.reset(dataProviderSize);
         }
 
-        if (!pushRows.isEmpty()) {
+        if (!pushRows.isEmpty() && !async) {
             int offset = pushRows.getStart();
             int limit = pushRows.length();
 
             Stream<T> rowsToPush;
 
             if (getDataProvider().isInMemory()) {
-                // We can safely request all the data when in memory
-                rowsToPush = getDataProvider().fetch(new Query());
-                if (inMemoryFilter != null) {
-                    rowsToPush = rowsToPush.filter(inMemoryFilter);
-                }
-                if (inMemorySorting != null) {
-                    rowsToPush = rowsToPush.sorted(inMemorySorting);
-                }
-                rowsToPush = rowsToPush.skip(offset).limit(limit);
+                List<T> items = getInMemoryItems();
+                int start = Math.min(offset, items.size());
+                int end = (int) Math.min((long) offset + limit, items.size());
+                rowsToPush = items.subList(start, end).stream();
             } else {
-                Query query = new Query(offset, limit, backEndSorting, filters);
+                Query query = new Query(offset, limit, backEndSorting,
+                        backEndFilters);
                 rowsToPush = getDataProvider().fetch(query);
             }
             pushData(offset, rowsToPush);
@@ -274,6 +300,139 @@ public class DataCommunicator<T> extends AbstractExtension {
         updatedData.clear();
     }
 
+    /**
+     * Starts querying an {@link AsyncBackEndDataProvider} for the size and the
+     * rows needed by the client. The results are sent in
+     * {@link UI#access(Runnable)} when both have arrived. A request that is
+     * still running when new rows are needed is cancelled and its results are
+     * ignored.
+     *
+     * @param sizeNeeded
+     *            {@code true} if the size should be queried and the client
+     *            reset
+     */
+    private void requestAsync(boolean sizeNeeded) {
+        Range range = pushRows;
+        if (!sizeNeeded && range.isEmpty()) {
+            // Nothing new to request, let a running request finish
+            return;
+        }
+        if (pendingRequest != null) {
+            // Don't lose the size of a cancelled request
+            sizeNeeded |= pendingReset;
+            cancelPendingRequest();
+        }
+
+        @SuppressWarnings("unchecked")
+        AsyncBackEndDataProvider<T> provider = (AsyncBackEndDataProvider<T>) getDataProvider();
+        CompletableFuture<Integer> size = sizeNeeded
+                ? provider.sizeAsync(new Query(backEndFilters))
+                        .toCompletableFuture()
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<Stream<T>> rows = range.isEmpty()
+                ? CompletableFuture.completedFuture(Stream.empty())
+                : provider.fetchAsync(new Query(range.getStart(),
+                        range.length(), backEndSorting, backEndFilters))
+                        .toCompletableFuture();
+
+        final int requestId = ++requestCount;
+        if (size.isDone() && rows.isDone() && !size.isCompletedExceptionally()
+                && !rows.isCompletedExceptionally()) {
+            // Already answered, e.g. from a cache: send in this response
+            sendAsyncResult(size.join(), rows.join(), range);
+            return;
+        }
+
+        final UI ui = getUI();
+        pendingReset = sizeNeeded;
+        pendingStages = Arrays.asList(size, rows);
+        // Collect the rows in the thread completing the query, not while
+        // holding the session lock
+        pendingRequest = size.thenAcceptBoth(
+                rows.thenApply(stream -> stream.collect(Collectors.toList())),
+                (dataSize, data) -> ui.access(() -> {
+                    if (requestId != requestCount || !isAttached()) {
+                        // Cancelled while waiting for the lock
+                        return;
+                    }
+                    pendingRequest = null;
+                    pendingStages = null;
+                    pendingReset = false;
+                    sendAsyncResult(dataSize, data.stream(), range);
+                }));
+        pendingRequest.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                handleAsyncError(ui, requestId, throwable);
+            }
+        });
+    }
+
+    private void sendAsyncResult(Integer dataSize, Stream<T> data,
+            Range range) {
+        if (dataSize != null) {
+            rpc.reset(dataSize.intValue());
+        }
+        if (!range.isEmpty()) {
+            pushData(range.getStart(), data);
+        }
+    }
+
+    private void handleAsyncError(UI ui, int requestId, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException
+                && throwable.getCause() != null ? throwable.getCause()
+                        : throwable;
+        if (cause instanceof CancellationException
+                || ui.getSession() == null) {
+            return;
+        }
+        ui.access(() -> {
+            if (requestId != requestCount) {
+                // Superseded by a newer request
+                return;
+            }
+            pendingRequest = null;
+            pendingStages = null;
+            pendingReset = false;
+            ErrorEvent.findErrorHandler(this)
+                    .error(new ConnectorErrorEvent(this, cause));
+        });
+    }
+
+    private void cancelPendingRequest() {
+        requestCount++;
+        if (pendingRequest != null) {
+            pendingRequest.cancel(false);
+            pendingStages.forEach(stage -> stage.cancel(false));
+            pendingRequest = null;
+            pendingStages = null;
+        }
+        pendingReset = false;
+    }
+
+    /**
+     * Gets the filtered and sorted contents of an in-memory data provider. The
+     * result is cached until {@link #reset()} is called, so that consecutive
+     * page requests only need to slice the cached list.
+     *
+     * @return list of filtered and sorted data objects, not {@code null}
+     */
+    private List<T> getInMemoryItems() {
+        if (inMemoryItems == null) {
+            // We can safely request all the data when in memory
+            Stream<T> stream = getDataProvider().fetch(new Query());
+            if (inMemoryFilter != null) {
+                stream = stream.filter(inMemoryFilter);
+            }
+            List<T> items = stream
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (inMemorySorting != null) {
+                items.sort(inMemorySorting);
+            }
+            inMemoryItems = items;
+        }
+        return inMemoryItems;
+    }
+
     /**
      * Adds a data generator to this data communicator. Data generators can be
      * used to insert custom data to the rows sent to the client. If the data
@@ -351,18 +510,15 @@ public class DataCommunicator<T> extends AbstractExtension {
     }
 
     /**
-     * Drops data objects identified by given keys from memory. This will invoke
+     * Drops given data objects from memory. This will invoke
      * {@link DataGenerator#destroyData} for each of those objects.
      *
-     * @param droppedKeys
-     *            collection of dropped keys
+     * @param droppedData
+     *            collection of dropped data objects
      */
-    private void dropData(Collection<String> droppedKeys) {
-        for (String key : droppedKeys) {
-            assert key != null : "Bookkeepping failure. Dropping a null key";
-
-            T data = getKeyMapper().get(key);
-            assert data != null : "Bookkeepping failure. No data object to match key";
+    private void dropData(Collection<T> droppedData) {
+        for (T data : droppedData) {
+            assert data != null : "Bookkeepping failure. Dropping a null data object";
 
             for (DataGenerator<T> g : generators) {
                 g.destroyData(data);
@@ -374,6 +530,7 @@ public class DataCommunicator<T> extends AbstractExtension {
      * Informs the DataProvider that the collection has changed.
      */
     public void reset() {
+        inMemoryItems = null;
         if (reset) {
             return;
         }
@@ -435,6 +592,19 @@ public class DataCommunicator<T> extends AbstractExtension {
         reset();
     }
 
+    /**
+     * Sets the filters to use with backend filtering. The filters are passed
+     * to the data provider in each {@link Query}.
+     *
+     * @param filters
+     *            set of filters to pass to a query
+     */
+    public void setBackEndFilters(Set<Object> filters) {
+        backEndFilters.clear();
+        backEndFilters.addAll(filters);
+        reset();
+    }
+
     /**
      * Creates a {@link DataKeyMapper} to use with this DataCommunicator.
      * <p>
@@ -443,7 +613,7 @@ public class DataCommunicator<T> extends AbstractExtension {
      * @return key mapper
      */
     protected DataKeyMapper<T> createKeyMapper() {
-        return new KeyMapper<>();
+        return new IntKeyMapper<>();
     }
 
     /**
@@ -474,6 +644,7 @@ public class DataCommunicator<T> extends AbstractExtension {
      */
     public void setDataProvider(DataProvider<T> dataProvider) {
         Objects.requireNonNull(dataProvider, "data provider cannot be null");
+        cancelPendingRequest();
         this.dataProvider = dataProvider;
         detachDataProviderListener();
         if (isAttached()) {
@@ -0,0 +1,706 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.vaadin.server.SerializableFunction;
+import com.vaadin.shared.data.sort.SortDirection;
+
+/**
+ * Data provider for a collection of items kept in memory, which maintains
+ * secondary indexes for item properties. Indexes are declared per property name and kept up to date as
+ * items are added, removed or refreshed, which allows {@link #fetch(Query)}
+ * and {@link #size(Query)} to answer filtered and sorted queries without
+ * scanning all items.
+ * <p>
+ * Three kinds of indexes are supported:
+ * <ul>
+ * <li>{@link #addHashIndex(String, SerializableFunction) hash indexes} for
+ * {@link #equalTo(String, Object) equality filters}</li>
+ * <li>{@link #addSortedIndex(String, SerializableFunction) sorted indexes} for
+ * {@link #between(String, Comparable, Comparable) range filters} and for
+ * sorting by the property name given in {@link Query#getSortOrders()}</li>
+ * <li>{@link #addTextIndex(String, SerializableFunction, Locale) text indexes}
+ * for case-insensitive {@link #containsText(String, String) substring
+ * filters}, e.g. for captions in a {@code ComboBox}</li>
+ * </ul>
+ * Filters in {@link Query#getFilters()} that are not index filters but
+ * {@link Predicate}s are applied to the candidates found through the indexes.
+ * <p>
+ * Since the provider does paging, filtering and sorting itself, it reports
+ * itself as not being in memory, and the {@link DataCommunicator} passes the
+ * query parameters through instead of fetching all items. For the same
+ * reason, a {@code ComboBox} filters the items by passing the text typed by
+ * the user as a back end filter. It uses the text index set with
+ * {@link #setCaptionFilterProperty(String)} if there is one and the combo box
+ * uses its default filter. Otherwise the combo box filter is evaluated for
+ * each item.
+ * <p>
+ * Like a {@link Set}, the provider contains each item at most once as
+ * determined by {@link Object#equals(Object)}. Adding an item that is already
+ * contained is rejected.
+ *
+ * @param <T>
+ *            data type
+ *
+ * @since 8.0
+ */
+public class IndexedListDataProvider<T> extends AbstractDataProvider<T> {
+
+    /**
+     * A filter that is resolved through an index of an
+     * {@link IndexedListDataProvider}. Instances are created with the static
+     * factory methods of {@link IndexedListDataProvider}.
+     */
+    public static abstract class IndexFilter implements Serializable {
+
+        private final String property;
+
+        private IndexFilter(String property) {
+            this.property = Objects.requireNonNull(property,
+                    "property cannot be null");
+        }
+
+        /**
+         * Gets the name of the indexed property this filter applies to.
+         *
+         * @return the property name, not null
+         */
+        public String getProperty() {
+            return property;
+        }
+
+        abstract <T> Set<T> resolve(Index<T> index);
+    }
+
+    private static class EqualToFilter extends IndexFilter {
+        private final Object value;
+
+        private EqualToFilter(String property, Object value) {
+            super(property);
+            this.value = value;
+        }
+
+        @Override
+        <T> Set<T> resolve(Index<T> index) {
+            if (!(index instanceof HashIndex)) {
+                throw new IllegalArgumentException("Property " + getProperty()
+                        + " does not have a hash index");
+            }
+            return ((HashIndex<T>) index).get(value);
+        }
+    }
+
+    private static class BetweenFilter extends IndexFilter {
+        private final Comparable<?> from;
+        private final Comparable<?> to;
+
+        private BetweenFilter(String property, Comparable<?> from,
+                Comparable<?> to) {
+            super(property);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        <T> Set<T> resolve(Index<T> index) {
+            if (!(index instanceof SortedIndex)) {
+                throw new IllegalArgumentException("Property " + getProperty()
+                        + " does not have a sorted index");
+            }
+            return ((SortedIndex<T>) index).between(from, to);
+        }
+    }
+
+    private static class ContainsTextFilter extends IndexFilter {
+        private final String text;
+
+        private ContainsTextFilter(String property, String text) {
+            super(property);
+            this.text = text;
+        }
+
+        @Override
+        <T> Set<T> resolve(Index<T> index) {
+            if (!(index instanceof TextIndex)) {
+                throw new IllegalArgumentException("Property " + getProperty()
+                        + " does not have a text index");
+            }
+            return ((TextIndex<T>) index).containing(text);
+        }
+    }
+
+    /**
+     * Base class for indexes. Keeps track of the key each item was indexed
+     * with, so that items can be removed even if their properties have
+     * changed since.
+     */
+    private static abstract class Index<T> implements Serializable {
+        private final SerializableFunction<T, ?> valueProvider;
+        private final Map<T, Object> keys = new HashMap<>();
+
+        private Index(SerializableFunction<T, ?> valueProvider) {
+            this.valueProvider = valueProvider;
+        }
+
+        void add(T item) {
+            Object key = valueProvider.apply(item);
+            keys.put(item, key);
+            addKey(key, item);
+        }
+
+        void remove(T item) {
+            if (keys.containsKey(item)) {
+                removeKey(keys.remove(item), item);
+            }
+        }
+
+        Object getKey(T item) {
+            return keys.get(item);
+        }
+
+        Set<T> getItems() {
+            return keys.keySet();
+        }
+
+        abstract void addKey(Object key, T item);
+
+        abstract void removeKey(Object key, T item);
+    }
+
+    private static class HashIndex<T> extends Index<T> {
+        private final Map<Object, Set<T>> buckets = new HashMap<>();
+
+        private HashIndex(SerializableFunction<T, ?> valueProvider) {
+            super(valueProvider);
+        }
+
+        @Override
+        void addKey(Object key, T item) {
+            buckets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(item);
+        }
+
+        @Override
+        void removeKey(Object key, T item) {
+            removeFromBucket(buckets, key, item);
+        }
+
+        Set<T> get(Object value) {
+            return buckets.getOrDefault(value, Collections.emptySet());
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static class SortedIndex<T> extends Index<T> {
+        private final TreeMap<Comparable, Set<T>> buckets = new TreeMap<>();
+        private final Set<T> nullBucket = new LinkedHashSet<>();
+
+        private SortedIndex(SerializableFunction<T, ?> valueProvider) {
+            super(valueProvider);
+        }
+
+        @Override
+        void addKey(Object key, T item) {
+            if (key == null) {
+                nullBucket.add(item);
+            } else {
+                buckets.computeIfAbsent((Comparable) key,
+                        k -> new LinkedHashSet<>()).add(item);
+            }
+        }
+
+        @Override
+        void removeKey(Object key, T item) {
+            if (key == null) {
+                nullBucket.remove(item);
+            } else {
+                removeFromBucket(buckets, key, item);
+            }
+        }
+
+        Set<T> between(Comparable from, Comparable to) {
+            if (from != null && to != null && from.compareTo(to) > 0) {
+                // Nothing can be in an inverted range
+                return new LinkedHashSet<>();
+            }
+            NavigableMap<Comparable, Set<T>> range = buckets;
+            if (from != null) {
+                range = range.tailMap(from, true);
+            }
+            if (to != null) {
+                range = range.headMap(to, true);
+            }
+            Set<T> result = new LinkedHashSet<>();
+            range.values().forEach(result::addAll);
+            return result;
+        }
+
+        /**
+         * Streams all items in index order. Items with a {@code null} key
+         * come first in ascending order and last in descending order.
+         */
+        Stream<T> stream(SortDirection direction) {
+            if (direction == SortDirection.DESCENDING) {
+                return Stream.concat(
+                        buckets.descendingMap().values().stream()
+                                .flatMap(Set::stream),
+                        nullBucket.stream());
+            }
+            return Stream.concat(nullBucket.stream(),
+                    buckets.values().stream().flatMap(Set::stream));
+        }
+
+        int compare(T item1, T item2) {
+            Comparable key1 = (Comparable) getKey(item1);
+            Comparable key2 = (Comparable) getKey(item2);
+            if (key1 == null || key2 == null) {
+                return key1 == key2 ? 0 : key1 == null ? -1 : 1;
+            }
+            return key1.compareTo(key2);
+        }
+    }
+
+    /**
+     * N-gram index over lower case strings. All substrings up to
+     * {@link #GRAM_LENGTH} characters are indexed, so short search strings
+     * are answered directly and longer ones by intersecting with the
+     * candidates of their first gram.
+     */
+    private static class TextIndex<T> extends Index<T> {
+        private static final int GRAM_LENGTH = 3;
+
+        private final Map<String, Set<T>> grams = new HashMap<>();
+        private final Locale locale;
+
+        private TextIndex(SerializableFunction<T, String> captionProvider,
+                Locale locale) {
+            super(item -> {
+                String caption = captionProvider.apply(item);
+                return caption == null ? "" : caption.toLowerCase(locale);
+            });
+            this.locale = locale;
+        }
+
+        @Override
+        void addKey(Object key, T item) {
+            for (String gram : grams((String) key)) {
+                grams.computeIfAbsent(gram, g -> new LinkedHashSet<>())
+                        .add(item);
+            }
+        }
+
+        @Override
+        void removeKey(Object key, T item) {
+            for (String gram : grams((String) key)) {
+                removeFromBucket(grams, gram, item);
+            }
+        }
+
+        Set<T> containing(String text) {
+            String needle = text.toLowerCase(locale);
+            if (needle.isEmpty()) {
+                return getItems();
+            } else if (needle.length() <= GRAM_LENGTH) {
+                return grams.getOrDefault(needle, Collections.emptySet());
+            }
+            Set<T> candidates = grams.get(needle.substring(0, GRAM_LENGTH));
+            if (candidates == null) {
+                return Collections.emptySet();
+            }
+            Set<T> result = new LinkedHashSet<>();
+            for (T item : candidates) {
+                if (((String) getKey(item)).contains(needle)) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+
+        private static Set<String> grams(String caption) {
+            Set<String> result = new HashSet<>();
+            for (int start = 0; start < caption.length(); start++) {
+                int maxEnd = Math.min(caption.length(), start + GRAM_LENGTH);
+                for (int end = start + 1; end <= maxEnd; end++) {
+                    result.add(caption.substring(start, end));
+                }
+            }
+            return result;
+        }
+    }
+
+    private final Set<T> items = new LinkedHashSet<>();
+    private final Map<String, Index<T>> indexes = new HashMap<>();
+    private String captionFilterProperty;
+
+    /**
+     * Constructs a new indexed data provider with the given initial items.
+     * The items are copied into the data provider.
+     *
+     * @param items
+     *            the initial data, not null
+     * @throws IllegalArgumentException
+     *             if the items contain an item more than once
+     */
+    public IndexedListDataProvider(Collection<T> items) {
+        Objects.requireNonNull(items, "items cannot be null");
+        for (T item : items) {
+            if (!this.items.add(item)) {
+                throw new IllegalArgumentException(
+                        "Duplicate item: " + item);
+            }
+        }
+    }
+
+    /**
+     * Adds a hash index for the given property. Hash indexes are used for
+     * {@link #equalTo(String, Object)} filters.
+     *
+     * @param property
+     *            the property name, not null
+     * @param valueProvider
+     *            function to get the property value from an item, not null
+     * @return this data provider
+     */
+    public IndexedListDataProvider<T> addHashIndex(String property,
+            SerializableFunction<T, ?> valueProvider) {
+        Objects.requireNonNull(valueProvider, "value provider cannot be null");
+        return addIndex(property, new HashIndex<>(valueProvider));
+    }
+
+    /**
+     * Adds a sorted index for the given property. Sorted indexes are used for
+     * {@link #between(String, Comparable, Comparable)} filters and for sort
+     * orders referring to the property name.
+     *
+     * @param <V>
+     *            the property value type
+     * @param property
+     *            the property name, not null
+     * @param valueProvider
+     *            function to get the property value from an item, not null
+     * @return this data provider
+     */
+    public <V extends Comparable<? super V>> IndexedListDataProvider<T> addSortedIndex(
+            String property, SerializableFunction<T, V> valueProvider) {
+        Objects.requireNonNull(valueProvider, "value provider cannot be null");
+        return addIndex(property, new SortedIndex<>(valueProvider));
+    }
+
+    /**
+     * Adds a text index for the given property. Text indexes are used for
+     * case-insensitive {@link #containsText(String, String)} filters.
+     *
+     * @param property
+     *            the property name, not null
+     * @param captionProvider
+     *            function to get the indexed text from an item, not null
+     * @param locale
+     *            the locale used for converting text to lower case, not null
+     * @return this data provider
+     */
+    public IndexedListDataProvider<T> addTextIndex(String property,
+            SerializableFunction<T, String> captionProvider, Locale locale) {
+        Objects.requireNonNull(captionProvider,
+                "caption provider cannot be null");
+        Objects.requireNonNull(locale, "locale cannot be null");
+        return addIndex(property, new TextIndex<>(captionProvider, locale));
+    }
+
+    /**
+     * Sets the property whose text index is used when a {@code ComboBox}
+     * filters this data provider by the text typed by the user. The text index
+     * should index the same captions that the combo box shows.
+     *
+     * @param property
+     *            the name of a property with a text index, or {@code null} to
+     *            evaluate the combo box filter for each item
+     * @return this data provider
+     * @throws IllegalArgumentException
+     *             if the property does not have a text index
+     */
+    public IndexedListDataProvider<T> setCaptionFilterProperty(
+            String property) {
+        if (property != null && !(indexes.get(property) instanceof TextIndex)) {
+            throw new IllegalArgumentException(
+                    "Property " + property + " does not have a text index");
+        }
+        captionFilterProperty = property;
+        return this;
+    }
+
+    /**
+     * Gets the property whose text index is used when a {@code ComboBox}
+     * filters this data provider.
+     *
+     * @return the property name, or {@code null} if not set
+     * @see #setCaptionFilterProperty(String)
+     */
+    public String getCaptionFilterProperty() {
+        return captionFilterProperty;
+    }
+
+    private IndexedListDataProvider<T> addIndex(String property,
+            Index<T> index) {
+        Objects.requireNonNull(property, "property cannot be null");
+        items.forEach(index::add);
+        indexes.put(property, index);
+        if (property.equals(captionFilterProperty)
+                && !(index instanceof TextIndex)) {
+            captionFilterProperty = null;
+        }
+        return this;
+    }
+
+    /**
+     * Adds an item to this data provider and updates all indexes.
+     *
+     * @param item
+     *            the item to add, not null
+     * @throws IllegalArgumentException
+     *             if the item is already contained in this data provider
+     */
+    public void addItem(T item) {
+        Objects.requireNonNull(item, "item cannot be null");
+        if (!items.add(item)) {
+            throw new IllegalArgumentException("Duplicate item: " + item);
+        }
+        indexes.values().forEach(index -> index.add(item));
+        refreshAll();
+    }
+
+    /**
+     * Removes an item from this data provider and updates all indexes.
+     *
+     * @param item
+     *            the item to remove
+     */
+    public void removeItem(T item) {
+        if (items.remove(item)) {
+            indexes.values().forEach(index -> index.remove(item));
+            refreshAll();
+        }
+    }
+
+    /**
+     * Re-indexes an item after its indexed properties have been changed.
+     *
+     * @param item
+     *            the changed item
+     */
+    public void refreshItem(T item) {
+        if (items.contains(item)) {
+            indexes.values().forEach(index -> {
+                index.remove(item);
+                index.add(item);
+            });
+            refreshAll();
+        }
+    }
+
+    /**
+     * Gets an unmodifiable view of all items in this data provider in
+     * insertion order.
+     *
+     * @return the items, not null
+     */
+    public Collection<T> getItems() {
+        return Collections.unmodifiableSet(items);
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return false;
+    }
+
+    @Override
+    public int size(Query query) {
+        Collection<T> candidates = getCandidates(query);
+        return candidates.size();
+    }
+
+    @Override
+    public Stream<T> fetch(Query query) {
+        List<SortOrder<String>> sortOrders = query.getSortOrders();
+        Stream<T> stream;
+        if (sortOrders.size() == 1 && query.getFilters().isEmpty()
+                && getSortedIndex(sortOrders.get(0).getSorted()) != null) {
+            // Walk the index directly; only offset + limit items are visited
+            SortOrder<String> order = sortOrders.get(0);
+            stream = getSortedIndex(order.getSorted())
+                    .stream(order.getDirection());
+        } else {
+            Collection<T> candidates = getCandidates(query);
+            Comparator<T> comparator = getComparator(sortOrders);
+            if (comparator != null) {
+                List<T> sorted = new ArrayList<>(candidates);
+                sorted.sort(comparator);
+                candidates = sorted;
+            }
+            stream = candidates.stream();
+        }
+        return stream.skip(query.getOffset()).limit(query.getLimit());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<T> getCandidates(Query query) {
+        List<Set<T>> indexed = new ArrayList<>();
+        List<Predicate<T>> predicates = new ArrayList<>();
+        for (Object filter : query.getFilters()) {
+            if (filter instanceof IndexFilter) {
+                IndexFilter indexFilter = (IndexFilter) filter;
+                indexed.add(indexFilter.resolve(getIndex(indexFilter)));
+            } else if (filter instanceof Predicate) {
+                predicates.add((Predicate<T>) filter);
+            } else {
+                throw new IllegalArgumentException(
+                        "Unsupported filter: " + filter);
+            }
+        }
+
+        if (indexed.isEmpty() && predicates.isEmpty()) {
+            return items;
+        }
+
+        Collection<T> candidates = items;
+        if (!indexed.isEmpty()) {
+            // Iterate the smallest set and probe the others
+            indexed.sort(Comparator.comparingInt(Set::size));
+            candidates = indexed.remove(0);
+        }
+        List<T> result = new ArrayList<>();
+        candidate: for (T item : candidates) {
+            for (Set<T> other : indexed) {
+                if (!other.contains(item)) {
+                    continue candidate;
+                }
+            }
+            for (Predicate<T> predicate : predicates) {
+                if (!predicate.test(item)) {
+                    continue candidate;
+                }
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    private Comparator<T> getComparator(List<SortOrder<String>> sortOrders) {
+        Comparator<T> comparator = null;
+        for (SortOrder<String> order : sortOrders) {
+            SortedIndex<T> index = getSortedIndex(order.getSorted());
+            if (index == null) {
+                throw new IllegalArgumentException("Property "
+                        + order.getSorted() + " does not have a sorted index");
+            }
+            Comparator<T> propertyComparator = index::compare;
+            if (order.getDirection() == SortDirection.DESCENDING) {
+                propertyComparator = propertyComparator.reversed();
+            }
+            comparator = comparator == null ? propertyComparator
+                    : comparator.thenComparing(propertyComparator);
+        }
+        return comparator;
+    }
+
+    private Index<T> getIndex(IndexFilter filter) {
+        Index<T> index = indexes.get(filter.getProperty());
+        if (index == null) {
+            throw new IllegalArgumentException(
+                    "No index for property " + filter.getProperty());
+        }
+        return index;
+    }
+
+    private SortedIndex<T> getSortedIndex(String property) {
+        Index<T> index = indexes.get(property);
+        return index instanceof SortedIndex ? (SortedIndex<T>) index : null;
+    }
+
+    private static <K, T> void removeFromBucket(Map<K, Set<T>> buckets,
+            Object key, T item) {
+        Set<T> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(item);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Creates a filter matching items whose property equals the given value.
+     * The property must have a hash index.
+     *
+     * @param property
+     *            the property name, not null
+     * @param value
+     *            the value to match, may be {@code null}
+     * @return a filter to use in a {@link Query}
+     */
+    public static IndexFilter equalTo(String property, Object value) {
+        return new EqualToFilter(property, value);
+    }
+
+    /**
+     * Creates a filter matching items whose property is between the given
+     * bounds, both inclusive. No items match if the lower bound is greater
+     * than the upper bound. The property must have a sorted index.
+     *
+     * @param property
+     *            the property name, not null
+     * @param from
+     *            the lower bound, or {@code null} for no lower bound
+     * @param to
+     *            the upper bound, or {@code null} for no upper bound
+     * @return a filter to use in a {@link Query}
+     */
+    public static IndexFilter between(String property, Comparable<?> from,
+            Comparable<?> to) {
+        return new BetweenFilter(property, from, to);
+    }
+
+    /**
+     * Creates a filter matching items whose property contains the given text,
+     * ignoring case. The property must have a text index.
+     *
+     * @param property
+     *            the property name, not null
+     * @param text
+     *            the text to search for, not null
+     * @return a filter to use in a {@link Query}
+     */
+    public static IndexFilter containsText(String property, String text) {
+        Objects.requireNonNull(text, "text cannot be null");
+        return new ContainsTextFilter(property, text);
+    }
+}
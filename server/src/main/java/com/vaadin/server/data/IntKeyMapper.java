@@ -0,0 +1,249 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.data;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link DataKeyMapper} that stores keys as {@code int}s in primitive open
+ * addressing hash tables. Unlike {@link com.vaadin.server.KeyMapper}, no
+ * {@link String} or boxed object is kept per mapped object; the textual form
+ * of a key is only created when {@link #key(Object)} is called to write it to
+ * the client.
+ *
+ * @param <T>
+ *            the type of mapped objects
+ *
+ * @since 8.0
+ */
+public class IntKeyMapper<T> implements DataKeyMapper<T> {
+
+    private static final int NO_KEY = 0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int lastKey = 0;
+    private int size = 0;
+
+    /*
+     * Object to key table: objects[i] is mapped to objectKeys[i]. Linear
+     * probing with backward shift deletion, so no tombstones are needed.
+     */
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int[] objectKeys = new int[INITIAL_CAPACITY];
+
+    /*
+     * Key to object table: keys[i] is mapped to keyObjects[i]. NO_KEY marks an
+     * empty slot since issued keys start from 1.
+     */
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private Object[] keyObjects = new Object[INITIAL_CAPACITY];
+
+    @Override
+    public String key(T dataObject) {
+        if (dataObject == null) {
+            return "null";
+        }
+        return Integer.toString(intKey(dataObject));
+    }
+
+    /**
+     * Gets the numeric key for a data object. If no key exists beforehand, a
+     * new key is created.
+     *
+     * @param dataObject
+     *            data object for key mapping, not null
+     * @return key for given data object, always positive
+     */
+    public int intKey(T dataObject) {
+        Objects.requireNonNull(dataObject, "data object cannot be null");
+        int slot = findObjectSlot(dataObject);
+        if (objects[slot] != null) {
+            return objectKeys[slot];
+        }
+
+        if ((size + 1) * 2 > objects.length) {
+            resize(objects.length * 2);
+            slot = findObjectSlot(dataObject);
+        }
+        int key = ++lastKey;
+        objects[slot] = dataObject;
+        objectKeys[slot] = key;
+        slot = findKeySlot(key);
+        keys[slot] = key;
+        keyObjects[slot] = dataObject;
+        size++;
+        return key;
+    }
+
+    @Override
+    public T get(String key) {
+        // Parse by hand to reject anything key(T) would not have produced
+        if (key == null || key.isEmpty() || key.length() > 10
+                || key.charAt(0) == '0') {
+            return null;
+        }
+        long value = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? get((int) value) : null;
+    }
+
+    /**
+     * Gets the data object identified by given numeric key.
+     *
+     * @param key
+     *            key of a data object
+     * @return identified data object; <code>null</code> if invalid key
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int key) {
+        if (key == NO_KEY) {
+            return null;
+        }
+        return (T) keyObjects[findKeySlot(key)];
+    }
+
+    @Override
+    public void remove(T dataObject) {
+        if (dataObject == null) {
+            return;
+        }
+        int slot = findObjectSlot(dataObject);
+        if (objects[slot] == null) {
+            return;
+        }
+        int key = objectKeys[slot];
+        deleteObjectSlot(slot);
+        deleteKeySlot(findKeySlot(key));
+        size--;
+    }
+
+    @Override
+    public void removeAll() {
+        Arrays.fill(objects, null);
+        Arrays.fill(objectKeys, NO_KEY);
+        Arrays.fill(keys, NO_KEY);
+        Arrays.fill(keyObjects, null);
+        size = 0;
+    }
+
+    /**
+     * Checks if the given key is mapped to an object.
+     *
+     * @param key
+     *            the key to check
+     * @return <code>true</code> if the key is currently mapped,
+     *         <code>false</code> otherwise
+     */
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Gets the number of currently mapped objects.
+     *
+     * @return the number of mapped objects
+     */
+    public int size() {
+        return size;
+    }
+
+    private int findObjectSlot(Object dataObject) {
+        int mask = objects.length - 1;
+        int slot = mix(dataObject.hashCode()) & mask;
+        while (objects[slot] != null && !objects[slot].equals(dataObject)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int findKeySlot(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != NO_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteObjectSlot(int slot) {
+        int mask = objects.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (objects[next] != null) {
+            int home = mix(objects[next].hashCode()) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                objects[hole] = objects[next];
+                objectKeys[hole] = objectKeys[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        objects[hole] = null;
+        objectKeys[hole] = NO_KEY;
+    }
+
+    private void deleteKeySlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != NO_KEY) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                keyObjects[hole] = keyObjects[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = NO_KEY;
+        keyObjects[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldObjects = objects;
+        int[] oldObjectKeys = objectKeys;
+
+        objects = new Object[capacity];
+        objectKeys = new int[capacity];
+        keys = new int[capacity];
+        keyObjects = new Object[capacity];
+
+        for (int i = 0; i < oldObjects.length; i++) {
+            Object dataObject = oldObjects[i];
+            if (dataObject != null) {
+                int key = oldObjectKeys[i];
+                int slot = findObjectSlot(dataObject);
+                objects[slot] = dataObject;
+                objectKeys[slot] = key;
+                slot = findKeySlot(key);
+                keys[slot] = key;
+                keyObjects[slot] = dataObject;
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
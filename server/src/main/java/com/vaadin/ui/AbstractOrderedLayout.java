@@ -18,7 +18,6 @@ package com.vaadin.ui;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.logging.Logger;
 
 import org.jsoup.nodes.Attributes;
@@ -55,7 +54,7 @@ public abstract class AbstractOrderedLayout extends AbstractLayout
     /**
      * Custom layout slots containing the components.
      */
-    protected LinkedList<Component> components = new LinkedList<>();
+    protected IndexedComponentList components = new IndexedComponentList();
 
     private Alignment defaultComponentAlignment = Alignment.TOP_LEFT;
 
@@ -87,6 +86,10 @@ public abstract class AbstractOrderedLayout extends AbstractLayout
      */
     @Override
     public void addComponent(Component c) {
+        // If c is already in this, it is moved to the end
+        if (equals(c.getParent())) {
+            removeComponent(c);
+        }
         // Add to components before calling super.addComponent
         // so that it is available to AttachListeners
         components.add(c);
@@ -112,7 +115,7 @@ public abstract class AbstractOrderedLayout extends AbstractLayout
         if (equals(c.getParent())) {
             removeComponent(c);
         }
-        components.addFirst(c);
+        components.add(0, c);
         try {
             super.addComponent(c);
         } catch (IllegalArgumentException e) {
@@ -204,19 +207,8 @@ public abstract class AbstractOrderedLayout extends AbstractLayout
             Component newComponent) {
 
         // Gets the locations
-        int oldLocation = -1;
-        int newLocation = -1;
-        int location = 0;
-        for (final Component component : components) {
-            if (component == oldComponent) {
-                oldLocation = location;
-            }
-            if (component == newComponent) {
-                newLocation = location;
-            }
-
-            location++;
-        }
+        int oldLocation = components.indexOf(oldComponent);
+        int newLocation = components.indexOf(newComponent);
 
         if (oldLocation == -1) {
             addComponent(newComponent);
@@ -18,7 +18,9 @@ package com.vaadin.ui;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -29,12 +31,14 @@ import com.vaadin.event.FieldEvents.BlurListener;
 import com.vaadin.event.FieldEvents.FocusAndBlurServerRpcDecorator;
 import com.vaadin.event.FieldEvents.FocusEvent;
 import com.vaadin.event.FieldEvents.FocusListener;
-import com.vaadin.server.KeyMapper;
 import com.vaadin.server.Resource;
 import com.vaadin.server.ResourceReference;
+import com.vaadin.server.SerializablePredicate;
 import com.vaadin.server.data.DataCommunicator;
 import com.vaadin.server.data.DataKeyMapper;
 import com.vaadin.server.data.DataProvider;
+import com.vaadin.server.data.IndexedListDataProvider;
+import com.vaadin.server.data.IntKeyMapper;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.ui.combobox.ComboBoxConstants;
@@ -91,7 +95,10 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
         @Override
         public void setFilter(String filterText) {
             filterstring = filterText;
-            if (filterText != null) {
+            DataProvider<T> dataProvider = getDataProvider();
+            if (dataProvider instanceof IndexedListDataProvider) {
+                setIndexedFilter((IndexedListDataProvider<T>) dataProvider);
+            } else if (filterText != null) {
                 getDataCommunicator().setInMemoryFilter(
                         item -> filter.apply(filterstring, item));
             } else {
@@ -112,7 +119,7 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
     private StyleGenerator<T> itemStyleGenerator = item -> null;
     private IconGenerator<T> itemIconGenerator = item -> null;
 
-    private ItemFilter<T> filter = (filterText, item) -> {
+    private final ItemFilter<T> defaultFilter = (filterText, item) -> {
         if (filterText == null) {
             return true;
         } else {
@@ -122,6 +129,8 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
         }
     };
 
+    private ItemFilter<T> filter = defaultFilter;
+
     /**
      * Constructs an empty combo box without a caption. The content of the combo
      * box can be set with {@link #setDataProvider(DataProvider)} or
@@ -131,7 +140,7 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
         super(new DataCommunicator<T>() {
             @Override
             protected DataKeyMapper<T> createKeyMapper() {
-                return new KeyMapper<T>() {
+                return new IntKeyMapper<T>() {
                     @Override
                     public void remove(T removeobj) {
                         // never remove keys from ComboBox to support selection
@@ -521,6 +530,30 @@ public class ComboBox<T> extends AbstractSingleSelect<T> implements HasValue<T>,
         this.filter = filter;
     }
 
+    /**
+     * Passes the filter text to an indexed data provider as a back end filter,
+     * since the data communicator only applies in-memory filters to in-memory
+     * data providers.
+     *
+     * @param dataProvider
+     *            the data provider of this combo box
+     */
+    private void setIndexedFilter(IndexedListDataProvider<T> dataProvider) {
+        Set<Object> filters = new HashSet<>();
+        if (filterstring != null) {
+            String property = dataProvider.getCaptionFilterProperty();
+            if (property != null && filter == defaultFilter) {
+                filters.add(IndexedListDataProvider.containsText(property,
+                        filterstring));
+            } else {
+                SerializablePredicate<T> predicate = item -> filter
+                        .apply(filterstring, item);
+                filters.add(predicate);
+            }
+        }
+        getDataCommunicator().setBackEndFilters(filters);
+    }
+
     @Override
     public Registration addValueChangeListener(
             HasValue.ValueChangeListener<T> listener) {
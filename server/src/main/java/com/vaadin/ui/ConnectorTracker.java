@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
@@ -33,12 +34,15 @@ import java.util.logging.Logger;
 
 import com.vaadin.server.AbstractClientConnector;
 import com.vaadin.server.ClientConnector;
+import com.vaadin.server.CompactSessionSerializer.CompactObjectInputStream;
+import com.vaadin.server.CompactSessionSerializer.CompactObjectOutputStream;
 import com.vaadin.server.DragAndDropService;
 import com.vaadin.server.GlobalResourceHandler;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.StreamVariable;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
 import com.vaadin.server.communication.ConnectorHierarchyWriter;
 
 import elemental.json.Json;
@@ -83,6 +87,12 @@ public class ConnectorTracker implements Serializable {
     private final UI uI;
     private transient Map<ClientConnector, JsonObject> diffStates = new HashMap<>();
 
+    /**
+     * Child connector ids that the client-side currently knows for each
+     * connector, used for only sending hierarchy changes.
+     */
+    private transient Map<ClientConnector, List<String>> sentHierarchies = new HashMap<>();
+
     /** Maps connectorIds to a map of named StreamVariables */
     private Map<String, Map<String, StreamVariable>> pidToNameToStreamVariable;
 
@@ -154,6 +164,7 @@ public class ConnectorTracker implements Serializable {
                             connectorId });
         }
         dirtyConnectors.add(connector);
+        markSessionModified();
     }
 
     /**
@@ -246,6 +257,7 @@ public class ConnectorTracker implements Serializable {
     public void markAllClientSidesUninitialized() {
         uninitializedConnectors.addAll(connectorIdToConnector.values());
         diffStates.clear();
+        sentHierarchies.clear();
     }
 
     /**
@@ -315,12 +327,14 @@ public class ConnectorTracker implements Serializable {
                 }
                 uninitializedConnectors.remove(connector);
                 diffStates.remove(connector);
+                sentHierarchies.remove(connector);
                 iterator.remove();
             } else if (!uninitializedConnectors.contains(connector)
                     && !LegacyCommunicationManager
                             .isConnectorVisibleToClient(connector)) {
                 uninitializedConnectors.add(connector);
                 diffStates.remove(connector);
+                sentHierarchies.remove(connector);
 
                 assert isRemovalSentToClient(connector) : "Connector "
                         + connector + " (id = " + connector.getConnectorId()
@@ -431,6 +445,7 @@ public class ConnectorTracker implements Serializable {
             }
             uninitializedConnectors.remove(connector);
             diffStates.remove(connector);
+            sentHierarchies.remove(connector);
         }
         unregisteredConnectors.clear();
     }
@@ -498,6 +513,14 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.add(connector);
+        markSessionModified();
+    }
+
+    private void markSessionModified() {
+        VaadinSession session = uI.getSession();
+        if (session != null) {
+            session.markModified();
+        }
     }
 
     /**
@@ -633,6 +656,35 @@ public class ConnectorTracker implements Serializable {
         return dirtyVisibleConnectors;
     }
 
+    /**
+     * Gets the ids of the child connectors that the client-side currently
+     * knows for the given connector.
+     *
+     * @since 8.0
+     * @param connector
+     *            the connector to get the hierarchy for
+     * @return a list of child connector ids, or <code>null</code> if the
+     *         hierarchy known by the client-side has not been recorded
+     */
+    public List<String> getSentHierarchy(ClientConnector connector) {
+        return sentHierarchies.get(connector);
+    }
+
+    /**
+     * Records the ids of the child connectors that the client-side knows for
+     * the given connector after the current response.
+     *
+     * @since 8.0
+     * @param connector
+     *            the connector to set the hierarchy for
+     * @param childConnectorIds
+     *            a list of child connector ids, not null
+     */
+    public void setSentHierarchy(ClientConnector connector,
+            List<String> childConnectorIds) {
+        sentHierarchies.put(connector, childConnectorIds);
+    }
+
     public JsonObject getDiffState(ClientConnector connector) {
         assert getConnector(connector.getConnectorId()) == connector;
         return diffStates.get(connector);
@@ -700,33 +752,45 @@ public class ConnectorTracker implements Serializable {
         this.writingResponse = writingResponse;
     }
 
-    /* Special serialization to JsonObjects which are not serializable */
+    /*
+     * Special serialization to JsonObjects which are not serializable. The
+     * compact session serialization format skips the state that is rebuilt
+     * when the UI is repainted after deserialization, except for the diff
+     * state of the UI itself which is not recreated on the client side.
+     */
     private void writeObject(java.io.ObjectOutputStream out)
             throws IOException {
         out.defaultWriteObject();
+        boolean compact = out instanceof CompactObjectOutputStream;
         // Convert JsonObjects in diff state to String representation as
         // JsonObject is not serializable
         HashMap<ClientConnector, String> stringDiffStates = new HashMap<>(
-                diffStates.size() * 2);
+                compact ? 2 : diffStates.size() * 2);
         for (ClientConnector key : diffStates.keySet()) {
-            stringDiffStates.put(key, diffStates.get(key).toString());
+            if (!compact || key == uI) {
+                stringDiffStates.put(key, diffStates.get(key).toString());
+            }
         }
         out.writeObject(stringDiffStates);
+        if (!compact) {
+            out.writeObject(sentHierarchies);
+        }
     }
 
     /* Special serialization to JsonObjects which are not serializable */
     private void readObject(java.io.ObjectInputStream in)
             throws IOException, ClassNotFoundException {
         in.defaultReadObject();
+        boolean compact = in instanceof CompactObjectInputStream;
 
         // Read String versions of JsonObjects and parse into JsonObjects as
         // JsonObject is not serializable
-        diffStates = new HashMap<>();
         @SuppressWarnings("unchecked")
         HashMap<ClientConnector, String> stringDiffStates = (HashMap<ClientConnector, String>) in
                 .readObject();
         diffStates = new HashMap<>(
-                stringDiffStates.size() * 2);
+                compact ? connectorIdToConnector.size() * 2
+                        : stringDiffStates.size() * 2);
         for (ClientConnector key : stringDiffStates.keySet()) {
             try {
                 diffStates.put(key, Json.parse(stringDiffStates.get(key)));
@@ -735,6 +799,15 @@ public class ConnectorTracker implements Serializable {
             }
         }
 
+        if (compact) {
+            // Rebuilt when the UI is repainted after deserialization
+            sentHierarchies = new HashMap<>();
+        } else {
+            @SuppressWarnings("unchecked")
+            Map<ClientConnector, List<String>> hierarchies = (Map<ClientConnector, List<String>>) in
+                    .readObject();
+            sentHierarchies = hierarchies;
+        }
     }
 
     /**
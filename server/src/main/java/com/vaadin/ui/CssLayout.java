@@ -16,7 +16,6 @@
 package com.vaadin.ui;
 
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Objects;
 
 import org.jsoup.nodes.Element;
@@ -82,7 +81,7 @@ public class CssLayout extends AbstractLayout implements LayoutClickNotifier {
     /**
      * Custom layout slots containing the components.
      */
-    protected LinkedList<Component> components = new LinkedList<>();
+    protected IndexedComponentList components = new IndexedComponentList();
 
     /**
      * Constructs an empty CssLayout.
@@ -113,6 +112,10 @@ public class CssLayout extends AbstractLayout implements LayoutClickNotifier {
      */
     @Override
     public void addComponent(Component c) {
+        // If c is already in this, it is moved to the end
+        if (equals(c.getParent())) {
+            removeComponent(c);
+        }
         // Add to components before calling super.addComponent
         // so that it is available to AttachListeners
         components.add(c);
@@ -137,7 +140,7 @@ public class CssLayout extends AbstractLayout implements LayoutClickNotifier {
         if (equals(c.getParent())) {
             removeComponent(c);
         }
-        components.addFirst(c);
+        components.add(0, c);
         try {
             super.addComponent(c);
         } catch (IllegalArgumentException e) {
@@ -260,19 +263,8 @@ public class CssLayout extends AbstractLayout implements LayoutClickNotifier {
             Component newComponent) {
 
         // Gets the locations
-        int oldLocation = -1;
-        int newLocation = -1;
-        int location = 0;
-        for (final Component component : components) {
-            if (component == oldComponent) {
-                oldLocation = location;
-            }
-            if (component == newComponent) {
-                newLocation = location;
-            }
-
-            location++;
-        }
+        int oldLocation = components.indexOf(oldComponent);
+        int newLocation = components.indexOf(newComponent);
 
         if (oldLocation == -1) {
             addComponent(newComponent);
@@ -18,6 +18,7 @@ package com.vaadin.ui;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -94,6 +95,13 @@ public class GridLayout extends AbstractLayout
 
     private final LinkedList<Component> components = new LinkedList<>();
 
+    /**
+     * The component occupying each cell, indexed by row and column. Rows after
+     * the last occupied row are not allocated and the rows may be shorter than
+     * the number of columns. Rebuilt from the child data when needed.
+     */
+    private transient List<Component[]> cells = null;
+
     private Map<Integer, Float> columnExpandRatio = new HashMap<>();
     private Map<Integer, Float> rowExpandRatio = new HashMap<>();
     private Alignment defaultComponentAlignment = Alignment.TOP_LEFT;
@@ -192,7 +200,7 @@ public class GridLayout extends AbstractLayout
         }
 
         // Checks that the component does not already exist in the container
-        if (components.contains(component)) {
+        if (getState(false).childData.containsKey(component)) {
             throw new IllegalArgumentException(
                     "Component is already in the container");
         }
@@ -216,10 +224,21 @@ public class GridLayout extends AbstractLayout
         // Inserts the component to right place at the list
         // Respect top-down, left-right ordering
         // component.setParent(this);
-        final Iterator<Component> i = components.iterator();
         final Map<Connector, ChildComponentData> childDataMap = getState().childData;
-        int index = 0;
         boolean done = false;
+        if (!components.isEmpty()) {
+            // Components are usually added in order, so check the last one
+            // before searching the list
+            final ChildComponentData lastArea = childDataMap
+                    .get(components.getLast());
+            done = lastArea.row1 < row1
+                    || (lastArea.row1 == row1 && lastArea.column1 <= column1);
+            if (done) {
+                components.addLast(component);
+            }
+        }
+        final Iterator<Component> i = components.iterator();
+        int index = 0;
         while (!done && i.hasNext()) {
             final ChildComponentData existingArea = childDataMap.get(i.next());
             if ((existingArea.row1 >= row1 && existingArea.column1 > column1)
@@ -243,6 +262,7 @@ public class GridLayout extends AbstractLayout
             components.remove(component);
             throw e;
         }
+        fillCells(area.childData, component);
 
         // update cursor position, if it's within this area; use first position
         // outside this area, even if it's occupied
@@ -271,13 +291,62 @@ public class GridLayout extends AbstractLayout
      *             if <code>area</code> overlaps with any existing area.
      */
     private void checkExistingOverlaps(Area area) throws OverlapsException {
-        for (Entry<Connector, ChildComponentData> entry : getState().childData
-                .entrySet()) {
-            if (componentsOverlap(entry.getValue(), area.childData)) {
-                // Component not added, overlaps with existing component
-                throw new OverlapsException(
-                        new Area(entry.getValue(), (Component) entry.getKey()));
+        ChildComponentData childData = area.childData;
+        for (int row = childData.row1; row <= childData.row2; row++) {
+            for (int column = childData.column1; column <= childData.column2; column++) {
+                Component existing = getCell(column, row);
+                if (existing != null) {
+                    // Component not added, overlaps with existing component
+                    throw new OverlapsException(new Area(
+                            getState(false).childData.get(existing),
+                            existing));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the components occupying the cells of the grid,
+     * building it from the child data if needed.
+     */
+    private List<Component[]> getCells() {
+        if (cells == null) {
+            cells = new ArrayList<>();
+            for (Entry<Connector, ChildComponentData> entry : getState(
+                    false).childData.entrySet()) {
+                fillCells(entry.getValue(), (Component) entry.getKey());
+            }
+        }
+        return cells;
+    }
+
+    private Component getCell(int column, int row) {
+        List<Component[]> cells = getCells();
+        if (row < 0 || row >= cells.size() || column < 0) {
+            return null;
+        }
+        Component[] cellsInRow = cells.get(row);
+        return column < cellsInRow.length ? cellsInRow[column] : null;
+    }
+
+    /**
+     * Marks the cells of the given area as occupied by the given component,
+     * or as free if the component is <code>null</code>.
+     */
+    private void fillCells(ChildComponentData area, Component component) {
+        List<Component[]> cells = getCells();
+        while (cells.size() <= area.row2) {
+            cells.add(new Component[getColumns()]);
+        }
+        for (int row = area.row1; row <= area.row2; row++) {
+            Component[] cellsInRow = cells.get(row);
+            if (cellsInRow.length <= area.column2) {
+                cellsInRow = Arrays.copyOf(cellsInRow,
+                        Math.max(getColumns(), area.column2 + 1));
+                cells.set(row, cellsInRow);
             }
+            Arrays.fill(cellsInRow, area.column1, area.column2 + 1,
+                    component);
         }
     }
 
@@ -353,16 +422,8 @@ public class GridLayout extends AbstractLayout
         }
 
         // Finds first available place from the grid
-        Area area;
-        boolean done = false;
-        while (!done) {
-            try {
-                area = new Area(component, cursorX, cursorY, cursorX, cursorY);
-                checkExistingOverlaps(area);
-                done = true;
-            } catch (final OverlapsException e) {
-                space();
-            }
+        while (getCell(cursorX, cursorY) != null) {
+            space();
         }
 
         // Extends the grid if needed
@@ -386,11 +447,12 @@ public class GridLayout extends AbstractLayout
     public void removeComponent(Component component) {
 
         // Check that the component is contained in the container
-        if (component == null || !components.contains(component)) {
+        if (component == null
+                || !getState(false).childData.containsKey(component)) {
             return;
         }
 
-        getState().childData.remove(component);
+        fillCells(getState().childData.remove(component), null);
         components.remove(component);
         super.removeComponent(component);
     }
@@ -406,12 +468,12 @@ public class GridLayout extends AbstractLayout
     public void removeComponent(int column, int row) {
 
         // Finds the area
-        for (final Component component : components) {
-            final ChildComponentData childData = getState().childData
+        final Component component = getCell(column, row);
+        if (component != null) {
+            final ChildComponentData childData = getState(false).childData
                     .get(component);
             if (childData.column1 == column && childData.row1 == row) {
                 removeComponent(component);
-                return;
             }
         }
     }
@@ -728,11 +790,9 @@ public class GridLayout extends AbstractLayout
 
         // Checks for overlaps
         if (getColumns() > columns) {
-            for (Entry<Connector, ChildComponentData> entry : getState().childData
-                    .entrySet()) {
-                if (entry.getValue().column2 >= columns) {
-                    throw new OutOfBoundsException(new Area(entry.getValue(),
-                            (Component) entry.getKey()));
+            for (Component[] cellsInRow : getCells()) {
+                for (int column = columns; column < cellsInRow.length; column++) {
+                    checkCellFree(cellsInRow[column]);
                 }
             }
         }
@@ -779,11 +839,10 @@ public class GridLayout extends AbstractLayout
 
         // Checks for overlaps
         if (getRows() > rows) {
-            for (Entry<Connector, ChildComponentData> entry : getState().childData
-                    .entrySet()) {
-                if (entry.getValue().row2 >= rows) {
-                    throw new OutOfBoundsException(new Area(entry.getValue(),
-                            (Component) entry.getKey()));
+            List<Component[]> cells = getCells();
+            for (int row = rows; row < cells.size(); row++) {
+                for (Component component : cells.get(row)) {
+                    checkCellFree(component);
                 }
             }
         }
@@ -798,6 +857,18 @@ public class GridLayout extends AbstractLayout
         getState().rows = rows;
     }
 
+    /**
+     * Throws an {@link OutOfBoundsException} for the area of the given
+     * component occupying a cell that would be removed from the grid.
+     */
+    private void checkCellFree(Component component)
+            throws OutOfBoundsException {
+        if (component != null) {
+            throw new OutOfBoundsException(new Area(
+                    getState(false).childData.get(component), component));
+        }
+    }
+
     /**
      * Get the number of rows in the grid.
      *
@@ -882,6 +953,14 @@ public class GridLayout extends AbstractLayout
 
             getState().childData.put(newComponent, oldLocation);
             getState().childData.put(oldComponent, newLocation);
+            fillCells(oldLocation, newComponent);
+            fillCells(newLocation, oldComponent);
+
+            // Keep the components ordered by their location
+            int oldIndex = components.indexOf(oldComponent);
+            int newIndex = components.indexOf(newComponent);
+            components.set(oldIndex, newComponent);
+            components.set(newIndex, oldComponent);
         }
     }
 
@@ -948,17 +1027,35 @@ public class GridLayout extends AbstractLayout
                     + " in a gridlayout with height " + getRows());
         }
 
-        for (ChildComponentData existingArea : getState().childData.values()) {
-            // Areas ending below the row needs to be moved down or stretched
-            if (existingArea.row2 >= row) {
-                existingArea.row2++;
+        List<Component[]> cells = getCells();
+        if (row < cells.size()) {
+            Map<Connector, ChildComponentData> childData = getState().childData;
+            Component[] insertedCells = new Component[getColumns()];
 
-                // Stretch areas that span over the selected row
-                if (existingArea.row1 >= row) {
-                    existingArea.row1++;
+            // Areas ending below the row needs to be moved down or stretched.
+            // Each area is updated when its lower left cell is found, going
+            // upwards so that updated areas are not found again.
+            for (int r = cells.size() - 1; r >= row; r--) {
+                Component[] cellsInRow = cells.get(r);
+                for (int c = 0; c < cellsInRow.length; c++) {
+                    Component component = cellsInRow[c];
+                    if (component == null) {
+                        continue;
+                    }
+                    ChildComponentData existingArea = childData.get(component);
+                    if (r == row && existingArea.row1 < row) {
+                        // Stretch areas that span over the selected row
+                        insertedCells[c] = component;
+                    }
+                    if (existingArea.column1 == c && existingArea.row2 == r) {
+                        existingArea.row2++;
+                        if (existingArea.row1 >= row) {
+                            existingArea.row1++;
+                        }
+                    }
                 }
-
             }
+            cells.add(row, insertedCells);
         }
 
         if (cursorY >= row) {
@@ -997,15 +1094,30 @@ public class GridLayout extends AbstractLayout
             removeComponent(col, row);
         }
 
-        // Shrink or remove areas in the selected row
-        for (ChildComponentData existingArea : getState().childData.values()) {
-            if (existingArea.row2 >= row) {
-                existingArea.row2--;
-
-                if (existingArea.row1 > row) {
-                    existingArea.row1--;
+        // Shrink or move up the remaining areas. Each area is updated when its
+        // first cell in or below the selected row is found, going downwards
+        // so that updated areas are not found again.
+        List<Component[]> cells = getCells();
+        if (row < cells.size()) {
+            Map<Connector, ChildComponentData> childData = getState().childData;
+            for (int r = row; r < cells.size(); r++) {
+                Component[] cellsInRow = cells.get(r);
+                for (int c = 0; c < cellsInRow.length; c++) {
+                    Component component = cellsInRow[c];
+                    if (component == null) {
+                        continue;
+                    }
+                    ChildComponentData existingArea = childData.get(component);
+                    if (existingArea.column1 == c
+                            && (existingArea.row1 == r || r == row)) {
+                        existingArea.row2--;
+                        if (existingArea.row1 > row) {
+                            existingArea.row1--;
+                        }
+                    }
                 }
             }
+            cells.remove(row);
         }
 
         if (getRows() == 1) {
@@ -1125,15 +1237,7 @@ public class GridLayout extends AbstractLayout
      * @return Component in given cell or null if empty
      */
     public Component getComponent(int x, int y) {
-        for (Entry<Connector, ChildComponentData> entry : getState(
-                false).childData.entrySet()) {
-            ChildComponentData childData = entry.getValue();
-            if (childData.column1 <= x && x <= childData.column2
-                    && childData.row1 <= y && y <= childData.row2) {
-                return (Component) entry.getKey();
-            }
-        }
-        return null;
+        return getCell(x, y);
     }
 
     /**
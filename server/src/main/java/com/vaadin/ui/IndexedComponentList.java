@@ -0,0 +1,358 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A list of the child components of a layout, supporting positional access,
+ * insertion and removal as well as finding the index of a component in
+ * logarithmic time. This makes the ordered layouts usable with thousands of
+ * child components.
+ * <p>
+ * Each component can be in the list only once and <code>null</code> is not
+ * allowed. Adding a component that is already in the list throws an
+ * {@link IllegalArgumentException}; to move a component, remove it first.
+ *
+ * @author Vaadin Ltd
+ * @since 8.0
+ */
+public class IndexedComponentList extends AbstractList<Component>
+        implements Serializable {
+
+    /**
+     * A node of a randomized balanced binary tree (a treap) ordered by list
+     * position. Each node knows the size of its subtree, which gives the
+     * positions of the components.
+     */
+    private static class Node implements Serializable {
+        private Component component;
+        private Node parent;
+        private Node left;
+        private Node right;
+        private int size = 1;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+
+        private Node(Component component) {
+            this.component = component;
+        }
+    }
+
+    /**
+     * Iterates the nodes in list order.
+     */
+    private class NodeIterator implements Iterator<Component>, Serializable {
+        private Node next = root == null ? null : leftmost(root);
+        private Node lastReturned = null;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Component next() {
+            checkForComodification();
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = next;
+            next = successor(next);
+            return lastReturned.component;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            removeNode(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private transient Node root = null;
+
+    private transient Map<Component, Node> nodes = new HashMap<>();
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Component get(int index) {
+        return getNode(index).component;
+    }
+
+    @Override
+    public Component set(int index, Component component) {
+        Objects.requireNonNull(component, "Component must not be null");
+        Node node = getNode(index);
+        Component old = node.component;
+        if (old != component) {
+            checkNotContained(component);
+            nodes.remove(old);
+            node.component = component;
+            nodes.put(component, node);
+        }
+        return old;
+    }
+
+    @Override
+    public void add(int index, Component component) {
+        Objects.requireNonNull(component, "Component must not be null");
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size());
+        }
+        checkNotContained(component);
+
+        Node node = new Node(component);
+        nodes.put(component, node);
+        modCount++;
+        if (root == null) {
+            root = node;
+            return;
+        }
+
+        Node parent = root;
+        while (true) {
+            parent.size++;
+            int leftSize = size(parent.left);
+            if (index <= leftSize) {
+                if (parent.left == null) {
+                    parent.left = node;
+                    break;
+                }
+                parent = parent.left;
+            } else {
+                index -= leftSize + 1;
+                if (parent.right == null) {
+                    parent.right = node;
+                    break;
+                }
+                parent = parent.right;
+            }
+        }
+        node.parent = parent;
+
+        while (node.parent != null && node.priority > node.parent.priority) {
+            rotateUp(node);
+        }
+    }
+
+    @Override
+    public Component remove(int index) {
+        Node node = getNode(index);
+        removeNode(node);
+        return node.component;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Node node = nodes.get(o);
+        if (node == null) {
+            return false;
+        }
+        removeNode(node);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return nodes.containsKey(o);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Node node = nodes.get(o);
+        if (node == null) {
+            return -1;
+        }
+        int index = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right) {
+                index += size(node.parent.left) + 1;
+            }
+            node = node.parent;
+        }
+        return index;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        nodes.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Component> iterator() {
+        return new NodeIterator();
+    }
+
+    private void checkNotContained(Component component) {
+        if (nodes.containsKey(component)) {
+            throw new IllegalArgumentException(
+                    "Component is already in the list");
+        }
+    }
+
+    private Node getNode(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private void removeNode(Node node) {
+        // Move the node down until it has at most one child
+        while (node.left != null && node.right != null) {
+            rotateUp(node.left.priority > node.right.priority ? node.left
+                    : node.right);
+        }
+
+        Node child = node.left != null ? node.left : node.right;
+        Node parent = node.parent;
+        if (child != null) {
+            child.parent = parent;
+        }
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == node) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        for (Node ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+            ancestor.size--;
+        }
+
+        node.parent = node.left = node.right = null;
+        nodes.remove(node.component);
+        modCount++;
+    }
+
+    /**
+     * Rotates the given node to the place of its parent, keeping the order of
+     * the nodes.
+     */
+    private void rotateUp(Node node) {
+        Node parent = node.parent;
+        Node grandParent = parent.parent;
+        if (node == parent.left) {
+            parent.left = node.right;
+            if (node.right != null) {
+                node.right.parent = parent;
+            }
+            node.right = parent;
+        } else {
+            parent.right = node.left;
+            if (node.left != null) {
+                node.left.parent = parent;
+            }
+            node.left = parent;
+        }
+        parent.parent = node;
+        node.parent = grandParent;
+        if (grandParent == null) {
+            root = node;
+        } else if (grandParent.left == parent) {
+            grandParent.left = node;
+        } else {
+            grandParent.right = node;
+        }
+        parent.size = 1 + size(parent.left) + size(parent.right);
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node leftmost(Node node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static Node successor(Node node) {
+        if (node.right != null) {
+            return leftmost(node.right);
+        }
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size());
+        for (Component component : this) {
+            out.writeObject(component);
+        }
+    }
+
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        nodes = new HashMap<>();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            add(i, (Component) in.readObject());
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.vaadin.ui;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 import com.vaadin.server.VaadinSession;
 import com.vaadin.server.communication.AtmospherePushConnection;
@@ -162,11 +163,104 @@ public interface PushConfiguration extends Serializable {
      */
     public String getPushUrl();
 
+    /**
+     * Sets the maximum time that pushing changes to the client may be delayed
+     * so that several pushes can be merged into one message. Pushes happening
+     * less than this time after the previous message was sent are coalesced
+     * and sent as one message when the time has passed. With
+     * {@link PushMode#AUTOMATIC}, this makes frequent
+     * {@link UI#access(Runnable)} calls, e.g. from a data feed, produce at most
+     * one message per time window instead of one message per call.
+     * <p>
+     * The default value 0 disables coalescing so that every push is sent right
+     * away.
+     *
+     * @since 8.0
+     * @param maxLatency
+     *            the maximum delay in milliseconds, or 0 to disable coalescing
+     * @throws IllegalArgumentException
+     *             if the value is negative
+     * @see #setCoalescingMaxBatchSize(int)
+     */
+    public void setCoalescingMaxLatency(int maxLatency);
+
+    /**
+     * Returns the maximum time that pushing changes may be delayed in order to
+     * merge several pushes into one message.
+     *
+     * @since 8.0
+     * @return the maximum delay in milliseconds, or 0 if coalescing is
+     *         disabled
+     * @see #setCoalescingMaxLatency(int)
+     */
+    public int getCoalescingMaxLatency();
+
+    /**
+     * Sets the maximum number of pushes that are merged into one message when
+     * coalescing is enabled. When this many pushes have been requested since
+     * the previous message, the changes are sent right away instead of at the
+     * end of the time window.
+     * <p>
+     * The default value 0 means that the number of merged pushes is not
+     * limited.
+     *
+     * @since 8.0
+     * @param maxBatchSize
+     *            the maximum number of pushes per message, or 0 for no limit
+     * @throws IllegalArgumentException
+     *             if the value is negative
+     * @see #setCoalescingMaxLatency(int)
+     */
+    public void setCoalescingMaxBatchSize(int maxBatchSize);
+
+    /**
+     * Returns the maximum number of pushes that are merged into one message.
+     *
+     * @since 8.0
+     * @return the maximum number of pushes per message, or 0 for no limit
+     * @see #setCoalescingMaxBatchSize(int)
+     */
+    public int getCoalescingMaxBatchSize();
+
+    /**
+     * Returns the number of push messages that have been sent to the client
+     * for this UI. Responses to client requests are not included.
+     *
+     * @since 8.0
+     * @return the number of sent push messages
+     */
+    public long getSentPushCount();
+
+    /**
+     * Returns the number of pushes that have been merged into a later message
+     * instead of being sent right away because coalescing is enabled.
+     *
+     * @since 8.0
+     * @return the number of coalesced pushes
+     * @see #setCoalescingMaxLatency(int)
+     */
+    public long getCoalescedPushCount();
+
 }
 
 class PushConfigurationImpl implements PushConfiguration {
     private final UI ui;
 
+    private int coalescingMaxLatency = 0;
+    private int coalescingMaxBatchSize = 0;
+    private long sentPushCount = 0;
+    private long coalescedPushCount = 0;
+
+    /*
+     * The state of the current coalescing window. Not serialized since a
+     * scheduled flush does not survive serialization either.
+     */
+    private transient boolean windowStarted = false;
+    private transient long lastPushTime;
+    private transient int pendingPushCount = 0;
+    private transient boolean flushScheduled = false;
+    private transient boolean flushing = false;
+
     public PushConfigurationImpl(UI ui) {
         this.ui = ui;
     }
@@ -200,7 +294,7 @@ class PushConfigurationImpl implements PushConfiguration {
                     "Cannot set the push mode for a detached UI");
         }
 
-        assert session.hasLock();
+        assert session.hasSharedLock();
 
         if (pushMode.isEnabled()
                 && !session.getService().ensurePushAvailable()) {
@@ -342,4 +436,99 @@ class PushConfigurationImpl implements PushConfiguration {
                 .unmodifiableCollection(getState(false).parameters.keySet());
     }
 
+    @Override
+    public void setCoalescingMaxLatency(int maxLatency) {
+        if (maxLatency < 0) {
+            throw new IllegalArgumentException(
+                    "Max latency cannot be negative");
+        }
+        coalescingMaxLatency = maxLatency;
+    }
+
+    @Override
+    public int getCoalescingMaxLatency() {
+        return coalescingMaxLatency;
+    }
+
+    @Override
+    public void setCoalescingMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 0) {
+            throw new IllegalArgumentException(
+                    "Max batch size cannot be negative");
+        }
+        coalescingMaxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public int getCoalescingMaxBatchSize() {
+        return coalescingMaxBatchSize;
+    }
+
+    @Override
+    public long getSentPushCount() {
+        return sentPushCount;
+    }
+
+    @Override
+    public long getCoalescedPushCount() {
+        return coalescedPushCount;
+    }
+
+    /**
+     * Checks whether a push with changes to send should be delayed to merge it
+     * with subsequent pushes. If so, sending the changes is scheduled for the
+     * end of the current coalescing window. Otherwise the push is counted as
+     * sent. Must be called with the UI locked.
+     *
+     * @return <code>true</code> if the push should be delayed,
+     *         <code>false</code> if it should be sent right away
+     */
+    boolean deferPush() {
+        long now = System.nanoTime();
+        long window = TimeUnit.MILLISECONDS.toNanos(coalescingMaxLatency);
+        boolean send = flushing || window == 0 || !windowStarted
+                || now - lastPushTime >= window || (coalescingMaxBatchSize > 0
+                        && pendingPushCount + 1 >= coalescingMaxBatchSize);
+        if (send) {
+            windowStarted = true;
+            lastPushTime = now;
+            pendingPushCount = 0;
+            sentPushCount++;
+            return false;
+        }
+
+        pendingPushCount++;
+        coalescedPushCount++;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            ui.getSession().getService().getScheduledExecutor().schedule(
+                    this::scheduleFlush, lastPushTime + window - now,
+                    TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    private void scheduleFlush() {
+        try {
+            ui.access(this::flush);
+        } catch (UIDetachedException e) {
+            // Nothing to send to a closed UI
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (pendingPushCount == 0 || !getPushMode().isEnabled()) {
+            return;
+        }
+        // Nothing is pushed if the changes were already sent in a response
+        pendingPushCount = 0;
+        flushing = true;
+        try {
+            ui.push();
+        } finally {
+            flushing = false;
+        }
+    }
+
 }
@@ -1363,7 +1363,7 @@ public abstract class UI extends AbstractSingleComponentContainer
 
         VaadinService.verifyNoOtherSessionLocked(session);
 
-        session.lock();
+        session.lock(this);
         try {
             if (getSession() == null) {
                 // UI was detached after fetching the session but before we
@@ -1373,7 +1373,7 @@ public abstract class UI extends AbstractSingleComponentContainer
             old = CurrentInstance.setCurrent(this);
             runnable.run();
         } finally {
-            session.unlock();
+            session.unlock(this);
             if (old != null) {
                 CurrentInstance.restoreInstances(old);
             }
@@ -1434,7 +1434,8 @@ public abstract class UI extends AbstractSingleComponentContainer
             throw new UIDetachedException();
         }
 
-        return session.access(new ErrorHandlingRunnable() {
+        VaadinService service = session.getService();
+        return service.accessUI(this, new ErrorHandlingRunnable() {
             @Override
             public void run() {
                 accessSynchronously(runnable);
@@ -1499,7 +1500,10 @@ public abstract class UI extends AbstractSingleComponentContainer
      * client-side.
      * <p>
      * If push is enabled, but the push connection is not currently open, the
-     * push will be done when the connection is established.
+     * push will be done when the connection is established. If push
+     * coalescing is enabled using
+     * {@link PushConfiguration#setCoalescingMaxLatency(int)}, the changes may
+     * be sent later together with subsequent changes.
      * <p>
      * As with all UI methods, the session must be locked when calling this
      * method. It is also recommended that {@link UI#getCurrent()} is set up to
@@ -1522,7 +1526,7 @@ public abstract class UI extends AbstractSingleComponentContainer
         if (session == null) {
             throw new UIDetachedException("Cannot push a detached UI");
         }
-        assert session.hasLock();
+        assert session.hasSharedLock();
 
         if (!getPushConfiguration().getPushMode().isEnabled()) {
             throw new IllegalStateException("Push not enabled");
@@ -1541,6 +1545,12 @@ public abstract class UI extends AbstractSingleComponentContainer
             return;
         }
 
+        if (pushConfiguration instanceof PushConfigurationImpl
+                && ((PushConfigurationImpl) pushConfiguration).deferPush()) {
+            // Will be pushed together with later changes
+            return;
+        }
+
         pushConnection.push();
     }
 
@@ -38,7 +38,11 @@ import com.vaadin.ui.UI;
  * to avoid leaking memory. The inheritable values are also maintained when
  * execution is moved to another thread, both when a new thread is created and
  * when {@link VaadinSession#access(Runnable)} or {@link UI#access(Runnable)} is
- * used.
+ * used. Threads that are reused for unrelated tasks, e.g. threads of an
+ * executor, inherit the instances of the thread that happened to create them,
+ * so tasks submitted to an executor should be wrapped using
+ * {@link #wrap(Runnable)} to explicitly run them with the instances of the
+ * submitting thread.
  * <p>
  * Please note that the instances are stored using {@link WeakReference}. This
  * means that the a current instance value may suddenly disappear if there a no
@@ -226,6 +230,38 @@ public class CurrentInstance implements Serializable {
         instances.remove();
     }
 
+    /**
+     * Wraps a task so that it runs with the inheritable current instances of
+     * the thread calling this method, regardless of the thread that runs it.
+     * Any other current instances of the thread running the task are not
+     * available to the task, and they are restored when the task has been
+     * run. This makes the wrapped task suitable for executors that reuse
+     * their threads.
+     *
+     * @since 8.0
+     * @param task
+     *            the task to wrap, not <code>null</code>
+     * @return a task running the given task with the current instances of
+     *         the calling thread
+     */
+    public static Runnable wrap(Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        Map<Class<?>, CurrentInstance> taskInstances = getInstances(true);
+        return () -> {
+            Map<Class<?>, CurrentInstance> oldInstances = getInstances(false);
+            clearAll();
+            restoreInstances(taskInstances);
+            try {
+                task.run();
+            } finally {
+                clearAll();
+                restoreInstances(oldInstances);
+            }
+        };
+    }
+
     /**
      * Restores the given instances to the given values. Note that this should
      * only be used internally to restore Vaadin classes.
@@ -8,7 +8,10 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.vaadin.tests.data.bean.Address;
 import com.vaadin.tests.data.bean.BeanToValidate;
+import com.vaadin.tests.data.bean.Country;
+import com.vaadin.tests.data.bean.Person;
 
 public class BeanBinderTest
         extends BinderTestBase<BeanBinder<BeanToValidate>, BeanToValidate> {
@@ -164,6 +167,22 @@ public class BeanBinderTest
         assertEquals(20, item.getAge());
     }
 
+    @Test
+    public void nestedPropertyBound_readAndWriteNestedValue() {
+        BeanBinder<Person> personBinder = new BeanBinder<>(Person.class);
+        Person person = new Person();
+        person.setAddress(new Address("Ruukinkatu 2-4", 20540, "Turku",
+                Country.FINLAND));
+
+        personBinder.bind(nameField, "address.streetAddress");
+        personBinder.setBean(person);
+        assertEquals("Ruukinkatu 2-4", nameField.getValue());
+
+        nameField.setValue("Runeberginkatu 1");
+        assertEquals("Runeberginkatu 1",
+                person.getAddress().getStreetAddress());
+    }
+
     private void assertInvalid(HasValue<?> field, String message) {
         BinderValidationStatus<?> status = binder.validate();
         List<ValidationStatus<?>> errors = status.getFieldValidationErrors();
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.data.Binder.Binding;
+import com.vaadin.tests.data.bean.Person;
+import com.vaadin.ui.TextField;
+
+public class BinderValidationCachingTest
+        extends BinderTestBase<Binder<Person>, Person> {
+
+    private final AtomicInteger nameValidations = new AtomicInteger();
+    private final AtomicInteger ageValidations = new AtomicInteger();
+    private final AtomicInteger beanValidations = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        binder = new Binder<>();
+        item = new Person();
+        item.setFirstName("Johannes");
+        item.setAge(32);
+
+        binder.forField(nameField).withValidator(value -> {
+            nameValidations.incrementAndGet();
+            return !value.isEmpty();
+        }, EMPTY_ERROR_MESSAGE).bind(Person::getFirstName,
+                Person::setFirstName);
+        binder.forField(ageField).withValidator(value -> {
+            ageValidations.incrementAndGet();
+            return true;
+        }, "").withConverter(stringToInteger).bind(Person::getAge,
+                Person::setAge);
+        binder.withValidator(bean -> {
+            beanValidations.incrementAndGet();
+            return true;
+        }, "");
+    }
+
+    private void resetCounts() {
+        nameValidations.set(0);
+        ageValidations.set(0);
+        beanValidations.set(0);
+    }
+
+    @Test
+    public void validationCaching_enabledByDefault() {
+        Assert.assertTrue(binder.isValidationCachingEnabled());
+    }
+
+    @Test
+    public void validateTwice_unchangedFieldsNotValidatedAgain() {
+        binder.setBean(item);
+        resetCounts();
+
+        Assert.assertTrue(binder.validate().isOk());
+        Assert.assertEquals(1, nameValidations.get());
+        Assert.assertEquals(1, ageValidations.get());
+        Assert.assertEquals(1, beanValidations.get());
+
+        Assert.assertTrue(binder.validate().isOk());
+        Assert.assertEquals(1, nameValidations.get());
+        Assert.assertEquals(1, ageValidations.get());
+        Assert.assertEquals(2, beanValidations.get());
+    }
+
+    @Test
+    public void fieldValueChanged_onlyChangedFieldValidated() {
+        binder.setBean(item);
+        binder.validate();
+        resetCounts();
+
+        nameField.setValue("Henri");
+        Assert.assertEquals("Henri", item.getFirstName());
+        Assert.assertEquals(1, nameValidations.get());
+        Assert.assertEquals(0, ageValidations.get());
+        Assert.assertEquals(1, beanValidations.get());
+
+        nameField.setValue("");
+        Assert.assertTrue(binder.validate().hasErrors());
+        Assert.assertEquals(2, nameValidations.get());
+        Assert.assertEquals(0, ageValidations.get());
+    }
+
+    @Test
+    public void writeBean_unchangedFieldsValidatedOnce() throws Exception {
+        binder.readBean(item);
+        resetCounts();
+
+        Person target = new Person();
+        binder.writeBean(target);
+        Assert.assertEquals("Johannes", target.getFirstName());
+        Assert.assertEquals(32, target.getAge());
+        // Validated once before writing, converted once for writing
+        Assert.assertEquals(2, nameValidations.get());
+        Assert.assertEquals(2, ageValidations.get());
+
+        resetCounts();
+        binder.validate();
+        Assert.assertEquals(0, nameValidations.get());
+        Assert.assertEquals(0, ageValidations.get());
+    }
+
+    @Test
+    public void readBean_cachedStatusCleared() {
+        binder.readBean(item);
+        binder.validate();
+        resetCounts();
+
+        binder.readBean(item);
+        binder.validate();
+        Assert.assertEquals(1, nameValidations.get());
+        Assert.assertEquals(1, ageValidations.get());
+    }
+
+    @Test
+    public void bindingValidate_alwaysValidated() {
+        AtomicBoolean valid = new AtomicBoolean(true);
+        Binding<Person, String, String> binding = binder
+                .forField(new TextField())
+                .withValidator(value -> valid.get(), "Invalid");
+        binding.bind(Person::getLastName, Person::setLastName);
+        binder.setBean(item);
+
+        Assert.assertTrue(binder.validate().isOk());
+
+        valid.set(false);
+        // Cached status is used as the field value has not changed
+        Assert.assertTrue(binder.validate().isOk());
+
+        Assert.assertTrue(binding.validate().isError());
+        Assert.assertTrue(binder.validate().hasErrors());
+    }
+
+    @Test
+    public void cachingDisabled_allFieldsValidated() {
+        binder.setValidationCachingEnabled(false);
+        Assert.assertFalse(binder.isValidationCachingEnabled());
+        binder.setBean(item);
+        resetCounts();
+
+        binder.validate();
+        binder.validate();
+        Assert.assertEquals(2, nameValidations.get());
+        Assert.assertEquals(2, ageValidations.get());
+        Assert.assertEquals(2, beanValidations.get());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.util;
+
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.SerializableBiConsumer;
+import com.vaadin.server.SerializableFunction;
+import com.vaadin.tests.data.bean.Address;
+import com.vaadin.tests.data.bean.Country;
+import com.vaadin.tests.data.bean.Person;
+
+public class BeanUtilTest {
+
+    private static Person createPerson() {
+        Person person = new Person();
+        person.setAge(32);
+        person.setAddress(new Address("Ruukinkatu 2-4", 20540, "Turku",
+                Country.FINLAND));
+        return person;
+    }
+
+    @Test
+    public void getPropertyDescriptor_nestedProperty() throws Exception {
+        PropertyDescriptor descriptor = BeanUtil
+                .getPropertyDescriptor(Person.class, "address.postalCode");
+        Assert.assertEquals("postalCode", descriptor.getName());
+        Assert.assertEquals(Integer.class, descriptor.getPropertyType());
+
+        Assert.assertSame(descriptor, BeanUtil
+                .getPropertyDescriptor(Person.class, "address.postalCode"));
+    }
+
+    @Test
+    public void getPropertyDescriptor_unknownProperty_null()
+            throws Exception {
+        Assert.assertNull(BeanUtil.getPropertyDescriptor(Person.class, "foo"));
+        Assert.assertNull(
+                BeanUtil.getPropertyDescriptor(Person.class, "foo.bar"));
+        Assert.assertNull(
+                BeanUtil.getPropertyDescriptor(Person.class, "class"));
+    }
+
+    @Test
+    public void getBeanPropertyDescriptors_returnsModifiableCopy()
+            throws Exception {
+        List<PropertyDescriptor> descriptors = BeanUtil
+                .getBeanPropertyDescriptors(Person.class);
+        int size = descriptors.size();
+        descriptors.clear();
+
+        Assert.assertEquals(size,
+                BeanUtil.getBeanPropertyDescriptors(Person.class).size());
+    }
+
+    @Test
+    public void propertyGetterAndSetter_simpleProperty() throws Exception {
+        Person person = createPerson();
+        SerializableFunction<Object, Object> getter = BeanUtil
+                .getPropertyGetter(Person.class, "age");
+        SerializableBiConsumer<Object, Object> setter = BeanUtil
+                .getPropertySetter(Person.class, "age");
+
+        Assert.assertEquals(32, getter.apply(person));
+        setter.accept(person, 33);
+        Assert.assertEquals(33, person.getAge());
+    }
+
+    @Test
+    public void propertyGetterAndSetter_nestedProperty() throws Exception {
+        Person person = createPerson();
+        SerializableFunction<Object, Object> getter = BeanUtil
+                .getPropertyGetter(Person.class, "address.city");
+        SerializableBiConsumer<Object, Object> setter = BeanUtil
+                .getPropertySetter(Person.class, "address.city");
+
+        Assert.assertEquals("Turku", getter.apply(person));
+        setter.accept(person, "Helsinki");
+        Assert.assertEquals("Helsinki", person.getAddress().getCity());
+    }
+
+    @Test
+    public void propertyGetterAndSetter_nullIntermediateValue()
+            throws Exception {
+        Person person = new Person();
+        Assert.assertNull(BeanUtil.getPropertyGetter(Person.class,
+                "address.city").apply(person));
+        // Nothing to write to
+        BeanUtil.getPropertySetter(Person.class, "address.city")
+                .accept(person, "Turku");
+        Assert.assertNull(person.getAddress());
+    }
+
+    @Test
+    public void propertyGetter_cached() throws Exception {
+        Assert.assertSame(
+                BeanUtil.getPropertyGetter(Person.class, "address.city"),
+                BeanUtil.getPropertyGetter(Person.class, "address.city"));
+    }
+
+    @Test
+    public void propertyGetter_unknownProperty_null() throws Exception {
+        Assert.assertNull(BeanUtil.getPropertyGetter(Person.class, "foo"));
+        Assert.assertNull(
+                BeanUtil.getPropertyGetter(Person.class, "address.foo"));
+        Assert.assertNull(BeanUtil.getPropertySetter(Person.class, "foo"));
+    }
+
+    @Test
+    public void propertySetter_readOnlyProperty_null() throws Exception {
+        Assert.assertNotNull(
+                BeanUtil.getPropertyGetter(ReadOnlyBean.class, "value"));
+        Assert.assertNull(
+                BeanUtil.getPropertySetter(ReadOnlyBean.class, "value"));
+    }
+
+    @Test
+    public void propertyGetter_serializable() throws Exception {
+        SerializableFunction<Object, Object> getter = BeanUtil
+                .getPropertyGetter(Person.class, "address.city");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ObjectOutputStream(bytes).writeObject(getter);
+        Object deserialized = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        Assert.assertSame(getter, deserialized);
+    }
+
+    public static class ReadOnlyBean {
+        public String getValue() {
+            return "value";
+        }
+    }
+}
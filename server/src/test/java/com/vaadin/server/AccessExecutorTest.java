@@ -0,0 +1,133 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.util.CurrentInstance;
+
+public class AccessExecutorTest {
+
+    /**
+     * Collects the submitted tasks so that tests can run them.
+     */
+    public static class CollectingExecutor implements Executor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            List<Runnable> toRun = new ArrayList<>(tasks);
+            tasks.clear();
+            toRun.forEach(Runnable::run);
+        }
+    }
+
+    private VaadinService service;
+    private MockVaadinSession session;
+    private CollectingExecutor executor;
+
+    @Before
+    public void setup() throws ServletException {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(Constants.SERVLET_PARAMETER_ACCESS_EXECUTOR,
+                CollectingExecutor.class.getName());
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+        service = servlet.getService();
+        executor = (CollectingExecutor) service.getAccessExecutor();
+        session = new MockVaadinSession(service);
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void accessUnlockedSession_tasksRunOnExecutor() {
+        AtomicInteger runCount = new AtomicInteger();
+        session.access(runCount::incrementAndGet);
+        session.access(runCount::incrementAndGet);
+
+        // Not run by the enqueuing thread, and scheduled only once
+        Assert.assertEquals(0, runCount.get());
+        Assert.assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+        Assert.assertEquals(2, runCount.get());
+        Assert.assertTrue(session.getPendingAccessQueue().isEmpty());
+
+        // A new run is scheduled for tasks enqueued later
+        session.access(runCount::incrementAndGet);
+        Assert.assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        Assert.assertEquals(3, runCount.get());
+    }
+
+    @Test
+    public void accessLockedSession_tasksRunOnUnlock() {
+        AtomicInteger runCount = new AtomicInteger();
+        session.lock();
+        try {
+            session.access(runCount::incrementAndGet);
+            Assert.assertEquals(0, runCount.get());
+        } finally {
+            session.unlock();
+        }
+
+        Assert.assertEquals(1, runCount.get());
+        Assert.assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    public void accessTask_runsWithEnqueuingThreadInstances() {
+        VaadinSession.setCurrent(session);
+        AtomicInteger runCount = new AtomicInteger();
+        session.access(() -> {
+            Assert.assertSame(session, VaadinSession.getCurrent());
+            runCount.incrementAndGet();
+        });
+        CurrentInstance.clearAll();
+
+        executor.runAll();
+        Assert.assertEquals(1, runCount.get());
+        // Nothing is left behind on the executor thread
+        Assert.assertNull(VaadinSession.getCurrent());
+    }
+
+    @Test
+    public void defaultConfiguration_noAccessExecutor()
+            throws ServletException {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        Assert.assertNull(servlet.getService().getAccessExecutor());
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.servlet.ServletException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.shared.Registration;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+import elemental.json.JsonValue;
+
+public class BroadcasterTest {
+
+    /**
+     * A UI that can be added to a session without being initialized.
+     */
+    private static class SessionUI extends MockUI {
+        private final int uiId;
+
+        private SessionUI(VaadinSession session, int uiId) {
+            super(session);
+            this.uiId = uiId;
+        }
+
+        @Override
+        public int getUIId() {
+            return uiId;
+        }
+    }
+
+    /**
+     * Records all the objects written to the stream.
+     */
+    private static class RecordingOutputStream extends ObjectOutputStream {
+        private final List<Object> written = new ArrayList<>();
+
+        private RecordingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            written.add(obj);
+            return obj;
+        }
+    }
+
+    private VaadinService service;
+    private Broadcaster broadcaster;
+    private MockVaadinSession session;
+    private UI ui1;
+    private UI ui2;
+    private List<BroadcastEvent> events1 = new ArrayList<>();
+    private List<BroadcastEvent> events2 = new ArrayList<>();
+
+    @Before
+    public void setup() throws ServletException {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(new Properties()));
+        service = servlet.getService();
+        broadcaster = service.getBroadcaster();
+        session = new MockVaadinSession(service);
+        ui1 = new MockUI(session);
+        ui2 = new MockUI(session);
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    private Registration subscribe(UI ui, String topic,
+            BroadcastListener listener) {
+        session.lock();
+        try {
+            return broadcaster.subscribe(ui, topic, listener);
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @Test
+    public void broadcast_deliveredToSubscribedUIs() {
+        subscribe(ui1, "news", events1::add);
+        subscribe(ui2, "news", events2::add);
+        subscribe(ui2, "other", events2::add);
+
+        String message = "Hello";
+        broadcaster.broadcast("news", message);
+
+        Assert.assertEquals(1, events1.size());
+        Assert.assertEquals(1, events2.size());
+        BroadcastEvent event = events1.get(0);
+        Assert.assertSame(event, events2.get(0));
+        Assert.assertEquals("news", event.getTopic());
+        Assert.assertSame(message, event.getMessage());
+        Assert.assertSame(broadcaster, event.getSource());
+    }
+
+    @Test
+    public void broadcast_noSubscribers_nothingHappens() {
+        broadcaster.broadcast("news", "Hello");
+        Assert.assertNull(broadcaster.getEncodedMessage("Hello", String.class));
+    }
+
+    @Test
+    public void removeRegistration_noLongerDelivered() {
+        Registration registration = subscribe(ui1, "news", events1::add);
+        subscribe(ui2, "news", events2::add);
+
+        session.lock();
+        try {
+            registration.remove();
+        } finally {
+            session.unlock();
+        }
+        broadcaster.broadcast("news", "Hello");
+
+        Assert.assertTrue(events1.isEmpty());
+        Assert.assertEquals(1, events2.size());
+    }
+
+    @Test
+    public void detachUI_noLongerDelivered() {
+        subscribe(ui1, "news", events1::add);
+        subscribe(ui2, "news", events2::add);
+
+        session.lock();
+        try {
+            ui1.detach();
+        } finally {
+            session.unlock();
+        }
+        broadcaster.broadcast("news", "Hello");
+
+        Assert.assertTrue(events1.isEmpty());
+        Assert.assertEquals(1, events2.size());
+    }
+
+    @Test
+    public void getEncodedMessage_sameEncodingReused() {
+        subscribe(ui1, "news", events1::add);
+        String message = new String("Hello");
+        broadcaster.broadcast("news", message);
+
+        JsonValue encoded = broadcaster.getEncodedMessage(message,
+                String.class);
+        Assert.assertEquals("Hello", encoded.asString());
+        Assert.assertSame(encoded,
+                broadcaster.getEncodedMessage(message, String.class));
+
+        // Equal but not the same instance
+        Assert.assertNull(
+                broadcaster.getEncodedMessage(new String("Hello"), String.class));
+    }
+
+    @Test
+    public void getEncodedMessage_replacedByNewerMessage_notShared() {
+        subscribe(ui1, "news", events1::add);
+        String first = new String("first");
+        broadcaster.broadcast("news", first);
+        broadcaster.broadcast("news", new String("second"));
+
+        Assert.assertNull(broadcaster.getEncodedMessage(first, String.class));
+    }
+
+    @Test
+    public void serializeSubscribedSession_broadcasterNotIncluded()
+            throws IOException {
+        MockVaadinSession serializedSession = new MockVaadinSession(service);
+        UI serializedUI = new SessionUI(serializedSession, 0);
+        serializedSession.lock();
+        try {
+            serializedSession.addUI(serializedUI);
+            broadcaster.subscribe(serializedUI, "news", events1::add);
+        } finally {
+            serializedSession.unlock();
+        }
+        // Subscribed UIs of other sessions
+        subscribe(ui1, "news", events2::add);
+        subscribe(ui2, "other", events2::add);
+
+        RecordingOutputStream out = new RecordingOutputStream(
+                new ByteArrayOutputStream());
+        out.writeObject(serializedSession);
+        out.close();
+
+        Assert.assertTrue(out.written.contains(serializedUI));
+        for (Object object : out.written) {
+            Assert.assertFalse(object instanceof Broadcaster);
+            Assert.assertNotSame(session, object);
+            Assert.assertNotSame(ui1, object);
+            Assert.assertNotSame(ui2, object);
+        }
+
+        // The size doesn't depend on the subscriptions of other sessions
+        int size = serialize(serializedSession).length;
+        for (int i = 0; i < 10; i++) {
+            MockVaadinSession otherSession = new MockVaadinSession(service);
+            UI otherUI = new MockUI(otherSession);
+            otherSession.lock();
+            try {
+                broadcaster.subscribe(otherUI, "news", events2::add);
+            } finally {
+                otherSession.unlock();
+            }
+        }
+        Assert.assertEquals(size, serialize(serializedSession).length);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+    private static void assertRange(long start, long end, ByteRange range) {
+        Assert.assertNotNull(range);
+        Assert.assertTrue(range.isSatisfiable());
+        Assert.assertEquals(start, range.getStart());
+        Assert.assertEquals(end, range.getEnd());
+    }
+
+    @Test
+    public void parse_singleRanges() {
+        assertRange(0, 99, ByteRange.parse("bytes=0-99", 1000));
+        assertRange(500, 999, ByteRange.parse("bytes=500-", 1000));
+        assertRange(900, 999, ByteRange.parse("bytes=-100", 1000));
+        assertRange(0, 999, ByteRange.parse("bytes=-2000", 1000));
+        assertRange(990, 999, ByteRange.parse("bytes=990-2000", 1000));
+    }
+
+    @Test
+    public void parse_ignoredHeaders() {
+        Assert.assertNull(ByteRange.parse(null, 1000));
+        Assert.assertNull(ByteRange.parse("items=0-1", 1000));
+        Assert.assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        Assert.assertNull(ByteRange.parse("bytes=foo", 1000));
+        Assert.assertNull(ByteRange.parse("bytes=10-5", 1000));
+    }
+
+    @Test
+    public void parse_notSatisfiable() {
+        Assert.assertSame(ByteRange.NOT_SATISFIABLE,
+                ByteRange.parse("bytes=1000-", 1000));
+        Assert.assertSame(ByteRange.NOT_SATISFIABLE,
+                ByteRange.parse("bytes=-0", 1000));
+        Assert.assertEquals("bytes */1000",
+                ByteRange.NOT_SATISFIABLE.getContentRange(1000));
+    }
+
+    @Test
+    public void contentRange() {
+        ByteRange range = ByteRange.parse("bytes=10-19", 100);
+        Assert.assertEquals(10, range.getLength());
+        Assert.assertEquals("bytes 10-19/100", range.getContentRange(100));
+    }
+
+    @Test
+    public void matchesETag() {
+        Assert.assertTrue(ByteRange.matchesETag("\"a\"", "\"a\""));
+        Assert.assertTrue(ByteRange.matchesETag("\"b\", W/\"a\"", "\"a\""));
+        Assert.assertTrue(ByteRange.matchesETag("*", "\"a\""));
+        Assert.assertFalse(ByteRange.matchesETag("\"b\"", "\"a\""));
+        Assert.assertFalse(ByteRange.matchesETag(null, "\"a\""));
+    }
+}
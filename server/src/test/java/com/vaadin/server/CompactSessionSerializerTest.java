@@ -0,0 +1,216 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+import com.vaadin.util.CurrentInstance;
+
+import elemental.json.JsonObject;
+
+public class CompactSessionSerializerTest {
+
+    private VaadinService service;
+    private MockVaadinSession session;
+    private UI ui;
+    private Label label;
+
+    @Before
+    public void setup() {
+        // Sessions are serialized using the default format unless a test
+        // configures the session serializer of the service
+        service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getRequestMetrics())
+                .thenReturn(RequestMetrics.NONE);
+
+        session = new MockVaadinSession(service);
+        session.lock();
+        session.setCommunicationManager(
+                new LegacyCommunicationManager(session));
+
+        ui = new MockUI(session);
+        ui.doInit(Mockito.mock(VaadinRequest.class), session.getNextUIid(),
+                null);
+        session.addUI(ui);
+
+        VerticalLayout layout = new VerticalLayout();
+        for (int i = 0; i < 20; i++) {
+            layout.addComponent(new Label("Label " + i));
+        }
+        label = new Label("Sent");
+        layout.addComponent(label);
+        ui.setContent(layout);
+
+        // Simulate a response sent to the client
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        for (ClientConnector connector : new ArrayList<>(
+                tracker.getDirtyConnectors())) {
+            connector.encodeState();
+            tracker.markClientSideInitialized(connector);
+        }
+        tracker.markAllConnectorsClean();
+        session.getCommunicationManager().getClientCache(ui).cache("cached");
+
+        label.setValue("Not sent");
+    }
+
+    @After
+    public void tearDown() {
+        session.unlock();
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void serializeSession_restoredUIIsRepainted() throws Exception {
+        Mockito.when(service.getSessionSerializer())
+                .thenReturn(new CompactSessionSerializer());
+        JsonObject uiDiffState = ui.getConnectorTracker().getDiffState(ui);
+
+        VaadinSession restored = (VaadinSession) deserialize(
+                serialize(session));
+        // Lock without the service, which is refreshed by the framework
+        restored.getLockInstance().lock();
+        try {
+            UI restoredUI = restored.getUIById(ui.getUIId());
+            Label restoredLabel = (Label) ((VerticalLayout) restoredUI
+                    .getContent()).getComponent(20);
+            Assert.assertEquals("Not sent", restoredLabel.getValue());
+
+            ConnectorTracker tracker = restoredUI.getConnectorTracker();
+            Assert.assertTrue(tracker.isDirty(restoredLabel));
+            Assert.assertFalse(
+                    tracker.isClientSideInitialized(restoredLabel));
+            Assert.assertTrue(restored.getCommunicationManager()
+                    .getClientCache(restoredUI).isEmpty());
+
+            // The diff state of the UI is kept as the client doesn't recreate
+            // the UI connector
+            Assert.assertEquals(uiDiffState.toJson(),
+                    tracker.getDiffState(restoredUI).toJson());
+            Assert.assertNotNull(tracker.getDiffState(restoredLabel));
+
+            JsonObject labelState = restoredLabel.encodeState();
+            Assert.assertEquals("Not sent", labelState.getString("text"));
+        } finally {
+            restored.getLockInstance().unlock();
+        }
+    }
+
+    @Test
+    public void noSessionSerializer_sessionNotReplaced() throws Exception {
+        byte[] data = serialize(session);
+        Assert.assertFalse("Compact format should not be used",
+                new String(data, "ISO-8859-1").contains(
+                        "VaadinSession$SerializedSession"));
+        Assert.assertTrue(deserialize(data) instanceof MockVaadinSession);
+    }
+
+    @Test
+    public void compactFormat_smallerThanJavaSerialization()
+            throws IOException {
+        int javaSize = serialize(session).length;
+
+        Mockito.when(service.getSessionSerializer())
+                .thenReturn(new CompactSessionSerializer());
+        int compactSize = serialize(session).length;
+
+        Assert.assertTrue(
+                "Compact size " + compactSize + ", Java size " + javaSize,
+                compactSize < javaSize * 0.8);
+    }
+
+    @Test
+    public void metricsEnabled_uiSizeReported() throws IOException {
+        RequestMetrics metrics = Mockito.mock(RequestMetrics.class);
+        Mockito.when(metrics.isUiSerializationEnabled()).thenReturn(true);
+        Mockito.when(service.getRequestMetrics()).thenReturn(metrics);
+
+        CompactSessionSerializer serializer = new CompactSessionSerializer();
+        serializer.serialize(session);
+
+        long size = serializer.getSerializedSize(ui);
+        Assert.assertTrue(size > 0);
+        Mockito.verify(metrics).uiSerialized(ui, size);
+    }
+
+    @Test
+    public void metricsDisabled_uiSizeNotReported() throws IOException {
+        RequestMetrics metrics = Mockito.mock(RequestMetrics.class);
+        Mockito.when(service.getRequestMetrics()).thenReturn(metrics);
+
+        new CompactSessionSerializer().serialize(session);
+
+        Mockito.verify(metrics, Mockito.never())
+                .uiSerialized(Mockito.any(UI.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void onlyRequestMetricsEnabled_uiSizeNotReported()
+            throws IOException {
+        RequestMetrics metrics = Mockito.mock(RequestMetrics.class);
+        Mockito.when(metrics.isEnabled()).thenReturn(true);
+        Mockito.when(service.getRequestMetrics()).thenReturn(metrics);
+
+        new CompactSessionSerializer().serialize(session);
+
+        Mockito.verify(metrics, Mockito.never())
+                .uiSerialized(Mockito.any(UI.class), Mockito.anyLong());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void unsupportedFormatVersion_throws()
+            throws IOException, ClassNotFoundException {
+        CompactSessionSerializer serializer = new CompactSessionSerializer();
+        byte[] data = serializer.serialize(session);
+        // The format version follows the four bytes of the stream header
+        data[4] = (byte) (CompactSessionSerializer.FORMAT_VERSION + 1);
+
+        serializer.deserialize(data);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
@@ -1,18 +1,35 @@
 package com.vaadin.server;
 
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class DownloadStreamTest {
+    private static final String FILE_CONTENT = "0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final String filename = "日本語.png";
     private DownloadStream stream;
 
@@ -34,4 +51,135 @@ public class DownloadStreamTest {
                 contains(
                         String.format("filename*=utf-8''%s", encodedFileName)));
     }
+
+    @Test
+    public void fileBacked_contentAndValidatorsWritten() throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        Assert.assertEquals(FILE_CONTENT,
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+        verify(response).setHeader("ETag", getETag(fileStream));
+        verify(response).setHeader("Accept-Ranges", "bytes");
+        verify(response).setHeader("Content-Length",
+                String.valueOf(FILE_CONTENT.length()));
+        verify(response, never()).setStatus(
+                HttpServletResponse.SC_PARTIAL_CONTENT);
+    }
+
+    @Test
+    public void fileBacked_matchingETag_notModified() throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("If-None-Match"))
+                .thenReturn(getETag(fileStream));
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void fileBacked_notModifiedSince_notModified() throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getDateHeader("If-Modified-Since"))
+                .thenReturn(fileStream.getFile().lastModified());
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void fileBacked_range_partialContent() throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("Range")).thenReturn("bytes=4-7");
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range",
+                "bytes 4-7/" + FILE_CONTENT.length());
+        verify(response).setHeader("Content-Length", "4");
+        Assert.assertEquals("4567",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void fileBacked_rangeWithChangedIfRange_fullContent()
+            throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("Range")).thenReturn("bytes=4-7");
+        when(request.getHeader("If-Range")).thenReturn("\"outdated\"");
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        verify(response, never()).setHeader(eq("Content-Range"), anyString());
+        Assert.assertEquals(FILE_CONTENT,
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void fileBacked_rangeOutsideFile_notSatisfiable()
+            throws IOException {
+        DownloadStream fileStream = createFileStream();
+        VaadinRequest request = mock(VaadinRequest.class);
+        when(request.getHeader("Range")).thenReturn("bytes=100-");
+        VaadinResponse response = mock(VaadinResponse.class);
+        ByteArrayOutputStream out = mockOutput(response);
+
+        fileStream.writeResponse(request, response);
+
+        verify(response).setStatus(
+                HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        verify(response).setHeader("Content-Range",
+                "bytes */" + FILE_CONTENT.length());
+        Assert.assertEquals(0, out.size());
+    }
+
+    @Test
+    public void fileBacked_getStream_readsFile() throws IOException {
+        DownloadStream fileStream = createFileStream();
+        try (InputStream in = fileStream.getStream()) {
+            Assert.assertEquals(FILE_CONTENT.charAt(0), in.read());
+        }
+    }
+
+    private DownloadStream createFileStream() throws IOException {
+        File file = folder.newFile("content.txt");
+        Files.write(file.toPath(),
+                FILE_CONTENT.getBytes(StandardCharsets.UTF_8));
+        return new DownloadStream(file, "text/plain", file.getName());
+    }
+
+    private static String getETag(DownloadStream fileStream) {
+        File file = fileStream.getFile();
+        return StaticResourceCache.createETag(file.length(),
+                StaticResourceCache.truncateToSeconds(file.lastModified()),
+                "");
+    }
+
+    private static ByteArrayOutputStream mockOutput(VaadinResponse response)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(out);
+        return out;
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.JsonCodec.BeanProperty;
+import com.vaadin.server.JsonCodec.BeanPropertyFactory;
+import com.vaadin.shared.data.sort.SortDirection;
+import com.vaadin.shared.ui.grid.GridState;
+import com.vaadin.shared.ui.grid.HeightMode;
+
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+public class JsonCodecBeanPropertyFactoryTest {
+
+    public static class MethodBean {
+        private String text;
+        private int number;
+        public boolean flag;
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public void setNumber(int number) {
+            this.number = number;
+        }
+    }
+
+    @After
+    public void restoreDefaultFactory() {
+        JsonCodec.setBeanPropertyFactory(
+                JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY);
+    }
+
+    private static GridState createGridState() {
+        GridState state = new GridState();
+        state.caption = "Grid";
+        state.styles = Arrays.asList("foo", "bar");
+        state.columnOrder = Arrays.asList("1", "2", "3");
+        state.frozenColumnCount = 2;
+        state.heightMode = HeightMode.ROW;
+        state.sortColumns = new String[] { "2" };
+        state.sortDirs = new SortDirection[] { SortDirection.DESCENDING };
+        state.columnReorderingAllowed = true;
+        return state;
+    }
+
+    private static String[] encode(BeanPropertyFactory factory, Object bean,
+            Object reference) {
+        JsonCodec.setBeanPropertyFactory(factory);
+        JsonValue diffState = reference == null ? null
+                : JsonCodec.encode(reference, null, reference.getClass(), null)
+                        .getEncodedValue();
+        EncodeResult result = JsonCodec.encode(bean, diffState,
+                bean.getClass(), null);
+        return new String[] { result.getEncodedValue().toJson(),
+                result.getDiff().toJson() };
+    }
+
+    private static List<String> propertyNames(BeanPropertyFactory factory,
+            Class<?> type) throws Exception {
+        JsonCodec.setBeanPropertyFactory(factory);
+        return JsonCodec.getProperties(type).stream()
+                .map(BeanProperty::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void methodHandleFactory_sameJsonAsReflection() {
+        GridState state = createGridState();
+        Assert.assertArrayEquals(
+                encode(JsonCodec.REFLECTION_PROPERTY_FACTORY, state,
+                        new GridState()),
+                encode(JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY, state,
+                        new GridState()));
+        Assert.assertArrayEquals(
+                encode(JsonCodec.REFLECTION_PROPERTY_FACTORY, state, null),
+                encode(JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY, state, null));
+    }
+
+    @Test
+    public void methodHandleFactory_samePropertiesAsReflection()
+            throws Exception {
+        for (Class<?> type : Arrays.asList(GridState.class,
+                MethodBean.class)) {
+            Assert.assertEquals(
+                    propertyNames(JsonCodec.REFLECTION_PROPERTY_FACTORY, type),
+                    propertyNames(JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY,
+                            type));
+        }
+    }
+
+    @Test
+    public void methodHandleFactory_gettersAndSetters() throws Exception {
+        MethodBean bean = new MethodBean();
+        bean.setText("foo");
+        bean.setNumber(42);
+        bean.flag = true;
+
+        Assert.assertArrayEquals(
+                encode(JsonCodec.REFLECTION_PROPERTY_FACTORY, bean, null),
+                encode(JsonCodec.METHOD_HANDLE_PROPERTY_FACTORY, bean, null));
+
+        JsonObject encoded = (JsonObject) JsonCodec
+                .encode(bean, null, MethodBean.class, null).getEncodedValue();
+        MethodBean decoded = (MethodBean) JsonCodec
+                .decodeInternalOrCustomType(MethodBean.class, encoded, null);
+        Assert.assertEquals("foo", decoded.getText());
+        Assert.assertEquals(42, decoded.getNumber());
+        Assert.assertTrue(decoded.flag);
+    }
+
+    @Test
+    public void setFactory_clearsPropertyCache() throws Exception {
+        Collection<BeanProperty> properties = JsonCodec
+                .getProperties(GridState.class);
+        Assert.assertSame(properties, JsonCodec.getProperties(GridState.class));
+
+        JsonCodec.setBeanPropertyFactory(JsonCodec.REFLECTION_PROPERTY_FACTORY);
+        Assert.assertNotSame(properties,
+                JsonCodec.getProperties(GridState.class));
+    }
+}
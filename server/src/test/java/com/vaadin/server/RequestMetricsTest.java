@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.servlet.ServletException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.RequestMetrics.Phase;
+import com.vaadin.server.RequestMetrics.PhaseTimer;
+
+public class RequestMetricsTest {
+
+    public static class RecordingMetrics implements RequestMetrics {
+        private boolean enabled = true;
+        private final List<Phase> phases = Collections
+                .synchronizedList(new ArrayList<>());
+        private final List<Long> lockWaits = Collections
+                .synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public void phaseCompleted(Phase phase, long durationNanos) {
+            Assert.assertTrue(durationNanos >= 0);
+            phases.add(phase);
+        }
+
+        @Override
+        public void lockAcquired(VaadinSession session, long waitNanos) {
+            lockWaits.add(Long.valueOf(waitNanos));
+        }
+    }
+
+    private static VaadinService createService(String metrics)
+            throws ServletException {
+        Properties initParameters = new Properties();
+        if (metrics != null) {
+            initParameters.setProperty(
+                    Constants.SERVLET_PARAMETER_REQUEST_METRICS, metrics);
+        }
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+        return servlet.getService();
+    }
+
+    @Test
+    public void defaultMetrics_jfrIfSupported() throws ServletException {
+        RequestMetrics metrics = createService(null).getRequestMetrics();
+        // JfrRequestMetrics is not compiled on all JDKs and is only used if
+        // the JVM supports the Flight Recorder
+        if (metrics != RequestMetrics.NONE) {
+            Assert.assertEquals("com.vaadin.server.JfrRequestMetrics",
+                    metrics.getClass().getName());
+        }
+    }
+
+    @Test
+    public void noneMetrics_neverEnabled() throws ServletException {
+        RequestMetrics metrics = createService("none").getRequestMetrics();
+        Assert.assertSame(RequestMetrics.NONE, metrics);
+        Assert.assertFalse(metrics.isEnabled());
+    }
+
+    @Test
+    public void customMetrics_createdFromClassName() throws ServletException {
+        RequestMetrics metrics = createService(
+                RecordingMetrics.class.getName()).getRequestMetrics();
+        Assert.assertEquals(RecordingMetrics.class, metrics.getClass());
+    }
+
+    @Test(expected = ServletException.class)
+    public void invalidMetricsClass_initFails() throws ServletException {
+        createService(String.class.getName());
+    }
+
+    @Test
+    public void phaseTimer_reportsConsecutivePhases() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        PhaseTimer timer = new PhaseTimer(metrics);
+        Assert.assertTrue(timer.isEnabled());
+
+        timer.phaseCompleted(Phase.READ_RPC);
+        timer.phaseCompleted(Phase.PARSE_RPC);
+
+        Assert.assertEquals(
+                Arrays.asList(Phase.READ_RPC, Phase.PARSE_RPC),
+                metrics.phases);
+    }
+
+    @Test
+    public void phaseTimer_disabledMetrics_nothingReported() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        metrics.enabled = false;
+        PhaseTimer timer = new PhaseTimer(metrics);
+        Assert.assertFalse(timer.isEnabled());
+
+        timer.phaseCompleted(Phase.READ_RPC);
+        Assert.assertTrue(metrics.phases.isEmpty());
+
+        Assert.assertFalse(new PhaseTimer((VaadinService) null).isEnabled());
+    }
+
+    @Test
+    public void sessionLock_waitReported() {
+        RecordingMetrics metrics = new RecordingMetrics();
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getRequestMetrics()).thenReturn(metrics);
+        VaadinSession session = new MockVaadinSession(service);
+
+        session.lock();
+        try {
+            Assert.assertEquals(1, metrics.lockWaits.size());
+            Assert.assertTrue(metrics.lockWaits.get(0).longValue() >= 0);
+        } finally {
+            session.unlock();
+        }
+
+        metrics.enabled = false;
+        session.lock();
+        session.unlock();
+        Assert.assertEquals(1, metrics.lockWaits.size());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.ServerRpcDispatcher.RpcMethod;
+import com.vaadin.shared.communication.ServerRpc;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+public class ServerRpcDispatcherTest {
+
+    public interface TestRpc extends ServerRpc {
+        public void call(String text, int number, boolean flag,
+                List<String> list);
+
+        public void call(Integer number);
+
+        public void fail();
+    }
+
+    private final List<Object> calls = new ArrayList<>();
+
+    private final TestRpc implementation = new TestRpc() {
+        @Override
+        public void call(String text, int number, boolean flag,
+                List<String> list) {
+            calls.addAll(Arrays.asList(text, number, flag, list));
+        }
+
+        @Override
+        public void call(Integer number) {
+            calls.add(number);
+        }
+
+        @Override
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    };
+
+    private static RpcMethod getMethod(String name, int parameterCount) {
+        return ServerRpcDispatcher.get(TestRpc.class).getMethod(name,
+                parameterCount);
+    }
+
+    @Test
+    public void getMethod_byNameAndParameterCount() {
+        Assert.assertSame(ServerRpcDispatcher.get(TestRpc.class),
+                ServerRpcDispatcher.get(TestRpc.class));
+        Assert.assertEquals(4, getMethod("call", 4).getParameterCount());
+        Assert.assertEquals(1, getMethod("call", 1).getParameterCount());
+        Assert.assertNull(getMethod("call", 2));
+        Assert.assertNull(getMethod("foo", 0));
+    }
+
+    @Test
+    public void decodeAndInvoke_sameValuesAsJsonCodec() throws Exception {
+        RpcMethod method = getMethod("call", 4);
+        JsonArray json = Json.createArray();
+        json.set(0, "foo");
+        json.set(1, 42);
+        json.set(2, true);
+        JsonArray list = Json.createArray();
+        list.set(0, "bar");
+        json.set(3, list);
+
+        Object[] parameters = method.decodeParameters(json, null);
+        Type[] types = method.getMethod().getGenericParameterTypes();
+        for (int i = 0; i < parameters.length; i++) {
+            Assert.assertEquals(JsonCodec.decodeInternalOrCustomType(types[i],
+                    json.get(i), null), parameters[i]);
+        }
+
+        method.invoke(implementation, parameters);
+        Assert.assertEquals(Arrays.asList("foo", 42, true,
+                Arrays.asList("bar")), calls);
+    }
+
+    @Test
+    public void decodeNull_boxedParameter() throws Exception {
+        RpcMethod method = getMethod("call", 1);
+        JsonArray json = Json.createArray();
+        json.set(0, Json.createNull());
+
+        Object[] parameters = method.decodeParameters(json, null);
+        Assert.assertArrayEquals(new Object[] { null }, parameters);
+        method.invoke(implementation, parameters);
+        Assert.assertEquals(Arrays.asList((Object) null), calls);
+    }
+
+    @Test
+    public void invoke_exceptionWrapped() throws Exception {
+        try {
+            getMethod("fail", 0).invoke(implementation, new Object[0]);
+            Assert.fail();
+        } catch (InvocationTargetException e) {
+            Assert.assertEquals(IllegalStateException.class,
+                    e.getCause().getClass());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invoke_nullForPrimitive_throws() throws Exception {
+        getMethod("call", 4).invoke(implementation,
+                new Object[] { "foo", null, true, null });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invoke_wrongArgumentType_throws() throws Exception {
+        getMethod("call", 1).invoke(implementation, new Object[] { "foo" });
+    }
+}
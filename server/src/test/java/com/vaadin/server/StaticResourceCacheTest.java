@@ -0,0 +1,207 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StaticResourceCacheTest {
+
+    private static final String CONTENT;
+
+    static {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("body { color: red; }\n");
+        }
+        CONTENT = builder.toString();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StaticResourceCache cache = new StaticResourceCache();
+
+    /**
+     * Creates a URL that is not a file: URL, like the URL of a JAR entry.
+     */
+    private static URL createMemoryUrl(String name, byte[] content)
+            throws IOException {
+        return createMemoryUrl(name, content, true);
+    }
+
+    private static URL createMemoryUrl(String name, byte[] content,
+            boolean lengthKnown) throws IOException {
+        return new URL("test", null, -1, name, new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    @Override
+                    public void connect() {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        if (!url.getPath().equals(name)) {
+                            throw new java.io.FileNotFoundException();
+                        }
+                        return new ByteArrayInputStream(content);
+                    }
+
+                    @Override
+                    public long getContentLengthLong() {
+                        return url.getPath().equals(name) && lengthKnown
+                                ? content.length : -1;
+                    }
+                };
+            }
+        });
+    }
+
+    private static String read(StaticResourceCache.Resource resource,
+            long offset, long count) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.writeTo(out, offset, count);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void fileResource_cachedAndRangesWritten() throws IOException {
+        File file = folder.newFile("styles.css");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        URL url = file.toURI().toURL();
+
+        StaticResourceCache.Resource resource = cache.get(url);
+        Assert.assertSame(resource, cache.get(url));
+        Assert.assertEquals(CONTENT.length(), resource.getLength());
+        Assert.assertEquals(0, resource.getLastModified() % 1000);
+        Assert.assertNotNull(resource.getETag());
+
+        Assert.assertEquals(CONTENT, read(resource, 0, CONTENT.length()));
+        Assert.assertEquals(CONTENT.substring(5, 15), read(resource, 5, 10));
+
+        // No precompressed file and files are not compressed on the fly
+        Assert.assertNull(resource.getGzipped());
+    }
+
+    @Test
+    public void fileResource_precompressedVariant() throws IOException {
+        File file = folder.newFile("app.js");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        File gzFile = folder.newFile("app.js.gz");
+        Files.write(gzFile.toPath(), new byte[] { 1, 2, 3 });
+
+        StaticResourceCache.Resource resource = cache
+                .get(file.toURI().toURL());
+        StaticResourceCache.Resource gzipped = resource.getGzipped();
+        Assert.assertEquals(3, gzipped.getLength());
+        Assert.assertNotEquals(resource.getETag(), gzipped.getETag());
+    }
+
+    @Test
+    public void missingFile_notCached() throws IOException {
+        Assert.assertNull(cache
+                .get(new File(folder.getRoot(), "missing.js").toURI().toURL()));
+    }
+
+    @Test
+    public void memoryResource_compressedOnce() throws IOException {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        StaticResourceCache.Resource resource = cache
+                .get(createMemoryUrl("/VAADIN/styles.css", bytes));
+        Assert.assertEquals(bytes.length, resource.getLength());
+        Assert.assertEquals(CONTENT.substring(10, 30),
+                read(resource, 10, 20));
+
+        StaticResourceCache.Resource gzipped = resource.getGzipped();
+        Assert.assertSame(gzipped, resource.getGzipped());
+        Assert.assertTrue(gzipped.getLength() < bytes.length);
+        Assert.assertNotEquals(resource.getETag(), gzipped.getETag());
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        gzipped.writeTo(compressed, 0, gzipped.getLength());
+        try (InputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(compressed.toByteArray()))) {
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                decompressed.write(buffer, 0, read);
+            }
+            Assert.assertEquals(CONTENT, new String(
+                    decompressed.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void resolvedUrls_cached() throws IOException {
+        URL url = folder.newFile("theme.css").toURI().toURL();
+        Assert.assertNull(cache.getURL("/VAADIN/theme.css"));
+        cache.putURL("/VAADIN/theme.css", url);
+        Assert.assertEquals(url, cache.getURL("/VAADIN/theme.css"));
+    }
+
+    @Test
+    public void resolvedUrls_variantsOfPathShareEntry() throws IOException {
+        URL url = folder.newFile("theme.css").toURI().toURL();
+        cache.putURL("/VAADIN//themes/./valo/../theme.css", url);
+        Assert.assertEquals(url, cache.getURL("/VAADIN/themes/theme.css"));
+
+        Assert.assertEquals("/VAADIN/a/", StaticResourceCache
+                .normalizePath("//VAADIN/./b/../a/"));
+        Assert.assertNull(StaticResourceCache.normalizePath("/VAADIN/../.."));
+    }
+
+    @Test
+    public void resolvedUrls_leastRecentlyUsedDropped() throws IOException {
+        URL url = folder.newFile("theme.css").toURI().toURL();
+        cache.putURL("/VAADIN/first.css", url);
+        for (int i = 0; i < 5000; i++) {
+            cache.putURL("/VAADIN/file" + i + ".css", url);
+            // Keep the first one in use
+            Assert.assertEquals(url, cache.getURL("/VAADIN/first.css"));
+        }
+        Assert.assertEquals(url, cache.getURL("/VAADIN/first.css"));
+        Assert.assertNull(cache.getURL("/VAADIN/file0.css"));
+        Assert.assertEquals(url, cache.getURL("/VAADIN/file4999.css"));
+    }
+
+    @Test
+    public void memoryResourceOfUnknownLength_largerThanLimit_streamed()
+            throws IOException {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        URL url = createMemoryUrl("/VAADIN/large.css", bytes, false);
+
+        StaticResourceCache.Resource resource = new StaticResourceCache(100)
+                .get(url);
+        Assert.assertEquals(-1, resource.getLength());
+        Assert.assertEquals(CONTENT, read(resource, 0, Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.Properties;
+
+import javax.servlet.ServletException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.util.CurrentInstance;
+
+public class VaadinSessionModifiedTest {
+
+    private VaadinService service;
+    private WrappedSession wrappedSession;
+    private MockVaadinSession session;
+
+    private void setup(boolean storeModifiedSessions)
+            throws ServletException {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_STORE_MODIFIED_SESSIONS,
+                Boolean.toString(storeModifiedSessions));
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+        service = servlet.getService();
+
+        wrappedSession = Mockito.mock(WrappedSession.class);
+        session = new MockVaadinSession(service) {
+            @Override
+            public WrappedSession getSession() {
+                return wrappedSession;
+            }
+        };
+        VaadinSession.setCurrent(session);
+    }
+
+    @After
+    public void tearDown() {
+        CurrentInstance.clearAll();
+    }
+
+    @Test
+    public void setAttribute_sessionModified() throws ServletException {
+        setup(false);
+        session.lock();
+        try {
+            Assert.assertFalse(session.isModified());
+            session.setAttribute("foo", "bar");
+            Assert.assertTrue(session.isModified());
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @Test
+    public void markConnectorDirty_sessionModified() throws ServletException {
+        setup(false);
+        session.lock();
+        try {
+            UI ui = new MockUI(session);
+            Label label = new Label("Label");
+            ui.setContent(label);
+            ui.getConnectorTracker().markAllConnectorsClean();
+            session.clearModified();
+
+            label.setValue("Changed");
+            Assert.assertTrue(session.isModified());
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @Test
+    public void runAccessTask_sessionModified() throws ServletException {
+        setup(false);
+        session.lock();
+        session.access(() -> {
+            // Nothing to do
+        });
+        Assert.assertFalse(session.isModified());
+
+        // Runs the pending task
+        session.unlock();
+        Assert.assertTrue(session.isModified());
+    }
+
+    @Test
+    public void requestEnd_modifiedSessionStored() throws ServletException {
+        setup(true);
+        session.lock();
+        session.setAttribute("foo", "bar");
+        session.unlock();
+
+        service.requestEnd(Mockito.mock(VaadinRequest.class), null, session);
+
+        Mockito.verify(wrappedSession)
+                .setAttribute(service.getSessionAttributeName(), session);
+        Assert.assertFalse(session.isModified());
+        session.lock();
+        try {
+            Assert.assertNull(session.getAttribute(
+                    VaadinService.PRESERVE_UNBOUND_SESSION_ATTRIBUTE));
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @Test
+    public void requestEnd_unmodifiedSessionNotStored()
+            throws ServletException {
+        setup(true);
+
+        service.requestEnd(Mockito.mock(VaadinRequest.class), null, session);
+
+        Mockito.verify(wrappedSession, Mockito.never()).setAttribute(
+                Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    public void requestEnd_storingDisabled_modifiedSessionNotStored()
+            throws ServletException {
+        setup(false);
+        session.lock();
+        session.setAttribute("foo", "bar");
+        session.unlock();
+
+        service.requestEnd(Mockito.mock(VaadinRequest.class), null, session);
+
+        Mockito.verify(wrappedSession, Mockito.never()).setAttribute(
+                Mockito.anyString(), Mockito.any());
+        Assert.assertFalse(session.isModified());
+    }
+}
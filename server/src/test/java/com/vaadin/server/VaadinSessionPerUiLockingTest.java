@@ -0,0 +1,328 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.shared.communication.PushMode;
+import com.vaadin.ui.UI;
+
+public class VaadinSessionPerUiLockingTest {
+
+    private static class TestUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+    }
+
+    private final ExecutorService executor = Executors
+            .newSingleThreadExecutor();
+
+    private VaadinServletService service;
+    private VaadinSession session;
+    private UI ui1;
+    private UI ui2;
+
+    @Before
+    public void setup() throws Exception {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(Constants.SERVLET_PARAMETER_PER_UI_LOCKING,
+                "true");
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+        service = servlet.getService();
+
+        Map<String, Object> attributes = new HashMap<>();
+        WrappedSession wrappedSession = Mockito.mock(WrappedSession.class);
+        Mockito.when(wrappedSession.getAttribute(Mockito.anyString()))
+                .then(invocation -> attributes
+                        .get(invocation.getArguments()[0]));
+        Mockito.doAnswer(invocation -> attributes.put(
+                (String) invocation.getArguments()[0],
+                invocation.getArguments()[1])).when(wrappedSession)
+                .setAttribute(Mockito.anyString(), Mockito.any());
+
+        service.lockSession(wrappedSession);
+        try {
+            session = new VaadinSession(service);
+            service.storeSession(session, wrappedSession);
+            ui1 = createUI();
+            ui2 = createUI();
+        } finally {
+            service.unlockSession(wrappedSession);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private UI createUI() {
+        UI ui = new TestUI();
+        ui.doInit(Mockito.mock(VaadinRequest.class), session.getNextUIid(),
+                null);
+        ui.setSession(session);
+        session.addUI(ui);
+        return ui;
+    }
+
+    private <T> T inOtherThread(Callable<T> task) throws Exception {
+        return executor.submit(task).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void perUiLocking_enabledByParameter() {
+        Assert.assertTrue(session.isPerUiLocking());
+        Assert.assertFalse(
+                new MockVaadinSession(Mockito.mock(VaadinService.class))
+                        .isPerUiLocking());
+    }
+
+    @Test
+    public void differentUis_lockedConcurrently() throws Exception {
+        session.lock(ui1);
+        try {
+            Assert.assertTrue(session.hasSharedLock());
+            Assert.assertFalse(session.hasLock());
+            Assert.assertTrue(inOtherThread(() -> {
+                session.lock(ui2);
+                try {
+                    return Boolean.valueOf(session.hasSharedLock());
+                } finally {
+                    session.unlock(ui2);
+                }
+            }));
+            // The whole session can't be locked meanwhile
+            Assert.assertFalse(inOtherThread(() -> {
+                boolean locked = session.getLockInstance().tryLock();
+                if (locked) {
+                    session.getLockInstance().unlock();
+                }
+                return Boolean.valueOf(locked);
+            }));
+        } finally {
+            session.unlock(ui1);
+        }
+        Assert.assertFalse(session.hasSharedLock());
+    }
+
+    @Test
+    public void sameUi_lockedExclusively() throws Exception {
+        AtomicBoolean run = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> future;
+        session.lock(ui1);
+        try {
+            future = executor.submit(() -> {
+                started.countDown();
+                ui1.accessSynchronously(() -> run.set(true));
+            });
+            started.await();
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("UI should still be locked");
+            } catch (TimeoutException expected) {
+            }
+            Assert.assertFalse(run.get());
+        } finally {
+            session.unlock(ui1);
+        }
+        future.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(run.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void uiLocked_lockingSessionNotAllowed() {
+        session.lock(ui1);
+        try {
+            session.lock();
+        } finally {
+            session.unlock(ui1);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void uiLocked_lockingOtherUiNotAllowed() {
+        session.lock(ui1);
+        try {
+            session.lock(ui2);
+        } finally {
+            session.unlock(ui1);
+        }
+    }
+
+    @Test
+    public void uiLocked_sameUiReentrant() {
+        session.lock(ui1);
+        session.lock(ui1);
+        session.unlock(ui1);
+        Assert.assertTrue(session.hasSharedLock());
+        session.unlock(ui1);
+        Assert.assertFalse(session.hasSharedLock());
+    }
+
+    @Test
+    public void sessionLocked_uiLockUsesSessionLock() {
+        session.lock();
+        try {
+            session.lock(ui1);
+            session.lock(ui2);
+            session.unlock(ui2);
+            session.unlock(ui1);
+            Assert.assertTrue(session.hasLock());
+        } finally {
+            session.unlock();
+        }
+        Assert.assertFalse(session.hasLock());
+    }
+
+    @Test
+    public void accessOtherUi_runWhenUiUnlocked() throws Exception {
+        AtomicBoolean run = new AtomicBoolean();
+        Future<Void> future;
+        session.lock(ui1);
+        try {
+            future = ui2.access(() -> {
+                Assert.assertSame(ui2, UI.getCurrent());
+                run.set(true);
+            });
+            Assert.assertFalse(run.get());
+        } finally {
+            session.unlock(ui1);
+        }
+        future.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(run.get());
+        Assert.assertFalse(session.hasLock());
+    }
+
+    @Test
+    public void automaticPush_accessOtherUiWhileUiPushed_runAfterUnlock()
+            throws Exception {
+        session.lock();
+        try {
+            ui1.getPushConfiguration().setPushMode(PushMode.AUTOMATIC);
+            ui2.getPushConfiguration().setPushMode(PushMode.AUTOMATIC);
+        } finally {
+            session.unlock();
+        }
+
+        List<String> run = new CopyOnWriteArrayList<>();
+        AtomicBoolean sessionTaskExclusive = new AtomicBoolean();
+        Future<Void> ui1Future;
+        Future<Void> ui2Future;
+        Future<Void> sessionFuture;
+        session.lock(ui1);
+        try {
+            ui2Future = ui2.access(() -> run.add("ui2"));
+            sessionFuture = session.access(() -> {
+                sessionTaskExclusive.set(session.hasLock());
+                run.add("session");
+            });
+            ui1Future = ui1.access(() -> run.add("ui1"));
+
+            // Only runs the tasks for the locked UI
+            ui1.push();
+            Assert.assertTrue(ui1Future.isDone());
+            Assert.assertEquals(Arrays.asList("ui1"), run);
+            Assert.assertFalse(ui2Future.isDone());
+            Assert.assertFalse(sessionFuture.isDone());
+        } finally {
+            // Pushes again when releasing the UI lock
+            session.unlock(ui1);
+        }
+
+        ui2Future.get(5, TimeUnit.SECONDS);
+        sessionFuture.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList("ui1", "ui2", "session"), run);
+        Assert.assertTrue(sessionTaskExclusive.get());
+        Assert.assertFalse(session.hasSharedLock());
+    }
+
+    @Test
+    public void accessUi_runWhenUiUnlocked() throws Exception {
+        List<String> run = new CopyOnWriteArrayList<>();
+        session.lock(ui1);
+        try {
+            ui1.access(() -> run.add("ui1"));
+            Assert.assertTrue(run.isEmpty());
+        } finally {
+            session.unlock(ui1);
+        }
+        Assert.assertEquals(Arrays.asList("ui1"), run);
+    }
+
+    @Test
+    public void uiLocked_sessionAccessNotRun() throws Exception {
+        AtomicBoolean run = new AtomicBoolean();
+        session.lock(ui1);
+        try {
+            session.access(() -> run.set(true));
+            service.runPendingAccessTasks(session);
+            Assert.assertFalse(run.get());
+            Assert.assertEquals(1, session.getPendingAccessQueue().size());
+        } finally {
+            session.unlock(ui1);
+        }
+        Assert.assertTrue(run.get());
+    }
+
+    @Test
+    public void removedUi_lockReleased() {
+        session.lock();
+        try {
+            session.lock(ui1);
+            session.unlock(ui1);
+            UI.setCurrent(ui1);
+            session.removeUI(ui1);
+        } finally {
+            session.unlock();
+            UI.setCurrent(null);
+        }
+        Assert.assertNull(ui1.getSession());
+
+        // A detached UI is locked using the session lock
+        session.lock(ui1);
+        try {
+            Assert.assertTrue(session
+                    .getLockInstance() instanceof ReentrantReadWriteLock.WriteLock);
+            Assert.assertTrue(VaadinSession
+                    .isHeldByCurrentThread(session.getLockInstance()));
+        } finally {
+            session.unlock(ui1);
+        }
+    }
+}
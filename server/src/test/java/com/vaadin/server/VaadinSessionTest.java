@@ -313,6 +313,43 @@ public class VaadinSessionTest implements Serializable {
         deserializedSession.unlock();
     }
 
+    @Test
+    public void refreshTransients_deserializedSession_heartbeatTimestampsRefreshed()
+            throws Exception {
+        session.lock();
+        ui.setLastHeartbeatTimestamp(0);
+        int uiId = ui.getUIId();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(session);
+        }
+        session.unlock();
+        CurrentInstance.clearAll();
+
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bos.toByteArray()));
+        VaadinSession deserializedSession = (VaadinSession) in.readObject();
+        long start = System.currentTimeMillis();
+        deserializedSession.refreshTransients(mockWrappedSession, mockService);
+
+        deserializedSession.lock();
+        try {
+            UI deserializedUi = deserializedSession.getUIById(uiId);
+            long timestamp = deserializedUi.getLastHeartbeatTimestamp();
+            Assert.assertTrue("Restored UI should not be considered inactive",
+                    timestamp >= start);
+
+            // Only refreshed once after deserialization
+            deserializedUi.setLastHeartbeatTimestamp(1);
+            deserializedSession.refreshTransients(mockWrappedSession,
+                    mockService);
+            Assert.assertEquals(1, deserializedUi.getLastHeartbeatTimestamp());
+        } finally {
+            deserializedSession.unlock();
+        }
+    }
+
     @Test
     public void lockedDuringSerialization() throws IOException {
         final AtomicBoolean lockChecked = new AtomicBoolean(false);
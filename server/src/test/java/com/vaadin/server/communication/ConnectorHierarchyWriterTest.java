@@ -0,0 +1,218 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.PaintTarget;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.CssLayout;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+
+public class ConnectorHierarchyWriterTest {
+
+    private static class TestUI extends UI {
+
+        private final VaadinSession session;
+
+        TestUI(VaadinSession session) {
+            this.session = session;
+        }
+
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+
+        @Override
+        public VaadinSession getSession() {
+            return session;
+        }
+    }
+
+    private final MockVaadinSession session = new MockVaadinSession(
+            Mockito.mock(VaadinService.class));
+
+    private UI ui;
+    private ConnectorTracker tracker;
+    private CssLayout layout;
+    private Label label;
+
+    @Before
+    public void setUp() {
+        session.lock();
+        ui = new TestUI(session);
+        tracker = ui.getConnectorTracker();
+        // The UI is not attached through a real session in this test
+        tracker.registerConnector(ui);
+        layout = new CssLayout();
+        label = new Label();
+        layout.addComponent(label);
+        ui.setContent(layout);
+    }
+
+    private JsonObject writeHierarchy(Set<String> stateUpdateConnectors)
+            throws IOException {
+        StringWriter writer = new StringWriter();
+        new ConnectorHierarchyWriter().write(ui, writer,
+                stateUpdateConnectors);
+        tracker.markAllConnectorsClean();
+        return Json.parse(writer.toString());
+    }
+
+    private JsonObject writeTypes() throws IOException {
+        PaintTarget target = Mockito.mock(PaintTarget.class);
+        Mockito.when(target.getTag(Mockito.any())).thenReturn("1");
+        StringWriter writer = new StringWriter();
+        new ConnectorTypeWriter().write(ui, writer, target);
+        return Json.parse(writer.toString());
+    }
+
+    @Test
+    public void unchangedHierarchy_notSentAgain() throws IOException {
+        JsonObject hierarchy = writeHierarchy(Collections.emptySet());
+        Assert.assertTrue(hierarchy.hasKey(ui.getConnectorId()));
+        Assert.assertTrue(hierarchy.hasKey(layout.getConnectorId()));
+        Assert.assertTrue(hierarchy.hasKey(label.getConnectorId()));
+
+        ui.markAsDirty();
+        layout.markAsDirty();
+        label.markAsDirty();
+        Assert.assertEquals(0, writeHierarchy(Collections.emptySet())
+                .keys().length);
+    }
+
+    @Test
+    public void changedHierarchy_onlyChangedSent() throws IOException {
+        writeHierarchy(Collections.emptySet());
+
+        ui.markAsDirty();
+        Label newLabel = new Label();
+        layout.addComponent(newLabel);
+
+        JsonObject hierarchy = writeHierarchy(Collections.emptySet());
+        Assert.assertFalse(hierarchy.hasKey(ui.getConnectorId()));
+        Assert.assertEquals(2,
+                hierarchy.getArray(layout.getConnectorId()).length());
+        Assert.assertTrue(hierarchy.hasKey(newLabel.getConnectorId()));
+    }
+
+    @Test
+    public void childAddedToLargeLayout_onlyChangeSent() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            layout.addComponent(new Label());
+        }
+        writeHierarchy(Collections.emptySet());
+
+        Label newLabel = new Label();
+        layout.addComponent(newLabel, 3);
+
+        JsonObject change = writeHierarchy(
+                Collections.singleton(layout.getConnectorId()))
+                        .getObject(layout.getConnectorId());
+        Assert.assertEquals(3, (int) change
+                .getNumber(ApplicationConstants.HIERARCHY_CHANGE_INDEX));
+        Assert.assertEquals(0, (int) change
+                .getNumber(ApplicationConstants.HIERARCHY_CHANGE_REMOVED));
+        JsonArray added = change
+                .getArray(ApplicationConstants.HIERARCHY_CHANGE_ADDED);
+        Assert.assertEquals(1, added.length());
+        Assert.assertEquals(newLabel.getConnectorId(), added.getString(0));
+
+        layout.removeComponent(label);
+
+        change = writeHierarchy(Collections.emptySet())
+                .getObject(layout.getConnectorId());
+        Assert.assertEquals(0, (int) change
+                .getNumber(ApplicationConstants.HIERARCHY_CHANGE_INDEX));
+        Assert.assertEquals(1, (int) change
+                .getNumber(ApplicationConstants.HIERARCHY_CHANGE_REMOVED));
+        Assert.assertEquals(0, change
+                .getArray(ApplicationConstants.HIERARCHY_CHANGE_ADDED)
+                .length());
+    }
+
+    @Test
+    public void mostChildrenReplaced_allChildrenSent() throws IOException {
+        writeHierarchy(Collections.emptySet());
+
+        layout.removeAllComponents();
+        layout.addComponents(new Label(), new Label());
+
+        JsonObject hierarchy = writeHierarchy(Collections.emptySet());
+        Assert.assertEquals(2,
+                hierarchy.getArray(layout.getConnectorId()).length());
+    }
+
+    @Test
+    public void stateUpdate_nonEmptyHierarchyAlwaysSent() throws IOException {
+        writeHierarchy(Collections.emptySet());
+
+        layout.markAsDirty();
+        label.markAsDirty();
+        JsonObject hierarchy = writeHierarchy(
+                Collections.singleton(layout.getConnectorId()));
+        Assert.assertTrue(hierarchy.hasKey(layout.getConnectorId()));
+        Assert.assertFalse(hierarchy.hasKey(label.getConnectorId()));
+    }
+
+    @Test
+    public void clientSidesUninitialized_everythingSentAgain()
+            throws IOException {
+        writeHierarchy(Collections.emptySet());
+
+        tracker.markAllClientSidesUninitialized();
+        ui.markAsDirty();
+        layout.markAsDirty();
+        label.markAsDirty();
+
+        Assert.assertEquals(3, writeTypes().keys().length);
+        Assert.assertEquals(3,
+                writeHierarchy(Collections.emptySet()).keys().length);
+    }
+
+    @Test
+    public void types_onlySentForUninitializedConnectors() throws IOException {
+        Assert.assertEquals(3, writeTypes().keys().length);
+
+        tracker.markClientSideInitialized(ui);
+        tracker.markClientSideInitialized(layout);
+        Label newLabel = new Label();
+        layout.addComponent(newLabel);
+
+        JsonObject types = writeTypes();
+        Assert.assertFalse(types.hasKey(layout.getConnectorId()));
+        Assert.assertTrue(types.hasKey(label.getConnectorId()));
+        Assert.assertTrue(types.hasKey(newLabel.getConnectorId()));
+    }
+}
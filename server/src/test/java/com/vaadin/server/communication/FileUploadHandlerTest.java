@@ -15,7 +15,9 @@
  */
 package com.vaadin.server.communication;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -32,6 +34,7 @@ import org.mockito.MockitoAnnotations;
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.ServletPortletHelper;
 import com.vaadin.server.StreamVariable;
+import com.vaadin.server.StreamVariable.StreamingProgressEvent;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinResponse;
 import com.vaadin.server.VaadinSession;
@@ -165,4 +168,25 @@ public class FileUploadHandlerTest {
 
         verifyZeroInteractions(responseOutput);
     }
+
+    @Test
+    public void progressListened_eventsQueuedWithoutLocking()
+            throws IOException {
+        handler = new FileUploadHandler() {
+            @Override
+            protected int getProgressEventInterval() {
+                return 0;
+            }
+        };
+        when(streamVariable.listenProgress()).thenReturn(true);
+        when(request.getContentType()).thenReturn("application/octet-stream");
+
+        handler.handleRequest(session, request, response);
+
+        // Progress during the upload is delivered through an access task
+        verify(session).access(any(Runnable.class));
+        // The final progress event is sent together with the end event
+        verify(streamVariable, times(1))
+                .onProgress(any(StreamingProgressEvent.class));
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Utf8BufferWriterTest {
+
+    private static final String TEXT = "for(;;);[{\"a\": \"\u00e4\u20ac\ud83d\ude00\"}]";
+
+    @Test
+    public void write_matchesStringGetBytes() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter(16);
+        writer.write(TEXT);
+        writer.write(TEXT.toCharArray());
+        // Surrogate pair split between two writes
+        writer.write('\ud83d');
+        writer.write('\ude00');
+        writer.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        String expected = TEXT + TEXT + "\ud83d\ude00";
+        Assert.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+                out.toByteArray());
+        Assert.assertEquals(0, writer.size());
+    }
+
+    @Test
+    public void write_unpairedSurrogate_writesReplacement() throws IOException {
+        Utf8BufferWriter writer = new Utf8BufferWriter();
+        writer.write("a\ud83db\ude00c\ud83d");
+        writer.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        Assert.assertEquals("a?b?c?",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void setOutput_flushesPastThreshold() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8BufferWriter writer = new Utf8BufferWriter(16);
+        writer.setOutput(out, 32);
+
+        writer.write(TEXT);
+        Assert.assertFalse(writer.isCommitted());
+        writer.write(TEXT);
+        Assert.assertTrue(writer.isCommitted());
+        Assert.assertEquals(0, writer.size());
+        writer.write("}");
+        writer.flush();
+
+        Assert.assertEquals(TEXT + TEXT + "}",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        writer.reset();
+        Assert.assertFalse(writer.isCommitted());
+    }
+
+    @Test
+    public void getEncodedLength_matchesEncodedBytes() throws IOException {
+        String text = TEXT + "\u00e4\u20ac\ud83d\ude00";
+        Assert.assertEquals(text.getBytes(StandardCharsets.UTF_8).length,
+                Utf8BufferWriter.getEncodedLength(text));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8BufferWriter writer = new Utf8BufferWriter(16);
+        writer.setOutput(out, 32);
+        writer.write(text);
+        writer.write(text);
+        Assert.assertEquals(2 * Utf8BufferWriter.getEncodedLength(text),
+                writer.getByteCount());
+    }
+}
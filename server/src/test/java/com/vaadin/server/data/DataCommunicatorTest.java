@@ -15,12 +15,21 @@
  */
 package com.vaadin.server.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.vaadin.server.ClientMethodInvocation;
 import com.vaadin.server.MockVaadinSession;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
@@ -85,8 +94,80 @@ public class DataCommunicatorTest {
         }
     }
 
-    private final MockVaadinSession session = new MockVaadinSession(
-            Mockito.mock(VaadinService.class));
+    private static class CountingDataProvider
+            extends ListDataProvider<Integer> {
+
+        private final AtomicInteger fetchCount = new AtomicInteger();
+
+        public CountingDataProvider(Integer... items) {
+            super(Arrays.asList(items));
+        }
+
+        @Override
+        public Stream<Integer> fetch(Query query) {
+            fetchCount.incrementAndGet();
+            return super.fetch(query);
+        }
+    }
+
+    private static class AsyncDataCommunicator
+            extends DataCommunicator<Integer> {
+        private final List<Integer> pushedRows = new ArrayList<>();
+        private int pushCount = 0;
+
+        protected void extend(UI ui) {
+            super.extend(ui);
+        }
+
+        @Override
+        protected void pushData(int firstIndex, Stream<Integer> data) {
+            pushCount++;
+            pushedRows.clear();
+            pushedRows.addAll(data.collect(Collectors.toList()));
+            super.pushData(firstIndex, pushedRows.stream());
+        }
+
+        private List<String> getRpcMethodNames() {
+            return retrievePendingRpcCalls().stream()
+                    .map(ClientMethodInvocation::getMethodName)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private final VaadinService service = Mockito.mock(VaadinService.class);
+    private final MockVaadinSession session = new MockVaadinSession(service);
+    private final List<Runnable> accessTasks = new ArrayList<>();
+    private final List<CompletableFuture<Stream<Integer>>> fetches = new ArrayList<>();
+    private final List<CompletableFuture<Integer>> sizes = new ArrayList<>();
+
+    private AsyncDataCommunicator createAsyncCommunicator() {
+        Mockito.when(service.accessUI(Mockito.any(UI.class),
+                Mockito.any(Runnable.class))).then(invocation -> {
+                    accessTasks.add((Runnable) invocation.getArguments()[1]);
+                    return null;
+                });
+        session.lock();
+        UI ui = new TestUI(session);
+
+        AsyncDataCommunicator communicator = new AsyncDataCommunicator();
+        communicator.extend(ui);
+        communicator.setDataProvider(new AsyncBackEndDataProvider<>(query -> {
+            CompletableFuture<Stream<Integer>> fetch = new CompletableFuture<>();
+            fetches.add(fetch);
+            return fetch;
+        }, query -> {
+            CompletableFuture<Integer> size = new CompletableFuture<>();
+            sizes.add(size);
+            return size;
+        }));
+        return communicator;
+    }
+
+    private void runAccessTasks() {
+        List<Runnable> tasks = new ArrayList<>(accessTasks);
+        accessTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
 
     @Test
     public void attach_dataProviderListenerIsNotAddedBeforeAttachAndAddedAfter() {
@@ -126,4 +207,158 @@ public class DataCommunicatorTest {
         Assert.assertFalse(dataProvider.isListenerAdded());
     }
 
+    @Test
+    public void inMemoryItems_fetchedOnceUntilReset() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        DataCommunicator<Integer> communicator = new DataCommunicator<Integer>() {
+            {
+                extend(ui);
+            }
+        };
+        CountingDataProvider dataProvider = new CountingDataProvider(3, 1, 2);
+        communicator.setDataProvider(dataProvider);
+        communicator.setInMemoryFilter(i -> i > 1);
+        communicator.setInMemorySorting(Comparator.naturalOrder());
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, dataProvider.fetchCount.get());
+
+        communicator.createRpc().requestRows(0, 1, 0, 0);
+        communicator.beforeClientResponse(false);
+        communicator.createRpc().requestRows(1, 1, 0, 0);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(1, dataProvider.fetchCount.get());
+
+        dataProvider.refreshAll();
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(2, dataProvider.fetchCount.get());
+
+        communicator.setInMemorySorting(Comparator.reverseOrder());
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(3, dataProvider.fetchCount.get());
+    }
+
+    @Test
+    public void inMemoryItems_changedWhileDetached_currentRowsSentAfterAttach() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+
+        AsyncDataCommunicator communicator = new AsyncDataCommunicator();
+        List<Integer> items = new ArrayList<>(Arrays.asList(1, 2));
+        ListDataProvider<Integer> dataProvider = new ListDataProvider<>(
+                items);
+        communicator.setDataProvider(dataProvider);
+        communicator.extend(ui);
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(Arrays.asList(1, 2), communicator.pushedRows);
+
+        communicator.detach();
+        // Not received by the detached communicator
+        items.add(3);
+        dataProvider.refreshAll();
+        communicator.attach();
+
+        communicator.createRpc().requestRows(0, 3, 0, 0);
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), communicator.pushedRows);
+    }
+
+    @Test
+    public void asyncDataProvider_rowsSentWhenQueryCompletes() {
+        AsyncDataCommunicator communicator = createAsyncCommunicator();
+
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(1, sizes.size());
+        Assert.assertEquals(1, fetches.size());
+        Assert.assertTrue(communicator.getRpcMethodNames().isEmpty());
+
+        sizes.get(0).complete(100);
+        Assert.assertTrue("Should wait for the rows", accessTasks.isEmpty());
+        fetches.get(0).complete(Stream.of(1, 2, 3));
+        Assert.assertEquals(1, accessTasks.size());
+        Assert.assertEquals(0, communicator.pushCount);
+
+        runAccessTasks();
+        Assert.assertEquals(Arrays.asList(1, 2, 3), communicator.pushedRows);
+        Assert.assertEquals(Arrays.asList("reset", "setData"),
+                communicator.getRpcMethodNames());
+    }
+
+    @Test
+    public void asyncDataProvider_completedQuery_rowsSentRightAway() {
+        AsyncDataCommunicator communicator = createAsyncCommunicator();
+        communicator.beforeClientResponse(true);
+        sizes.get(0).complete(100);
+        fetches.get(0).complete(Stream.of(1, 2, 3));
+        runAccessTasks();
+        communicator.getRpcMethodNames();
+
+        communicator.setDataProvider(new AsyncBackEndDataProvider<>(
+                query -> CompletableFuture.completedFuture(Stream.of(4, 5)),
+                query -> CompletableFuture.completedFuture(2)));
+        communicator.createRpc().requestRows(0, 2, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        Assert.assertTrue(accessTasks.isEmpty());
+        Assert.assertEquals(Arrays.asList(4, 5), communicator.pushedRows);
+        Assert.assertEquals(Arrays.asList("reset", "setData"),
+                communicator.getRpcMethodNames());
+    }
+
+    @Test
+    public void asyncDataProvider_newRowsRequested_staleQueryCancelled() {
+        AsyncDataCommunicator communicator = createAsyncCommunicator();
+        communicator.beforeClientResponse(true);
+        CompletableFuture<Stream<Integer>> staleFetch = fetches.get(0);
+
+        communicator.createRpc().requestRows(100, 3, 0, 0);
+        communicator.beforeClientResponse(false);
+
+        Assert.assertTrue(staleFetch.isCancelled());
+        Assert.assertTrue(sizes.get(0).isCancelled());
+        // The size of the cancelled request is needed
+        Assert.assertEquals(2, sizes.size());
+        Assert.assertEquals(2, fetches.size());
+
+        sizes.get(1).complete(200);
+        fetches.get(1).complete(Stream.of(100, 101, 102));
+        runAccessTasks();
+
+        Assert.assertEquals(1, communicator.pushCount);
+        Assert.assertEquals(Arrays.asList(100, 101, 102),
+                communicator.pushedRows);
+        Assert.assertEquals(Arrays.asList("reset", "setData"),
+                communicator.getRpcMethodNames());
+    }
+
+    @Test
+    public void asyncDataProvider_completedWhileWaitingForLock_ignored() {
+        AsyncDataCommunicator communicator = createAsyncCommunicator();
+        communicator.beforeClientResponse(true);
+        sizes.get(0).complete(100);
+        fetches.get(0).complete(Stream.of(1, 2, 3));
+        Assert.assertEquals(1, accessTasks.size());
+
+        communicator.createRpc().requestRows(100, 3, 0, 0);
+        communicator.beforeClientResponse(false);
+        runAccessTasks();
+
+        Assert.assertEquals(0, communicator.pushCount);
+        Assert.assertTrue(communicator.getRpcMethodNames().isEmpty());
+    }
+
+    @Test
+    public void asyncDataProvider_nothingRequested_runningQueryNotCancelled() {
+        AsyncDataCommunicator communicator = createAsyncCommunicator();
+        communicator.beforeClientResponse(true);
+
+        communicator.beforeClientResponse(false);
+        Assert.assertFalse(fetches.get(0).isCancelled());
+        Assert.assertEquals(1, fetches.size());
+    }
 }
@@ -0,0 +1,77 @@
+package com.vaadin.server.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntKeyMapperTest {
+
+    @Test
+    public void key_sameObjectSameKey_removedObjectNewKey() {
+        IntKeyMapper<Object> mapper = new IntKeyMapper<>();
+        Object o1 = new Object();
+        Object o2 = new Object();
+
+        String key1 = mapper.key(o1);
+        String key2 = mapper.key(o2);
+        Assert.assertNotEquals(key1, key2);
+        Assert.assertEquals(key1, mapper.key(o1));
+        Assert.assertSame(o1, mapper.get(key1));
+        Assert.assertSame(o2, mapper.get(key2));
+        Assert.assertEquals(2, mapper.size());
+
+        mapper.remove(o1);
+        Assert.assertNull(mapper.get(key1));
+        Assert.assertFalse(mapper.containsKey(key1));
+        Assert.assertNotEquals(key1, mapper.key(o1));
+        Assert.assertEquals(2, mapper.size());
+
+        mapper.removeAll();
+        Assert.assertEquals(0, mapper.size());
+        Assert.assertNull(mapper.get(key2));
+    }
+
+    @Test
+    public void get_invalidKeys_returnNull() {
+        IntKeyMapper<String> mapper = new IntKeyMapper<>();
+        String key = mapper.key("foo");
+
+        Assert.assertNull(mapper.get((String) null));
+        Assert.assertNull(mapper.get(""));
+        Assert.assertNull(mapper.get("0" + key));
+        Assert.assertNull(mapper.get("-" + key));
+        Assert.assertNull(mapper.get("abc"));
+        Assert.assertNull(mapper.get("99999999999"));
+        Assert.assertEquals("null", mapper.key(null));
+    }
+
+    @Test
+    public void randomOperations_matchHashMap() {
+        IntKeyMapper<Integer> mapper = new IntKeyMapper<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20000; i++) {
+            Integer value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                mapper.remove(value);
+                expected.remove(value);
+            } else {
+                String key = mapper.key(value);
+                String old = expected.putIfAbsent(value, key);
+                if (old != null) {
+                    Assert.assertEquals(old, key);
+                }
+            }
+        }
+
+        Assert.assertEquals(expected.size(), mapper.size());
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getKey(), mapper.get(entry.getValue()));
+            Assert.assertEquals(entry.getValue(), mapper.key(entry.getKey()));
+        }
+    }
+}
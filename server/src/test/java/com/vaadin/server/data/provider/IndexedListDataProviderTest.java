@@ -0,0 +1,249 @@
+package com.vaadin.server.data.provider;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.SerializablePredicate;
+import com.vaadin.server.data.IndexedListDataProvider;
+import com.vaadin.server.data.Query;
+import com.vaadin.server.data.SortOrder;
+import com.vaadin.shared.data.sort.SortDirection;
+import com.vaadin.shared.ui.combobox.ComboBoxServerRpc;
+import com.vaadin.ui.ComboBox;
+import com.vaadin.ui.ComponentTest;
+
+public class IndexedListDataProviderTest {
+
+    /**
+     * Records the queries used for counting the items.
+     */
+    private static class RecordingDataProvider
+            extends IndexedListDataProvider<StrBean> {
+        private Query lastQuery;
+
+        private RecordingDataProvider(List<StrBean> items) {
+            super(items);
+        }
+
+        @Override
+        public int size(Query query) {
+            lastQuery = query;
+            return super.size(query);
+        }
+    }
+
+    private IndexedListDataProvider<StrBean> dataProvider;
+    private List<StrBean> data;
+
+    @Before
+    public void setUp() {
+        data = StrBean.generateRandomBeans(100);
+        dataProvider = new IndexedListDataProvider<>(data)
+                .addHashIndex("value", StrBean::getValue)
+                .addSortedIndex("randomNumber", StrBean::getRandomNumber)
+                .addSortedIndex("id", StrBean::getId)
+                .addTextIndex("caption", StrBean::getValue, Locale.ENGLISH);
+    }
+
+    private List<StrBean> fetch(Object... filters) {
+        return dataProvider.fetch(query(filters)).collect(Collectors.toList());
+    }
+
+    private static Query query(Object... filters) {
+        return new Query(0, Integer.MAX_VALUE, Collections.emptyList(),
+                new HashSet<>(Arrays.asList(filters)));
+    }
+
+    private List<StrBean> filter(SerializablePredicate<StrBean> predicate) {
+        return data.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    @Test
+    public void equalToFilter_matchesScan() {
+        Assert.assertEquals(filter(b -> b.getValue().equals("Foo")),
+                fetch(IndexedListDataProvider.equalTo("value", "Foo")));
+        Assert.assertEquals(
+                filter(b -> b.getValue().equals("Foo")).size(), dataProvider
+                        .size(query(IndexedListDataProvider.equalTo("value",
+                                "Foo"))));
+    }
+
+    @Test
+    public void betweenFilter_matchesScan() {
+        Set<StrBean> expected = new HashSet<>(filter(
+                b -> b.getRandomNumber() >= 3 && b.getRandomNumber() <= 5));
+        Assert.assertEquals(expected, new HashSet<>(fetch(
+                IndexedListDataProvider.between("randomNumber", 3, 5))));
+    }
+
+    @Test
+    public void betweenFilter_invertedRange_matchesNothing() {
+        Assert.assertTrue(
+                fetch(IndexedListDataProvider.between("randomNumber", 5, 3))
+                        .isEmpty());
+        Assert.assertEquals(0, dataProvider.size(
+                query(IndexedListDataProvider.between("randomNumber", 5, 3))));
+    }
+
+    @Test
+    public void containsTextFilter_ignoresCase() {
+        Assert.assertEquals(
+                filter(b -> b.getValue().toLowerCase().contains("a")),
+                fetch(IndexedListDataProvider.containsText("caption", "A")));
+        Assert.assertEquals(
+                filter(b -> b.getValue().toLowerCase().contains("xyz")),
+                fetch(IndexedListDataProvider.containsText("caption", "xYz")));
+        Assert.assertTrue(
+                fetch(IndexedListDataProvider.containsText("caption", "Fooo"))
+                        .isEmpty());
+        Assert.assertEquals(data.size(), fetch(
+                IndexedListDataProvider.containsText("caption", "")).size());
+    }
+
+    @Test
+    public void combinedFilters_intersect() {
+        SerializablePredicate<StrBean> evenId = b -> b.getId() % 2 == 0;
+        Assert.assertEquals(
+                new HashSet<>(filter(b -> b.getValue().equals("Bar")
+                        && b.getRandomNumber() <= 4 && evenId.test(b))),
+                new HashSet<>(fetch(
+                        IndexedListDataProvider.equalTo("value", "Bar"),
+                        IndexedListDataProvider.between("randomNumber", null,
+                                4),
+                        evenId)));
+    }
+
+    @Test
+    public void sortAndPage_usesSortedIndex() {
+        List<StrBean> expected = data.stream()
+                .sorted(Comparator.comparing(StrBean::getId).reversed())
+                .skip(10).limit(20).collect(Collectors.toList());
+        List<StrBean> result = dataProvider
+                .fetch(new Query(10, 20,
+                        Collections.singletonList(
+                                new SortOrder<>("id", SortDirection.DESCENDING)),
+                        Collections.emptySet()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void addRemoveAndRefresh_updateIndexes() {
+        StrBean bean = new StrBean("Qux", 1000, 1);
+        dataProvider.addItem(bean);
+        Assert.assertEquals(Collections.singletonList(bean),
+                fetch(IndexedListDataProvider.equalTo("value", "Qux")));
+
+        bean.setValue("Quux");
+        dataProvider.refreshItem(bean);
+        Assert.assertTrue(
+                fetch(IndexedListDataProvider.equalTo("value", "Qux"))
+                        .isEmpty());
+        Assert.assertEquals(Collections.singletonList(bean),
+                fetch(IndexedListDataProvider.containsText("caption", "uux")));
+
+        dataProvider.removeItem(bean);
+        Assert.assertTrue(
+                fetch(IndexedListDataProvider.equalTo("value", "Quux"))
+                        .isEmpty());
+        Assert.assertEquals(data.size(), dataProvider.size(new Query()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_duplicateItems_rejected() {
+        StrBean bean = new StrBean("Foo", 1, 1);
+        new IndexedListDataProvider<>(Arrays.asList(bean, bean));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addItem_alreadyContained_rejected() {
+        dataProvider.addItem(data.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setCaptionFilterProperty_noTextIndex_rejected() {
+        dataProvider.setCaptionFilterProperty("value");
+    }
+
+    @Test
+    public void comboBoxFilter_captionFilterProperty_usesTextIndex() {
+        RecordingDataProvider recording = new RecordingDataProvider(data);
+        recording.addTextIndex("caption", StrBean::getValue, Locale.ENGLISH)
+                .setCaptionFilterProperty("caption");
+        ComboBox<StrBean> comboBox = createComboBox(recording);
+
+        setComboBoxFilter(comboBox, "XY");
+
+        Assert.assertEquals(1, recording.lastQuery.getFilters().size());
+        Object filter = recording.lastQuery.getFilters().iterator().next();
+        Assert.assertTrue(
+                filter instanceof IndexedListDataProvider.IndexFilter);
+        Assert.assertEquals("caption",
+                ((IndexedListDataProvider.IndexFilter) filter).getProperty());
+        Assert.assertEquals(countContaining("xy"),
+                recording.size(recording.lastQuery));
+
+        setComboBoxFilter(comboBox, null);
+        Assert.assertTrue(recording.lastQuery.getFilters().isEmpty());
+    }
+
+    @Test
+    public void comboBoxFilter_customFilter_appliedToEachItem() {
+        RecordingDataProvider recording = new RecordingDataProvider(data);
+        recording.addTextIndex("caption", StrBean::getValue, Locale.ENGLISH)
+                .setCaptionFilterProperty("caption");
+        ComboBox<StrBean> comboBox = createComboBox(recording);
+        comboBox.setFilter(
+                (text, bean) -> bean.getValue().startsWith(text));
+
+        setComboBoxFilter(comboBox, "Xy");
+
+        Object filter = recording.lastQuery.getFilters().iterator().next();
+        Assert.assertTrue(filter instanceof SerializablePredicate);
+        Assert.assertEquals(
+                filter(bean -> bean.getValue().startsWith("Xy")).size(),
+                recording.size(recording.lastQuery));
+    }
+
+    @Test
+    public void comboBoxFilter_noCaptionFilterProperty_appliedToEachItem() {
+        RecordingDataProvider recording = new RecordingDataProvider(data);
+        ComboBox<StrBean> comboBox = createComboBox(recording);
+
+        setComboBoxFilter(comboBox, "xY");
+
+        Assert.assertEquals(countContaining("xy"),
+                recording.size(recording.lastQuery));
+    }
+
+    private static ComboBox<StrBean> createComboBox(
+            IndexedListDataProvider<StrBean> dataProvider) {
+        ComboBox<StrBean> comboBox = new ComboBox<>();
+        comboBox.setLocale(Locale.ENGLISH);
+        comboBox.setItemCaptionGenerator(StrBean::getValue);
+        comboBox.setDataProvider(dataProvider);
+        return comboBox;
+    }
+
+    private static void setComboBoxFilter(ComboBox<StrBean> comboBox,
+            String filterText) {
+        ComponentTest.getRpcProxy(comboBox, ComboBoxServerRpc.class)
+                .setFilter(filterText);
+        comboBox.getDataCommunicator().beforeClientResponse(true);
+    }
+
+    private int countContaining(String text) {
+        return filter(bean -> bean.getValue().toLowerCase(Locale.ENGLISH)
+                .contains(text)).size();
+    }
+}
@@ -16,6 +16,9 @@
 package com.vaadin.tests.event;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.List;
 
 import org.easymock.EasyMock;
 import org.junit.Assert;
@@ -108,4 +111,89 @@ public class EventRouterTest {
         router.fireEvent(new Component.Event(component), errorHandler);
         EasyMock.verify(listener, listener2, errorHandler);
     }
+
+    public static class SubclassEvent extends Component.Event {
+        public SubclassEvent(Component source) {
+            super(source);
+        }
+    }
+
+    public static class OtherEvent extends EventObject {
+        public OtherEvent(Object source) {
+            super(source);
+        }
+    }
+
+    @Test
+    public void fireEvent_subclassEvent_onlyMatchingListenersCalled() {
+        List<EventObject> events = new ArrayList<>();
+        Listener recorder = events::add;
+        EventRouter router = new EventRouter();
+        router.addListener(Component.Event.class, recorder,
+                COMPONENT_EVENT_METHOD);
+        router.addListener(SubclassEvent.class, recorder,
+                COMPONENT_EVENT_METHOD);
+
+        Component.Event event = new Component.Event(component);
+        router.fireEvent(event);
+        router.fireEvent(new OtherEvent(component));
+        Assert.assertEquals(1, events.size());
+        Assert.assertSame(event, events.get(0));
+
+        events.clear();
+        SubclassEvent subclassEvent = new SubclassEvent(component);
+        router.fireEvent(subclassEvent);
+        // Received by both registrations
+        Assert.assertEquals(2, events.size());
+        Assert.assertSame(subclassEvent, events.get(0));
+        Assert.assertSame(subclassEvent, events.get(1));
+    }
+
+    @Test
+    public void fireEvent_listenerAddedDuringFire_notCalledUntilNextEvent() {
+        EventRouter router = new EventRouter();
+        List<String> calls = new ArrayList<>();
+        Listener second = event -> calls.add("second");
+        Listener first = event -> {
+            calls.add("first");
+            router.addListener(Component.Event.class, second,
+                    COMPONENT_EVENT_METHOD);
+        };
+        router.addListener(Component.Event.class, first,
+                COMPONENT_EVENT_METHOD);
+
+        router.fireEvent(new Component.Event(component));
+        Assert.assertEquals(1, calls.size());
+
+        calls.clear();
+        router.fireEvent(new Component.Event(component));
+        Assert.assertEquals(2, calls.size());
+        Assert.assertEquals("first", calls.get(0));
+        Assert.assertEquals("second", calls.get(1));
+    }
+
+    @Test
+    public void fireEvent_listenerRemoved_notCalled() {
+        EventRouter router = new EventRouter();
+        List<EventObject> events = new ArrayList<>();
+        Listener recorder = events::add;
+        router.addListener(Component.Event.class, recorder,
+                COMPONENT_EVENT_METHOD);
+
+        router.fireEvent(new Component.Event(component));
+        Assert.assertEquals(1, events.size());
+
+        router.removeListener(Component.Event.class, recorder,
+                COMPONENT_EVENT_METHOD);
+        router.fireEvent(new Component.Event(component));
+        Assert.assertEquals(1, events.size());
+        Assert.assertFalse(router.hasListeners(Component.Event.class));
+    }
+
+    @Test
+    public void fireEvent_noMatchingListeners_nothingCalled() {
+        EasyMock.replay(component, listener);
+        router.fireEvent(new OtherEvent(component));
+        EasyMock.verify(listener);
+    }
 }
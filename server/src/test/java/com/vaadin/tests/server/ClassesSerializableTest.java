@@ -61,6 +61,8 @@ public class ClassesSerializableTest {
             "com\\.vaadin\\.server\\.MockServletContext", //
             "com\\.vaadin\\.server\\.Constants", //
             "com\\.vaadin\\.server\\.VaadinServiceClassLoaderUtil", //
+            "com\\.vaadin\\.server\\.JfrRequestMetrics\\$.*", // JFR events
+            "com\\.vaadin\\.server\\.CompactSessionSerializer\\$.*", // streams
             "com\\.vaadin\\.server\\.VaadinServiceClassLoaderUtil\\$GetClassLoaderPrivilegedAction", //
             "com\\.vaadin\\.server\\.communication\\.FileUploadHandler\\$SimpleMultiPartInputStream", //
             "com\\.vaadin\\.server\\.communication\\.PushRequestHandler.*",
@@ -69,6 +71,8 @@ public class ClassesSerializableTest {
             "com\\.vaadin\\.server\\.communication\\.JSONSerializer", //
             // and its inner classes do not need to be serializable
             "com\\.vaadin\\.util\\.SerializerHelper", // fully static
+            // pooled per request handler in a transient field
+            "com\\.vaadin\\.server\\.communication\\.Utf8BufferWriter", //
             // class level filtering, also affecting nested classes and
             // interfaces
             "com\\.vaadin\\.server\\.LegacyCommunicationManager.*", //
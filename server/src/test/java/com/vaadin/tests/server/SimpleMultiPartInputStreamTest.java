@@ -5,6 +5,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.vaadin.server.communication.FileUploadHandler.SimpleMultiPartInputStream;
@@ -112,6 +113,25 @@ public class SimpleMultiPartInputStreamTest {
                 "abcabd", "xyz123abc");
     }
 
+    @Test
+    public void testBoundarySplitBetweenBlocks() throws Exception {
+        String content = "xyz123abcab\r\n-abc";
+        String input = content + getFullBoundary("abcabd") + "123";
+        for (int bufferSize = 1; bufferSize < input.length(); bufferSize++) {
+            SimpleMultiPartInputStream smpis = new SimpleMultiPartInputStream(
+                    new ByteArrayInputStream(input.getBytes()), "abcabd",
+                    bufferSize);
+            ByteArrayOutputStream resultStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[3];
+            int count;
+            while ((count = smpis.read(buffer)) != -1) {
+                resultStream.write(buffer, 0, count);
+            }
+            Assert.assertEquals("Buffer size " + bufferSize, content,
+                    resultStream.toString());
+        }
+    }
+
     /*
      * TODO fix these tests, they don't do what their method name says.
      */
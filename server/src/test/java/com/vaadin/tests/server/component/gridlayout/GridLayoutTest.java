@@ -2,6 +2,7 @@ package com.vaadin.tests.server.component.gridlayout;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
@@ -12,6 +13,8 @@ import org.junit.Test;
 
 import com.vaadin.ui.Component;
 import com.vaadin.ui.GridLayout;
+import com.vaadin.ui.GridLayout.OutOfBoundsException;
+import com.vaadin.ui.GridLayout.OverlapsException;
 import com.vaadin.ui.Label;
 import com.vaadin.ui.Layout;
 
@@ -75,6 +78,87 @@ public class GridLayoutTest {
         assertOrder(grid, new int[] { 0, 1, 2, 3 });
     }
 
+    @Test
+    public void testOverlappingArea() {
+        GridLayout grid = new GridLayout(3, 3);
+        grid.addComponent(children[0], 1, 0, 1, 2);
+        try {
+            grid.addComponent(children[1], 0, 1, 2, 1);
+            fail("Overlapping area should not be accepted");
+        } catch (OverlapsException e) {
+            assertSame(children[0], e.getArea().getComponent());
+        }
+        assertEquals(1, grid.getComponentCount());
+
+        grid.addComponent(children[1]);
+        grid.addComponent(children[2]);
+        assertSame(children[1], grid.getComponent(0, 0));
+        assertSame(children[2], grid.getComponent(2, 0));
+        assertSame(children[0], grid.getComponent(1, 2));
+        assertNull(grid.getComponent(0, 1));
+    }
+
+    @Test
+    public void testInsertAndRemoveRowWithSpanningArea() {
+        GridLayout grid = new GridLayout(2, 3);
+        grid.addComponent(children[0], 0, 0, 0, 2);
+        grid.addComponent(children[1], 1, 1);
+        grid.addComponent(children[2], 1, 2);
+
+        grid.insertRow(1);
+        assertEquals(4, grid.getRows());
+        assertSame(children[0], grid.getComponent(0, 1));
+        assertSame(children[0], grid.getComponent(0, 3));
+        assertNull(grid.getComponent(1, 1));
+        assertSame(children[1], grid.getComponent(1, 2));
+        assertSame(children[2], grid.getComponent(1, 3));
+        assertEquals(3, grid.getComponentArea(children[0]).getRow2());
+
+        grid.removeRow(2);
+        assertEquals(3, grid.getRows());
+        assertEquals(2, grid.getComponentCount());
+        assertSame(children[0], grid.getComponent(0, 2));
+        assertSame(children[2], grid.getComponent(1, 2));
+        assertEquals(2, grid.getComponentArea(children[2]).getRow1());
+        assertNull(grid.getComponent(1, 1));
+        assertOrder(grid, new int[] { 0, 2 });
+    }
+
+    @Test
+    public void testShrinkOccupiedGrid() {
+        GridLayout grid = new GridLayout(3, 3);
+        grid.addComponent(children[0], 1, 1, 2, 1);
+        try {
+            grid.setColumns(2);
+            fail("Occupied column should not be removed");
+        } catch (OutOfBoundsException e) {
+            assertSame(children[0], e.getArea().getComponent());
+        }
+        grid.setRows(2);
+        assertEquals(2, grid.getRows());
+        try {
+            grid.setRows(1);
+            fail("Occupied row should not be removed");
+        } catch (OutOfBoundsException e) {
+            assertSame(children[0], e.getArea().getComponent());
+        }
+    }
+
+    @Test
+    public void testReplaceComponent() {
+        GridLayout grid = new GridLayout(2, 1);
+        grid.addComponents(children[0], children[1]);
+
+        grid.replaceComponent(children[0], children[1]);
+        assertSame(children[1], grid.getComponent(0, 0));
+        assertSame(children[0], grid.getComponent(1, 0));
+        assertOrder(grid, new int[] { 1, 0 });
+
+        grid.replaceComponent(children[0], children[2]);
+        assertSame(children[2], grid.getComponent(1, 0));
+        assertOrder(grid, new int[] { 1, 2 });
+    }
+
     private void assertContentPositions(GridLayout grid) {
         assertEquals(grid.getComponentCount(), children.length);
         int c = 0;
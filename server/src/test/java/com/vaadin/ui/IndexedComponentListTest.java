@@ -0,0 +1,129 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexedComponentListTest {
+
+    private final IndexedComponentList list = new IndexedComponentList();
+
+    @Test
+    public void randomOperations_sameAsArrayList() {
+        Random random = new Random(42);
+        List<Component> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int operation = random.nextInt(5);
+            if (operation < 3 || expected.isEmpty()) {
+                Label label = new Label();
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, label);
+                expected.add(index, label);
+            } else if (operation == 3) {
+                int index = random.nextInt(expected.size());
+                Assert.assertSame(expected.remove(index), list.remove(index));
+            } else {
+                Component component = expected
+                        .get(random.nextInt(expected.size()));
+                Assert.assertTrue(list.remove(component));
+                expected.remove(component);
+            }
+
+            Assert.assertEquals(expected.size(), list.size());
+            if (!expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                Assert.assertSame(expected.get(index), list.get(index));
+                Assert.assertEquals(index, list.indexOf(expected.get(index)));
+            }
+        }
+        Assert.assertEquals(expected, list);
+    }
+
+    @Test
+    public void iteratorRemove_componentRemoved() {
+        Label first = new Label();
+        Label second = new Label();
+        Label third = new Label();
+        list.add(first);
+        list.add(second);
+        list.add(third);
+
+        Iterator<Component> iterator = list.iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        Assert.assertSame(third, iterator.next());
+        Assert.assertFalse(iterator.hasNext());
+
+        Assert.assertEquals(2, list.size());
+        Assert.assertEquals(-1, list.indexOf(second));
+        Assert.assertEquals(1, list.indexOf(third));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addContainedComponent_throws() {
+        Label label = new Label();
+        list.add(label);
+        list.add(0, label);
+    }
+
+    @Test
+    public void serialize_orderPreserved() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            list.add(new Label("Label " + i));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(list);
+        }
+        IndexedComponentList deserialized;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = (IndexedComponentList) in.readObject();
+        }
+
+        Assert.assertEquals(10, deserialized.size());
+        for (int i = 0; i < 10; i++) {
+            Label label = (Label) deserialized.get(i);
+            Assert.assertEquals("Label " + i, label.getValue());
+            Assert.assertEquals(i, deserialized.indexOf(label));
+        }
+    }
+
+    @Test
+    public void orderedLayout_addExistingComponent_movedToEnd() {
+        Label first = new Label();
+        Label second = new Label();
+        VerticalLayout layout = new VerticalLayout(first, second);
+
+        layout.addComponent(first);
+        Assert.assertEquals(2, layout.getComponentCount());
+        Assert.assertEquals(0, layout.getComponentIndex(second));
+        Assert.assertEquals(1, layout.getComponentIndex(first));
+        Assert.assertSame(layout, first.getParent());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.AdditionalMatchers;
+import org.mockito.Mockito;
+
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinService;
+import com.vaadin.server.VaadinSession;
+
+public class PushConfigurationCoalescingTest {
+
+    private ScheduledExecutorService executor;
+    private PushConfigurationImpl configuration;
+
+    @Before
+    public void setUp() {
+        executor = Mockito.mock(ScheduledExecutorService.class);
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getScheduledExecutor()).thenReturn(executor);
+        VaadinSession session = new MockVaadinSession(service);
+
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+
+            @Override
+            public VaadinSession getSession() {
+                return session;
+            }
+        };
+        configuration = (PushConfigurationImpl) ui.getPushConfiguration();
+    }
+
+    @Test
+    public void coalescingDisabledByDefault() {
+        Assert.assertEquals(0, configuration.getCoalescingMaxLatency());
+        Assert.assertEquals(0, configuration.getCoalescingMaxBatchSize());
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertFalse(configuration.deferPush());
+        }
+        Assert.assertEquals(3, configuration.getSentPushCount());
+        Assert.assertEquals(0, configuration.getCoalescedPushCount());
+        Mockito.verifyZeroInteractions(executor);
+    }
+
+    @Test
+    public void pushesWithinWindow_coalescedIntoOneFlush() {
+        configuration.setCoalescingMaxLatency(1000);
+
+        Assert.assertFalse("First push should be sent right away",
+                configuration.deferPush());
+        Assert.assertTrue(configuration.deferPush());
+        Assert.assertTrue(configuration.deferPush());
+
+        Assert.assertEquals(1, configuration.getSentPushCount());
+        Assert.assertEquals(2, configuration.getCoalescedPushCount());
+
+        // Flushed at the latest when the window ends
+        Mockito.verify(executor, Mockito.times(1)).schedule(
+                Mockito.any(Runnable.class),
+                AdditionalMatchers.and(AdditionalMatchers.gt(0L),
+                        AdditionalMatchers.leq(
+                                TimeUnit.MILLISECONDS.toNanos(1000))),
+                Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void fullBatch_sentRightAway() {
+        configuration.setCoalescingMaxLatency(1000);
+        configuration.setCoalescingMaxBatchSize(3);
+
+        Assert.assertFalse(configuration.deferPush());
+        Assert.assertTrue(configuration.deferPush());
+        Assert.assertTrue(configuration.deferPush());
+        Assert.assertFalse("Third merged push should fill the batch",
+                configuration.deferPush());
+        Assert.assertTrue(configuration.deferPush());
+
+        Assert.assertEquals(2, configuration.getSentPushCount());
+        Assert.assertEquals(3, configuration.getCoalescedPushCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLatency_throws() {
+        configuration.setCoalescingMaxLatency(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeBatchSize_throws() {
+        configuration.setCoalescingMaxBatchSize(-1);
+    }
+}
@@ -234,6 +234,28 @@ public class CurrentInstanceTest {
         Assert.assertNull(VaadinSession.getCurrent());
     }
 
+    @Test
+    public void wrappedTask_runsWithSubmittingThreadInstances()
+            throws Exception {
+        CurrentInstance.setInheritable(CurrentInstanceTest.class, this);
+        CurrentInstance.set(String.class, "not inheritable");
+        Runnable task = CurrentInstance.wrap(() -> {
+            Assert.assertSame(CurrentInstanceTest.this,
+                    CurrentInstance.get(CurrentInstanceTest.class));
+            Assert.assertNull(CurrentInstance.get(String.class));
+            Assert.assertNull(CurrentInstance.get(Integer.class));
+        });
+        CurrentInstance.clearAll();
+
+        // Simulate a pooled thread with instances from earlier work
+        CurrentInstance.set(Integer.class, Integer.valueOf(1));
+        task.run();
+
+        Assert.assertEquals(Integer.valueOf(1),
+                CurrentInstance.get(Integer.class));
+        Assert.assertNull(CurrentInstance.get(CurrentInstanceTest.class));
+    }
+
     private static void waitUntilGarbageCollected(WeakReference<?> ref)
             throws InterruptedException {
         for (int i = 0; i < 50; i++) {
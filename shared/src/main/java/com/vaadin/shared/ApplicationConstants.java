@@ -158,4 +158,27 @@ public class ApplicationConstants implements Serializable {
      */
     public static final String WIDGETSET_VERSION_ID = "wsver";
 
+    /**
+     * The index of the first changed child in a hierarchy change, which is
+     * sent instead of all the child connector ids of a connector when most of
+     * them are already known by the client.
+     *
+     * @since 8.0
+     */
+    public static final String HIERARCHY_CHANGE_INDEX = "index";
+
+    /**
+     * The number of children removed at the index in a hierarchy change.
+     *
+     * @since 8.0
+     */
+    public static final String HIERARCHY_CHANGE_REMOVED = "removed";
+
+    /**
+     * The ids of the children inserted at the index in a hierarchy change.
+     *
+     * @since 8.0
+     */
+    public static final String HIERARCHY_CHANGE_ADDED = "added";
+
 }